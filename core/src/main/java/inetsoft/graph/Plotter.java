@@ -134,6 +134,11 @@ public class Plotter {
       // clear cached info between generation (48503).
       clearCache(graph, null);
 
+      // the elements set it again if points are skipped in this plot
+      for(int i = 0; i < graph.getElementCount(); i++) {
+         graph.getElement(i).setDataReduced(false);
+      }
+
       initFrames(data);
 
       if(cancelled) {
@@ -584,19 +584,26 @@ public class FacetCoord extends Coordinate {
          vgraph.setPlotBounds(getBounds(plotx, ploty, plotw, ploth, c2));
       }
 
+      boolean parallel = false;
+
       if(getParentCoordinate() == null) {
          layout(x, y, 0, 0);
          // make sure shared bounds are calculated before fit
-         calcElementBounds();
+         parallel = calcElementBounds() && isParallelFit();
       }
 
-      for(int i = 0; i < inners.length; i++) {
-         for(int j = 0; j < inners[i].length; j++) {
-            if(vgraph != null && vgraph.isCancelled()) {
-               return;
-            }
+      if(parallel) {
+         fitParallel();
+      }
+      else {
+         for(int i = 0; i < inners.length; i++) {
+            for(int j = 0; j < inners[i].length; j++) {
+               if(vgraph != null && vgraph.isCancelled()) {
+                  return;
+               }
 
-            inners[i][j].fit();
+               inners[i][j].fit();
+            }
          }
       }
 
@@ -661,6 +668,84 @@ public class FacetCoord extends Coordinate {
       }
    }
 
+   /**
+    * Check if the sub-graphs can be fitted in parallel. A sub-graph only changes its own
+    * axes and visual objects in fit once the shared element bounds are calculated, except
+    * for the 3d and non-rectangular coords, which may change the shared scales.
+    */
+   private boolean isParallelFit() {
+      VGraph vgraph = getVGraph();
+      EGraph graph = vgraph == null ? null : vgraph.getEGraph();
+
+      // the width of left/right aligned labels is kept in a hint of the element, which is
+      // shared by all sub-graphs and can't be set concurrently (ElementVO.getVOTextWidth)
+      if(graph != null && graph.stream().anyMatch(FacetCoord::isSideAlignedText)) {
+         return false;
+      }
+
+      Coordinate[][] coords = getExpandedInnerCoords();
+      int count = 0;
+
+      for(Coordinate[] row : coords) {
+         for(Coordinate coord : row) {
+            if(!(coord instanceof RectCoord) || coord instanceof Rect25Coord) {
+               return false;
+            }
+         }
+
+         count += row.length;
+      }
+
+      return FacetExecutor.isParallel(count);
+   }
+
+   /**
+    * Check if the labels of an element are left or right aligned.
+    */
+   private static boolean isSideAlignedText(GraphElement elem) {
+      int sides = GraphConstants.LEFT_ALIGNMENT | GraphConstants.RIGHT_ALIGNMENT;
+
+      if((elem.getTextSpec().getAlignment() & sides) != 0) {
+         return true;
+      }
+
+      return elem.getTextSpecDims().stream()
+         .map(elem::getTextSpec)
+         .anyMatch(spec -> spec != null && (spec.getAlignment() & sides) != 0);
+   }
+
+   /**
+    * Fit the sub-graphs in parallel.
+    */
+   private void fitParallel() {
+      VGraph vgraph = getVGraph();
+      // the scale fill is changed in fit and the scales may be shared by sub-graphs
+      prepareFit();
+      TileCoord[] tiles = Arrays.stream(inners).flatMap(Arrays::stream)
+         .toArray(TileCoord[]::new);
+
+      FacetExecutor.run(tiles.length, i -> {
+         if(vgraph == null || !vgraph.isCancelled()) {
+            tiles[i].fit();
+         }
+      });
+   }
+
+   /**
+    * Apply the changes to the shared scales before the sub-graphs are fitted.
+    */
+   void prepareFit() {
+      if(outer instanceof RectCoord) {
+         ((RectCoord) outer).checkFill();
+      }
+
+      for(TileCoord[] arr : inners) {
+         for(TileCoord tile : arr) {
+            tile.prepareFit();
+         }
+      }
+   }
+
    /**
     * Create the grid lines and borders.
     */
@@ -1533,8 +1618,9 @@ public class FacetCoord extends Coordinate {
 
    /**
     * Calculate the element bounds for each inner coord.
+    * @return true if the element bounds are calculated.
     */
-   void calcElementBounds() {
+   boolean calcElementBounds() {
       VGraph vgraph = getVGraph();
 
       if(vgraph != null) {
@@ -1543,7 +1629,7 @@ public class FacetCoord extends Coordinate {
          if(graph != null) {
             // only necessary for keeping element in bounds
             if(graph.stream().noneMatch(GraphElement::isInPlot)) {
-               return;
+               return false;
             }
          }
       }
@@ -1551,7 +1637,7 @@ public class FacetCoord extends Coordinate {
       for(int i = 0; i < inners.length; i++) {
          for(int j = 0; j < inners[i].length; j++) {
             if(vgraph != null && vgraph.isCancelled()) {
-               return;
+               return false;
             }
 
             inners[i][j].calcElementBounds();
@@ -1576,7 +1662,7 @@ public class FacetCoord extends Coordinate {
 
          for(int j = 0; j < coords[i].length; j++) {
             if(vgraph != null && vgraph.isCancelled()) {
-               return;
+               return false;
             }
 
             boolean topbottom = GTool.getRotation(coords[i][j].getCoordTransform()) == 0;
@@ -1599,13 +1685,14 @@ public class FacetCoord extends Coordinate {
 
          for(int j = 0; j < coords.length; j++) {
             if(vgraph != null && vgraph.isCancelled()) {
-               return;
+               return false;
             }
 
             boolean topbottom = GTool.getRotation(coords[j][i].getCoordTransform()) != 0;
             setEdges(coords[j][i], edges, topbottom);
          }
       }
+      return true;
    }
 
    /**
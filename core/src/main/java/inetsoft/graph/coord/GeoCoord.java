@@ -266,6 +266,75 @@ public class GeoCoord extends Coordinate {
       xShift.remove();
    }
 
+   /**
+    * Get the tolerance, in degrees, that shapes can be simplified within when drawn on
+    * a coordinate. A shape simplified within the tolerance is less than a quarter of a
+    * pixel away from the full shape.
+    * @return the tolerance, or 0 if the shapes should be drawn in full detail.
+    */
+   public static double getTolerance(Coordinate coord) {
+      if(!(coord instanceof GeoCoord)) {
+         return 0;
+      }
+
+      GeoCoord gcoord = (GeoCoord) coord;
+      Scale xscale = gcoord.getXScale();
+      Scale yscale = gcoord.getYScale();
+
+      // coord size is not known until the coord is initialized for layout
+      if(gcoord.initW <= 0 || gcoord.initH <= 0 || xscale == null || yscale == null) {
+         return 0;
+      }
+
+      // the shapes are scaled to fit both ranges in fit()
+      double perPixel = Math.max((xscale.getMax() - xscale.getMin()) / gcoord.initW,
+                                 (yscale.getMax() - yscale.getMin()) / gcoord.initH);
+      GeoProjection proj = gcoord.projection;
+      // the latitude is stretched the most at the edge farthest from the equator
+      double lat = Math.min(85, Math.max(Math.abs(proj.inverseY(yscale.getMin())),
+                                         Math.abs(proj.inverseY(yscale.getMax()))));
+      double stretch = Math.max(Math.abs(proj.projectX(1) - proj.projectX(0)),
+                                Math.abs(proj.projectY(lat) - proj.projectY(lat - 1)));
+
+      return stretch > 0 ? perPixel / stretch / 4 : 0;
+   }
+
+   /**
+    * Check if an area is far outside of the visible range of a coordinate, by more than
+    * the visible width or height. Shapes in the area don't need to be drawn in detail.
+    * This method should be called between startShape() and endShape().
+    * @param minx the minimum longitude of the area.
+    * @param miny the minimum latitude of the area.
+    * @param maxx the maximum longitude of the area.
+    * @param maxy the maximum latitude of the area.
+    */
+   public static boolean isOutside(Coordinate coord, double minx, double miny,
+                                   double maxx, double maxy)
+   {
+      if(!(coord instanceof GeoCoord) || ((GeoCoord) coord).initW <= 0) {
+         return false;
+      }
+
+      GeoCoord gcoord = (GeoCoord) coord;
+      Scale xscale = gcoord.getXScale();
+      Scale yscale = gcoord.getYScale();
+      GeoProjection proj = gcoord.projection;
+      Double shift = xShift.get();
+
+      if(shift != null) {
+         minx += shift;
+         maxx += shift;
+      }
+
+      double xrange = xscale.getMax() - xscale.getMin();
+      double yrange = yscale.getMax() - yscale.getMin();
+
+      return proj.projectX(maxx) < xscale.getMin() - xrange ||
+         proj.projectX(minx) > xscale.getMax() + xrange ||
+         proj.projectY(maxy) < yscale.getMin() - yrange ||
+         proj.projectY(miny) > yscale.getMax() + yrange;
+   }
+
    /**
     * Initialize this coordinate for the specified chart data set.
     */
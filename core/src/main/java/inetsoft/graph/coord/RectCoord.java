@@ -671,7 +671,7 @@ public class RectCoord extends Coordinate {
       layoutText(vgraph, true);
    }
 
-   private void checkFill() {
+   void checkFill() {
       checkFill(xaxis1);
       checkFill(xaxis2);
       checkFill(yaxis1);
@@ -123,6 +123,20 @@ public abstract class TileCoord extends AbstractCoord {
       }
    }
 
+   /**
+    * Apply the changes to the shared scales before the inner coords are fitted.
+    */
+   void prepareFit() {
+      for(Coordinate coord : coords) {
+         if(coord instanceof RectCoord) {
+            ((RectCoord) coord).checkFill();
+         }
+         else if(coord instanceof FacetCoord) {
+            ((FacetCoord) coord).prepareFit();
+         }
+      }
+   }
+
    /**
     * Calculate the element bounds for each inner coord.
     */
@@ -853,6 +853,17 @@ public abstract class AbstractDataSet implements DataSet {
       return obj;
    }
 
+   /**
+    * Get the object the base values of this data set are read from. The value indexes of the
+    * base columns are shared by the data sets with the same source, so the base values must
+    * only depend on the source.
+    * @return the source, or null if the indexes can't be shared.
+    * @hidden
+    */
+   public Object getIndexSource() {
+      return null;
+   }
+
    // @by ChrisSpagnoli bug1429507986738 2015-4-24
    // This method is executed by DataSetIndex.createSubDataSet(), in order to
    // save the reference to the child DataSets for later Trend Line Projection.
@@ -350,16 +350,32 @@ public class DataSetIndex {
     * Create an index map, from value to row BitSet.
     */
    private Map<Object, BitSet> createIndexMap(DataSet dset, int colIdx) {
-      Map<Object, BitSet> map = new HashMap<>(); // value -> BitSet
       Class<?> cls = dset.getType(dset.getHeader(colIdx));
       // @by ChrisSpagnoli bug1429507986738 2015-4-24
       // Use getRowCountUnprojected(), if possible.
       int rowCount = dset.getRowCount();
 
       if(dset instanceof AbstractDataSet) {
-         rowCount = ((AbstractDataSet)dset).getRowCountUnprojected();
+         AbstractDataSet adata = (AbstractDataSet) dset;
+         rowCount = adata.getRowCountUnprojected();
+
+         // the index of a base column without calc rows only depends on the source values
+         if(colIdx < adata.getColCount0() && rowCount == adata.getRowCount0()) {
+            final int rcnt = rowCount;
+            String key = colIdx + ":" + cls + ":" + rcnt;
+            return DataSetIndexCache.getIndex(adata.getIndexSource(), key,
+                                              () -> createIndexMap(dset, colIdx, cls, rcnt));
+         }
       }
 
+      return createIndexMap(dset, colIdx, cls, rowCount);
+   }
+
+   private Map<Object, BitSet> createIndexMap(DataSet dset, int colIdx, Class<?> cls,
+                                              int rowCount)
+   {
+      Map<Object, BitSet> map = new HashMap<>(); // value -> BitSet
+
       for(int i = 0; i < rowCount; i++) {
          Object v = dset.getData(colIdx, i);
          v = normalize(v, cls);
@@ -369,7 +385,12 @@ public class DataSetIndex {
             map.put(v, bits = new BitSet());
          }
 
-         bits.set(i);
+         // rows are added in order so the runs of the same value are stored as ranges
+         bits.add(i);
+      }
+
+      for(BitSet bits : map.values()) {
+         bits.complete();
       }
 
       return map;
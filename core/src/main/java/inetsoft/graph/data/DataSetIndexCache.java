@@ -0,0 +1,75 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2024  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.graph.data;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import inetsoft.mv.data.BitSet;
+import inetsoft.sree.SreeEnv;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * DataSetIndexCache keeps the value indexes of the base columns of the data sets that read
+ * their values from the same source, e.g. the charts bound to the same table lens, so the
+ * indexes are built once until the source is replaced. The indexes are released when the
+ * source is garbage collected or the memory is low. Sharing is disabled by setting
+ * {@code graph.index.shared} to {@code false}.
+ *
+ * @version 14.0
+ * @author InetSoft Technology Corp
+ */
+final class DataSetIndexCache {
+   private DataSetIndexCache() {
+   }
+
+   /**
+    * Get the index of a column.
+    * @param source the source of the data set values, see
+    * {@link AbstractDataSet#getIndexSource()}.
+    * @param key the key of the column index in the source.
+    * @param builder the function to build the index if it's not cached.
+    * @return the map from the column values to the rows. It must not be modified.
+    */
+   static Map<Object, BitSet> getIndex(Object source, String key,
+                                       Supplier<Map<Object, BitSet>> builder)
+   {
+      if(source == null || "false".equals(SreeEnv.getProperty("graph.index.shared"))) {
+         return builder.get();
+      }
+
+      Map<String, Map<Object, BitSet>> indexes =
+         CACHE.get(source, k -> new ConcurrentHashMap<>());
+      Map<Object, BitSet> index = indexes.get(key);
+
+      // build outside of the map lock, a concurrent build of the same index is discarded
+      if(index == null) {
+         index = builder.get();
+         Map<Object, BitSet> index0 = indexes.putIfAbsent(key, index);
+         index = index0 != null ? index0 : index;
+      }
+
+      return index;
+   }
+
+   // the sources are compared by identity
+   private static final Cache<Object, Map<String, Map<Object, BitSet>>> CACHE =
+      Caffeine.newBuilder().weakKeys().softValues().build();
+}
@@ -0,0 +1,325 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2024  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.graph.element;
+
+import inetsoft.graph.GGraph;
+import inetsoft.graph.aesthetic.VisualFrame;
+import inetsoft.graph.data.DataSet;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.*;
+import java.util.List;
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * This class selects the rows of a large data set that are needed to draw a line or
+ * scatter plot at the plot size. Lines are downsampled with the largest triangle three
+ * buckets algorithm, and the points of a scatter plot are binned into a pixel grid.
+ *
+ * @version 14.0
+ * @author InetSoft Technology Corp
+ */
+final class DataReducer {
+   /**
+    * Select the rows to plot on lines.
+    * @param elem the line element.
+    * @param seriesKey the key of the line a row is plotted on.
+    * @return the rows to plot, or null to plot all rows.
+    */
+   static BitSet reduceLines(GraphElement elem, DataSet data, GGraph graph,
+                             IntFunction<Object> seriesKey)
+   {
+      Dimension lod = elem.getLevelOfDetail();
+
+      if(lod == null || lod.width <= 0) {
+         return null;
+      }
+
+      // one point per half pixel is enough to draw the peaks of a line
+      int threshold = Math.max(lod.width * 2, MIN_LINE_POINTS);
+      int start = elem.getStartRow(data);
+      int end = elem.getEndRow(data);
+
+      if(end - start <= threshold) {
+         return null;
+      }
+
+      Map<Object, Series> lines = new HashMap<>();
+      BitSet rows = new BitSet();
+      int count = 0;
+
+      for(int i = start; i < end; i++) {
+         if(!elem.isAccepted(data, i)) {
+            continue;
+         }
+
+         count++;
+
+         for(int v = 0; v < elem.getVarCount(); v++) {
+            double[] tuple = elem.scale(data, i, v, graph);
+
+            if(tuple == null) {
+               continue;
+            }
+
+            // the x of nested dimensions is not ordered along the line
+            if(tuple.length != 2) {
+               return null;
+            }
+
+            // keep the gaps in lines
+            if(Double.isNaN(tuple[0]) || Double.isNaN(tuple[1])) {
+               rows.set(i);
+               continue;
+            }
+
+            Object key = v + "|" + seriesKey.apply(i);
+            lines.computeIfAbsent(key, k -> new Series()).add(i, tuple[0], tuple[1]);
+         }
+      }
+
+      for(Series line : lines.values()) {
+         lttb(line.rows.elements(), line.xs.elements(), line.ys.elements(), line.rows.size(),
+              threshold, rows);
+      }
+
+      return getReducedRows(elem, rows, count);
+   }
+
+   /**
+    * Select the rows to plot as points.
+    * @param elem the point element.
+    * @return the rows to plot, or null to plot all rows.
+    */
+   static BitSet reducePoints(GraphElement elem, DataSet data, GGraph graph) {
+      Dimension lod = elem.getLevelOfDetail();
+
+      if(lod == null || lod.width <= 0 || lod.height <= 0) {
+         return null;
+      }
+
+      int start = elem.getStartRow(data);
+      int end = elem.getEndRow(data);
+
+      if((end - start) * elem.getVarCount() <= MIN_POINTS) {
+         return null;
+      }
+
+      VisualFrame[] frames = {
+         elem.getColorFrame(), elem.getSizeFrame(), elem.getShapeFrame(),
+         elem.getTextureFrame() };
+      List<String> fields = new ArrayList<>();
+
+      for(VisualFrame frame : frames) {
+         if(frame != null && frame.getField() != null) {
+            fields.add(frame.getField());
+         }
+      }
+
+      Series points = new Series();
+      IntArrayList vars = new IntArrayList();
+      BitSet rows = new BitSet();
+      int count = 0;
+
+      for(int i = start; i < end; i++) {
+         if(!elem.isAccepted(data, i)) {
+            continue;
+         }
+
+         count++;
+
+         for(int v = 0; v < elem.getVarCount(); v++) {
+            double[] tuple = elem.scale(data, i, v, graph);
+
+            if(tuple == null) {
+               continue;
+            }
+
+            if(tuple.length != 2) {
+               return null;
+            }
+
+            if(Double.isNaN(tuple[0]) || Double.isNaN(tuple[1])) {
+               rows.set(i);
+               continue;
+            }
+
+            points.add(i, tuple[0], tuple[1]);
+            vars.add(v);
+         }
+      }
+
+      bin(points.rows.elements(), points.xs.elements(), points.ys.elements(), points.rows.size(),
+          lod.width, lod.height, row -> getAestheticKey(data, row, fields), vars.elements(),
+          rows);
+      return getReducedRows(elem, rows, count);
+   }
+
+   /**
+    * Downsample a line with the largest triangle three buckets algorithm. The first and
+    * last points are always kept, and one point is kept in each bucket in between, which
+    * is the point that forms the largest triangle with the point kept in the previous
+    * bucket and the average of the next bucket.
+    * @param rows the rows of the points, ordered along the line.
+    * @param xs the x positions of the points.
+    * @param ys the y positions of the points.
+    * @param count the number of points.
+    * @param threshold the number of points to keep.
+    * @param keep the set the kept rows are added to.
+    */
+   static void lttb(int[] rows, double[] xs, double[] ys, int count, int threshold,
+                    BitSet keep)
+   {
+      if(count <= threshold || threshold < 3) {
+         for(int i = 0; i < count; i++) {
+            keep.set(rows[i]);
+         }
+
+         return;
+      }
+
+      double every = (double) (count - 2) / (threshold - 2);
+      int a = 0;
+      keep.set(rows[0]);
+
+      for(int i = 0; i < threshold - 2; i++) {
+         int avgStart = (int) ((i + 1) * every) + 1;
+         int avgEnd = Math.min((int) ((i + 2) * every) + 1, count);
+         double avgX = 0;
+         double avgY = 0;
+
+         for(int j = avgStart; j < avgEnd; j++) {
+            avgX += xs[j];
+            avgY += ys[j];
+         }
+
+         avgX /= avgEnd - avgStart;
+         avgY /= avgEnd - avgStart;
+
+         int bucketEnd = (int) ((i + 1) * every) + 1;
+         double maxArea = -1;
+         int next = a + 1;
+
+         for(int j = (int) (i * every) + 1; j < bucketEnd; j++) {
+            double area = Math.abs((xs[a] - avgX) * (ys[j] - ys[a]) -
+                                   (xs[a] - xs[j]) * (avgY - ys[a]));
+
+            if(area > maxArea) {
+               maxArea = area;
+               next = j;
+            }
+         }
+
+         keep.set(rows[next]);
+         a = next;
+      }
+
+      keep.set(rows[count - 1]);
+   }
+
+   /**
+    * Bin the points into a grid, keeping one point for each cell. The last point in a
+    * cell is kept since it's painted on top of the other points in the cell.
+    * @param rows the rows of the points.
+    * @param xs the x positions of the points.
+    * @param ys the y positions of the points.
+    * @param count the number of points.
+    * @param cols the number of grid columns.
+    * @param cells the number of grid rows.
+    * @param aesthetic the key of the appearance of the point on a row. Points with
+    *                  different appearances are kept in separate bins.
+    * @param vars the var index of the points.
+    * @param keep the set the kept rows are added to.
+    */
+   static void bin(int[] rows, double[] xs, double[] ys, int count, int cols, int cells,
+                   IntFunction<Object> aesthetic, int[] vars, BitSet keep)
+   {
+      double minX = Double.MAX_VALUE, maxX = -Double.MAX_VALUE;
+      double minY = Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+
+      for(int i = 0; i < count; i++) {
+         minX = Math.min(minX, xs[i]);
+         maxX = Math.max(maxX, xs[i]);
+         minY = Math.min(minY, ys[i]);
+         maxY = Math.max(maxY, ys[i]);
+      }
+
+      double cellW = maxX > minX ? (maxX - minX) / cols : 1;
+      double cellH = maxY > minY ? (maxY - minY) / cells : 1;
+      Map<Cell, Integer> last = new HashMap<>();
+
+      for(int i = 0; i < count; i++) {
+         int cx = (int) ((xs[i] - minX) / cellW);
+         int cy = (int) ((ys[i] - minY) / cellH);
+         last.put(new Cell(cx, cy, vars[i], aesthetic.apply(rows[i])), rows[i]);
+      }
+
+      for(int row : last.values()) {
+         keep.set(row);
+      }
+   }
+
+   private static Object getAestheticKey(DataSet data, int row, List<String> fields) {
+      if(fields.isEmpty()) {
+         return null;
+      }
+
+      Object[] key = new Object[fields.size()];
+
+      for(int i = 0; i < key.length; i++) {
+         key[i] = data.getData(fields.get(i), row);
+      }
+
+      return Arrays.asList(key);
+   }
+
+   private static BitSet getReducedRows(GraphElement elem, BitSet rows, int count) {
+      int kept = rows.cardinality();
+
+      if(kept >= count) {
+         return null;
+      }
+
+      LOG.debug("Plotting {} of {} rows at the level of detail", kept, count);
+      elem.setDataReduced(true);
+      return rows;
+   }
+
+   private static final class Series {
+      void add(int row, double x, double y) {
+         rows.add(row);
+         xs.add(x);
+         ys.add(y);
+      }
+
+      private final IntArrayList rows = new IntArrayList();
+      private final DoubleArrayList xs = new DoubleArrayList();
+      private final DoubleArrayList ys = new DoubleArrayList();
+   }
+
+   private record Cell(int x, int y, int var, Object aesthetic) {
+   }
+
+   private static final int MIN_LINE_POINTS = 500;
+   private static final int MIN_POINTS = 10000;
+   private static final Logger LOG = LoggerFactory.getLogger(DataReducer.class);
+}
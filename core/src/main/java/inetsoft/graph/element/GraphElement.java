@@ -509,6 +509,38 @@ public abstract class GraphElement extends Graphable {
       return selector == null || selector.accept(data, row, null);
    }
 
+   /**
+    * Set the size of the plot for reducing the points of a large data set. If a line or
+    * a scatter plot has more points than can be distinguished at this size, the points
+    * that don't change the appearance of the plot are not plotted.
+    * @param size the plot size in pixels, or null to plot all points.
+    */
+   public void setLevelOfDetail(Dimension size) {
+      this.lod = size == null ? null : new Dimension(size);
+   }
+
+   /**
+    * Get the size of the plot for reducing the points of a large data set.
+    */
+   public Dimension getLevelOfDetail() {
+      return lod == null ? null : new Dimension(lod);
+   }
+
+   /**
+    * Check if some points were not plotted because of the level of detail.
+    */
+   public boolean isDataReduced() {
+      return reduced;
+   }
+
+   /**
+    * Set if some points were not plotted because of the level of detail. It's cleared
+    * before each plot.
+    */
+   public void setDataReduced(boolean reduced) {
+      this.reduced = reduced;
+   }
+
    /**
     * Get the border line color.
     */
@@ -1097,6 +1129,7 @@ public abstract class GraphElement extends Graphable {
          Objects.equals(textSpec, elem2.textSpec) &&
          Objects.equals(textSpecMap, elem2.textSpecMap) &&
          Objects.equals(borderColor, elem2.borderColor) &&
+         Objects.equals(lod, elem2.lod) &&
          Arrays.equals(sortfields, elem2.sortfields);
    }
 
@@ -1178,6 +1211,8 @@ public abstract class GraphElement extends Graphable {
    private Color borderColor;
    private String[] sortfields = {};
    private boolean stack = false;
+   private Dimension lod;
+   private transient volatile boolean reduced;
 
    private static final Logger LOG = LoggerFactory.getLogger(GraphElement.class);
 }
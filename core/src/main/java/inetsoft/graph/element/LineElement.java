@@ -163,6 +163,14 @@ public class LineElement extends StackableElement {
       boolean stackGroup = isStackGroup();
       boolean stack = isStack();
       int max = getEndRow(data);
+      DataSet ldata = data;
+      // skip the points that don't show at the plot size. the stacked values are
+      // accumulated from all points, and the calc columns of the groups are not
+      // prepared yet, so they can't be skipped
+      boolean calc = stackGroup && data instanceof AbstractDataSet &&
+         !((AbstractDataSet) data).getCalcColumns().isEmpty();
+      BitSet lod = getVarCount() == 0 || stack || calc ? null : DataReducer.reduceLines(
+         this, data, graph, stackGroup ? i -> getLineGroupKey(ldata, i) : i -> "");
 
       // if no var, that mains the values are plotted on axes and we will
       // create one tuple for each dimension value instead of one per var
@@ -238,7 +246,7 @@ public class LineElement extends StackableElement {
          }
 
          for(int i = getStartRow(data); i < max; i++) {
-            if(!isAccepted(data, i)) {
+            if(!isAccepted(data, i) || lod != null && !lod.get(i)) {
                continue;
             }
 
@@ -328,7 +336,7 @@ public class LineElement extends StackableElement {
          boolean first = true;
 
          for(int i = getStartRow(data); i < max; i++) {
-            if(!isAccepted(data, i)) {
+            if(!isAccepted(data, i) || lod != null && !lod.get(i)) {
                continue;
             }
 
@@ -414,7 +422,7 @@ public class LineElement extends StackableElement {
             List<Integer> tidxs = new ArrayList<>(); // tuple index (row in dataset)
 
             for(int i = keyRows.nextSetBit(0); i >= 0; i = keyRows.nextSetBit(i + 1)) {
-               if(nulls != null && nulls.get(i)) {
+               if(nulls != null && nulls.get(i) || lod != null && !lod.get(i)) {
                   continue;
                }
 
@@ -231,9 +231,12 @@ public class PointElement extends StackableElement {
          }
       }
       else if(!stack) {
+         // skip the points that are hidden by other points at the plot size
+         BitSet lod = DataReducer.reducePoints(this, data, graph);
+
          // mapping each variable
          for(int i = getStartRow(data); i < max; i++) {
-            if(!isAccepted(data, i)) {
+            if(!isAccepted(data, i) || lod != null && !lod.get(i)) {
                continue;
             }
 
@@ -18,17 +18,21 @@
 package inetsoft.graph.geo;
 
 import inetsoft.util.FileSystemService;
-import org.apache.commons.io.IOUtils;
+import inetsoft.util.Tool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.util.*;
 import java.util.zip.GZIPInputStream;
 
 /**
- * Specialization of GeoMap that only buffers a limited number of shapes in
- * memory.
+ * Specialization of GeoMap that doesn't keep the shapes in memory. The shape file is
+ * converted to a binary {@link GeoShapeStore} in the cache directory the first time it
+ * is loaded, and the shapes are read from the memory mapped store when they are drawn.
  *
  * @since 10.2
  * @author InetSoft Technology
@@ -60,146 +64,87 @@ public class BufferedGeoMap extends GeoMap {
     */
    @Override
    protected void load(String file) throws IOException {
-      final File tmpfile = FileSystemService.getInstance().getCacheTempFile("map", "csv");
+      File storeFile = getStoreFile(file);
 
-      InputStream input = null;
-      OutputStream output = null;
+      if(storeFile.exists()) {
+         try {
+            store = GeoShapeStore.open(storeFile, file);
+            return;
+         }
+         catch(IOException ex) {
+            LOG.debug("Failed to open map shape file, recreating it: {}", storeFile, ex);
+         }
+      }
 
-      byte[] buffer = new byte[1024];
-      int len = 0;
+      File tmpfile = FileSystemService.getInstance().getCacheTempFile("map", "tmp");
+      Map<String, GeoShape> shapes = new HashMap<>();
 
-      try {
-         input = getInputStream(file);
-         output = new FileOutputStream(tmpfile);
+      try(BufferedReader reader = new BufferedReader(
+             new InputStreamReader(getInputStream(file), StandardCharsets.UTF_8));
+          GeoShapeStore.Writer writer = GeoShapeStore.createWriter(tmpfile))
+      {
+         String line;
 
-         while((len = input.read(buffer)) >= 0) {
-            output.write(buffer, 0, len);
-         }
-      }
-      finally {
-         IOUtils.closeQuietly(input);
-         IOUtils.closeQuietly(output);
-      }
+         while((line = reader.readLine()) != null) {
+            int idx = line.indexOf('|');
 
-      RandomAccessFile rafile = new RandomAccessFile(tmpfile, "rw");
-      dataInput = new RandomAccessInputStream(rafile);
+            if(idx <= 0) {
+               continue;
+            }
 
-      Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
-         @Override
-         public void run() {
             try {
-               dataInput.close();
+               GeoShape shape = readShape(line, shapes, null);
+               writer.add(line.substring(0, idx), shape);
             }
-            catch(IOException exc) {
-               LoggerFactory.getLogger("inetsoft").warn("Failed to close map data file", exc);
+            catch(IOException ex) {
+               LOG.warn("Failed to read map shape {} in {}", line.substring(0, idx), file, ex);
             }
 
-            tmpfile.delete();
+            shapes.clear();
          }
-      }));
-
-      input = getClass().getResourceAsStream(file + ".index");
+      }
 
-      if(input != null) {
-         try {
-            BufferedReader reader =
-               new BufferedReader(new InputStreamReader(input));
-            String line = null;
-            
-            while((line = reader.readLine()) != null) {
-               line = line.trim();
-               
-               if(line.length() == 0) {
-                  continue;
-               }
-               
-               int idx = line.indexOf('|');
-               
-               if(idx >= 0) {
-                  String key = line.substring(0, idx);
-                  long offset = Long.parseLong(line.substring(idx + 1));
-                  offsets.put(key, offset);
-               }
-            }
-         }
-         finally {
-            input.close();
-         }
+      try {
+         Files.move(tmpfile.toPath(), storeFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
       }
-      else {
-         try {
-            OUTER: while(true) {
-               long pos = dataInput.getPosition();
-               StringBuilder builder = new StringBuilder();
-               
-               while(true) {
-                  int c = dataInput.read();
-                  
-                  if(c == '\r' || c == '\n') {
-                     continue OUTER;
-                  }
-                  
-                  if(c < 0) {
-                     break OUTER;
-                  }
-                  
-                  if(c == '|') {
-                     String key = builder.toString();
-                     offsets.put(key, pos);
-                     
-                     while(true) {
-                        c = dataInput.read();
-                        
-                        if(c == '\r' || c == '\n') {
-                           continue OUTER;
-                        }
-                        
-                        if(c < 0) {
-                           break OUTER;
-                        }
-                     }
-                  }
-                  
-                  builder.append((char) c);
-               }
-            }
-         }
-         finally {
-            dataInput.close();
-         }
+      catch(IOException ex) {
+         // another process may have the file open, use the new file for this one
+         LOG.debug("Failed to replace map shape file: {}", storeFile, ex);
+         storeFile = tmpfile;
+         tmpfile.deleteOnExit();
       }
+
+      store = GeoShapeStore.open(storeFile, file);
+   }
+
+   /**
+    * Get the store file of a shape file. The store file is shared by the server
+    * instances, and is recreated when the shape file changes.
+    */
+   private File getStoreFile(String file) throws IOException {
+      URL url = getClass().getResource(file);
+
+      if(url == null) {
+         throw new IOException("Map file not found: " + file);
+      }
+
+      long modified = url.openConnection().getLastModified();
+      String name = "geomap_" + Tool.toFileName(file) + "_" + modified + ".bin";
+      return new File(FileSystemService.getInstance().getCacheDirectory(), name);
    }
    
    /**
     * {@inheritDoc}
     */
    @Override
-   public synchronized GeoShape getShape(String name) throws Exception {
+   public GeoShape getShape(String name) throws Exception {
       GeoShape shape = super.getShape(name);
-      
-      if(shape != null) {
-         return shape;
-      }
-      
-      shape = cache.get(name);
-      
-      if(shape == null && offsets.containsKey(name)) {
-         long offset = offsets.get(name);
-         
-         try {
-            dataInput.seek(offset);
-            
-            BufferedReader reader =
-               new BufferedReader(new InputStreamReader(dataInput));
-            
-            String line = reader.readLine();
-            shape = readShape(line, cache, null);
-         }
-         catch(IOException exc) {
-            LOG.error("Failed to load map shape", exc);
-         }
+
+      if(shape == null && store != null) {
+         shape = store.getShape(name);
       }
-      
+
       return shape;
    }
    
@@ -207,87 +152,20 @@ public class BufferedGeoMap extends GeoMap {
     * {@inheritDoc}
     */
    @Override
-   public Collection<String> getNames() {
-      return offsets.keySet();
-   }
-
-   private static final class RandomAccessInputStream extends InputStream {
-      public RandomAccessInputStream(RandomAccessFile file) {
-         this.file = file;
-      }
-
-      @Override
-      public int read() throws IOException {
-         return file.read();
-      }
-
-      @Override
-      public int read(byte[] b) throws IOException {
-         return file.read(b);
-      }
-
-      @Override
-      public int read(byte[] b, int off, int len) throws IOException {
-         return file.read(b, off, len);
-      }
-
-      @Override
-      public int available() throws IOException {
-         return (int) (file.length() - file.getFilePointer());
-      }
-
-      @Override
-      public long skip(long n) throws IOException {
-         file.seek(file.getFilePointer() + n);
-         return n;
-      }
+   public Collection<String> getNames() throws Exception {
+      Collection<String> names = super.getNames();
 
-      @Override
-      public boolean markSupported() {
-         return true;
+      if(store == null) {
+         return names;
       }
 
-      @Override
-      public synchronized void mark(int readlimit) {
-         try {
-            mark = file.getFilePointer();
-         }
-         catch(IOException exc) {
-            LOG.error("Failed to set input stream mark", exc);
-         }
-      }
-
-      @Override
-      public synchronized void reset() throws IOException {
-         file.seek(mark);
-      }
-
-      @Override
-      public void close() throws IOException {
-         file.close();
-      }
-
-      public long getPosition() throws IOException {
-         return file.getFilePointer();
-      }
-
-      public void seek(long pos) throws IOException {
-         file.seek(pos);
-      }
-
-      private final RandomAccessFile file;
-      private long mark = 0L;
+      // the extra shapes are rendered after the regular shapes
+      List<String> all = new ArrayList<>(store.getNames());
+      all.addAll(names);
+      return all;
    }
-   
-   private RandomAccessInputStream dataInput = null;
-   private Map<String,Long> offsets = new HashMap();
-   private Map<String,GeoShape> cache = new LinkedHashMap(16, 0.75F, true)
-   {
-      @Override
-      protected boolean removeEldestEntry(Map.Entry eldest) {
-         return size() > 100;
-      }
-   };
+
+   private volatile GeoShapeStore store;
 
    private static final Logger LOG =
       LoggerFactory.getLogger(BufferedGeoMap.class);
@@ -145,9 +145,9 @@ public abstract class GeoShape implements Cloneable, Serializable {
     */
    public Shape getShape(Coordinate coord) {
       GeneralPath path = new GeneralPath(GeneralPath.WIND_EVEN_ODD);
-      Shape s = getShape();
 
       GeoCoord.startShape(coord, bounds.getMinX(), bounds.getMaxX());
+      Shape s = getDetailShape(coord);
 
       PathIterator pi = new CoordPathIterator(s.getPathIterator(null), coord);
       path.append(pi, false);
@@ -156,6 +156,17 @@ public abstract class GeoShape implements Cloneable, Serializable {
       return path;
    }
 
+   /**
+    * Get the AWT shape, in longitude and latitude, that is drawn on a coordinate. A shape
+    * may be simplified to the level of detail that is visible at the coordinate size. The
+    * default implementation returns the full shape.
+    * @param coord the coordinate transform.
+    * @return the AWT shape.
+    */
+   protected Shape getDetailShape(Coordinate coord) {
+      return getShape();
+   }
+
    /**
     * Check if the shape should be painted with anti-aliasing on.
     */
@@ -0,0 +1,596 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2024  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.graph.geo;
+
+import inetsoft.graph.coord.Coordinate;
+import inetsoft.graph.coord.GeoCoord;
+
+import java.awt.Shape;
+import java.awt.geom.*;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * A store of map shapes in a compact binary file. The file is memory mapped and the
+ * shapes are read from it on demand, so the shapes of a large map don't need to be
+ * parsed or kept in memory. Each shape is stored at several levels of detail that are
+ * simplified with the Douglas-Peucker algorithm.
+ * <p>
+ * The file contains a header with the simplification tolerances, the shape records, an
+ * index of the shape names, record offsets and bounds, and the offset of the index in
+ * the last 8 bytes.
+ *
+ * @author InetSoft Technology
+ * @since  14.0
+ */
+final class GeoShapeStore {
+   private GeoShapeStore(String mapFile, ByteBuffer buffer, double[] tolerances,
+                         Map<String, Integer> names, long[] offsets, Rectangle2D[] bounds)
+   {
+      this.mapFile = mapFile;
+      this.buffer = buffer;
+      this.tolerances = tolerances;
+      this.names = names;
+      this.offsets = offsets;
+      this.bounds = bounds;
+   }
+
+   /**
+    * Opens a shape store file.
+    *
+    * @param file    the store file.
+    * @param mapFile the map file the store was created from.
+    *
+    * @return the shape store.
+    *
+    * @throws IOException if the file could not be read or is not a shape store.
+    */
+   static GeoShapeStore open(File file, String mapFile) throws IOException {
+      try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+         long size = channel.size();
+
+         if(size > Integer.MAX_VALUE) {
+            throw new IOException("Map shape file too large: " + file);
+         }
+
+         ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+         if(size < 20 || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Invalid map shape file: " + file);
+         }
+
+         double[] tolerances = new double[buffer.getInt(8)];
+
+         for(int i = 0; i < tolerances.length; i++) {
+            tolerances[i] = buffer.getDouble(12 + i * 8);
+         }
+
+         long indexOffset = buffer.getLong((int) size - 8);
+         channel.position(indexOffset);
+         DataInputStream input = new DataInputStream(
+            new BufferedInputStream(Channels.newInputStream(channel)));
+         int count = input.readInt();
+         Map<String, Integer> names = new LinkedHashMap<>();
+         long[] offsets = new long[count];
+         Rectangle2D[] bounds = new Rectangle2D[count];
+
+         for(int i = 0; i < count; i++) {
+            names.put(input.readUTF(), i);
+            offsets[i] = input.readLong();
+            bounds[i] = new Rectangle2D.Double(
+               input.readDouble(), input.readDouble(), input.readDouble(), input.readDouble());
+         }
+
+         return new GeoShapeStore(mapFile, buffer, tolerances, names, offsets, bounds);
+      }
+   }
+
+   /**
+    * Creates a writer for a new shape store file.
+    *
+    * @param file the store file.
+    *
+    * @return the writer.
+    *
+    * @throws IOException if an I/O error occurs.
+    */
+   static Writer createWriter(File file) throws IOException {
+      return new Writer(file, TOLERANCES);
+   }
+
+   /**
+    * Get the names of all shapes in the store, in the order they were added.
+    */
+   Collection<String> getNames() {
+      return Collections.unmodifiableSet(names.keySet());
+   }
+
+   /**
+    * Gets a shape.
+    *
+    * @param name the shape name.
+    *
+    * @return the shape, or {@code null} if not in the store.
+    */
+   GeoShape getShape(String name) {
+      Integer index = names.get(name);
+      return index == null ? null : new StoredShape(this, name, index);
+   }
+
+   /**
+    * Get the coarsest level of detail that is within a simplification tolerance.
+    */
+   int getLevel(double tolerance) {
+      int level = 0;
+
+      for(int i = 1; i < tolerances.length; i++) {
+         if(tolerances[i] <= tolerance) {
+            level = i;
+         }
+      }
+
+      return level;
+   }
+
+   /**
+    * Creates the path of a shape at a level of detail.
+    *
+    * @param name  the shape name.
+    * @param level the level of detail, 0 for the full shape.
+    */
+   Shape getPath(String name, int level) {
+      return createPath((int) offsets[names.get(name)], level, null);
+   }
+
+   /**
+    * Creates the path of a shape at a level of detail.
+    *
+    * @param offset the offset of the shape record.
+    * @param level  the level of detail.
+    * @param coord  the coordinate the shape is drawn on, used to cull the rings that are
+    *               far outside of the visible area, or {@code null} to keep all rings.
+    */
+   private Shape createPath(int offset, int level, Coordinate coord) {
+      int levels = offset + RECORD_HEADER + tolerances.length * 4;
+      int pos = levels + buffer.getInt(offset + RECORD_HEADER + level * 4);
+      int ringCount = buffer.getInt(pos);
+      pos += 4;
+      GeneralPath path = new GeneralPath(GeneralPath.WIND_EVEN_ODD);
+
+      for(int r = 0; r < ringCount; r++) {
+         boolean closed = buffer.get(pos) != 0;
+         int count = buffer.getInt(pos + 1);
+         pos += 5;
+         float minx = buffer.getFloat(pos);
+         float miny = buffer.getFloat(pos + 4);
+         float maxx = buffer.getFloat(pos + 8);
+         float maxy = buffer.getFloat(pos + 12);
+         pos += 16;
+
+         // a ring far outside of the visible area is replaced by its bounding box, which
+         // keeps the bounds of the shape that are used in the chart layout
+         if(coord != null && GeoCoord.isOutside(coord, minx, miny, maxx, maxy)) {
+            path.moveTo(minx, miny);
+            path.lineTo(maxx, miny);
+            path.lineTo(maxx, maxy);
+            path.lineTo(minx, maxy);
+            path.closePath();
+            pos += count * 8;
+            continue;
+         }
+
+         for(int i = 0; i < count; i++, pos += 8) {
+            if(i == 0) {
+               path.moveTo(buffer.getFloat(pos), buffer.getFloat(pos + 4));
+            }
+            else {
+               path.lineTo(buffer.getFloat(pos), buffer.getFloat(pos + 4));
+            }
+         }
+
+         if(closed) {
+            path.closePath();
+         }
+      }
+
+      return path;
+   }
+
+   /**
+    * Simplifies a line with the Douglas-Peucker algorithm.
+    *
+    * @param points    the x and y of the points on the line.
+    * @param tolerance the maximum distance of the removed points from the simplified line.
+    *
+    * @return the x and y of the points that are kept.
+    */
+   static float[] simplify(float[] points, double tolerance) {
+      int n = points.length / 2;
+
+      if(tolerance <= 0 || n <= 2) {
+         return points;
+      }
+
+      boolean[] keep = new boolean[n];
+      keep[0] = keep[n - 1] = true;
+      int[] stack = new int[n * 2];
+      int top = 0;
+      double tolerance2 = tolerance * tolerance;
+      stack[top++] = 0;
+      stack[top++] = n - 1;
+
+      while(top > 0) {
+         int last = stack[--top];
+         int first = stack[--top];
+         double max = -1;
+         int index = -1;
+
+         for(int i = first + 1; i < last; i++) {
+            double dist = getDistance2(points, i, first, last);
+
+            if(dist > max) {
+               max = dist;
+               index = i;
+            }
+         }
+
+         if(index > 0 && max > tolerance2) {
+            keep[index] = true;
+            stack[top++] = first;
+            stack[top++] = index;
+            stack[top++] = index;
+            stack[top++] = last;
+         }
+      }
+
+      int count = 0;
+
+      for(boolean k : keep) {
+         count += k ? 1 : 0;
+      }
+
+      float[] result = new float[count * 2];
+
+      for(int i = 0, j = 0; i < n; i++) {
+         if(keep[i]) {
+            result[j++] = points[i * 2];
+            result[j++] = points[i * 2 + 1];
+         }
+      }
+
+      return result;
+   }
+
+   /**
+    * Get the squared distance from a point to the segment between two other points.
+    */
+   private static double getDistance2(float[] points, int i, int first, int last) {
+      double x = points[i * 2], y = points[i * 2 + 1];
+      double x1 = points[first * 2], y1 = points[first * 2 + 1];
+      double dx = points[last * 2] - x1, dy = points[last * 2 + 1] - y1;
+      double len2 = dx * dx + dy * dy;
+      double t = len2 == 0 ? 0 : ((x - x1) * dx + (y - y1) * dy) / len2;
+      t = Math.max(0, Math.min(1, t));
+      double px = x1 + t * dx - x, py = y1 + t * dy - y;
+      return px * px + py * py;
+   }
+
+   /**
+    * Writes the shapes of a map into a store file.
+    */
+   static final class Writer implements Closeable {
+      private Writer(File file, double[] tolerances) throws IOException {
+         this.tolerances = tolerances;
+         this.output = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(file), 65536));
+         output.writeInt(MAGIC);
+         output.writeInt(VERSION);
+         output.writeInt(tolerances.length);
+
+         for(double tolerance : tolerances) {
+            output.writeDouble(tolerance);
+         }
+      }
+
+      /**
+       * Adds a shape to the store.
+       *
+       * @param name  the shape name.
+       * @param shape the shape.
+       *
+       * @throws IOException if an I/O error occurs.
+       */
+      void add(String name, GeoShape shape) throws IOException {
+         if(index.containsKey(name)) {
+            return;
+         }
+
+         List<float[]> rings = new ArrayList<>();
+         List<Boolean> closed = new ArrayList<>();
+         int flags = (shape.isFill() ? FILL : 0) | (shape.isOutline() ? OUTLINE : 0) |
+            (shape.isAntiAlias() ? ANTI_ALIAS : 0);
+
+         try {
+            getRings(shape.getShape(), rings, closed);
+         }
+         catch(UnsupportedOperationException ex) {
+            // point shapes don't have a path
+            flags |= NO_PATH;
+         }
+
+         long offset = output.size();
+         Point2D secondary = shape.getSecondaryAnchor();
+         Rectangle2D bounds = shape.getBounds();
+         output.writeByte(flags);
+         output.writeDouble(shape.getPrimaryAnchor().getX());
+         output.writeDouble(shape.getPrimaryAnchor().getY());
+         output.writeDouble(secondary == null ? Double.NaN : secondary.getX());
+         output.writeDouble(secondary == null ? Double.NaN : secondary.getY());
+
+         ByteArrayOutputStream levels = new ByteArrayOutputStream();
+         DataOutputStream levelOutput = new DataOutputStream(levels);
+         List<float[]> previous = rings;
+         List<Boolean> previousClosed = closed;
+
+         for(double tolerance : tolerances) {
+            output.writeInt(levels.size());
+            List<float[]> simplified = new ArrayList<>();
+            List<Boolean> simplifiedClosed = new ArrayList<>();
+
+            for(int i = 0; i < rings.size(); i++) {
+               float[] ring = simplify(rings.get(i), tolerance);
+
+               // rings that are smaller than the tolerance are dropped
+               if(ring.length / 2 >= getMinPoints(rings.get(i), closed.get(i))) {
+                  simplified.add(ring);
+                  simplifiedClosed.add(closed.get(i));
+               }
+            }
+
+            // keep the previous level instead of dropping all rings of a shape
+            if(simplified.isEmpty() && !rings.isEmpty()) {
+               simplified = previous;
+               simplifiedClosed = previousClosed;
+            }
+
+            writeRings(levelOutput, simplified, simplifiedClosed);
+            previous = simplified;
+            previousClosed = simplifiedClosed;
+         }
+
+         levelOutput.flush();
+         levels.writeTo(output);
+         index.put(name, new Object[] { offset, bounds });
+      }
+
+      @Override
+      public void close() throws IOException {
+         long indexOffset = output.size();
+         output.writeInt(index.size());
+
+         for(Map.Entry<String, Object[]> e : index.entrySet()) {
+            Rectangle2D bounds = (Rectangle2D) e.getValue()[1];
+            output.writeUTF(e.getKey());
+            output.writeLong((Long) e.getValue()[0]);
+            output.writeDouble(bounds.getX());
+            output.writeDouble(bounds.getY());
+            output.writeDouble(bounds.getWidth());
+            output.writeDouble(bounds.getHeight());
+         }
+
+         output.writeLong(indexOffset);
+         output.close();
+
+         if(indexOffset > Integer.MAX_VALUE) {
+            throw new IOException("Map shape file too large");
+         }
+      }
+
+      private static void getRings(Shape shape, List<float[]> rings, List<Boolean> closed) {
+         float[] coords = new float[6];
+         float[] ring = new float[64];
+         int count = 0;
+
+         for(PathIterator iter = shape.getPathIterator(null); !iter.isDone(); iter.next()) {
+            int type = iter.currentSegment(coords);
+
+            if(type == PathIterator.SEG_MOVETO && count > 0) {
+               rings.add(Arrays.copyOf(ring, count));
+               closed.add(false);
+               count = 0;
+            }
+
+            if(type == PathIterator.SEG_MOVETO || type == PathIterator.SEG_LINETO) {
+               if(count + 2 > ring.length) {
+                  ring = Arrays.copyOf(ring, ring.length * 2);
+               }
+
+               ring[count++] = coords[0];
+               ring[count++] = coords[1];
+            }
+            else if(type == PathIterator.SEG_CLOSE && count > 0) {
+               rings.add(Arrays.copyOf(ring, count));
+               closed.add(true);
+               count = 0;
+            }
+         }
+
+         if(count > 0) {
+            rings.add(Arrays.copyOf(ring, count));
+            closed.add(false);
+         }
+      }
+
+      private static int getMinPoints(float[] ring, boolean closed) {
+         if(!closed) {
+            return 2;
+         }
+
+         int n = ring.length / 2;
+         boolean repeated = n > 1 && ring[0] == ring[n * 2 - 2] && ring[1] == ring[n * 2 - 1];
+         return repeated ? 4 : 3;
+      }
+
+      private static void writeRings(DataOutputStream output, List<float[]> rings,
+                                     List<Boolean> closed) throws IOException
+      {
+         output.writeInt(rings.size());
+
+         for(int i = 0; i < rings.size(); i++) {
+            float[] ring = rings.get(i);
+            float minx = Float.MAX_VALUE, miny = Float.MAX_VALUE;
+            float maxx = -Float.MAX_VALUE, maxy = -Float.MAX_VALUE;
+
+            for(int j = 0; j < ring.length; j += 2) {
+               minx = Math.min(minx, ring[j]);
+               maxx = Math.max(maxx, ring[j]);
+               miny = Math.min(miny, ring[j + 1]);
+               maxy = Math.max(maxy, ring[j + 1]);
+            }
+
+            output.writeBoolean(closed.get(i));
+            output.writeInt(ring.length / 2);
+            output.writeFloat(minx);
+            output.writeFloat(miny);
+            output.writeFloat(maxx);
+            output.writeFloat(maxy);
+
+            for(float value : ring) {
+               output.writeFloat(value);
+            }
+         }
+      }
+
+      private final double[] tolerances;
+      private final DataOutputStream output;
+      private final Map<String, Object[]> index = new LinkedHashMap<>();
+   }
+
+   /**
+    * A shape that is read from the store when it is drawn.
+    */
+   private static final class StoredShape extends GeoShape {
+      StoredShape(GeoShapeStore store, String name, int index) {
+         this.store = store;
+         this.mapFile = store.mapFile;
+         this.name = name;
+         this.index = index;
+         this.offset = (int) store.offsets[index];
+
+         ByteBuffer buffer = store.buffer;
+         flags = buffer.get(offset);
+         setPrimaryAnchor(new Point2D.Double(
+            buffer.getDouble(offset + 1), buffer.getDouble(offset + 9)));
+         double sx = buffer.getDouble(offset + 17);
+         double sy = buffer.getDouble(offset + 25);
+
+         if(!Double.isNaN(sx) && !Double.isNaN(sy)) {
+            setSecondaryAnchor(new Point2D.Double(sx, sy));
+         }
+
+         setBounds((Rectangle2D) store.bounds[index].clone());
+      }
+
+      @Override
+      protected Shape getShape() {
+         checkPath();
+         return store.createPath(offset, 0, null);
+      }
+
+      @Override
+      protected Shape getDetailShape(Coordinate coord) {
+         checkPath();
+         return store.createPath(offset, store.getLevel(GeoCoord.getTolerance(coord)), coord);
+      }
+
+      @Override
+      public boolean isOutline() {
+         return (flags & OUTLINE) != 0;
+      }
+
+      @Override
+      public boolean isFill() {
+         return (flags & FILL) != 0;
+      }
+
+      @Override
+      protected boolean isAntiAlias() {
+         return (flags & ANTI_ALIAS) != 0;
+      }
+
+      @Override
+      public boolean equals(Object obj) {
+         return obj instanceof StoredShape && ((StoredShape) obj).index == index &&
+            ((StoredShape) obj).mapFile.equals(mapFile);
+      }
+
+      @Override
+      public int hashCode() {
+         return mapFile.hashCode() * 31 + index;
+      }
+
+      private void checkPath() {
+         if((flags & NO_PATH) != 0) {
+            throw new UnsupportedOperationException("Not supported yet.");
+         }
+      }
+
+      // the map file is loaded again when a serialized shape is read
+      private Object readResolve() throws ObjectStreamException {
+         try {
+            GeoShape shape = GeoMap.getMap(mapFile, false).getShape(name);
+            return shape != null ? shape : this;
+         }
+         catch(Exception ex) {
+            InvalidObjectException thrown = new InvalidObjectException("Failed to load map shape");
+            thrown.initCause(ex);
+            throw thrown;
+         }
+      }
+
+      private final transient GeoShapeStore store;
+      private final String mapFile;
+      private final String name;
+      private final int index;
+      private final int offset;
+      private final byte flags;
+      private static final long serialVersionUID = 1L;
+   }
+
+   private final String mapFile;
+   private final ByteBuffer buffer;
+   private final double[] tolerances;
+   private final Map<String, Integer> names;
+   private final long[] offsets;
+   private final Rectangle2D[] bounds;
+
+   // simplification tolerances of the levels of detail, in degrees
+   private static final double[] TOLERANCES = { 0, 0.002, 0.01, 0.05, 0.25 };
+   // flags and anchors, followed by the offsets of the levels of detail
+   private static final int RECORD_HEADER = 33;
+   private static final int MAGIC = 0x47454f53; // GEOS
+   private static final int VERSION = 1;
+   private static final int FILL = 1;
+   private static final int OUTLINE = 2;
+   private static final int ANTI_ALIAS = 4;
+   private static final int NO_PATH = 8;
+}
@@ -19,9 +19,9 @@ package inetsoft.graph.geo.solver;
 
 import inetsoft.graph.data.DataSet;
 import org.apache.commons.codec.StringEncoder;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.*;
 
 /**
@@ -57,17 +57,31 @@ public abstract class AbstractDistanceAlgorithm
    public List<Match> findMatches(DataSet source, int[] sourceColumns,
                                   NameTable names, int[] nameColumns, int row)
    {
-      Object[] data = new Object[sourceColumns.length];
-
-      for(int i = 0; i < data.length; i++) {
-         data[i] = source.getData(sourceColumns[i], row);
+      NameIndex[] indexes = new NameIndex[sourceColumns.length];
+      int[][] distances = new int[sourceColumns.length][];
+
+      // the distance is calculated once for each distinct code in a name column
+      for(int i = 0; i < indexes.length; i++) {
+         indexes[i] = names.getIndex(encoder, nameColumns[i]);
+         String code = getCode(indexes[i], source, sourceColumns[i], row);
+         distances[i] = indexes[i].getDistances(code);
       }
 
-      Visitor visitor = new Visitor(data, nameColumns);
-      names.accept(visitor);
-      Collections.sort(visitor.matches);
+      List<Match> matches = new ArrayList<>();
+      NameIndex ids = indexes.length == 0 ? names.getIndex(encoder, 0) : indexes[0];
 
-      return visitor.matches;
+      for(int entry = 0; entry < ids.getEntryCount(); entry++) {
+         int distance = 0;
+
+         for(int i = 0; i < indexes.length; i++) {
+            distance += distances[i][indexes[i].getCode(entry)];
+         }
+
+         matches.add(new Match(ids.getId(entry), distance));
+      }
+
+      Collections.sort(matches);
+      return matches;
    }
 
    /**
@@ -84,9 +98,44 @@ public abstract class AbstractDistanceAlgorithm
    public Match findBestMatch(DataSet source, int[] sourceColumns, NameTable names,
                               int[] nameColumns, int row)
    {
-      List<Match> matches = findMatches(source, sourceColumns, names,
-         nameColumns, row);
-      return matches.isEmpty() ? null : matches.get(0);
+      Object[] data = new Object[sourceColumns.length];
+
+      for(int i = 0; i < data.length; i++) {
+         data[i] = source.getData(sourceColumns[i], row);
+      }
+
+      // the values may contain the separators of a string key, so the key keeps them apart
+      Object key = Arrays.asList(names.getName(), Arrays.asList(data), Arrays.toString(nameColumns));
+      Match match = bestMatches.get(key);
+
+      if(match == null) {
+         if(sourceColumns.length == 1) {
+            NameIndex index = names.getIndex(encoder, nameColumns[0]);
+            int[] best = index.findBest(getCode(index, source, sourceColumns[0], row));
+            match = best == null ? null : new Match(index.getId(best[0]), best[1]);
+         }
+         else {
+            List<Match> matches = findMatches(source, sourceColumns, names, nameColumns, row);
+            match = matches.isEmpty() ? null : matches.get(0);
+         }
+
+         if(match != null) {
+            bestMatches.put(key, match);
+         }
+      }
+
+      return match;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public String findBestMatchID(DataSet source, int[] sourceColumns,
+                                 NameTable names, int[] nameColumns, int row)
+   {
+      Match match = findBestMatch(source, sourceColumns, names, nameColumns, row);
+      return match == null ? null : match.getID();
    }
 
    /**
@@ -117,105 +166,26 @@ public abstract class AbstractDistanceAlgorithm
       return ids;
    }
 
-   private final StringEncoder encoder;
-   private static final Logger LOG =
-      LoggerFactory.getLogger(AbstractDistanceAlgorithm.class);
-
-   private final class Visitor implements NameTable.NameVisitor {
-      public Visitor(Object[] data, int[] idxs) {
-         this.data = data;
-         this.idxs = idxs;
-      }
-
-      @Override
-      public void visit(String id, String[] columns) {
-         int distance = 0;
-
-         for(int i = 0; i < data.length; i++) {
-            String s1 = data[i] == null ? null : String.valueOf(data[i]);
-            String s2 = (idxs[i] < columns.length) ? columns[idxs[i]] : null;
-
-            try {
-               s1 = s1 == null ? null : encoder.encode(s1);
-               s1 = s1 == null ? null : s1.toLowerCase();
-               s2 = s2 == null ? null : encoder.encode(s2);
-               s2 = s2 == null ? null : s2.toLowerCase();
-            }
-            catch(Throwable exc) {
-               LOG.debug("Failed to encode string: {}", exc.getMessage());
-            }
-
-            distance += distance(s1, s2);
-         }
-
-         matches.add(new Match(id, distance));
-      }
-
-      private int distance(String s1, String s2) {
-         if(s1 == null) {
-            return s2 == null ? 0 : s2.length();
-         }
-
-         if(s2 == null) {
-            return s1.length();
-         }
-
-         int n = s1.length();
-         int m = s2.length();
-
-         if(n == 0) {
-            return m;
-         }
-
-         if(m == 0) {
-            return n;
-         }
-
-         if(n > m) {
-            String swap = s1;
-            s1 = s2;
-            s2 = swap;
-            n = m;
-            m = s2.length();
-         }
-
-         int[] p = new int[n + 1];
-         int[] d = new int[n + 1];
-         int[] _d;
-
-         int i, j;
-         char c;
-         int cost;
-
-         for(i = 0; i <= n; i++) {
-            p[i] = i;
-         }
-
-         for(j = 1; j <= m; j++) {
-            c = s2.charAt(j - 1);
-            d[0] = j;
+   private String getCode(NameIndex index, DataSet source, int column, int row) {
+      Object value = source.getData(column, row);
+      return value == null ? null : index.encode(String.valueOf(value));
+   }
 
-            for(i = 1; i <= n; i++) {
-               cost = s1.charAt(i - 1) == c ? 0 : 1;
-               d[i] = Math.min(
-                  Math.min(d[i - 1] + 1, p[i] + 1), p[i - 1 + cost]);
-            }
+   private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+      in.defaultReadObject();
+      bestMatches = createCache();
+   }
 
-            _d = p;
-            p = d;
-            d = _d;
+   private static Map<Object, Match> createCache() {
+      return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75F, true) {
+         @Override
+         protected boolean removeEldestEntry(Map.Entry<Object, Match> eldest) {
+            return size() > 10000;
          }
-
-         return p[n];
-      }
-
-      @Override
-      public void addMatch(String id) {
-         matches.add(new Match(id, 0));
-      }
-
-      private final Object[] data;
-      private final int[] idxs;
-      private final List<Match> matches = new ArrayList();
+      });
    }
+
+   private final StringEncoder encoder;
+   // best matches of the source values, source values are often repeated in a column
+   private transient Map<Object, Match> bestMatches = createCache();
 }
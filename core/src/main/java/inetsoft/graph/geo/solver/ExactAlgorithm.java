@@ -100,13 +100,57 @@ public class ExactAlgorithm extends AbstractMatchingAlgorithm {
 
       if(matches == null) {
          Visitor visitor = new Visitor(data, nameColumns);
-         names[0].accept(visitor);
-         cache.put(key, matches = visitor.matches);
+
+         if(visitor.getNameForId() != null || nameColumns.length == 0) {
+            names[0].accept(visitor);
+            matches = visitor.matches;
+         }
+         else {
+            matches = findIDs(names[0], visitor.data, nameColumns);
+         }
+
+         cache.put(key, matches);
       }
 
       return matches;
    }
 
+   /**
+    * Finds the ids of the map features with the (lower case) values in the name columns.
+    */
+   private static List<String> findIDs(NameTable names, Object[] data, int[] cols) {
+      List<String> ids = new ArrayList<>();
+      NameIndex[] indexes = new NameIndex[cols.length];
+      int[] codes = new int[cols.length];
+
+      for(int i = 0; i < cols.length; i++) {
+         // only strings are equal to the names
+         if(!(data[i] instanceof String)) {
+            return ids;
+         }
+
+         indexes[i] = names.getIndex(null, cols[i]);
+         codes[i] = indexes[i].getCodeIndex((String) data[i]);
+
+         if(codes[i] < 0) {
+            return ids;
+         }
+      }
+
+      OUTER:
+      for(int entry : indexes[0].getEntries((String) data[0])) {
+         for(int i = 1; i < cols.length; i++) {
+            if(indexes[i].getCode(entry) != codes[i]) {
+               continue OUTER;
+            }
+         }
+
+         ids.add(indexes[0].getId(entry));
+      }
+
+      return ids;
+   }
+
    private Object getDataKey(NameTable names, Object[] data, int[] cols) {
       return names.getName() + ":" + Arrays.toString(data) + Arrays.toString(cols);
    }
@@ -0,0 +1,368 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2024  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.graph.geo.solver;
+
+import org.apache.commons.codec.StringEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Index of the encoded names in one column of a name table. The distinct codes are
+ * hashed for exact lookups and indexed by their characters for finding the closest code,
+ * so a source value is matched without comparing it to every map feature.
+ *
+ * @author InetSoft Technology
+ * @since  14.0
+ */
+final class NameIndex {
+   /**
+    * Creates a new instance of <tt>NameIndex</tt>.
+    *
+    * @param ids     the map feature ids, in the order of the name table entries.
+    * @param names   the names in the indexed column, {@code null} if the entry has no
+    *                value in the column.
+    * @param encoder the encoder of the names, or {@code null} to index the names as-is.
+    */
+   NameIndex(String[] ids, String[] names, StringEncoder encoder) {
+      this.ids = ids;
+      this.encoder = encoder;
+      this.entryCodes = new int[names.length];
+      Map<String, Integer> codeIds = new HashMap<>();
+      List<String> codeList = new ArrayList<>();
+      List<List<Integer>> entryList = new ArrayList<>();
+      int nullCode = -1;
+
+      for(int i = 0; i < names.length; i++) {
+         String code = names[i] == null ? null : encode(names[i]);
+         Integer codeId = code == null ? (nullCode >= 0 ? nullCode : null) : codeIds.get(code);
+
+         if(codeId == null) {
+            codeId = codeList.size();
+            codeList.add(code);
+            entryList.add(new ArrayList<>());
+
+            if(code == null) {
+               nullCode = codeId;
+            }
+            else {
+               codeIds.put(code, codeId);
+            }
+         }
+
+         entryCodes[i] = codeId;
+         entryList.get(codeId).add(i);
+      }
+
+      this.codes = codeList.toArray(new String[0]);
+      this.codeIds = codeIds;
+      this.codeEntries = new int[codes.length][];
+
+      for(int i = 0; i < codes.length; i++) {
+         codeEntries[i] = entryList.get(i).stream().mapToInt(Integer::intValue).toArray();
+      }
+   }
+
+   /**
+    * Encodes a value with the encoder of this index.
+    *
+    * @param value the value.
+    *
+    * @return the lower case code.
+    */
+   String encode(String value) {
+      if(value != null && encoder != null) {
+         try {
+            value = encoder.encode(value);
+         }
+         catch(Throwable exc) {
+            LOG.debug("Failed to encode string: {}", exc.getMessage());
+            return value;
+         }
+      }
+
+      return value == null ? null : value.toLowerCase();
+   }
+
+   /**
+    * Gets the number of entries in the name table.
+    */
+   int getEntryCount() {
+      return ids.length;
+   }
+
+   /**
+    * Gets the map feature id of an entry.
+    */
+   String getId(int entry) {
+      return ids[entry];
+   }
+
+   /**
+    * Gets the code of an entry.
+    *
+    * @return the index of the code.
+    */
+   int getCode(int entry) {
+      return entryCodes[entry];
+   }
+
+   /**
+    * Gets the entries that have a code.
+    *
+    * @param code the encoded value.
+    *
+    * @return the entries in table order.
+    */
+   int[] getEntries(String code) {
+      int codeId = getCodeIndex(code);
+      return codeId < 0 ? new int[0] : codeEntries[codeId];
+   }
+
+   /**
+    * Gets the index of a code.
+    *
+    * @param code the encoded value.
+    *
+    * @return the index of the code, or -1 if no entry has the code.
+    */
+   int getCodeIndex(String code) {
+      Integer codeId = code == null ? null : codeIds.get(code);
+      return codeId == null ? -1 : codeId;
+   }
+
+   /**
+    * Gets the distances from a code to all codes in this index.
+    *
+    * @param code the encoded value.
+    *
+    * @return the distances indexed by the code index.
+    */
+   int[] getDistances(String code) {
+      int[] distances = new int[codes.length];
+
+      for(int i = 0; i < codes.length; i++) {
+         distances[i] = distance(code, codes[i]);
+      }
+
+      return distances;
+   }
+
+   /**
+    * Finds the first entry, in table order, with the code that is closest to a code.
+    *
+    * @param code the encoded value.
+    *
+    * @return the entry and the distance, or {@code null} if the index is empty.
+    */
+   int[] findBest(String code) {
+      if(codes.length == 0) {
+         return null;
+      }
+
+      int[] bounds = getLowerBounds(code);
+      int maxBound = 0;
+
+      for(int bound : bounds) {
+         maxBound = Math.max(maxBound, bound);
+      }
+
+      // visit the codes in the order of their lower bound, and stop when the remaining
+      // codes can't be closer than the best match
+      int[] counts = new int[maxBound + 2];
+
+      for(int bound : bounds) {
+         counts[bound + 1]++;
+      }
+
+      for(int i = 1; i < counts.length; i++) {
+         counts[i] += counts[i - 1];
+      }
+
+      int[] order = new int[codes.length];
+
+      for(int i = 0; i < codes.length; i++) {
+         order[counts[bounds[i]]++] = i;
+      }
+
+      int best = Integer.MAX_VALUE;
+      int bestEntry = Integer.MAX_VALUE;
+
+      for(int codeId : order) {
+         if(bounds[codeId] > best) {
+            break;
+         }
+
+         int distance = distance(code, codes[codeId]);
+         int entry = codeEntries[codeId][0];
+
+         if(distance < best || distance == best && entry < bestEntry) {
+            best = distance;
+            bestEntry = entry;
+         }
+      }
+
+      return new int[] { bestEntry, best };
+   }
+
+   /**
+    * Gets the lower bounds of the distances from a code to all codes in this index. Each
+    * character of the shorter string that is not matched adds to the distance, so strings
+    * that share few characters can't be close.
+    */
+   private int[] getLowerBounds(String code) {
+      int[] common = new int[codes.length];
+
+      if(code != null) {
+         for(Map.Entry<Character, Integer> e : getCharacters(code).entrySet()) {
+            int[] postings = getPostings().get(e.getKey());
+
+            if(postings != null) {
+               for(int i = 0; i < postings.length; i += 2) {
+                  common[postings[i]] += Math.min(e.getValue(), postings[i + 1]);
+               }
+            }
+         }
+      }
+
+      int[] bounds = new int[codes.length];
+
+      for(int i = 0; i < codes.length; i++) {
+         if(code == null || codes[i] == null || code.isEmpty() || codes[i].isEmpty()) {
+            bounds[i] = distance(code, codes[i]);
+         }
+         else {
+            bounds[i] = Math.min(code.length(), codes[i].length()) - common[i];
+         }
+      }
+
+      return bounds;
+   }
+
+   private Map<Character, int[]> getPostings() {
+      Map<Character, int[]> postings = this.postings;
+
+      if(postings == null) {
+         Map<Character, List<Integer>> lists = new HashMap<>();
+
+         for(int i = 0; i < codes.length; i++) {
+            if(codes[i] != null) {
+               for(Map.Entry<Character, Integer> e : getCharacters(codes[i]).entrySet()) {
+                  List<Integer> list = lists.computeIfAbsent(e.getKey(), k -> new ArrayList<>());
+                  list.add(i);
+                  list.add(e.getValue());
+               }
+            }
+         }
+
+         postings = new HashMap<>();
+
+         for(Map.Entry<Character, List<Integer>> e : lists.entrySet()) {
+            postings.put(e.getKey(), e.getValue().stream().mapToInt(Integer::intValue).toArray());
+         }
+
+         this.postings = postings;
+      }
+
+      return postings;
+   }
+
+   private static Map<Character, Integer> getCharacters(String str) {
+      Map<Character, Integer> characters = new HashMap<>();
+
+      for(int i = 0; i < str.length(); i++) {
+         characters.merge(str.charAt(i), 1, Integer::sum);
+      }
+
+      return characters;
+   }
+
+   /**
+    * Gets the distance between two strings, as calculated by the matching algorithms.
+    * A {@code null} string is the same as an empty string.
+    */
+   static int distance(String s1, String s2) {
+      if(s1 == null) {
+         return s2 == null ? 0 : s2.length();
+      }
+
+      if(s2 == null) {
+         return s1.length();
+      }
+
+      int n = s1.length();
+      int m = s2.length();
+
+      if(n == 0) {
+         return m;
+      }
+
+      if(m == 0) {
+         return n;
+      }
+
+      if(n > m) {
+         String swap = s1;
+         s1 = s2;
+         s2 = swap;
+         n = m;
+         m = s2.length();
+      }
+
+      int[] p = new int[n + 1];
+      int[] d = new int[n + 1];
+      int[] _d;
+
+      int i, j;
+      char c;
+      int cost;
+
+      for(i = 0; i <= n; i++) {
+         p[i] = i;
+      }
+
+      for(j = 1; j <= m; j++) {
+         c = s2.charAt(j - 1);
+         d[0] = j;
+
+         for(i = 1; i <= n; i++) {
+            cost = s1.charAt(i - 1) == c ? 0 : 1;
+            d[i] = Math.min(
+               Math.min(d[i - 1] + 1, p[i] + 1), p[i - 1 + cost]);
+         }
+
+         _d = p;
+         p = d;
+         d = _d;
+      }
+
+      return p[n];
+   }
+
+   private final String[] ids;
+   private final StringEncoder encoder;
+   private final int[] entryCodes;
+   private final String[] codes;
+   private final Map<String, Integer> codeIds;
+   private final int[][] codeEntries;
+   // character -> code index and count pairs, built on first use
+   private volatile Map<Character, int[]> postings;
+
+   private static final Logger LOG = LoggerFactory.getLogger(NameIndex.class);
+}
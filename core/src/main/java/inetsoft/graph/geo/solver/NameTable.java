@@ -19,6 +19,7 @@ package inetsoft.graph.geo.solver;
 
 import inetsoft.util.DataSpace;
 import inetsoft.util.MessageException;
+import org.apache.commons.codec.StringEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,6 +27,7 @@ import java.io.*;
 import java.lang.ref.SoftReference;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -156,28 +158,12 @@ public final class NameTable implements Serializable {
     * @return the display id.
     */
    public String getId(String label) {
-      String id = null;
-
       if(label == null || label.isEmpty()) {
-         return id;
-      }
-
-      for(String tempId : data.keySet()) {
-         if(id != null) {
-            break;
-         }
-
-         String[] names = data.get(tempId);
-
-         for(String name : names) {
-            if(label.equals(name)) {
-               id = tempId;
-               break;
-            }
-         }
+         return null;
       }
 
-      return id;
+      load();
+      return labelIds.get(label);
    }
 
    /**
@@ -208,18 +194,60 @@ public final class NameTable implements Serializable {
     * @param visitor the visitor to accept.
     */
    public final void accept(NameVisitor visitor) {
+      CachedData cdata = getCachedData();
+      List<IdValues> entries = cdata.sortedData;
+      Map<String, String> name2Id = cdata.name2Id;
+
+      if(visitor.getNameForId() != null) {
+         visitor.addMatch(name2Id.get(visitor.getNameForId()));
+         return;
+      }
+
+      for(IdValues entry : entries) {
+         visitor.visit(entry.id, entry.values);
+      }
+   }
+
+   /**
+    * Gets the index of a name column. The entries in the index are in the same order as
+    * the map features visited by {@link #accept(NameVisitor)}.
+    *
+    * @param encoder the encoder used to encode the names, or {@code null} to index the
+    *                lower case names.
+    * @param column  the name column.
+    *
+    * @return the name index.
+    */
+   NameIndex getIndex(StringEncoder encoder, int column) {
+      CachedData cdata = getCachedData();
+      String key = (encoder == null ? "" : encoder.getClass().getName()) + ":" + column;
+
+      return cdata.indexes.computeIfAbsent(key, k -> {
+         List<IdValues> entries = cdata.sortedData;
+         String[] ids = new String[entries.size()];
+         String[] names = new String[entries.size()];
+
+         for(int i = 0; i < ids.length; i++) {
+            IdValues entry = entries.get(i);
+            ids[i] = entry.id;
+            names[i] = column < entry.values.length ? entry.values[column] : null;
+         }
+
+         return new NameIndex(ids, names, encoder);
+      });
+   }
+
+   private CachedData getCachedData() {
       load();
 
       CachedData cdata = cachedData.get();
-      List<IdValues> entries;
-      Map<String, String> name2Id;
 
       if(cdata == null) {
-         entries = data.entrySet().stream()
+         List<IdValues> entries = data.entrySet().stream()
             .map(e -> new IdValues(e)).collect(Collectors.toList());
          entries.sort(getEntryComparator());
 
-         name2Id = new HashMap<>();
+         Map<String, String> name2Id = new HashMap<>();
 
          for(IdValues entry : entries) {
             if(!name2Id.containsKey(entry.values[0])) {
@@ -227,21 +255,11 @@ public final class NameTable implements Serializable {
             }
          }
 
-         cachedData = new SoftReference<>(new CachedData(entries, name2Id));
-      }
-      else {
-         entries = cdata.sortedData;
-         name2Id = cdata.name2Id;
-      }
-
-      if(visitor.getNameForId() != null) {
-         visitor.addMatch(name2Id.get(visitor.getNameForId()));
-         return;
+         cdata = new CachedData(entries, name2Id);
+         cachedData = new SoftReference<>(cdata);
       }
 
-      for(IdValues entry : entries) {
-         visitor.visit(entry.id, entry.values);
-      }
+      return cdata;
    }
 
    // sort capitals to top
@@ -328,6 +346,13 @@ public final class NameTable implements Serializable {
          catch(IOException exc) {
             LOG.error("Failed to load name table from " + file, exc);
          }
+
+         // same id as found by scanning the table
+         for(Map.Entry<String, String[]> e : data.entrySet()) {
+            for(String label : e.getValue()) {
+               labelIds.putIfAbsent(label, e.getKey());
+            }
+         }
       }
    }
 
@@ -368,6 +393,7 @@ public final class NameTable implements Serializable {
    private static class CachedData {
       List<IdValues> sortedData; // optimization
       Map<String, String> name2Id; // optimization
+      Map<String, NameIndex> indexes = new ConcurrentHashMap<>(); // encoder:column -> index
 
       public CachedData(List<IdValues> sortedData, Map<String, String> name2Id) {
          this.sortedData = sortedData;
@@ -381,6 +407,7 @@ public final class NameTable implements Serializable {
    private final int[] labelColumns;
    private final String file;
    private final Map<String, String[]> data;
+   private final Map<String, String> labelIds = new HashMap<>(); // name -> id
    private final int capitalColumn;
    private final Set<String> primary = new HashSet<>(); // national capital
    private final Set<String> admin = new HashSet<>(); // state/province capital
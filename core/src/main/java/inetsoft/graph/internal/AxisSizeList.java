@@ -62,14 +62,8 @@ public class AxisSizeList implements ISize {
    @Override
    public double getMinSize() {
       if(msize < 0) {
-         double size = 0;
-
-         for(int i = 0; i < coords.size(); i++) {
-            ICoordinate coord = (ICoordinate) coords.get(i);
-            size = Math.max(strategy.getMinSize(coord), size);
-         }
-
-         msize = size;
+         msize = FacetExecutor.max(coords.size(),
+            i -> strategy.getMinSize((ICoordinate) coords.get(i)));
       }
 
       return msize;
@@ -81,14 +75,9 @@ public class AxisSizeList implements ISize {
    @Override
    public double getPreferredSize() {
       if(psize < 0) {
-         double size = 0;
-
-         for(int i = 0; i < coords.size(); i++) {
-            ICoordinate coord = (ICoordinate) coords.get(i);
-            size = Math.max(strategy.getPreferredSize(coord), size);
-         }
-
-         psize = size;
+         // the axes of the sub-graphs in a facet are measured in parallel
+         psize = FacetExecutor.max(coords.size(),
+            i -> strategy.getPreferredSize((ICoordinate) coords.get(i)));
       }
 
       return psize;
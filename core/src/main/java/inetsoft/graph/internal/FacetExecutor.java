@@ -0,0 +1,149 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2024  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.graph.internal;
+
+import inetsoft.sree.SreeEnv;
+import inetsoft.util.ThreadContext;
+
+import java.security.Principal;
+import java.util.Locale;
+import java.util.concurrent.*;
+import java.util.function.IntConsumer;
+import java.util.function.IntToDoubleFunction;
+import java.util.stream.IntStream;
+
+/**
+ * FacetExecutor runs the layout of the sub-graphs of a facet chart on a bounded fork-join
+ * pool. The tasks must not depend on each other, and the results are always merged in the
+ * order of the sub-graphs so the layout is the same as when it's done on a single thread.
+ * The principal and locale of the calling thread are set on the pool threads while they run
+ * the tasks. Parallel layout is off by default and is enabled by setting
+ * {@code graph.facet.parallel} to {@code true}.
+ *
+ * @version 14.0
+ * @author InetSoft Technology Corp
+ */
+public final class FacetExecutor {
+   private FacetExecutor() {
+   }
+
+   /**
+    * Check if a number of sub-graph tasks should be run in parallel.
+    */
+   public static boolean isParallel(int count) {
+      return count >= MIN_TASKS &&
+         // a task running on the pool is already part of a parallel layout
+         ForkJoinTask.getPool() != POOL &&
+         "true".equals(SreeEnv.getProperty("graph.facet.parallel"));
+   }
+
+   /**
+    * Run a task for each sub-graph.
+    * @param count the number of sub-graphs.
+    * @param task the task, called with the index of the sub-graph.
+    */
+   public static void run(int count, IntConsumer task) {
+      if(!isParallel(count)) {
+         for(int i = 0; i < count; i++) {
+            task.accept(i);
+         }
+
+         return;
+      }
+
+      Principal principal = ThreadContext.getContextPrincipal();
+      Locale locale = ThreadContext.getLocale();
+      invoke(() -> IntStream.range(0, count).parallel()
+         .forEach(i -> runInContext(i, task, principal, locale)));
+   }
+
+   /**
+    * Run a task with the principal and locale of the thread that started the layout, e.g.
+    * for the formats and localized labels of the axes.
+    */
+   private static void runInContext(int index, IntConsumer task, Principal principal,
+                                    Locale locale)
+   {
+      Principal oprincipal = ThreadContext.getContextPrincipal();
+      Locale olocale = ThreadContext.getLocale();
+      ThreadContext.setContextPrincipal(principal);
+      ThreadContext.setLocale(locale);
+
+      try {
+         task.accept(index);
+      }
+      finally {
+         ThreadContext.setContextPrincipal(oprincipal);
+         ThreadContext.setLocale(olocale);
+      }
+   }
+
+   /**
+    * Get the max of the values calculated for each sub-graph.
+    * @param count the number of sub-graphs.
+    * @param func the function calculating the value of a sub-graph.
+    * @return the max value, or 0 if there is no sub-graph.
+    */
+   public static double max(int count, IntToDoubleFunction func) {
+      double[] values = new double[count];
+      run(count, i -> values[i] = func.applyAsDouble(i));
+      double max = 0;
+
+      for(double value : values) {
+         max = Math.max(max, value);
+      }
+
+      return max;
+   }
+
+   private static void invoke(Runnable task) {
+      try {
+         POOL.submit(task).get();
+      }
+      catch(InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new RuntimeException("Interrupted while laying out facet", e);
+      }
+      catch(ExecutionException e) {
+         if(e.getCause() instanceof RuntimeException) {
+            throw (RuntimeException) e.getCause();
+         }
+         else if(e.getCause() instanceof Error) {
+            throw (Error) e.getCause();
+         }
+
+         throw new RuntimeException("Failed to lay out facet", e.getCause());
+      }
+   }
+
+   private static ForkJoinPool createPool() {
+      return new ForkJoinPool(PARALLELISM, pool -> {
+         ForkJoinWorkerThread thread =
+            ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+         thread.setName("FacetLayout-" + thread.getPoolIndex());
+         thread.setDaemon(true);
+         return thread;
+      }, null, false);
+   }
+
+   // the pool is shared by all charts so leave room for the other requests
+   private static final int PARALLELISM =
+      Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+   private static final int MIN_TASKS = 16;
+   private static final ForkJoinPool POOL = createPool();
+}
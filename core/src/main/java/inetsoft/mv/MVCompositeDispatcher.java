@@ -21,7 +21,6 @@ import inetsoft.mv.data.*;
 import inetsoft.mv.fs.*;
 import inetsoft.mv.fs.internal.*;
 import inetsoft.sree.SreeEnv;
-import inetsoft.sree.internal.cluster.Cluster;
 import inetsoft.uql.VariableTable;
 import inetsoft.uql.XTable;
 import inetsoft.util.*;
@@ -221,7 +220,7 @@ class MVCompositeDispatcher extends MVDispatcher implements Runnable {
 
          // 2: save mv to shared dir and local mv dir
          mv = mergeMV(mv, pmv);
-         Cluster.getInstance().lockWrite("mv.exec." + def.getName());
+         MVExecLock.lockWrite(def.getName());
 
          try {
             mv.save(mfile);
@@ -241,7 +240,7 @@ class MVCompositeDispatcher extends MVDispatcher implements Runnable {
          }
          finally {
             FSService.refreshCluster(true);
-            Cluster.getInstance().unlockWrite("mv.exec." + def.getName());
+            MVExecLock.unlockWrite(def.getName());
          }
       }
       finally {
@@ -686,6 +686,21 @@ public final class MVDef implements Comparable, XMLSerializable, Serializable, C
       return breakcol;
    }
 
+   /**
+    * Get the partition column. If set, the source data is queried in
+    * parallel range-bounded partitions of this column when the mv is created.
+    */
+   public String getPartitionColumn() {
+      return partcol;
+   }
+
+   /**
+    * Set the partition column, a date or integer column of the mv table.
+    */
+   public void setPartitionColumn(String partcol) {
+      this.partcol = partcol;
+   }
+
    /**
     * Get the data cycle.
     */
@@ -1750,6 +1765,7 @@ public final class MVDef implements Comparable, XMLSerializable, Serializable, C
       writeCDATA(writer, "otname", otname);
       writeCDATA(writer, "cycle", cycle);
       writeCDATA(writer, "breakcol", breakcol);
+      writeCDATA(writer, "partcol", partcol);
       writeCDATA(writer, "logicalmodel", directLM + "");
       writeCDATA(writer, "shareable", shareable + "");
       writeCDATA(writer, "incremental", incremental + "");
@@ -1870,6 +1886,7 @@ public final class MVDef implements Comparable, XMLSerializable, Serializable, C
       otname = Tool.getChildValueByTagName(tag, "otname");
       cycle = Tool.getChildValueByTagName(tag, "cycle");
       breakcol = Tool.getChildValueByTagName(tag, "breakcol");
+      partcol = Tool.getChildValueByTagName(tag, "partcol");
       directLM = "true".equals(Tool.getChildValueByTagName(tag, "logicalmodel"));
       shareable = "true".equals(Tool.getChildValueByTagName(tag, "shareable"));
       incremental = "true".equals(Tool.getChildValueByTagName(tag, "incremental"));
@@ -2735,6 +2752,7 @@ public final class MVDef implements Comparable, XMLSerializable, Serializable, C
    private String otname = null; // bound table name
    private boolean sub = false; // sub mv
    private String breakcol = null; // break into blocks by this column
+   private String partcol = null; // query source in ranges of this column
    private String cycle = null; // data cycle
    private boolean directLM = false;// check if the binding is Logical model
    private String[] lmtables = new String[0];
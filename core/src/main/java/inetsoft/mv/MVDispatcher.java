@@ -89,10 +89,9 @@ public class MVDispatcher {
       String table = def.getMVTable();
       TableAssembly oassembly = (TableAssembly) ws.getAssembly(table);
 
-      // try to split the table into multiple tables using the incremental
-      // update column, so each sub-table can be processed in parallel.
-      // this implies that only tables defined with incremental update
-      // could be generated in parallel.
+      // try to split the table into multiple tables using the declared partition
+      // column or the incremental update column, so each sub-table can be processed
+      // in parallel. tables with neither are generated by a single dispatcher.
       TableAssembly assembly = split(oassembly);
 
       try {
@@ -301,7 +300,7 @@ public class MVDispatcher {
     * Split the table assembly to multi assemblies to support multi threading
     * create mv.
     */
-   private TableAssembly split(TableAssembly table) {
+   TableAssembly split(TableAssembly table) {
       int dispatcherCnt = getDispatcherCount();
 
       if(dispatcherCnt <= 1) {
@@ -314,42 +313,69 @@ public class MVDispatcher {
          return table;
       }
 
-      ConditionListWrapper pre = table.getMVUpdatePreConditionList();
+      DataRef date = null;
+      String partcol = def.getPartitionColumn();
 
-      // no update condition? cannot find which date column as split column
-      if(pre == null || pre.isEmpty()) {
-         return table;
+      // explicitly declared partition column takes precedence over the
+      // column found in the incremental update condition
+      if(partcol != null) {
+         DataRef ref = table.getColumnSelection(false).getAttribute(partcol);
+         String type = ref == null ? XSchema.STRING : ref.getDataType();
+
+         if(XSchema.DATE.equals(type) || XSchema.TIME_INSTANT.equals(type)) {
+            date = ref;
+         }
+         else if(XSchema.INTEGER.equals(type) || XSchema.LONG.equals(type)) {
+            number = ref;
+         }
+         else {
+            LOG.warn("MV partition column {} is not a date or integer column in {}, " +
+               "cannot use multi threading", partcol, table.getName());
+         }
       }
+      else {
+         ConditionListWrapper pre = table.getMVUpdatePreConditionList();
 
-      ConditionList conds = pre.getConditionList();
-      DataRef date = null;
+         // no update condition? cannot find which date column as split column
+         if(pre == null || pre.isEmpty()) {
+            return table;
+         }
 
-      for(int i = 0; i < conds.getSize(); i++) {
-         HierarchyItem item = conds.getItem(i);
+         ConditionList conds = pre.getConditionList();
 
-         if(item instanceof ConditionItem) {
-            DataRef ref = ((ConditionItem) item).getAttribute();
-            String type = ref == null ? XSchema.STRING : ref.getDataType();
+         for(int i = 0; i < conds.getSize(); i++) {
+            HierarchyItem item = conds.getItem(i);
 
-            if(XSchema.DATE.equals(type) || XSchema.TIME_INSTANT.equals(type)) {
-               date = ref;
-               break;
-            }
+            if(item instanceof ConditionItem) {
+               DataRef ref = ((ConditionItem) item).getAttribute();
+               String type = ref == null ? XSchema.STRING : ref.getDataType();
+
+               if(XSchema.DATE.equals(type) || XSchema.TIME_INSTANT.equals(type)) {
+                  date = ref;
+                  break;
+               }
 
-            // if int/long, we assume it's an id and break it by in range
-            if(number == null && (XSchema.INTEGER.equals(type) || XSchema.LONG.equals(type))) {
-               number = ref;
+               // if int/long, we assume it's an id and break it by in range
+               if(number == null &&
+                  (XSchema.INTEGER.equals(type) || XSchema.LONG.equals(type)))
+               {
+                  number = ref;
+               }
             }
          }
+
+         if(date == null && number == null) {
+            LOG.info("mv append condition without date/number column, " +
+               "cannot use multi threading");
+            return table;
+         }
       }
 
       if(date == null && number == null) {
-         LOG.info("mv append condition without date/number column, " +
-            "cannot use multi threading");
          return table;
       }
 
-      pre = table.getPreConditionList();
+      ConditionListWrapper pre = table.getPreConditionList();
       ConditionListWrapper rpre = table.getPreRuntimeConditionList();
 
       if(pre != null && !pre.isEmpty() && rpre != null && !rpre.isEmpty()) {
@@ -364,7 +390,7 @@ public class MVDispatcher {
          pre = rpre;
       }
 
-      conds = pre.getConditionList();
+      ConditionList conds = pre == null ? new ConditionList() : pre.getConditionList();
 
       for(int i = 0; i < conds.getSize(); i++) {
          HierarchyItem item = conds.getItem(i);
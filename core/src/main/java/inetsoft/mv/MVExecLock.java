@@ -0,0 +1,276 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2024  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.mv;
+
+import inetsoft.sree.SreeEnv;
+import inetsoft.sree.internal.cluster.Cluster;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * MVExecLock guards the files of a materialized view while it's queried.
+ * A query pins the current version of the mv with a node local read lock, so
+ * no cluster round trip is needed on the query path. A writer replacing the
+ * mv files first stores a mark for the mv in a replicated cluster map, which
+ * every node (including a node that joins while the mv is written) checks when
+ * a query starts, and then waits for the queries already pinned on each node
+ * to finish. Queries started while the mark is set fall back to the cluster
+ * read lock and wait for the writer to publish the new version.
+ * <p>
+ * A mark belongs to one lock of the writer node. It's only removed by that lock,
+ * and it's ignored once the writer node left the cluster, so a late or failed
+ * message can't leave a node marked.
+ *
+ * @version 14.0
+ * @author InetSoft Technology Corp
+ */
+public final class MVExecLock {
+   /**
+    * Pin the mv for a query.
+    * @param mvName the mv name.
+    * @return the pin, which must be closed when the query is done.
+    */
+   public static Pin lockRead(String mvName) {
+      ReadWriteLock lock = getLocalLock(mvName);
+      lock.readLock().lock();
+
+      try {
+         if(!isWriting(mvName)) {
+            return new Pin(mvName, lock, false);
+         }
+      }
+      catch(RuntimeException | Error ex) {
+         lock.readLock().unlock();
+         throw ex;
+      }
+
+      // the mv is being replaced, wait for the writer
+      lock.readLock().unlock();
+      Cluster.getInstance().lockRead(getClusterLockName(mvName));
+      return new Pin(mvName, null, true);
+   }
+
+   /**
+    * Lock the mv for replacing its files. Returns when no query on any node
+    * is reading the current version of the mv. Fails if a node doesn't release
+    * its queries within <tt>mv.exec.lock.timeout</tt> milliseconds.
+    * @param mvName the mv name.
+    */
+   public static void lockWrite(String mvName) {
+      Cluster cluster = Cluster.getInstance();
+      cluster.lockWrite(getClusterLockName(mvName));
+      Mark mark = new Mark(cluster.getLocalMember(), epochs.incrementAndGet());
+
+      try {
+         // the mark is set before waiting, a query started after this point uses the
+         // cluster lock on any node, including the nodes joining the cluster later
+         getMarks().put(mvName, mark);
+         broadcast(new DrainTask(mvName, getTimeout()));
+         writers.put(mvName, mark);
+      }
+      catch(RuntimeException | Error ex) {
+         try {
+            getMarks().remove(mvName, mark);
+         }
+         catch(RuntimeException ex2) {
+            // the queries keep using the cluster lock until the mark is replaced, which is safe
+            LOG.warn("Failed to clear the mv lock: {}", mvName, ex2);
+         }
+         finally {
+            cluster.unlockWrite(getClusterLockName(mvName));
+         }
+
+         throw ex;
+      }
+   }
+
+   /**
+    * Unlock the mv after the new version is published.
+    * @param mvName the mv name.
+    */
+   public static void unlockWrite(String mvName) {
+      Mark mark = writers.remove(mvName);
+
+      try {
+         if(mark != null) {
+            // only remove the mark of this lock, not a mark set by a later writer
+            getMarks().remove(mvName, mark);
+         }
+      }
+      catch(RuntimeException ex) {
+         // the queries keep using the cluster lock until the mark is replaced, which is safe
+         LOG.error("Failed to clear the mv lock: {}", mvName, ex);
+      }
+      finally {
+         Cluster.getInstance().unlockWrite(getClusterLockName(mvName));
+      }
+   }
+
+   /**
+    * Check if the mv is being replaced.
+    */
+   static boolean isWriting(String mvName) {
+      Mark mark = getMarks().get(mvName);
+
+      // the mark of a writer that left the cluster is stale, its cluster lock is released
+      return mark != null && Cluster.getInstance().getClusterNodes().contains(mark.owner);
+   }
+
+   private static Map<String, Mark> getMarks() {
+      return Cluster.getInstance().getReplicatedMap(MARK_MAP);
+   }
+
+   private static void broadcast(DrainTask task) {
+      // leave time for the nodes to answer after waiting for their queries
+      long timeout = task.timeout + 30000L;
+
+      try {
+         Cluster.getInstance().submitAll(task).get(timeout, TimeUnit.MILLISECONDS);
+      }
+      catch(InterruptedException ex) {
+         Thread.currentThread().interrupt();
+         throw new RuntimeException("Interrupted while locking mv " + task.mvName, ex);
+      }
+      catch(TimeoutException ex) {
+         throw new RuntimeException("Timed out while locking mv " + task.mvName, ex);
+      }
+      catch(ExecutionException ex) {
+         if(!isNodeLeft(ex.getCause())) {
+            throw new RuntimeException("Failed to lock mv " + task.mvName, ex.getCause());
+         }
+
+         // a node that left the cluster is not running queries against the mv
+         LOG.warn("A node left while locking mv: {}", task.mvName, ex.getCause());
+      }
+   }
+
+   /**
+    * Check if the failure is caused by a node leaving the cluster. The class names are
+    * matched to avoid depending on the ignite internal classes.
+    */
+   static boolean isNodeLeft(Throwable ex) {
+      for(Throwable t = ex; t != null; t = t.getCause()) {
+         String name = t.getClass().getName();
+
+         if(name.contains("ClusterTopologyException") ||
+            name.contains("ClusterTopologyCheckedException") ||
+            name.contains("ClusterGroupEmptyException") ||
+            name.contains("ClusterGroupEmptyCheckedException"))
+         {
+            return true;
+         }
+      }
+
+      return false;
+   }
+
+   private static long getTimeout() {
+      String prop = SreeEnv.getProperty("mv.exec.lock.timeout", "300000");
+
+      try {
+         return Long.parseLong(prop);
+      }
+      catch(NumberFormatException ex) {
+         LOG.warn("Invalid mv.exec.lock.timeout value: {}", prop);
+         return 300000L;
+      }
+   }
+
+   private static ReadWriteLock getLocalLock(String mvName) {
+      return locks.computeIfAbsent(mvName, k -> new ReentrantReadWriteLock());
+   }
+
+   private static String getClusterLockName(String mvName) {
+      return "mv.exec." + mvName;
+   }
+
+   /**
+    * The mark of an mv being written, identified by the writer node and the lock on it.
+    */
+   private record Mark(String owner, long epoch) implements Serializable {
+   }
+
+   /**
+    * Wait for the queries pinned on a node to finish. It doesn't change any state, so a
+    * task that runs after the writer gave up has no effect.
+    */
+   private static final class DrainTask implements Callable<Void>, Serializable {
+      DrainTask(String mvName, long timeout) {
+         this.mvName = mvName;
+         this.timeout = timeout;
+      }
+
+      @Override
+      public Void call() throws Exception {
+         ReadWriteLock lock = getLocalLock(mvName);
+
+         // wait for the pinned queries to finish, don't hold the compute thread forever
+         if(!lock.writeLock().tryLock(timeout, TimeUnit.MILLISECONDS)) {
+            throw new TimeoutException("Queries are still reading mv " + mvName);
+         }
+
+         lock.writeLock().unlock();
+         return null;
+      }
+
+      private final String mvName;
+      private final long timeout;
+   }
+
+   /**
+    * A pinned mv version, released when closed.
+    */
+   public static final class Pin implements AutoCloseable {
+      private Pin(String mvName, ReadWriteLock lock, boolean cluster) {
+         this.mvName = mvName;
+         this.lock = lock;
+         this.cluster = cluster;
+      }
+
+      @Override
+      public void close() {
+         if(cluster) {
+            Cluster.getInstance().unlockRead(getClusterLockName(mvName));
+         }
+         else {
+            lock.readLock().unlock();
+         }
+      }
+
+      private final String mvName;
+      private final ReadWriteLock lock;
+      private final boolean cluster;
+   }
+
+   private MVExecLock() {
+   }
+
+   private static final String MARK_MAP = "inetsoft.mv.exec.marks";
+   private static final Map<String, ReadWriteLock> locks = new ConcurrentHashMap<>();
+   // mv name -> mark of the lock held by this node
+   private static final Map<String, Mark> writers = new ConcurrentHashMap<>();
+   private static final AtomicLong epochs = new AtomicLong();
+   private static final Logger LOG = LoggerFactory.getLogger(MVExecLock.class);
+}
@@ -113,7 +113,7 @@ class MVSingleDispatcher extends MVDispatcher {
       // if we lock the xfile's write lock here, and lock the xfile's
       // read lock in mv executation, it may be dangerous if administrator
       // want to recreate mv
-      Cluster.getInstance().lockWrite("mv.exec." + def.getName());
+      MVExecLock.lockWrite(def.getName());
 
       try {
          // there may be more than one scheduler updating fs (in memory),
@@ -192,7 +192,7 @@ class MVSingleDispatcher extends MVDispatcher {
          }
       }
       finally {
-         Cluster.getInstance().unlockWrite("mv.exec." + def.getName());
+         MVExecLock.unlockWrite(def.getName());
 
          try {
             storage.remove(file);
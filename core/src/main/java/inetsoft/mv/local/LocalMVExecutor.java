@@ -22,7 +22,6 @@ import inetsoft.mv.fs.*;
 import inetsoft.mv.mr.XJobPool;
 import inetsoft.report.internal.table.XTableLens;
 import inetsoft.sree.internal.SUtil;
-import inetsoft.sree.internal.cluster.Cluster;
 import inetsoft.sree.security.OrganizationManager;
 import inetsoft.uql.*;
 import inetsoft.uql.asset.*;
@@ -57,10 +56,9 @@ public class LocalMVExecutor extends AbstractMVExecutor {
 
    @Override
    public XTable getData() throws Exception {
-      Cluster.getInstance().lockRead("mv.exec." + mvName);
-      MVBenchmark.startBenchmark();
-
-      try {
+      // pin the mv locally, only wait on the cluster lock if it's being replaced
+      try(MVExecLock.Pin ignored = MVExecLock.lockRead(mvName)) {
+         MVBenchmark.startBenchmark();
          XTable result = getData0();
          MVBenchmark.time("moreRows", () -> {
             result.moreRows(XTable.EOT);
@@ -69,9 +67,6 @@ public class LocalMVExecutor extends AbstractMVExecutor {
          MVBenchmark.stopBenchmark(this::populateBenchmarkContext);
          return result;
       }
-      finally {
-         Cluster.getInstance().unlockRead("mv.exec." + mvName);
-      }
    }
 
    private XTable getData0() throws Exception {
@@ -0,0 +1,93 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2024  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.mv.mr.internal;
+
+import inetsoft.mv.fs.FSService;
+import inetsoft.mv.mr.XMapResult;
+import inetsoft.mv.mr.XMapTask;
+import inetsoft.sree.SreeEnv;
+import inetsoft.sree.internal.cluster.AffinityCallable;
+import inetsoft.sree.internal.cluster.Cluster;
+import inetsoft.util.ThreadContext;
+
+import java.security.Principal;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * AffinityMapCall runs a map task on the cluster node owning its block. Each
+ * node is assigned a stable subset of the blocks by the affinity of the block
+ * cache, so the block files stay warm in that node's local cache and the map
+ * work of a large mv query is spread over the cluster. The result is sent
+ * back to the node running the job to be reduced.
+ *
+ * @version 14.0
+ * @author InetSoft Technology Corp
+ */
+final class AffinityMapCall implements AffinityCallable<XMapResult> {
+   /**
+    * Check if the map tasks should run on the nodes owning the blocks.
+    */
+   static boolean isEnabled() {
+      return "true".equals(SreeEnv.getProperty("mv.affinity.execution")) &&
+         Cluster.getInstance().getServerClusterNodes().size() > 1;
+   }
+
+   /**
+    * Run the map task on the node owning the block and wait for the result.
+    */
+   static XMapResult execute(XMapTask task, Principal user) throws Exception {
+      Cluster cluster = Cluster.getInstance();
+      // make sure the cache defining the block placement exists
+      cluster.getCache(BLOCK_CACHE);
+
+      try {
+         return cluster.affinityCallAsync(BLOCK_CACHE, task.getXBlock(),
+                                          new AffinityMapCall(task, user)).get();
+      }
+      catch(ExecutionException ex) {
+         Throwable cause = ex.getCause();
+         throw cause instanceof Exception ? (Exception) cause : ex;
+      }
+   }
+
+   private AffinityMapCall(XMapTask task, Principal user) {
+      this.task = task;
+      this.user = user;
+   }
+
+   @Override
+   public XMapResult call() throws Exception {
+      Principal ouser = ThreadContext.getContextPrincipal();
+      ThreadContext.setContextPrincipal(user);
+
+      try {
+         return task.run(FSService.getDataNode().getBSystem());
+      }
+      finally {
+         ThreadContext.setContextPrincipal(ouser);
+      }
+   }
+
+   /**
+    * The cache whose affinity assigns the mv blocks to the cluster nodes.
+    */
+   static final String BLOCK_CACHE = "inetsoft.mv.mr.blocks";
+
+   private final XMapTask task;
+   private final Principal user;
+}
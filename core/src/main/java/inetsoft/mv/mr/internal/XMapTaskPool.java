@@ -122,26 +122,29 @@ public final class XMapTaskPool {
          }
       }
       else {
-         Handler handler = new Handler(task, sys);
+         Handler handler = new Handler(task, sys, AffinityMapCall.isEnabled());
          tpool.add(handler);
       }
    }
 
    /**
-    * Handler, handles one map task at local data node.
+    * Handler, handles one map task at local data node, or at the node owning
+    * the block if affinity execution is enabled.
     */
    private static final class Handler extends ThreadPool.AbstractContextRunnable {
-      public Handler(XMapTask task, XBlockSystem sys) {
+      public Handler(XMapTask task, XBlockSystem sys, boolean affinity) {
          super();
 
          this.task = task;
          this.sys = sys;
+         this.affinity = affinity;
       }
 
       @Override
       public void run() {
          try {
-            XMapResult result = task.run(sys);
+            XMapResult result = affinity ?
+               AffinityMapCall.execute(task, getPrincipal()) : task.run(sys);
             XJobPool.addResult(result, task.getOrgID());
          }
          catch(Throwable ex) {
@@ -154,6 +157,7 @@ public final class XMapTaskPool {
 
       private final XMapTask task;
       private final XBlockSystem sys;
+      private final boolean affinity;
    }
 
    /**
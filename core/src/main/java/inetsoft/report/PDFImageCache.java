@@ -0,0 +1,141 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2024  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.report;
+
+import java.util.*;
+
+/**
+ * {@code PDFImageCache} maps the images drawn in a PDF document to the image objects that have
+ * already been written, so an image is only embedded once. The images are found by the painter
+ * key, and by a hash of the pixels for images that are drawn from different sources. The cache
+ * is bounded by the memory held by the entries instead of the number of entries, and the least
+ * recently used entries are removed first.
+ *
+ * @param <V> the type of the image object information.
+ */
+final class PDFImageCache<V> {
+   /**
+    * Creates a new instance of {@code PDFImageCache}.
+    *
+    * @param maxSize the maximum number of bytes held by the entries.
+    */
+   PDFImageCache(long maxSize) {
+      this.maxSize = maxSize;
+   }
+
+   /**
+    * Gets the image object of an image key.
+    *
+    * @param key the image key.
+    *
+    * @return the image object or {@code null} if not cached.
+    */
+   synchronized V get(Object key) {
+      Entry<V> entry = entries.get(key);
+      return entry == null ? null : entry.value;
+   }
+
+   /**
+    * Adds the image object of an image key.
+    *
+    * @param key   the image key.
+    * @param value the image object.
+    * @param size  the number of bytes held by the key, e.g. the image referenced by the key.
+    */
+   synchronized void put(Object key, V value, long size) {
+      Entry<V> old = entries.put(key, new Entry<>(value, size));
+
+      if(old != null) {
+         totalSize -= old.size;
+      }
+
+      totalSize += size;
+      evict(key);
+   }
+
+   /**
+    * Gets the image object of the image with the specified content hash.
+    *
+    * @param hash the hash of the image pixels.
+    *
+    * @return the image object or {@code null} if not cached.
+    */
+   V getByHash(byte[] hash) {
+      return get(new HashKey(hash));
+   }
+
+   /**
+    * Adds the image object of the image with the specified content hash.
+    *
+    * @param hash  the hash of the image pixels.
+    * @param value the image object.
+    */
+   void putByHash(byte[] hash, V value) {
+      put(new HashKey(hash), value, HASH_ENTRY_SIZE + hash.length);
+   }
+
+   /**
+    * Gets the number of bytes held by the entries.
+    */
+   synchronized long getSize() {
+      return totalSize;
+   }
+
+   /**
+    * Removes all entries.
+    */
+   synchronized void clear() {
+      entries.clear();
+      totalSize = 0;
+   }
+
+   private void evict(Object added) {
+      Iterator<Map.Entry<Object, Entry<V>>> iterator = entries.entrySet().iterator();
+
+      // always keep the entry that was just added, even if it is larger than the limit
+      while(totalSize > maxSize && iterator.hasNext()) {
+         Map.Entry<Object, Entry<V>> eldest = iterator.next();
+
+         if(!eldest.getKey().equals(added)) {
+            totalSize -= eldest.getValue().size;
+            iterator.remove();
+         }
+      }
+   }
+
+   private record Entry<V>(V value, long size) {
+   }
+
+   private record HashKey(byte[] hash) {
+      @Override
+      public boolean equals(Object obj) {
+         return obj instanceof HashKey key && Arrays.equals(hash, key.hash);
+      }
+
+      @Override
+      public int hashCode() {
+         return Arrays.hashCode(hash);
+      }
+   }
+
+   private final long maxSize;
+   private final LinkedHashMap<Object, Entry<V>> entries = new LinkedHashMap<>(16, 0.75F, true);
+   private long totalSize;
+   // approximate size of a map entry and its key
+   private static final int HASH_ENTRY_SIZE = 96;
+}
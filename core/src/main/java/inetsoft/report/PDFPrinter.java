@@ -3162,120 +3162,154 @@ public class PDFPrinter extends Graphics2D implements PDFDevice {
       x = (int) transformX(x);
 
       ImageInfoCache iobj = imgmap.get(pc.getKey());
-      int imageId = 1;
 
       if(iobj != null) {
-         imageId = iobj.imageId;
          checkTextObj(false);
+
          if(isize.height == 0 || isize.width == 0) {
             isize.height = iobj.height;
             isize.width = iobj.width;
          }
+
+         return iobj.imageId;
       }
-      else {
-         // null image, ignore
-         pc.produce(true);
 
-         if(pc.width == 0 || pc.height == 0) {
-            return -1;
-         }
+      // null image, ignore
+      pc.produce(true);
 
-         checkTextObj(false);
-         // compute image size. First of all, if width or height is 0,
-         // image is 1:1.
-         if(isize.height == 0 || isize.width == 0) {
-            isize.height = pc.height;
-            isize.width = pc.width;
+      if(pc.width == 0 || pc.height == 0) {
+         return -1;
+      }
+
+      checkTextObj(false);
+      // compute image size. First of all, if width or height is 0,
+      // image is 1:1.
+      if(isize.height == 0 || isize.width == 0) {
+         isize.height = pc.height;
+         isize.width = pc.width;
+      }
+
+      // temp space
+      ByteArrayOutputStream buf = new ByteArrayOutputStream(pc.width * pc.height * 3);
+      final int transparent = 0xFFFEFFFF;
+      boolean isMask = false;
+
+      for(int i = pc.height - 1; i >= 0; i--) {
+         for(int j = 0; j < pc.width; j++) {
+            int n = pc.pix[j][i];
+
+            // handle transparency
+            if(pc.smask == null) {
+               if((n & 0xFF000000) == 0) {
+                  if(bgcolor == null) {
+                     isMask = true;
+                     n = transparent;
+                  }
+                  else {
+                     n = bgcolor.getRGB();
+                  }
+               }
+               // @by larryl, if the real color is same as transparent,
+               // set to white
+               else if(n == transparent) {
+                  n = 0xFFFFFF;
+               }
+            }
+
+            buf.write((byte) ((n & 0xFF0000) >> 16));
+            buf.write((byte) ((n & 0xFF00) >> 8));
+            buf.write((byte) (n & 0xFF));
          }
+      }
 
-         imageId = getNextObjectID();
+      byte[] rgb = buf.toByteArray();
+      byte[] smask = null;
 
-         // caching can't be too large, otherwise it may generate out of mem
-         if(imgmap.size() > 10) {
-            imgmap.clear();
+      if(pc.smask != null) {
+         buf = new ByteArrayOutputStream(pc.pixelw * pc.pixelh);
+
+         for(int i = pc.pixelh - 1; i >= 0; i--) {
+            for(int j = 0; j < pc.pixelw; j++) {
+               buf.write(pc.smask[pc.pixelw * i + j]);
+            }
          }
 
-         imgmap.put(pc.getKey(), new ImageInfoCache(imageId, pc.height, pc.width));
+         smask = buf.toByteArray();
       }
 
-      if(iobj == null) {
-         int sizeId = getNextObjectID();
+      // use jpeg for large image to reduce size. (50143)
+      boolean jpeg = pc.smask == null && !isMask && !pattern &&
+         pc.width * pc.height > 1024 * 1024;
+      // the same image drawn from different sources (e.g. a chart image that is re-created for
+      // each page) is found by the content, the key is only valid for the same image object
+      byte[] hash = getImageHash(pc.width, pc.height, jpeg, isMask, rgb, smask);
+      // the key references the image, so the cache holds the memory of the image pixels
+      long keySize = 4L * pc.width * pc.height;
 
-         // temp space
-         ByteArrayOutputStream buf = new ByteArrayOutputStream();
-         final int transparent = 0xFFFEFFFF;
-         boolean isMask = false;
-
-         for(int i = pc.height - 1; i >= 0; i--) {
-            for(int j = 0; j < pc.width; j++) {
-               int n = pc.pix[j][i];
-
-               // handle transparency
-               if(pc.smask == null) {
-                  if((n & 0xFF000000) == 0) {
-                     if(bgcolor == null) {
-                        isMask = true;
-                        n = transparent;
-                     }
-                     else {
-                        n = bgcolor.getRGB();
-                     }
-                  }
-                  // @by larryl, if the real color is same as transparent,
-                  // set to white
-                  else if(n == transparent) {
-                     n = 0xFFFFFF;
-                  }
-               }
+      if(hash != null) {
+         iobj = imgmap.getByHash(hash);
 
-               buf.write((byte) ((n & 0xFF0000) >> 16));
-               buf.write((byte) ((n & 0xFF00) >> 8));
-               buf.write((byte) (n & 0xFF));
-            }
+         if(iobj != null) {
+            imgmap.put(pc.getKey(), iobj, keySize);
+            return iobj.imageId;
          }
+      }
 
-         boolean jpeg = false;
+      int imageId = getNextObjectID();
+      iobj = new ImageInfoCache(imageId, pc.height, pc.width);
+      imgmap.put(pc.getKey(), iobj, keySize);
 
-         // use jpeg for large image to reduce size. (50143)
-         if(pc.smask == null && !isMask && !pattern &&
-            pc.width * pc.height > 1024 * 1024)
-         {
-            BufferedImage img = CoreTool.getBufferedImage(prepareJpeg(pc.getImage()));
+      if(hash != null) {
+         imgmap.putByHash(hash, iobj);
+      }
 
+      int sizeId = getNextObjectID();
+      int smaskID = smask != null ? getNextObjectID() : -1;
+      int width = pc.width;
+      int height = pc.height;
+      boolean mask = isMask;
+      boolean compress = compressImg;
+      boolean ascii = this.ascii;
+      int charsPerRow = this.charsPerRow;
+      BufferedImage jpegImage = jpeg ? prepareJpeg(pc.getImage()) : null;
+      // set by the encoder if the image is successfully converted to jpeg
+      boolean[] jpegEncoded = { false };
+
+      streams.add(() -> {
+         if(jpegImage != null) {
             try {
                ByteArrayOutputStream buf2 = new ByteArrayOutputStream();
-               ImageIO.write(img, "JPG", buf2);
-               buf = buf2;
-               jpeg = true;
+               ImageIO.write(jpegImage, "JPG", buf2);
+               jpegEncoded[0] = true;
+               return encodeStream(buf2.toByteArray(), false, ascii, charsPerRow);
             }
             catch(IOException e) {
                LOG.info("Failed to convert image to JPEG: " + e, e);
             }
          }
 
+         return encodeStream(rgb, compress, ascii, charsPerRow);
+      }, rgb.length, coded -> {
          others.markObject(imageId);
          others.println(imageId + " 0 obj");
          others.println("<<");
          others.println("/Type /XObject");
          others.println("/Subtype /Image");
          others.println("/Name /Im" + imageId);
-         others.println("/Width " + pc.width);
-         others.println("/Height " + pc.height);
+         others.println("/Width " + width);
+         others.println("/Height " + height);
          others.println("/BitsPerComponent 8");
          others.println("/ColorSpace /DeviceRGB");
 
-         int smaskID = -1;
-
-         if(pc.smask != null) {
-            smaskID = getNextObjectID();
+         if(smaskID != -1) {
             others.println("/SMask " + smaskID + " 0 R");
          }
-         else if(isMask) {
+         else if(mask) {
             // @by larryl, transparency color set to #FEFFFF
             others.println("/Mask [254 254 255 255 255 255]");
          }
 
-         if(jpeg) {
+         if(jpegEncoded[0]) {
             if(ascii) {
                others.println("/Filter [ /ASCII85Decode /DCTDecode ]");
             }
@@ -3283,7 +3317,7 @@ public class PDFPrinter extends Graphics2D implements PDFDevice {
                others.println("/Filter [ /DCTDecode ]");
             }
          }
-         else if(compressImg) {
+         else if(compress) {
             if(ascii) {
                others.println("/Filter [ /ASCII85Decode /FlateDecode ]");
             }
@@ -3298,22 +3332,27 @@ public class PDFPrinter extends Graphics2D implements PDFDevice {
          others.println("/Length " + sizeId + " 0 R");
          others.println(">>");
 
-         int objlen = writeStream(buf, imageId, compressImg && !jpeg);
+         int objlen = writeStream(coded, imageId);
          others.println("endobj");
          others.markObject(sizeId);
          others.println(sizeId + " 0 obj");
          others.println(Integer.toString(objlen));
          others.println("endobj");
+      });
 
-         if(smaskID != -1) {
-            sizeId = getNextObjectID();
+      if(smask != null) {
+         int smaskSizeId = getNextObjectID();
+         byte[] smaskData = smask;
+
+         streams.add(() -> encodeStream(smaskData, compress, ascii, charsPerRow),
+                     smaskData.length, coded -> {
             others.markObject(smaskID);
             others.println(smaskID + " 0 obj");
             others.println("<<");
             others.println("/Subtype /Image");
             others.println("/ColorSpace /DeviceGray");
 
-            if(compressImg) {
+            if(compress) {
                if(ascii) {
                   others.print("/Filter [ /ASCII85Decode /FlateDecode ]");
                }
@@ -3326,31 +3365,93 @@ public class PDFPrinter extends Graphics2D implements PDFDevice {
             }
 
             others.print("/Type /XObject");
-            others.print("/Length " + sizeId + " 0 R");
+            others.print("/Length " + smaskSizeId + " 0 R");
             others.print("/BitsPerComponent 8");
-            others.print("/Width " + pc.width);
-            others.print("/Height " + pc.height);
+            others.print("/Width " + width);
+            others.print("/Height " + height);
             others.println(">>");
-            buf = new ByteArrayOutputStream();
 
-            for(int i = pc.pixelh - 1; i >= 0; i--) {
-               for(int j = 0; j < pc.pixelw; j++) {
-                  buf.write(pc.smask[pc.pixelw * i + j]);
-               }
-            }
-
-            objlen = writeStream(buf, imageId, compressImg);
+            int objlen = writeStream(coded, imageId);
             others.println("endobj");
-            others.markObject(sizeId);
-            others.println(sizeId + " 0 obj");
+            others.markObject(smaskSizeId);
+            others.println(smaskSizeId + " 0 obj");
             others.println(Integer.toString(objlen));
             others.println("endobj");
-         }
+         });
       }
 
       return imageId;
    }
 
+   /**
+    * Get the hash of the image pixels, which identifies the image object written for the image.
+    */
+   private static byte[] getImageHash(int width, int height, boolean jpeg, boolean mask,
+                                      byte[] rgb, byte[] smask)
+   {
+      try {
+         MessageDigest digest = MessageDigest.getInstance("SHA-256");
+         digest.update((width + "x" + height + ":" + jpeg + ":" + mask + ":").getBytes());
+         digest.update(rgb);
+
+         if(smask != null) {
+            digest.update(smask);
+         }
+
+         return digest.digest();
+      }
+      catch(Exception e) {
+         LOG.debug("Failed to hash image", e);
+         return null;
+      }
+   }
+
+   /**
+    * Add the page content stream to the stream queue, which compresses the content while the
+    * next page is laid out.
+    */
+   private void writeContent(int contentId, int lengthId, byte[] data) {
+      boolean compress = compressText;
+      boolean ascii = this.ascii && compress;
+      int charsPerRow = this.charsPerRow;
+
+      streams.add(() -> encodeStream(data, compress, ascii, charsPerRow), data.length, coded -> {
+         others.markObject(contentId);
+         others.println(contentId + " 0 obj");
+         others.println("<<");
+         others.println("/Length " + lengthId + " 0 R");
+
+         if(compress) {
+            if(ascii) {
+               others.println("/Filter [ /ASCII85Decode /FlateDecode ]");
+            }
+            else {
+               others.println("/Filter [ /FlateDecode ]");
+            }
+         }
+
+         others.println(">>");
+         others.println("stream");
+         coded = encrypt(contentId, 0, coded);
+
+         try {
+            others.write(coded);
+         }
+         catch(Exception e) {
+            closed = true;
+            LOG.error("Failed to flush page buffer", e);
+            throw new RuntimeException("Write failed: " + e);
+         }
+
+         others.println("endstream");
+         others.println("endobj");
+         others.markObject(lengthId);
+         others.println(lengthId + " 0 obj");
+         others.println(coded.length + "");
+         others.println("endobj");
+      });
+   }
+
    // if image contains transparency, ImageIO will write the 4 channels to jpeg,
    // which results in reader to interprets it as cmyk.
    private static BufferedImage prepareJpeg(Image img0) {
@@ -3368,23 +3469,30 @@ public class PDFPrinter extends Graphics2D implements PDFDevice {
       return copy;
    }
 
-   private int writeStream(ByteArrayOutputStream buf, int imageId, boolean compressImg) {
-      others.println("stream");
+   /**
+    * Encode the data of a stream.
+    * @param compress true to compress the data.
+    * @param ascii true to encode the data with ASCII85.
+    * @param charsPerRow the length of the rows of the ASCII85 encoded data.
+    */
+   private static byte[] encodeStream(byte[] data, boolean compress, boolean ascii,
+                                      int charsPerRow)
+   {
       byte[] coded;
 
-      if(compressImg) {
+      if(compress) {
          if(ascii) {
-            coded = Encoder.encodeAscii85(Encoder.deflate(buf.toByteArray()));
+            coded = Encoder.encodeAscii85(Encoder.deflate(data));
          }
          else {
-            coded = Encoder.deflate(buf.toByteArray());
+            coded = Encoder.deflate(data);
          }
       }
       else if(ascii) {
-         coded = Encoder.encodeAscii85(buf.toByteArray());
+         coded = Encoder.encodeAscii85(data);
       }
       else {
-         coded = buf.toByteArray();
+         coded = data;
       }
 
       if(ascii) {
@@ -3404,6 +3512,15 @@ public class PDFPrinter extends Graphics2D implements PDFDevice {
          coded = ascout.toByteArray();
       }
 
+      return coded;
+   }
+
+   /**
+    * Write the encoded data of a stream to the others buffer.
+    * @return the length of the stream.
+    */
+   private int writeStream(byte[] coded, int imageId) {
+      others.println("stream");
       coded = encrypt(imageId, 0, coded);
 
       try {
@@ -3442,7 +3559,7 @@ public class PDFPrinter extends Graphics2D implements PDFDevice {
       }
       else {
          imageId = getNextObjectID();
-         imgmap.put(key, new ImageInfoCache(imageId, 0, 0));
+         imgmap.put(key, new ImageInfoCache(imageId, 0, 0), 0);
       }
 
       if(iobj == null) {
@@ -3778,75 +3895,11 @@ public class PDFPrinter extends Graphics2D implements PDFDevice {
       debug(pg, "%dispose");
       pg.flush();
       byte[] data = pgBuf.toByteArray();
-
-      int osize = os.getOffset();
-
-      if(compressText) {
-         if(!ascii) {
-            data = Encoder.deflate(data);
-
-            try {
-               os.write(encrypt(contentId, 0, data));
-            }
-            catch(Exception e) {
-               closed = true;
-               LOG.error("Failed to flush compressed page buffer", e);
-               throw new RuntimeException("Write failed: " + e);
-            }
-         }
-         else {
-            data = Encoder.encodeAscii85(Encoder.deflate(data));
-            byte[] out = new byte[] {};
-            byte[] ret = "\n".getBytes();
-
-            for(int i = 0; i < data.length; i += charsPerRow) {
-               if(i > 0) {
-                  out = paddingByteArray(out, out.length + ret.length, ret);
-               }
-
-               byte[] d = new byte[Math.min(data.length - i, charsPerRow)];
-               System.arraycopy(data, i, d, 0, d.length);
-               out = paddingByteArray(out, out.length + d.length, d);
-            }
-
-            ret = "~>".getBytes();
-            out = paddingByteArray(out, out.length + ret.length, ret);
-
-            try {
-               os.write(encrypt(contentId, 0, out));
-            }
-            catch(Exception e) {
-               closed = true;
-               LOG.error("Failed to flush compressed ASCII page buffer", e);
-               throw new RuntimeException("Write failed: " + e);
-            }
-         }
-      }
-      else {
-         try {
-            os.write(encrypt(contentId, 0, data));
-         }
-         catch(Exception e) {
-            closed = true;
-            LOG.error("Failed to flush page buffer", e);
-            throw new RuntimeException("Write failed: " + e);
-         }
-      }
-
       pgBuf.reset();
-
-      int length = os.getOffset() - osize;
+      writeContent(contentId, lengthId, data);
 
       resourceId = getNextObjectID();
 
-      os.println("endstream");
-      os.println("endobj");
-
-      xrefs.put(lengthId, os.getOffset());
-      os.println(lengthId + " 0 obj");
-      os.println(length + "");
-      os.println("endobj");
-
       ArrayList<Integer> alphaIds = new ArrayList<>();
 
       for(int i = 0; i < alpHolder.getPageAlphasCount(); i++) {
@@ -3968,6 +4021,7 @@ public class PDFPrinter extends Graphics2D implements PDFDevice {
    @Override
    public void close() {
       if(!closed) {
+         streams.write(true);
          writeAnnotations();
          writeOthers();
          emitTrailer();
@@ -4219,6 +4273,9 @@ public class PDFPrinter extends Graphics2D implements PDFDevice {
     * flush out the others buffer.
     */
    protected void writeOthers() {
+      // write the page contents and images that have been compressed
+      streams.write(false);
+
       try {
          // @by billh, to append radio group infos behind radio infos is not
          // a good idea, which is not consistent with pdf1.3 specification,
@@ -5282,22 +5339,6 @@ public class PDFPrinter extends Graphics2D implements PDFDevice {
          contentId = getNextObjectID();
          lengthId = getNextObjectID();
          pageIds.add(getNextObjectID());
-         xrefs.put(contentId, os.getOffset());
-         os.println(contentId + " 0 obj");
-         os.println("<<");
-         os.println("/Length " + lengthId + " 0 R");
-
-         if(compressText) {
-            if(ascii) {
-               os.println("/Filter [ /ASCII85Decode /FlateDecode ]");
-            }
-            else {
-               os.println("/Filter [ /FlateDecode ]");
-            }
-         }
-
-         os.println(">>");
-         os.println("stream");
 
          clr = null;
          setColor(Color.black);
@@ -7055,7 +7096,12 @@ public class PDFPrinter extends Graphics2D implements PDFDevice {
    private float compAlpha = 1;
    private Composite composite = null;
    private Margin pmargin = new Margin(); // PrinterMargin adjustment
-   private Map<Object, ImageInfoCache> imgmap = new HashMap<>(); // PixelConsumer -> image id
+   // PixelConsumer key or pixel hash -> image id
+   private PDFImageCache<ImageInfoCache> imgmap = new PDFImageCache<>(
+      Long.getLong("inetsoft.report.pdf.imageCacheSize", 64L * 1024 * 1024));
+   // page contents and images waiting to be compressed and written
+   private PDFStreamQueue streams = new PDFStreamQueue(
+      Long.getLong("inetsoft.report.pdf.maxPendingStreams", 32L * 1024 * 1024));
    private Map<String, RadioButtonGroup> radiomap = new HashMap<>(); // group -> RadioButtonGroup
    private boolean containsWideString = false;
    private boolean compressText = true;
@@ -0,0 +1,138 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2024  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.report;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * {@code PDFStreamQueue} encodes the PDF streams, e.g. the page contents and the images, on a
+ * worker pool while the following pages are laid out. The encoded streams are passed to their
+ * writers in the order in which they were added, so the output does not depend on the order in
+ * which the workers complete.
+ */
+final class PDFStreamQueue {
+   /**
+    * Creates a new instance of {@code PDFStreamQueue}.
+    *
+    * @param maxPending the maximum number of unencoded bytes held by the queue before adding a
+    *                   stream waits for the earlier streams to be written.
+    */
+   PDFStreamQueue(long maxPending) {
+      this.maxPending = maxPending;
+   }
+
+   /**
+    * Adds a stream to the queue.
+    *
+    * @param encoder the task that encodes the stream.
+    * @param size    the number of unencoded bytes held by the encoder.
+    * @param writer  the consumer that writes the encoded stream.
+    */
+   synchronized void add(Callable<byte[]> encoder, long size, Consumer<byte[]> writer) {
+      Future<byte[]> data;
+
+      // small streams are encoded faster than they are handed to a worker
+      if(POOL == null || size < MIN_PARALLEL_SIZE) {
+         data = CompletableFuture.completedFuture(encode(encoder));
+      }
+      else {
+         data = POOL.submit(encoder);
+      }
+
+      pending.add(new PendingStream(data, size, writer));
+      pendingSize += size;
+
+      while(pendingSize > maxPending && !pending.isEmpty()) {
+         writeNext();
+      }
+   }
+
+   /**
+    * Writes the encoded streams.
+    *
+    * @param wait {@code true} to wait for all streams to be encoded, {@code false} to only
+    *             write the streams at the head of the queue that have been encoded.
+    */
+   synchronized void write(boolean wait) {
+      while(!pending.isEmpty() && (wait || pending.peek().data.isDone())) {
+         writeNext();
+      }
+   }
+
+   /**
+    * Determines if there is no stream waiting to be written.
+    */
+   synchronized boolean isEmpty() {
+      return pending.isEmpty();
+   }
+
+   private void writeNext() {
+      PendingStream stream = pending.poll();
+      pendingSize -= stream.size;
+      byte[] data;
+
+      try {
+         data = stream.data.get();
+      }
+      catch(InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new RuntimeException("Interrupted while encoding PDF stream", e);
+      }
+      catch(ExecutionException e) {
+         throw new RuntimeException("Failed to encode PDF stream: " + e.getCause(), e.getCause());
+      }
+
+      stream.writer.accept(data);
+   }
+
+   private static byte[] encode(Callable<byte[]> encoder) {
+      try {
+         return encoder.call();
+      }
+      catch(Exception e) {
+         throw new RuntimeException("Failed to encode PDF stream: " + e, e);
+      }
+   }
+
+   private static ExecutorService createPool() {
+      int threads = Integer.getInteger(
+         "inetsoft.report.pdf.compressThreads", Runtime.getRuntime().availableProcessors());
+
+      if(threads <= 0) {
+         return null;
+      }
+
+      return Executors.newFixedThreadPool(threads, r -> {
+         Thread thread = new Thread(r, "PDFStreamEncoder");
+         thread.setDaemon(true);
+         return thread;
+      });
+   }
+
+   private record PendingStream(Future<byte[]> data, long size, Consumer<byte[]> writer) {
+   }
+
+   private final long maxPending;
+   private final Deque<PendingStream> pending = new ArrayDeque<>();
+   private long pendingSize;
+   private static final int MIN_PARALLEL_SIZE = 16 * 1024;
+   private static final ExecutorService POOL = createPool();
+}
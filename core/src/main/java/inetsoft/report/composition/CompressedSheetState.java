@@ -26,9 +26,24 @@ import java.io.Serializable;
  */
 public class CompressedSheetState implements Serializable {
    public CompressedSheetState(byte[] compressedData, SheetType type, String user) {
+      this(compressedData, type, user, 0L, false);
+   }
+
+   /**
+    * Create a compressed state.
+    * @param version the checkpoint version, a delta is only applied to the
+    *                checkpoint with the same version.
+    * @param delta <tt>true</tt> if the data only holds the properties changed
+    *              since the checkpoint.
+    */
+   public CompressedSheetState(byte[] compressedData, SheetType type, String user,
+                               long version, boolean delta)
+   {
       this.compressedData = compressedData;
       this.type = type;
       this.user = user;
+      this.version = version;
+      this.delta = delta;
    }
 
    public byte[] getCompressedData() {
@@ -43,6 +58,14 @@ public class CompressedSheetState implements Serializable {
       return user;
    }
 
+   public long getVersion() {
+      return version;
+   }
+
+   public boolean isDelta() {
+      return delta;
+   }
+
    public enum SheetType {
       VIEWSHEET,
       WORKSHEET;
@@ -51,6 +74,8 @@ public class CompressedSheetState implements Serializable {
    private final byte[] compressedData;
    private final SheetType type;
    private final String user; // Stored separately for getAllIds filtering
+   private final long version;
+   private final boolean delta;
 
    private static final long serialVersionUID = 1L;
 }
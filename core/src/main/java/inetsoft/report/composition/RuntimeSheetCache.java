@@ -39,6 +39,8 @@ import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
 
 import javax.cache.Cache;
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.MutableEntry;
 import java.io.*;
 import java.security.Principal;
 import java.util.*;
@@ -47,8 +49,6 @@ import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import com.github.luben.zstd.Zstd;
-import com.github.luben.zstd.ZstdInputStream;
 
 public class RuntimeSheetCache
    implements Map<String, RuntimeSheet>, Closeable
@@ -57,8 +57,14 @@ public class RuntimeSheetCache
       this.cluster = cluster;
       this.local = new LinkedHashMap<>();
       this.cache = getCache(cluster, name);
+      this.deltaCache = getCache(cluster, DELTA_MAP_NAME);
       this.maxSheetCount = getMaxSheetCount();
       this.mapper = createObjectMapper();
+      this.codec = new SheetStateCodec(
+         mapper, "cbor".equals(SreeEnv.getProperty("runtime.sheet.encoding")),
+         cluster.getReplicatedMap(DICTIONARY_MAP_NAME),
+         "true".equals(SreeEnv.getProperty("runtime.sheet.compression.dictionary")));
+      this.tracker = new SheetStateTracker(codec, getCheckpointInterval());
       this.sheetCountMap = cluster.getReplicatedMap(LOCAL_SHEET_COUNT);
       this.accessTimeMap = getAccessTimeCache(cluster);
    }
@@ -79,6 +85,22 @@ public class RuntimeSheetCache
       return max;
    }
 
+   private static int getCheckpointInterval() {
+      String property = SreeEnv.getProperty("runtime.sheet.checkpoint.interval", "20");
+      int interval = 20;
+
+      try {
+         interval = Integer.parseInt(property);
+      }
+      catch(Exception ex) {
+         LOG.warn(
+            "Invalid value for runtime sheet checkpoint interval " +
+            "(runtime.sheet.checkpoint.interval): {}", property, ex);
+      }
+
+      return interval;
+   }
+
    @SuppressWarnings("unchecked")
    private static IgniteCache<AffinityKey<String>, CompressedSheetState> getCache(Cluster cluster, String name) {
       Cache<String, CompressedSheetState> cache = cluster.getCache(name);
@@ -92,8 +114,11 @@ public class RuntimeSheetCache
    }
 
    protected static ObjectMapper createObjectMapper() {
+      return createObjectMapper(new MappingJsonFactory());
+   }
+
+   static ObjectMapper createObjectMapper(JsonFactory jsonFactory) {
       StreamReadConstraints defaults = StreamReadConstraints.defaults();
-      JsonFactory jsonFactory = new MappingJsonFactory();
       jsonFactory.setStreamReadConstraints(StreamReadConstraints.builder()
                                               .maxDocumentLength(defaults.getMaxDocumentLength())
                                               .maxNameLength(defaults.getMaxNameLength())
@@ -157,6 +182,7 @@ public class RuntimeSheetCache
          CompressedSheetState state = cache.get(affinityKey);
 
          if(state != null) {
+            CompressedSheetState delta = deltaCache.get(affinityKey);
             RuntimeSheet sheet = null;
             String evictedId = null;
             lock.writeLock().lock();
@@ -168,7 +194,9 @@ public class RuntimeSheetCache
                   return local.get(id);
                }
 
-               sheet = toSheet(state);
+               sheet = toSheet(state, delta);
+               // the checkpoint may have been written by another node, start a new one
+               tracker.reset(id);
 
                if(sheet != null) {
                   if(!isLocal(affinityKey)) {
@@ -220,7 +248,7 @@ public class RuntimeSheetCache
       CompressedSheetState compressed = null;
 
       try {
-         compressed = compressState(value.saveState(mapper));
+         compressed = compressState(key, value.saveState(mapper));
       }
       catch(Exception e) {
          LOG.warn("Failed to serialize sheet state to cache", e);
@@ -253,7 +281,7 @@ public class RuntimeSheetCache
       Exception serializeError = null;
 
       try {
-         compressed = compressState(value.saveState(mapper));
+         compressed = compressState(key, value.saveState(mapper));
       }
       catch(Exception e) {
          LOG.warn("Failed to serialize sheet state to cache", e);
@@ -321,7 +349,9 @@ public class RuntimeSheetCache
    private void evictFromIgnite(String evictedId) {
       if(evictedId != null) {
          cache.removeAsync(getAffinityKey(evictedId));
+         deltaCache.removeAsync(getAffinityKey(evictedId));
          accessTimeMap.removeAsync(getAffinityKey(evictedId));
+         tracker.reset(evictedId);
       }
    }
 
@@ -329,7 +359,7 @@ public class RuntimeSheetCache
                                          CompressedSheetState compressed)
    {
       try {
-         IgniteFuture<Void> igniteFuture = cache.putAsync(key, compressed);
+         IgniteFuture<Void> igniteFuture = writeState(key, compressed);
          CompletableFuture<RuntimeSheet> future = new CompletableFuture<>();
 
          igniteFuture.listen(f -> {
@@ -354,68 +384,99 @@ public class RuntimeSheetCache
       }
    }
 
-   private CompressedSheetState compressState(RuntimeSheetState state) {
+   /**
+    * Writes the sheet state to the distributed caches. A checkpoint replaces the full
+    * state and discards the previous delta, a delta is kept next to the checkpoint it
+    * applies to. A checkpoint is written and its old delta removed before this returns,
+    * so the removal can't overtake the delta of the next save. A stale delta is ignored
+    * on load since its version won't match the checkpoint.
+    */
+   private IgniteFuture<Void> writeState(AffinityKey<String> key,
+                                         CompressedSheetState compressed)
+   {
+      IgniteFuture<Void> future;
+
+      if(compressed.isDelta()) {
+         future = deltaCache.putAsync(key, compressed);
+      }
+      else {
+         future = cache.putAsync(key, compressed);
+
+         try {
+            future.get();
+            deltaCache.remove(key);
+         }
+         catch(RuntimeException ex) {
+            tracker.reset(key.key());
+            throw ex;
+         }
+      }
+
+      // the next save must write the full state if this one is lost
+      future.listen(f -> {
+         try {
+            f.get();
+         }
+         catch(Exception ex) {
+            tracker.reset(key.key());
+         }
+      });
+
+      return future;
+   }
+
+   private CompressedSheetState compressState(String id, RuntimeSheetState state) {
       try {
          CompressedSheetState.SheetType type = state instanceof RuntimeViewsheetState
             ? CompressedSheetState.SheetType.VIEWSHEET
             : CompressedSheetState.SheetType.WORKSHEET;
 
-         byte[] json = mapper.writeValueAsBytes(state);
-         byte[] compressed = compress(json);
+         AffinityKey<String> key = getAffinityKey(id);
+         SheetStateTracker.Update update =
+            tracker.encode(id, state, () -> getCheckpointVersion(key));
+         byte[] compressed = codec.compress(update.data());
 
-         return new CompressedSheetState(compressed, type, state.getUser());
+         return new CompressedSheetState(
+            compressed, type, state.getUser(), update.version(), update.delta());
       }
       catch(Exception e) {
          throw new RuntimeException("Failed to compress sheet state", e);
       }
    }
 
-   private RuntimeSheetState decompressState(CompressedSheetState compressed) {
+   /**
+    * Get the version of the checkpoint stored in the cluster without transferring the
+    * state, 0 if there's no checkpoint.
+    */
+   private long getCheckpointVersion(AffinityKey<String> key) {
+      Long version = cache.invoke(key, new CheckpointVersion());
+      return version == null ? 0L : version;
+   }
+
+   private RuntimeSheetState decompressState(CompressedSheetState compressed,
+                                             CompressedSheetState delta)
+   {
       try {
-         byte[] json = decompress(compressed.getCompressedData());
+         byte[] json = codec.decompress(compressed.getCompressedData());
+         byte[] deltaJson = null;
          Class<? extends RuntimeSheetState> clazz =
             compressed.getType() == CompressedSheetState.SheetType.VIEWSHEET
                ? RuntimeViewsheetState.class
                : RuntimeWorksheetState.class;
 
-         return mapper.readValue(json, clazz);
+         if(delta != null && compressed.getVersion() != 0 &&
+            delta.getVersion() == compressed.getVersion())
+         {
+            deltaJson = codec.decompress(delta.getCompressedData());
+         }
+
+         return tracker.restore(json, deltaJson, clazz);
       }
       catch(Exception e) {
          throw new RuntimeException("Failed to decompress sheet state", e);
       }
    }
 
-   private static byte[] compress(byte[] data) {
-      return Zstd.compress(data);
-   }
-
-   private static byte[] decompress(byte[] compressed) {
-      long decompressedSize = Zstd.decompressedSize(compressed);
-
-      if(decompressedSize > 0) {
-         return Zstd.decompress(compressed, (int) decompressedSize);
-      }
-      else {
-         // Fallback for data without size in frame header - use streaming decompressor
-         try(ByteArrayInputStream bais = new ByteArrayInputStream(compressed);
-             ZstdInputStream zis = new ZstdInputStream(bais);
-             ByteArrayOutputStream baos = new ByteArrayOutputStream())
-         {
-            byte[] buffer = new byte[8192];
-            int bytesRead;
-
-            while((bytesRead = zis.read(buffer)) != -1) {
-               baos.write(buffer, 0, bytesRead);
-            }
-
-            return baos.toByteArray();
-         }
-         catch(IOException e) {
-            throw new RuntimeException("Failed to decompress data", e);
-         }
-      }
-   }
-
    /**
     * Removes the session from both local memory and the distributed caches.
     * Note: only returns the sheet if it was resident in local memory at the time of removal.
@@ -435,6 +496,7 @@ public class RuntimeSheetCache
 
          if(key instanceof String id) {
             affinityKey = getAffinityKey(id);
+            tracker.reset(id);
          }
       }
       finally {
@@ -445,6 +507,7 @@ public class RuntimeSheetCache
       if(affinityKey != null) {
          accessTimeMap.removeAsync(affinityKey);
          cache.removeAsync(affinityKey);
+         deltaCache.removeAsync(affinityKey);
       }
 
       return sheet;
@@ -490,7 +553,8 @@ public class RuntimeSheetCache
 
       for(Map.Entry<? extends String, ? extends RuntimeSheet> e : m.entrySet()) {
          AffinityKey<String> key = getAffinityKey(e.getKey());
-         states.put(key, compressState(e.getValue().saveState(mapper)));
+         tracker.reset(e.getKey());
+         states.put(key, compressState(e.getKey(), e.getValue().saveState(mapper)));
          accessTimes.put(key, e.getValue().getLastAccessed());
       }
 
@@ -505,6 +569,7 @@ public class RuntimeSheetCache
       }
 
       cache.putAllAsync(states);
+      deltaCache.removeAllAsync(states.keySet());
       accessTimeMap.putAllAsync(accessTimes);
    }
 
@@ -522,6 +587,7 @@ public class RuntimeSheetCache
 
          local.clear();
          updateLocalSheetCount();
+         tracker.clear();
       }
       finally {
          lock.writeLock().unlock();
@@ -529,6 +595,7 @@ public class RuntimeSheetCache
 
       accessTimeMap.removeAllAsync(affinityKeys);
       cache.removeAllAsync(affinityKeys);
+      deltaCache.removeAllAsync(affinityKeys);
    }
 
    @Override
@@ -575,12 +642,14 @@ public class RuntimeSheetCache
 
       if(sheet == null) {
          cache.removeAsync(affinityKey);
+         deltaCache.removeAsync(affinityKey);
+         tracker.reset(key);
       }
       else {
          CompressedSheetState compressed = null;
 
          try {
-            compressed = compressState(sheet.saveState(mapper));
+            compressed = compressState(key, sheet.saveState(mapper));
          }
          catch(Exception e) {
             LOG.warn("Failed to serialize sheet state to cache", e);
@@ -601,18 +670,21 @@ public class RuntimeSheetCache
             }
 
             if(shouldWrite) {
-               cache.putAsync(affinityKey, compressed);
+               writeState(affinityKey, compressed);
+            }
+            else {
+               tracker.reset(key);
             }
          }
       }
    }
 
-   private RuntimeSheet toSheet(CompressedSheetState compressed) {
+   private RuntimeSheet toSheet(CompressedSheetState compressed, CompressedSheetState delta) {
       if(compressed == null) {
          return null;
       }
 
-      RuntimeSheetState state = decompressState(compressed);
+      RuntimeSheetState state = decompressState(compressed, delta);
 
       if(state instanceof RuntimeViewsheetState vsState) {
          return new RuntimeViewsheet(vsState, mapper);
@@ -801,6 +873,10 @@ public class RuntimeSheetCache
    private final Cluster cluster;
    private final Map<String, RuntimeSheet> local;
    private final IgniteCache<AffinityKey<String>, CompressedSheetState> cache;
+   // the changes since the checkpoint in cache, written instead of the full state
+   private final IgniteCache<AffinityKey<String>, CompressedSheetState> deltaCache;
+   private final SheetStateCodec codec;
+   private final SheetStateTracker tracker;
    private final int maxSheetCount;
    private final ReadWriteLock lock = new ReentrantReadWriteLock();
    private final ObjectMapper mapper;
@@ -813,6 +889,9 @@ public class RuntimeSheetCache
 
    public static final String LOCAL_SHEET_COUNT = RuntimeSheet.class.getName() + ".localSheetCount";
    public static final String ACCESS_TIME_MAP_NAME = RuntimeSheet.class.getName() + ".accessTime";
+   public static final String DELTA_MAP_NAME = RuntimeSheet.class.getName() + ".delta";
+   public static final String DICTIONARY_MAP_NAME =
+      RuntimeSheet.class.getName() + ".dictionary";
    private static final Logger LOG = LoggerFactory.getLogger(RuntimeSheetCache.class);
 
    private abstract class CacheIterator<T> implements Iterator<T> {
@@ -902,4 +981,19 @@ public class RuntimeSheetCache
          return entry.getValue();
       }
    }
+
+   /**
+    * Reads the version of a checkpoint on the node that owns it.
+    */
+   private static final class CheckpointVersion
+      implements EntryProcessor<AffinityKey<String>, CompressedSheetState, Long>, Serializable
+   {
+      @Override
+      public Long process(MutableEntry<AffinityKey<String>, CompressedSheetState> entry,
+                          Object... arguments)
+      {
+         CompressedSheetState state = entry.getValue();
+         return state == null ? null : state.getVersion();
+      }
+   }
 }
@@ -0,0 +1,217 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2024  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.report.composition;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.github.luben.zstd.*;
+import inetsoft.util.GroupedThread;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SheetStateCodec encodes the runtime sheet states stored in the cluster. The
+ * states are written as JSON or, if binary encoding is enabled, as CBOR, which
+ * is smaller and faster to generate and parse. Both are always readable, so
+ * the encoding can be changed without losing the stored sheets.
+ * <p>
+ * The encoded states are compressed with Zstd. Sheet states are similar to
+ * each other and often small (deltas), so a dictionary trained from the first
+ * states saved improves the compression a lot. The trained dictionaries are
+ * shared with the other nodes through a replicated map, and the dictionary of
+ * a state is found by the dictionary id Zstd records in the frame header.
+ *
+ * @version 14.0
+ * @author InetSoft Technology Corp
+ */
+final class SheetStateCodec {
+   /**
+    * Create a codec.
+    * @param jsonMapper the mapper used for the JSON encoding.
+    * @param binary <tt>true</tt> to write the states as CBOR.
+    * @param dictionaries the shared dictionaries, keyed by dictionary id.
+    * @param train <tt>true</tt> to train and use a compression dictionary.
+    */
+   SheetStateCodec(ObjectMapper jsonMapper, boolean binary, Map<String, byte[]> dictionaries,
+                   boolean train)
+   {
+      this.jsonMapper = jsonMapper;
+      this.binaryMapper = RuntimeSheetCache.createObjectMapper(new CBORFactory());
+      this.binary = binary;
+      this.dictionaries = dictionaries;
+      this.train = train;
+   }
+
+   /**
+    * Get the mapper used to write the states.
+    */
+   ObjectMapper getMapper() {
+      return binary ? binaryMapper : jsonMapper;
+   }
+
+   /**
+    * Get the mapper to read an encoded state.
+    */
+   ObjectMapper getMapper(byte[] data) {
+      return data.length > 0 && data[0] == '{' ? jsonMapper : binaryMapper;
+   }
+
+   /**
+    * Compress an encoded state.
+    */
+   byte[] compress(byte[] data) {
+      ZstdDictCompress dictionary = getCompressDictionary();
+
+      if(dictionary != null) {
+         return Zstd.compress(data, dictionary);
+      }
+
+      if(train) {
+         addSample(data);
+      }
+
+      return Zstd.compress(data);
+   }
+
+   /**
+    * Decompress an encoded state.
+    */
+   byte[] decompress(byte[] compressed) {
+      long dictionaryId = Zstd.getDictIdFromFrame(compressed);
+      long decompressedSize = Zstd.decompressedSize(compressed);
+
+      if(dictionaryId != 0) {
+         return Zstd.decompress(compressed, getDecompressDictionary(dictionaryId),
+                                (int) decompressedSize);
+      }
+
+      if(decompressedSize > 0) {
+         return Zstd.decompress(compressed, (int) decompressedSize);
+      }
+
+      // Fallback for data without size in frame header - use streaming decompressor
+      try(ByteArrayInputStream bais = new ByteArrayInputStream(compressed);
+          ZstdInputStream zis = new ZstdInputStream(bais);
+          ByteArrayOutputStream baos = new ByteArrayOutputStream())
+      {
+         byte[] buffer = new byte[8192];
+         int bytesRead;
+
+         while((bytesRead = zis.read(buffer)) != -1) {
+            baos.write(buffer, 0, bytesRead);
+         }
+
+         return baos.toByteArray();
+      }
+      catch(IOException e) {
+         throw new RuntimeException("Failed to decompress data", e);
+      }
+   }
+
+   private ZstdDictCompress getCompressDictionary() {
+      if(!train) {
+         return null;
+      }
+
+      if(compressDictionary == null && !dictionaries.isEmpty()) {
+         synchronized(this) {
+            if(compressDictionary == null) {
+               // all nodes use the same dictionary if more than one was trained
+               for(String id : new TreeSet<>(dictionaries.keySet())) {
+                  byte[] dictionary = dictionaries.get(id);
+
+                  if(dictionary != null) {
+                     compressDictionary =
+                        new ZstdDictCompress(dictionary, Zstd.defaultCompressionLevel());
+                     break;
+                  }
+               }
+            }
+         }
+      }
+
+      return compressDictionary;
+   }
+
+   private ZstdDictDecompress getDecompressDictionary(long id) {
+      return decompressDictionaries.computeIfAbsent(id, k -> {
+         byte[] dictionary = dictionaries.get(Long.toString(k));
+
+         if(dictionary == null) {
+            throw new IllegalStateException("Missing sheet state dictionary: " + k);
+         }
+
+         return new ZstdDictDecompress(dictionary);
+      });
+   }
+
+   private synchronized void addSample(byte[] data) {
+      if(trainer == null) {
+         if(trained) {
+            return;
+         }
+
+         trainer = new ZstdDictTrainer(SAMPLE_BUFFER_SIZE, DICTIONARY_SIZE);
+      }
+
+      byte[] sample = data.length > MAX_SAMPLE_SIZE ? Arrays.copyOf(data, MAX_SAMPLE_SIZE) : data;
+
+      if(trainer.addSample(sample) && ++samples < SAMPLE_COUNT) {
+         return;
+      }
+
+      ZstdDictTrainer full = trainer;
+      trainer = null;
+      trained = true;
+
+      new GroupedThread(() -> trainDictionary(full), "SheetStateDictionary").start();
+   }
+
+   private void trainDictionary(ZstdDictTrainer trainer) {
+      try {
+         byte[] dictionary = trainer.trainSamples();
+         long id = Zstd.getDictIdFromDict(dictionary);
+         dictionaries.putIfAbsent(Long.toString(id), dictionary);
+         LOG.debug("Trained sheet state dictionary {}", id);
+      }
+      catch(Exception ex) {
+         LOG.warn("Failed to train sheet state dictionary", ex);
+      }
+   }
+
+   private final ObjectMapper jsonMapper;
+   private final ObjectMapper binaryMapper;
+   private final boolean binary;
+   private final Map<String, byte[]> dictionaries;
+   private final boolean train;
+   private final Map<Long, ZstdDictDecompress> decompressDictionaries = new ConcurrentHashMap<>();
+   private volatile ZstdDictCompress compressDictionary;
+   private ZstdDictTrainer trainer;
+   private int samples;
+   private boolean trained;
+
+   private static final int SAMPLE_COUNT = 200;
+   private static final int MAX_SAMPLE_SIZE = 128 * 1024;
+   private static final int SAMPLE_BUFFER_SIZE = 8 * 1024 * 1024;
+   private static final int DICTIONARY_SIZE = 112 * 1024;
+   private static final Logger LOG = LoggerFactory.getLogger(SheetStateCodec.class);
+}
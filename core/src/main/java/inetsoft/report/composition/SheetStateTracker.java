@@ -0,0 +1,231 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2024  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.report.composition;
+
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import net.jpountz.xxhash.XXHash64;
+import net.jpountz.xxhash.XXHashFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * SheetStateTracker tracks the state of each runtime sheet as of its last
+ * checkpoint, so a save only needs to replicate the properties changed since
+ * then. A property is dirty when the fingerprint of its value differs from the
+ * checkpoint, only the dirty properties are serialized into the delta. A delta
+ * always holds all changes since the checkpoint, so a sheet is restored on
+ * failover from its checkpoint and the latest delta alone. A full checkpoint is
+ * taken after a number of deltas, when the delta is not much smaller than the
+ * checkpoint, or when the checkpoint in the cluster was written by another node.
+ *
+ * @version 14.0
+ * @author InetSoft Technology Corp
+ */
+final class SheetStateTracker {
+   /**
+    * Create a tracker.
+    * @param codec the codec used to serialize the sheet states.
+    * @param checkpointInterval the number of deltas written between two full
+    *                           checkpoints, 0 to always write the full state.
+    */
+   SheetStateTracker(SheetStateCodec codec, int checkpointInterval) {
+      this.codec = codec;
+      this.checkpointInterval = checkpointInterval;
+   }
+
+   /**
+    * Encode the state of a sheet for replication.
+    * @param id the runtime sheet id.
+    * @param state the current state of the sheet.
+    * @param clusterVersion the version of the checkpoint stored in the cluster, it's only
+    *                       called before a delta is written.
+    * @return the full state or the delta since the last checkpoint.
+    */
+   Update encode(String id, RuntimeSheetState state, LongSupplier clusterVersion)
+      throws IOException
+   {
+      ObjectMapper mapper = codec.getMapper();
+      Map<String, Object> values = new LinkedHashMap<>();
+      Map<String, Long> fingerprints = new HashMap<>();
+
+      for(BeanPropertyWriter property : getProperties(mapper, state.getClass())) {
+         Object value = getValue(property, state);
+         values.put(property.getName(), value);
+         fingerprints.put(property.getName(), fingerprint(value, mapper));
+      }
+
+      Checkpoint checkpoint = checkpoints.get(id);
+
+      if(checkpoint != null && checkpointInterval > 0) {
+         synchronized(checkpoint) {
+            if(checkpoint.deltas < checkpointInterval) {
+               ObjectNode delta = mapper.createObjectNode();
+
+               for(Map.Entry<String, Object> e : values.entrySet()) {
+                  if(!fingerprints.get(e.getKey()).equals(checkpoint.fingerprints.get(e.getKey())))
+                  {
+                     delta.set(e.getKey(), mapper.valueToTree(e.getValue()));
+                  }
+               }
+
+               byte[] data = mapper.writeValueAsBytes(delta);
+
+               // another node may have written a checkpoint the delta doesn't apply to
+               if(data.length * 2L < checkpoint.size &&
+                  clusterVersion.getAsLong() == checkpoint.version)
+               {
+                  checkpoint.deltas++;
+                  return new Update(data, true, checkpoint.version);
+               }
+            }
+         }
+      }
+
+      long version = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+      byte[] data = mapper.writeValueAsBytes(state);
+      checkpoints.put(id, new Checkpoint(version, fingerprints, data.length));
+      return new Update(data, false, version);
+   }
+
+   /**
+    * Forget the checkpoint of a sheet. The next save writes the full state.
+    */
+   void reset(String id) {
+      checkpoints.remove(id);
+   }
+
+   /**
+    * Forget the checkpoints of all sheets.
+    */
+   void clear() {
+      checkpoints.clear();
+   }
+
+   /**
+    * Restore the state of a sheet from its checkpoint and delta.
+    * @param checkpoint the serialized checkpoint state.
+    * @param delta the serialized delta since the checkpoint, or <tt>null</tt>.
+    * @param type the state class.
+    */
+   <T extends RuntimeSheetState> T restore(byte[] checkpoint, byte[] delta, Class<T> type)
+      throws IOException
+   {
+      ObjectMapper mapper = codec.getMapper(checkpoint);
+
+      if(delta == null) {
+         return mapper.readValue(checkpoint, type);
+      }
+
+      ObjectNode tree = (ObjectNode) mapper.readTree(checkpoint);
+      tree.setAll((ObjectNode) codec.getMapper(delta).readTree(delta));
+      return mapper.treeToValue(tree, type);
+   }
+
+   /**
+    * Get the serialized properties of a state class.
+    */
+   private List<BeanPropertyWriter> getProperties(ObjectMapper mapper, Class<?> type)
+      throws JsonMappingException
+   {
+      List<BeanPropertyWriter> list = properties.get(type);
+
+      if(list == null) {
+         list = new ArrayList<>();
+         JsonSerializer<Object> serializer =
+            mapper.getSerializerProviderInstance().findValueSerializer(type);
+
+         for(Iterator<PropertyWriter> i = serializer.properties(); i.hasNext();) {
+            PropertyWriter property = i.next();
+
+            if(property instanceof BeanPropertyWriter) {
+               list.add((BeanPropertyWriter) property);
+            }
+         }
+
+         properties.put(type, list);
+      }
+
+      return list;
+   }
+
+   private static Object getValue(BeanPropertyWriter property, Object bean) throws IOException {
+      try {
+         return property.get(bean);
+      }
+      catch(Exception ex) {
+         throw new IOException("Failed to get sheet state property: " + property.getName(), ex);
+      }
+   }
+
+   /**
+    * Get a 64 bit hash of a property value. The strings and byte arrays, which hold the
+    * large parts of the state, are hashed without serializing them.
+    */
+   private static long fingerprint(Object value, ObjectMapper mapper) throws IOException {
+      byte[] bytes;
+
+      if(value == null) {
+         return 0L;
+      }
+      else if(value instanceof String) {
+         bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+      }
+      else if(value instanceof byte[]) {
+         bytes = (byte[]) value;
+      }
+      else {
+         bytes = mapper.writeValueAsBytes(value);
+      }
+
+      // the seed keeps an empty value apart from null
+      return HASH.hash(bytes, 0, bytes.length, 1L);
+   }
+
+   /**
+    * An encoded sheet state.
+    */
+   record Update(byte[] data, boolean delta, long version) {
+   }
+
+   private static final class Checkpoint {
+      Checkpoint(long version, Map<String, Long> fingerprints, long size) {
+         this.version = version;
+         this.fingerprints = fingerprints;
+         this.size = size;
+      }
+
+      private final long version;
+      private final Map<String, Long> fingerprints;
+      private final long size;
+      private int deltas;
+   }
+
+   private final SheetStateCodec codec;
+   private final int checkpointInterval;
+   private final Map<String, Checkpoint> checkpoints = new ConcurrentHashMap<>();
+   private final Map<Class<?>, List<BeanPropertyWriter>> properties = new ConcurrentHashMap<>();
+   private static final XXHash64 HASH = XXHashFactory.fastestInstance().hash64();
+}
@@ -61,6 +61,7 @@ public abstract class WorksheetEngine extends SheetLibraryEngine implements Work
       cluster.registerSpringProxyPartitionedCache(CACHE_NAME);
       cluster.registerSpringProxyPartitionedCache(RuntimeSheetCache.ACCESS_TIME_MAP_NAME);
       cluster.getCache(RuntimeSheetCache.ACCESS_TIME_MAP_NAME);
+      cluster.registerSpringProxyPartitionedCache(RuntimeSheetCache.DELTA_MAP_NAME);
       amap = new RuntimeSheetCache(cluster, CACHE_NAME);
       emap = new ConcurrentHashMap<>();
       executionMap = new ExecutionMap();
@@ -363,18 +363,26 @@ public class AssetDataCache extends DataCache<DataKey, TableLens> {
       // we should cache with short timeout so that the data will update
       // immediately after update the database when reopen the viewsheet
       long timeout = -1L;
+      Principal user = box.getUser();
+      String window = ScheduleQueryWindow.getWindow(user);
+      VariableTable vars = getVariableTable(box, ignoredVars, extraVars, runtimeVars);
 
       if("true".equals(box.getVariableTable().get("_FORM_"))) {
          timeout = 5000L;
       }
+      // scheduled tasks in the same window share the data among themselves,
+      // it's kept apart from the data used by interactive sessions
+      else if(window != null) {
+         timeout = ScheduleQueryWindow.getWindowLength();
+         vars = vars == null ? new VariableTable() : vars;
+         vars.put(ScheduleQueryWindow.WINDOW_PROPERTY, window);
+      }
       else if(!isCacheEnabled(mode)) {
          timeout = 15000L;
       }
 
-      Principal user = box.getUser();
       WorksheetInfo winfo = box.getWorksheet().getWorksheetInfo();
-      return DataKey.create(table, getVariableTable(box, ignoredVars, extraVars, runtimeVars),
-                            user, mode, formatted, winfo.getDesignMaxRows(),
+      return DataKey.create(table, vars, user, mode, formatted, winfo.getDesignMaxRows(),
                             winfo.getPreviewMaxRow(), box.isIgnoreFiltering(), timeout);
    }
 
@@ -803,7 +811,9 @@ public class AssetDataCache extends DataCache<DataKey, TableLens> {
             cache = false;
          }
 
-         key = cache ? getCacheKey(table, box, ignoredVars, mode, false) : null;
+         // scheduled tasks share data within the schedule window when schedule.query.window is set
+         key = cache || box != null && ScheduleQueryWindow.getWindow(box.getUser()) != null ?
+            getCacheKey(table, box, ignoredVars, mode, false) : null;
       }
       catch(Exception ex) {
          // cache is not allowed
@@ -0,0 +1,110 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2024  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.report.composition.execution;
+
+import inetsoft.report.composition.graph.VGraphPair;
+import inetsoft.sree.SreeEnv;
+
+import java.lang.ref.SoftReference;
+import java.util.*;
+
+/**
+ * RetainedGraphs keeps the graphs of the recent states of the charts in a viewsheet, so a
+ * chart that returns to a previous state, e.g. when a brush is cleared or a legend is shown
+ * again, doesn't need to generate and lay out the graph again. The number of states kept
+ * for each chart is set by {@code chart.retained.graphs}. It's off by default since the
+ * data of a chart is hashed on each build to find a retained state.
+ *
+ * @version 14.0
+ * @author InetSoft Technology Corp
+ */
+final class RetainedGraphs {
+   /**
+    * Check if graphs are retained.
+    */
+   boolean isEnabled() {
+      return getMaxCount() > 0;
+   }
+
+   /**
+    * Keep the graphs of a chart state.
+    * @param name the chart name.
+    * @param pair the graph pair that is being replaced.
+    */
+   synchronized void retain(String name, VGraphPair pair) {
+      int max = getMaxCount();
+
+      if(max <= 0 || pair == null || pair.getStateKey() == null || !pair.isCompleted() ||
+         pair.isCancelled() || !pair.isPlotted())
+      {
+         return;
+      }
+
+      Map<String, SoftReference<VGraphPair>> states =
+         graphs.computeIfAbsent(name, k -> new LinkedHashMap<>(16, 0.75F, true));
+      states.put(pair.getStateKey(), new SoftReference<>(pair));
+
+      for(Iterator<String> keys = states.keySet().iterator(); states.size() > max;) {
+         keys.next();
+         keys.remove();
+      }
+   }
+
+   /**
+    * Get the graphs of a chart state.
+    * @param name the chart name.
+    * @param key the state key.
+    * @return the graph pair of the state, or null if not retained.
+    */
+   synchronized VGraphPair get(String name, String key) {
+      Map<String, SoftReference<VGraphPair>> states = graphs.get(name);
+      SoftReference<VGraphPair> ref = states == null ? null : states.get(key);
+      VGraphPair pair = ref == null ? null : ref.get();
+
+      if(ref != null && pair == null) {
+         states.remove(key);
+      }
+
+      return pair;
+   }
+
+   /**
+    * Remove the graphs of a chart.
+    */
+   synchronized void remove(String name) {
+      graphs.remove(name);
+   }
+
+   /**
+    * Remove all graphs.
+    */
+   synchronized void clear() {
+      graphs.clear();
+   }
+
+   private static int getMaxCount() {
+      try {
+         return Integer.parseInt(SreeEnv.getProperty("chart.retained.graphs", "0"));
+      }
+      catch(NumberFormatException e) {
+         return 0;
+      }
+   }
+
+   private final Map<String, Map<String, SoftReference<VGraphPair>>> graphs = new HashMap<>();
+}
@@ -0,0 +1,103 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2024  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.report.composition.execution;
+
+import inetsoft.sree.SreeEnv;
+import inetsoft.uql.XPrincipal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.Principal;
+
+/**
+ * ScheduleQueryWindow groups scheduled tasks that start close to each other.
+ * Tasks in the same window share the query results in <tt>AssetDataCache</tt>
+ * regardless of the runtime cache settings, so that several tasks refreshing
+ * the same worksheets only hit the database once. The cached results are kept
+ * apart from the interactive ones and expire once the window is not used
+ * anymore.
+ * <p>
+ * Sharing is off unless the <tt>schedule.query.window</tt> property is set to
+ * the window length in milliseconds, e.g. <tt>300000</tt> for five minutes.
+ * Tasks in a window may see results that are up to one window length old.
+ *
+ * @version 14.0
+ * @author InetSoft Technology Corp
+ */
+public final class ScheduleQueryWindow {
+   /**
+    * Join the current schedule window. The window is recorded on the task
+    * principal so it follows the principal to the query threads.
+    * @param user the principal the scheduled task runs as.
+    */
+   public static void join(Principal user) {
+      long length = getWindowLength();
+
+      if(length > 0 && user instanceof XPrincipal) {
+         ((XPrincipal) user).setProperty(
+            WINDOW_PROPERTY, getCurrentWindow(length, System.currentTimeMillis()));
+      }
+   }
+
+   /**
+    * Get the schedule window the principal belongs to.
+    * @return the window id or <tt>null</tt> if not running a scheduled task.
+    */
+   public static String getWindow(Principal user) {
+      return user instanceof XPrincipal ?
+         ((XPrincipal) user).getProperty(WINDOW_PROPERTY) : null;
+   }
+
+   /**
+    * Get the length of a schedule window in milliseconds. A value that is not
+    * positive, which is the default, disables sharing between scheduled tasks.
+    */
+   public static long getWindowLength() {
+      String prop = SreeEnv.getProperty("schedule.query.window", "0");
+
+      try {
+         return Long.parseLong(prop);
+      }
+      catch(NumberFormatException ex) {
+         LOG.warn("Invalid schedule.query.window value: {}", prop);
+         return 0L;
+      }
+   }
+
+   /**
+    * Get the window a task started at the specified time belongs to. A new
+    * window is opened when the current one is older than the window length.
+    */
+   static synchronized String getCurrentWindow(long length, long now) {
+      if(windowStart < 0 || now < windowStart || now - windowStart >= length) {
+         windowStart = now;
+      }
+
+      return Long.toString(windowStart);
+   }
+
+   private ScheduleQueryWindow() {
+   }
+
+   /**
+    * The principal property holding the schedule window id.
+    */
+   public static final String WINDOW_PROPERTY = "__schedule_query_window__";
+   private static long windowStart = -1L;
+   private static final Logger LOG = LoggerFactory.getLogger(ScheduleQueryWindow.class);
+}
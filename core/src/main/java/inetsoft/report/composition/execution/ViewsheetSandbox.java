@@ -741,6 +741,7 @@ public class ViewsheetSandbox implements Cloneable, ActionListener {
       vset.clear();
       painters.clear();
       pairs.clear();
+      retainedGraphs.clear();
       images.clear();
 
       disposeSandbox();
@@ -5788,6 +5789,7 @@ public class ViewsheetSandbox implements Cloneable, ActionListener {
 
          VGraphPair pair = pairs.remove(oname);
          graphLocks.remove(oname);
+         retainedGraphs.remove(oname);
 
          if(pair != null) {
             pairs.put(nname, pair);
@@ -5829,6 +5831,7 @@ public class ViewsheetSandbox implements Cloneable, ActionListener {
       VGraphPair pair = pairs.remove(name);
 
       if(pair != null) {
+         retainedGraphs.retain(name, pair);
          pair.cancel();
       }
 
@@ -5843,10 +5846,28 @@ public class ViewsheetSandbox implements Cloneable, ActionListener {
 
       if(pair != null && !pair.isSameDescriptor(cdesc)) {
          pairs.remove(name);
+         retainedGraphs.retain(name, pair);
          pair.cancel();
       }
    }
 
+   /**
+    * Check if the graphs of the recent chart states are retained.
+    */
+   public boolean isGraphRetained() {
+      return retainedGraphs.isEnabled();
+   }
+
+   /**
+    * Get the retained graphs of a chart state.
+    * @param name the chart name.
+    * @param key the state key of the graphs, see {@link VGraphPair#getStateKey()}.
+    * @return the graph pair of the state, or null if not retained.
+    */
+   public VGraphPair getRetainedGraph(String name, String key) {
+      return retainedGraphs.get(name, key);
+   }
+
    /**
     * Save chart info as a flag to check if the data is expired.
     * @param name     the assembly name.
@@ -6768,6 +6789,7 @@ public class ViewsheetSandbox implements Cloneable, ActionListener {
             {
                opair = pair;
                pairs.remove(name);
+               retainedGraphs.retain(name, opair);
                pair = new VGraphPair();
 
                if(vmode != Viewsheet.SHEET_DESIGN_MODE) {
@@ -8201,6 +8223,7 @@ public class ViewsheetSandbox implements Cloneable, ActionListener {
    private final Map<String, Image> images; // image map
    private final Map<String, Painter> painters; // painter map
    private final Map<String, VGraphPair> pairs; // graph pairs map
+   private final RetainedGraphs retainedGraphs = new RetainedGraphs();
    private Principal user; // current user
    private final int vmode; // viewsheet mode
    private final QueryManager queryMgr = new QueryManager(); // general query manager
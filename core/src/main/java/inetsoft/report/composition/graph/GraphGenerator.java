@@ -735,6 +735,22 @@ public abstract class GraphGenerator {
       this.querySandbox = querySandbox;
    }
 
+   /**
+    * Check if the points of large line and point charts may be reduced to the chart size.
+    */
+   public boolean isLevelOfDetailEnabled() {
+      return lodEnabled;
+   }
+
+   /**
+    * Set if the points of large line and point charts may be reduced to the chart size.
+    * It's only set for interactive charts, so exported and printed charts plot all points.
+    * The graph.lod.enabled property must also be true.
+    */
+   public void setLevelOfDetailEnabled(boolean lodEnabled) {
+      this.lodEnabled = lodEnabled;
+   }
+
    /**
     * Replace highlight variables.
     */
@@ -857,6 +873,7 @@ public abstract class GraphGenerator {
       fixDefaultFormats();
       createEGraph0();
       fixGraphProperties();
+      setLevelOfDetail();
 
       if(dateComparison != null) {
          GraphDefault.setDefaultOutlines(graph);
@@ -866,6 +883,27 @@ public abstract class GraphGenerator {
       return graph;
    }
 
+   /**
+    * Plot only the points of large line and point charts that show at the chart size.
+    * A zoom reruns the graph on the zoomed data so the hidden points are plotted when
+    * there are few enough of them.
+    */
+   private void setLevelOfDetail() {
+      if(!lodEnabled || graphSize == null || !(graph.getCoordinate() instanceof RectCoord) ||
+         !"true".equals(SreeEnv.getProperty("graph.lod.enabled", "false")))
+      {
+         return;
+      }
+
+      for(int i = 0; i < graph.getElementCount(); i++) {
+         GraphElement elem = graph.getElement(i);
+
+         if(elem instanceof LineElement || elem instanceof PointElement) {
+            elem.setLevelOfDetail(graphSize);
+         }
+      }
+   }
+
    protected PolarCoord createPolarCoord(int type, Scale xscale) {
       PolarCoord coord;
 
@@ -7326,6 +7364,7 @@ public abstract class GraphGenerator {
    private final VSSizeFrameStrategy szstrategy;
    private final VSTextFrameStrategy txtstrategy;
    private Object querySandbox;
+   private boolean lodEnabled;
    private DateComparisonInfo dateComparison;
    protected Color brushHLColor = BrushingColor.getHighlightColor();
    protected Color brushDimColor = BrushingColor.getDimColor();
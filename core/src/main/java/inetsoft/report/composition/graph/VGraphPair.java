@@ -64,7 +64,11 @@ import java.awt.*;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
-import java.io.IOException;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.List;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -342,10 +346,23 @@ public class VGraphPair {
          }
       }
 
+      hashedData = data;
+      hashedAData = adata;
+      dataHash = null;
+      stateKey = export ? null :
+         getStateKey(box, ainfo, data, adata, vars, maxsize, scaleFont, forceExpand);
+      VGraphPair retained = stateKey == null ? null : box.getRetainedGraph(cname, stateKey);
+
+      // an interaction returned the chart to a state that is already laid out
+      if(retained != null && restore(retained, info)) {
+         LOG.debug("Reuse the retained graph of chart {}", cname);
+         return;
+      }
+
       synchronized(info) {
          try {
-            creator = new Creator(ainfo, vbox, data, adata, vdata, vars, this.size);
-            creator2 = new Creator(ainfo, vbox, data, adata, vdata, vars, this.size);
+            creator = new Creator(ainfo, vbox, data, adata, vdata, vars, this.size, !export);
+            creator2 = new Creator(ainfo, vbox, data, adata, vdata, vars, this.size, !export);
          }
          catch(Exception ex) {
             if(cancelled) {
@@ -431,7 +448,7 @@ public class VGraphPair {
                      tinfo.setNeedResetShape(false);
                   }
 
-                  creator = new Creator(ainfo, vbox, data, adata, vdata, vars, this.size);
+                  creator = new Creator(ainfo, vbox, data, adata, vdata, vars, this.size, !export);
                   cscriptable.setGraphCreator(this.creator = creator);
                   egraph = creator.getGraph();
                   this.data = creator.getGraphDataSet();
@@ -463,7 +480,7 @@ public class VGraphPair {
             // descriptor change, create graph
             try {
                if(!cscript && isChanged) {
-                  creator2 = new Creator(ainfo, vbox, data, adata, vdata, vars, this.size);
+                  creator2 = new Creator(ainfo, vbox, data, adata, vdata, vars, this.size, !export);
                   cscriptable.setGraphCreator(this.creator = creator2);
                   egraph2 = creator2.getGraph();
                   this.data = creator2.getGraphDataSet();
@@ -844,6 +861,11 @@ public class VGraphPair {
          }
       }
 
+      ratios = new double[] {
+         info.getInitialWidthRatio(), info.getInitialHeightRatio(),
+         info.getEffectiveWidthRatio(), info.getEffectiveHeightRatio(),
+         info.getUnitWidthRatio(), info.getUnitHeightRatio() };
+
       // clear the runtime infos, when the graph has been created
       // @by larryl, clearing runtime information after each graph init is problematic
       // since the graph pair may be requested multiple times (for chart model and
@@ -853,6 +875,91 @@ public class VGraphPair {
       // clearRuntimeInfos(ainfo);
    }
 
+   /**
+    * Get the key of the state of a chart. The graphs of two states with the same key are
+    * identical, so a retained graph can be used instead of generating the graph again.
+    *
+    * @return the key, or null if the graph can't be retained.
+    */
+   private String getStateKey(ViewsheetSandbox box, ChartVSAssemblyInfo ainfo,
+                              DataSet data, DataSet adata, VariableTable vars,
+                              Dimension maxsize, double scaleFont, boolean forceExpand)
+   {
+      // a script may change the graph in any way. hashing a large data set may take
+      // longer than generating the graph
+      if(data == null || box.getMode() != Viewsheet.SHEET_RUNTIME_MODE ||
+         (long) data.getRowCount() * data.getColCount() > MAX_STATE_CELLS ||
+         !Tool.isEmptyString(ainfo.getScript()) && ainfo.isScriptEnabled() ||
+         !box.isGraphRetained())
+      {
+         return null;
+      }
+
+      try {
+         MessageDigest digest = MessageDigest.getInstance("SHA-256");
+         updateHash(digest, size + "," + maxsize + "," + scaleFont + "," + forceExpand + "," +
+            (brushHLColor == null ? "" : brushHLColor.getRGB()));
+         digest.update(getDataHash());
+
+         if(vars != null) {
+            for(Enumeration<String> keys = vars.keys(); keys.hasMoreElements();) {
+               String key = keys.nextElement();
+               updateHash(digest, key);
+               updateHash(digest, Tool.getDataString(vars.get(key)));
+            }
+         }
+
+         try(PrintWriter writer = new PrintWriter(new OutputStreamWriter(
+            new DigestOutputStream(OutputStream.nullOutputStream(), digest),
+            StandardCharsets.UTF_8)))
+         {
+            ainfo.writeXML(writer);
+         }
+
+         return HexFormat.of().formatHex(digest.digest());
+      }
+      catch(Exception e) {
+         LOG.debug("Failed to create the state key of chart {}", ainfo.getAbsoluteName(), e);
+         return null;
+      }
+   }
+
+   /**
+    * Use the graphs of a pair that was created for the same state.
+    *
+    * @return true if the graphs were copied.
+    */
+   private boolean restore(VGraphPair retained, VSChartInfo info) {
+      synchronized(retained) {
+         if(!retained.isPlotted() || retained.ratios == null) {
+            return false;
+         }
+
+         egraph = retained.egraph;
+         vgraph = retained.vgraph;
+         evgraph = retained.evgraph;
+         width = retained.width;
+         height = retained.height;
+         ewidth = retained.ewidth;
+         eheight = retained.eheight;
+         data = retained.data;
+         cscript = retained.cscript;
+         isStructureChanged = retained.isStructureChanged;
+         creator = retained.creator;
+         contentHash = retained.contentHash;
+         dataHash = retained.dataHash;
+         ratios = retained.ratios;
+      }
+
+      info.setInitialWidthRatio(ratios[0]);
+      info.setInitialHeightRatio(ratios[1]);
+      info.setEffectiveWidthRatio(ratios[2]);
+      info.setEffectiveHeightRatio(ratios[3]);
+      info.setUnitWidthRatio(ratios[4]);
+      info.setUnitHeightRatio(ratios[5]);
+      return true;
+   }
+
    private void createEVGraph(EGraph egraph2, int ewidth, int eheight) {
       plotter2 = Plotter.getPlotter(egraph2);
       evgraph = plotter2.plot(this.data);
@@ -2634,13 +2741,94 @@ public class VGraphPair {
       return desc.equalsContent(odesc);
    }
 
+   /**
+    * Get a hash of the content rendered by this pair, the data and the graph sizes. The images of
+    * two pairs with the same content hash and the same chart assembly info are identical.
+    *
+    * @return the hash, or null if the graph is not plotted or was changed by script.
+    */
+   public synchronized String getContentHash() {
+      if(contentHash != null || !isPlotted() || data == null || cscript || isChangedByScript()) {
+         return contentHash;
+      }
+
+      try {
+         MessageDigest digest = MessageDigest.getInstance("SHA-256");
+         updateHash(digest, width + "x" + height + "," + ewidth + "x" + eheight + "," + size);
+         updateHash(digest, topPadding + "," + leftPadding + "," + bottomPadding + "," +
+            rightPadding + "," + vsrc + "," +
+            (brushHLColor == null ? "" : brushHLColor.getRGB()));
+         digest.update(getDataHash());
+         contentHash = HexFormat.of().formatHex(digest.digest());
+      }
+      catch(NoSuchAlgorithmException e) {
+         LOG.warn("SHA-256 digest is not available", e);
+      }
+
+      return contentHash;
+   }
+
+   /**
+    * Get the hash of the data the graphs are created from. It's shared by the state key and
+    * the content hash so the data is only walked once.
+    */
+   private synchronized byte[] getDataHash() throws NoSuchAlgorithmException {
+      if(dataHash == null) {
+         DataSet source = hashedData != null ? hashedData : data;
+         MessageDigest digest = MessageDigest.getInstance("SHA-256");
+         updateDataHash(digest, source);
+
+         if(hashedAData != null && hashedAData != source) {
+            updateDataHash(digest, hashedAData);
+         }
+
+         dataHash = digest.digest();
+      }
+
+      return dataHash;
+   }
+
+   /**
+    * Get the key of the chart state the graphs were created for.
+    *
+    * @return the key, or null if the graphs can't be retained.
+    */
+   public String getStateKey() {
+      return stateKey;
+   }
+
+   private static void updateDataHash(MessageDigest digest, DataSet data) {
+      int ccnt = data.getColCount();
+      int rcnt = data.getRowCount();
+
+      for(int i = 0; i < ccnt; i++) {
+         updateHash(digest, data.getHeader(i));
+      }
+
+      for(int r = 0; r < rcnt; r++) {
+         for(int c = 0; c < ccnt; c++) {
+            Object value = data.getData(c, r);
+            updateHash(digest, value instanceof Date ? ((Date) value).getTime() : value);
+         }
+      }
+   }
+
+   private static void updateHash(MessageDigest digest, Object value) {
+      if(value != null) {
+         digest.update(value.toString().getBytes(StandardCharsets.UTF_8));
+      }
+
+      digest.update((byte) 0);
+   }
+
    public GraphCreator getGraphCreator() {
       return creator;
    }
 
    private static class Creator extends GraphCreator {
       public Creator(ChartVSAssemblyInfo ainfo, ViewsheetSandbox vbox, DataSet data,
-                     DataSet adata, DataSet vdata, VariableTable vars, Dimension size)
+                     DataSet adata, DataSet vdata, VariableTable vars, Dimension size,
+                     boolean lod)
       {
          this.ainfo = ainfo;
          this.vbox = vbox;
@@ -2649,6 +2837,7 @@ public class VGraphPair {
          this.vdata = vdata;
          this.vars = vars;
          this.size = size;
+         this.lod = lod;
          oinfo = ainfo.getVSChartInfo().clone();
       }
 
@@ -2706,7 +2895,8 @@ public class VGraphPair {
 
             GraphGenerator gen = GraphGenerator.getGenerator(ainfo, adata, data, vars, vdata,
                                                              sourceType, size);
-
+            // reduce the points of large charts only when viewed, not exported
+            gen.setLevelOfDetailEnabled(lod);
             graph = gen.createEGraph();
             graphdata = gen.getData();
          }
@@ -2765,6 +2955,7 @@ public class VGraphPair {
       private VariableTable vars;
       private double legendSize;
       private Dimension size;
+      private boolean lod;
    }
 
    public ChartInfo getChartInfo() {
@@ -2792,6 +2983,13 @@ public class VGraphPair {
    private ChartInfo cinfo;
    private Plotter plotter1, plotter2;
    private GraphCreator creator;
-
+   private String contentHash;
+   private String stateKey;
+   private DataSet hashedData; // the data and brush data the graphs are created from
+   private DataSet hashedAData;
+   private byte[] dataHash;
+   private double[] ratios; // the graph size ratios set in the chart info
+
+   private static final long MAX_STATE_CELLS = 1000000L;
    private static final Logger LOG = LoggerFactory.getLogger(VGraphPair.class);
 }
@@ -1507,6 +1507,15 @@ public class VSDataSet extends AbstractDataSet implements AttributeDataSet {
       return data;
    }
 
+   /**
+    * The values are read from the table lens, so the charts bound to the same table share the
+    * value indexes.
+    */
+   @Override
+   public Object getIndexSource() {
+      return data;
+   }
+
    /**
     * Get the per cell format.
     * @param row row number.
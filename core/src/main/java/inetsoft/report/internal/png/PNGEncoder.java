@@ -17,16 +17,24 @@
  */
 package inetsoft.report.internal.png;
 
+import inetsoft.sree.SreeEnv;
+
 import java.awt.*;
 import java.io.*;
+import java.util.zip.Deflater;
 
 /**
- * Encode an image in png format.
+ * Encode an image in png format. The compression level, adaptive filtering
+ * and parallel compression default to the image.png.compression,
+ * image.filtered and image.png.parallel properties.
  */
 public class PNGEncoder implements PNGConstants {
    public PNGEncoder(Image image, boolean alpha) {
       this.alpha = alpha;
       this.image = new PNGImage(image, 8, alpha);
+      this.level = getCompressionLevel();
+      this.filtered = "true".equalsIgnoreCase(SreeEnv.getProperty("image.filtered"));
+      this.parallel = !"false".equals(SreeEnv.getProperty("image.png.parallel"));
    }
 
    /**
@@ -35,12 +43,37 @@ public class PNGEncoder implements PNGConstants {
    public void setResolution(int dpi) {
       this.dpi = Integer.valueOf(dpi);
    }
-   
+
+   /**
+    * Set the deflate compression level, from 0 (fastest) to 9 (smallest), or
+    * -1 for the default level.
+    */
+   public void setCompressionLevel(int level) {
+      this.level = level;
+   }
+
+   /**
+    * Set whether to select the filter of each scanline adaptively. Filtering
+    * makes photographs and gradients compress better, while flat images such
+    * as charts are usually smaller and faster to encode without it.
+    */
+   public void setFiltered(boolean filtered) {
+      this.filtered = filtered;
+   }
+
+   /**
+    * Set whether the stripes of a large image may be compressed on multiple
+    * threads.
+    */
+   public void setParallel(boolean parallel) {
+      this.parallel = parallel;
+   }
+
    public void encode(OutputStream out) throws IOException {
-      DataOutputStream dout = 
+      DataOutputStream dout =
          new DataOutputStream(new BufferedOutputStream(out));
-      PNGUtil util = new PNGUtil(alpha);
-      PNGWriter writer = new PNGWriter(image, PNG_ZBUF_SIZE, util, alpha);
+      PNGUtil util = new PNGUtil(alpha, filtered);
+      PNGWriter writer = new PNGWriter(image, PNG_ZBUF_SIZE, util, alpha, level);
 
       writer.writeSignature(dout);
       writer.writeIHDR(dout);
@@ -48,15 +81,29 @@ public class PNGEncoder implements PNGConstants {
       if(dpi != null) {
          writer.writePHYS(dout, dpi.intValue());
       }
-      
-      writer.writeImageData(dout);
+
+      writer.writeImageData(dout, parallel);
       writer.writeIEND(dout);
 
       dout.flush();
    }
 
+   private static int getCompressionLevel() {
+      try {
+         String value = SreeEnv.getProperty("image.png.compression");
+         int level = value == null ? Deflater.DEFAULT_COMPRESSION : Integer.parseInt(value);
+         return level < -1 || level > 9 ? Deflater.DEFAULT_COMPRESSION : level;
+      }
+      catch(NumberFormatException e) {
+         return Deflater.DEFAULT_COMPRESSION;
+      }
+   }
+
    private PNGImage image;
    private boolean alpha;
    private Integer dpi;
+   private int level;
+   private boolean filtered;
+   private boolean parallel;
 }
 
@@ -45,27 +45,36 @@ public class PNGImage {
 
    private void fetchImage() {
       int[] pixels = new int[width * height];
-      PixelGrabber grabber = new PixelGrabber(image, 0, 0, width, height,
-         pixels, 0, width);
+      ColorModel model;
+      ColorModel defaultRGB = ColorModel.getRGBdefault();
+
+      // read the pixels of a buffered image directly instead of through the image producer
+      if(image instanceof BufferedImage) {
+         ((BufferedImage) image).getRGB(0, 0, width, height, pixels, 0, width);
+         model = defaultRGB;
+      }
+      else {
+         PixelGrabber grabber = new PixelGrabber(image, 0, 0, width, height,
+            pixels, 0, width);
 
-      try {
-         if(image.getSource() == null) {
-            LOG.error("Could not get PNG image producer");
+         try {
+            if(image.getSource() == null) {
+               LOG.error("Could not get PNG image producer");
+            }
+            else {
+               grabber.grabPixels();
+            }
          }
-         else {
-            grabber.grabPixels();
+         catch(InterruptedException e) {
+            LOG.error("Image fetch interrupted", e);
          }
-      }
-      catch(InterruptedException e) {
-         LOG.error("Image fetch interrupted", e);
-      }
 
-      if((grabber.getStatus() & ImageObserver.ABORT) != 0) {
-         LOG.error("Image fetch aborted or error");
-      }
+         if((grabber.getStatus() & ImageObserver.ABORT) != 0) {
+            LOG.error("Image fetch aborted or error");
+         }
 
-      ColorModel model = grabber.getColorModel();
-      ColorModel defaultRGB = ColorModel.getRGBdefault();
+         model = grabber.getColorModel();
+      }
 
       // optimize for default color model and 8 bit, very very tight loop
       if(model == defaultRGB && bitDepth == 8) {
@@ -165,6 +174,16 @@ public class PNGImage {
       return scanLine;
    }
 
+   /**
+    * Copy a scan line into a buffer.
+    *
+    * @param row  the row index.
+    * @param line the buffer, which must be the size of a scan line.
+    */
+   void getScanLine(int row, byte[] line) {
+      System.arraycopy(imageData, row * line.length, line, 0, line.length);
+   }
+
    public void reset() {
       row = 0;
    }
@@ -30,9 +30,24 @@ import java.util.zip.CRC32;
 
 public class PNGUtil implements PNGConstants {
    public PNGUtil(boolean alpha) {
+      this(alpha, SreeEnv.getProperty("image.filtered").equalsIgnoreCase("true"));
+   }
+
+   /**
+    * Create a PNGUtil.
+    * @param alpha true if the image has an alpha channel.
+    * @param filtered true to select the filter of each scanline adaptively.
+    */
+   public PNGUtil(boolean alpha, boolean filtered) {
       this.alpha = alpha;
-      imageFiltered = SreeEnv.getProperty("image.filtered").
-         equalsIgnoreCase("true");
+      this.imageFiltered = filtered;
+   }
+
+   /**
+    * Check if the scanlines are filtered adaptively.
+    */
+   public boolean isFiltered() {
+      return imageFiltered;
    }
 
    /**
@@ -120,26 +135,33 @@ public class PNGUtil implements PNGConstants {
          return buff1;
       }
 
+      // the buffer of the best filter is kept and the other one is reused for the next filter
       byte[] buff2 = new byte[scanLine.length + 1];
       int sum1 = sumFilter(buff1);
       int sum2 = applySubFilter(scanLine, buff2, bpp);
 
       if(sum2 < sum1) {
+         byte[] temp = buff1;
          buff1 = buff2;
+         buff2 = temp;
          sum1 = sum2;
       }
 
       sum2 = applyUpFilter(scanLine, priorLine, buff2);
 
       if(sum2 < sum1) {
+         byte[] temp = buff1;
          buff1 = buff2;
+         buff2 = temp;
          sum1 = sum2;
       }
 
       sum2 = applyAverageFilter(scanLine, priorLine, buff2, bpp);
 
       if(sum2 < sum1) {
+         byte[] temp = buff1;
          buff1 = buff2;
+         buff2 = temp;
          sum1 = sum2;
       }
 
@@ -162,14 +184,14 @@ public class PNGUtil implements PNGConstants {
    }
 
    /**
-    * Applies a null filter (no filtering of the bytes) to the
-    * specified scanline.
+    * Returns the sum of the filtered bytes as signed values, which is
+    * compared with the sums of the other filters.
     */
    public int sumFilter(byte[] buff) {
       int sum = 0;
 
       for(int i = 1; i < buff.length; i++) {
-         sum += ((int) buff[i]) & 0xFF;
+         sum += Math.abs((int) buff[i]);
       }
 
       return sum;
@@ -179,7 +201,7 @@ public class PNGUtil implements PNGConstants {
     * Applies a sub filter to the specified scanline.
     */
    public int applySubFilter(byte[] scanLine, byte[] buff, int bpp) {
-      int sum = buff[0];
+      int sum = 0;
 
       buff[0] = PNG_FILTER_SUB;
 
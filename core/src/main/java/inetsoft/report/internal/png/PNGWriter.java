@@ -17,33 +17,37 @@
  */
 package inetsoft.report.internal.png;
 
-import inetsoft.sree.SreeEnv;
-
-import java.io.DataOutputStream;
-import java.io.IOException;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.zip.Adler32;
 import java.util.zip.Deflater;
 
 public class PNGWriter implements PNGConstants {
    public PNGWriter(PNGImage image, int bufSize, PNGUtil util, boolean alpha) {
+      this(image, bufSize, util, alpha, Deflater.DEFAULT_COMPRESSION);
+   }
+
+   /**
+    * Create a PNGWriter.
+    * @param level the deflate compression level, from 0 to 9, or -1 for the
+    * default level.
+    */
+   public PNGWriter(PNGImage image, int bufSize, PNGUtil util, boolean alpha,
+                    int level)
+   {
       this.image = image;
       this.util = util;
       this.alpha = alpha;
+      this.level = level;
 
       int bytesPer = alpha ? 4 : 3;
 
       zstream = new Deflater();
       zbuf = new byte[bufSize];
-
-      String propVal = SreeEnv.getProperty("image.filtered");
-
-      if(propVal.equalsIgnoreCase("true")) {
-         zstream.setStrategy(Deflater.FILTERED);
-      }
-      else {
-         zstream.setStrategy(Deflater.DEFAULT_STRATEGY);
-      }
-
-      zstream.setLevel(Deflater.DEFAULT_COMPRESSION);
+      zstream.setStrategy(getStrategy());
+      zstream.setLevel(level);
 
       int size = image.getWidth() * image.getBitDepth() / 8 * bytesPer;
       size = size < 0 ? 0 : size;
@@ -73,6 +77,236 @@ public class PNGWriter implements PNGConstants {
       writeFinalize(out);
    }
 
+   /**
+    * Write the image data, compressing stripes of the image on multiple
+    * threads if the image is large enough.
+    * @param parallel true to allow the stripes to be compressed in parallel.
+    */
+   protected void writeImageData(DataOutputStream out, boolean parallel)
+      throws IOException
+   {
+      int stripes = parallel ? getStripeCount() : 1;
+
+      if(stripes < 2) {
+         writeImageData(out);
+      }
+      else {
+         writeImageData(out, stripes);
+      }
+   }
+
+   /**
+    * Get the number of stripes to compress in parallel.
+    */
+   int getStripeCount() {
+      long size = (long) (scanLine.length + 1) * image.getHeight();
+
+      if(size < MIN_PARALLEL_SIZE) {
+         return 1;
+      }
+
+      return (int) Math.min(PARALLELISM, Math.min(
+         image.getHeight() / MIN_STRIPE_ROWS, size / MIN_STRIPE_SIZE));
+   }
+
+   /**
+    * Write the image data as independently compressed stripes. Each stripe
+    * is filtered and deflated on its own thread and ends on a byte boundary
+    * with a sync flush, so the raw deflate streams of the stripes are
+    * concatenated into a single zlib stream. The last 32K of the preceding
+    * stripe is used as the preset dictionary so the compression ratio is
+    * close to compressing the whole image at once.
+    */
+   void writeImageData(DataOutputStream out, int stripes) throws IOException {
+      int height = image.getHeight();
+      int rows = (height + stripes - 1) / stripes;
+      List<Future<Stripe>> futures = new ArrayList<>();
+
+      for(int start = 0; start < height; start += rows) {
+         int first = start;
+         int last = Math.min(height, start + rows);
+         futures.add(EXECUTOR.submit(() -> deflateStripe(first, last, last == height)));
+      }
+
+      Adler32 adler = new Adler32();
+      long checksum = adler.getValue();
+
+      for(int i = 0; i < futures.size(); i++) {
+         Stripe stripe;
+
+         try {
+            stripe = futures.get(i).get();
+         }
+         catch(InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while encoding image");
+         }
+         catch(ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+
+            if(e.getCause() instanceof IOException) {
+               throw (IOException) e.getCause();
+            }
+
+            throw new IOException("Failed to encode image", e.getCause());
+         }
+
+         checksum = combineAdler32(checksum, stripe.adler, stripe.length);
+         ByteArrayOutputStream data = stripe.data;
+
+         if(i == 0) {
+            ByteArrayOutputStream header = new ByteArrayOutputStream();
+            header.write(0x78);
+            header.write(getHeaderFlags());
+            data.writeTo(header);
+            data = header;
+         }
+
+         if(i == futures.size() - 1) {
+            new DataOutputStream(data).writeInt((int) checksum);
+         }
+
+         util.write(out, PNG_IDAT, data.toByteArray(), data.size());
+      }
+   }
+
+   private Stripe deflateStripe(int first, int last, boolean finish) {
+      Deflater deflater = new Deflater(level, true);
+      deflater.setStrategy(getStrategy());
+
+      try {
+         int size = scanLine.length;
+         byte[] prior = new byte[size];
+         byte[] line = new byte[size];
+         byte[] buf = new byte[PNG_ZBUF_SIZE];
+         Stripe stripe = new Stripe();
+         int dictRows = Math.min(first, (DICTIONARY_SIZE + size) / (size + 1));
+
+         if(dictRows > 0) {
+            ByteArrayOutputStream dict = new ByteArrayOutputStream();
+
+            if(first - dictRows > 0) {
+               image.getScanLine(first - dictRows - 1, prior);
+            }
+
+            for(int row = first - dictRows; row < first; row++) {
+               image.getScanLine(row, line);
+               dict.writeBytes(util.applyFilter(line, prior, image.getBitDepth()));
+               byte[] temp = prior;
+               prior = line;
+               line = temp;
+            }
+
+            byte[] bytes = dict.toByteArray();
+            int offset = Math.max(0, bytes.length - DICTIONARY_SIZE);
+            deflater.setDictionary(bytes, offset, bytes.length - offset);
+         }
+
+         Adler32 adler = new Adler32();
+
+         for(int row = first; row < last; row++) {
+            image.getScanLine(row, line);
+            byte[] filtered = util.applyFilter(line, prior, image.getBitDepth());
+            byte[] temp = prior;
+            prior = line;
+            line = temp;
+
+            adler.update(filtered);
+            stripe.length += filtered.length;
+            deflater.setInput(filtered);
+
+            while(!deflater.needsInput()) {
+               stripe.data.write(buf, 0, deflater.deflate(buf));
+            }
+         }
+
+         if(finish) {
+            deflater.finish();
+
+            while(!deflater.finished()) {
+               stripe.data.write(buf, 0, deflater.deflate(buf));
+            }
+         }
+         else {
+            int count;
+
+            do {
+               count = deflater.deflate(buf, 0, buf.length, Deflater.SYNC_FLUSH);
+               stripe.data.write(buf, 0, count);
+            }
+            while(count == buf.length);
+         }
+
+         stripe.adler = adler.getValue();
+         return stripe;
+      }
+      finally {
+         deflater.end();
+      }
+   }
+
+   /**
+    * Get the FLG byte of the zlib header for the compression level.
+    */
+   private int getHeaderFlags() {
+      if(level == 0 || level == 1) {
+         return 0x01;
+      }
+      else if(level >= 2 && level <= 5) {
+         return 0x5e;
+      }
+      else if(level >= 7) {
+         return 0xda;
+      }
+
+      return 0x9c;
+   }
+
+   private int getStrategy() {
+      return util.isFiltered() ? Deflater.FILTERED : Deflater.DEFAULT_STRATEGY;
+   }
+
+   /**
+    * Combine the Adler-32 checksums of two consecutive blocks of data, as
+    * adler32_combine() in zlib.
+    */
+   static long combineAdler32(long adler1, long adler2, long len2) {
+      final long base = 65521;
+      long rem = len2 % base;
+      long sum1 = adler1 & 0xffff;
+      long sum2 = (rem * sum1) % base;
+
+      sum1 += (adler2 & 0xffff) + base - 1;
+      sum2 += ((adler1 >> 16) & 0xffff) + ((adler2 >> 16) & 0xffff) + base - rem;
+
+      if(sum1 >= base) {
+         sum1 -= base;
+      }
+
+      if(sum1 >= base) {
+         sum1 -= base;
+      }
+
+      if(sum2 >= (base << 1)) {
+         sum2 -= (base << 1);
+      }
+
+      if(sum2 >= base) {
+         sum2 -= base;
+      }
+
+      return sum1 | (sum2 << 16);
+   }
+
+   private static ExecutorService createExecutor() {
+      return Executors.newFixedThreadPool(PARALLELISM, r -> {
+         Thread thread = new Thread(r, "PNGEncoder");
+         thread.setDaemon(true);
+         return thread;
+      });
+   }
+
    private void writeFindFilter(DataOutputStream out) throws IOException {
       filteredLine = util.applyFilter(scanLine, priorLine, image.getBitDepth());
       writeFilteredRow(out);
@@ -169,5 +403,19 @@ public class PNGWriter implements PNGConstants {
    private byte[] filteredLine;
    private int zoffset;
    private boolean alpha = false;
+   private final int level;
+
+   private static final class Stripe {
+      private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+      private long adler;
+      private long length;
+   }
+
+   private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+   private static final long MIN_PARALLEL_SIZE = 1024L * 1024L;
+   private static final long MIN_STRIPE_SIZE = 256L * 1024L;
+   private static final int MIN_STRIPE_ROWS = 32;
+   private static final int DICTIONARY_SIZE = 32768;
+   private static final ExecutorService EXECUTOR = createExecutor();
 }
 
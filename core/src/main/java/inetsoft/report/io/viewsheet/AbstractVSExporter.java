@@ -80,8 +80,11 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.sql.Date;
 import java.sql.Timestamp;
+import java.security.Principal;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -1281,6 +1284,7 @@ public abstract class AbstractVSExporter implements VSExporter {
          viewsheet.calcChildZIndex();
          Assembly[] assemblies = viewsheet.getAssemblies(true, true);
          sortAssemblies(assemblies);
+         prepareData(assemblies, viewsheet);
 
          try {
             for(int i = 0; i < assemblies.length; i++) {
@@ -1298,6 +1302,8 @@ public abstract class AbstractVSExporter implements VSExporter {
                String name = assembly.getAbsoluteName();
                VSTableLens lens = null;
 
+               awaitPreparedData(name);
+
                switch(type) {
                case AbstractSheet.IMAGE_ASSET:
                   writeImageAssembly((ImageVSAssembly) assembly, helper);
@@ -1411,7 +1417,7 @@ public abstract class AbstractVSExporter implements VSExporter {
                      }
                   }
 
-                  VGraphPair pair = box.getVGraphPair(name, true, null, true, 1);
+                  VGraphPair pair = getExportGraphPair(name);
                   DataSet data = (DataSet) box.getData(name);
                   boolean imgOnly = exportChartAsImage(chart);
                   data = data == null && pair != null ? pair.getData() : data;
@@ -1530,6 +1536,8 @@ public abstract class AbstractVSExporter implements VSExporter {
          box.setExportFormat(null);
       }
       finally {
+         cancelPreparedData();
+
          if(rvs != null) {
             rvs.setViewsheet(rvsOrigViewsheet);
          }
@@ -1543,6 +1551,256 @@ public abstract class AbstractVSExporter implements VSExporter {
       return true;
    }
 
+   /**
+    * Execute the data of the exported tables and generate the graphs of the
+    * exported charts on a bounded pool. The assemblies are still written one at
+    * a time in the sorted order, each waiting for its own data first. An assembly
+    * is only prepared after the assemblies it depends on.
+    * The number of threads is controlled by export.assembly.parallel.count, the
+    * data is prepared sequentially when writing if it's not greater than 1.
+    */
+   private void prepareData(Assembly[] assemblies, Viewsheet viewsheet) {
+      int count = getParallelCount();
+      List<VSAssembly> list = new ArrayList<>();
+
+      for(Assembly assembly : assemblies) {
+         VSAssembly vsobj = (VSAssembly) assembly;
+
+         if(isDataAssembly(vsobj) && needExport(vsobj) &&
+            viewsheet.getWarningTextAssembly(false) != vsobj)
+         {
+            list.add(vsobj);
+         }
+      }
+
+      if(count <= 1 || list.size() <= 1) {
+         return;
+      }
+
+      // the chart infos are shared with the write loop, change them before the tasks start
+      for(VSAssembly assembly : list) {
+         if(assembly instanceof ChartVSAssembly) {
+            ((ChartVSAssemblyInfo) assembly.getVSAssemblyInfo())
+               .setScalingRatio(new DimensionD(1.0, 1.0));
+         }
+      }
+
+      Map<String, Set<String>> dependencies = getPrepareDependencies(list);
+      list = sortByDependencies(list, dependencies);
+      Principal user = box.getUser();
+      AtomicInteger counter = new AtomicInteger();
+      ExecutorService executor = Executors.newFixedThreadPool(
+         Math.min(count, list.size()), r -> {
+            GroupedThread thread = new GroupedThread(
+               r, "VSExport-" + counter.incrementAndGet(), user);
+            thread.setDaemon(true);
+            return thread;
+         });
+      prepared = new HashMap<>();
+
+      try {
+         for(VSAssembly assembly : list) {
+            String name = assembly.getAbsoluteName();
+            boolean chart = assembly instanceof ChartVSAssembly;
+            // the tasks are submitted after their dependencies and run in the same order,
+            // so a task only waits for tasks that already started
+            List<Future<VGraphPair>> waitFor = dependencies.get(name).stream()
+               .map(prepared::get)
+               .toList();
+
+            prepared.put(name, executor.submit(() -> {
+               ThreadContext.setContextPrincipal(user);
+
+               try {
+                  for(Future<VGraphPair> dependency : waitFor) {
+                     try {
+                        dependency.get();
+                     }
+                     catch(ExecutionException ignore) {
+                        // reported when the dependency is written
+                     }
+                  }
+
+                  if(chart) {
+                     return box.getVGraphPair(name, true, null, true, 1);
+                  }
+
+                  box.getData(name);
+                  return null;
+               }
+               finally {
+                  ThreadContext.setContextPrincipal(null);
+               }
+            }));
+         }
+      }
+      finally {
+         executor.shutdown();
+      }
+   }
+
+   /**
+    * Get the names of the prepared assemblies each prepared assembly depends on.
+    */
+   private static Map<String, Set<String>> getPrepareDependencies(List<VSAssembly> list) {
+      Set<String> names = list.stream()
+         .map(VSAssembly::getAbsoluteName)
+         .collect(Collectors.toSet());
+      Map<String, Set<String>> dependencies = new HashMap<>();
+
+      for(VSAssembly assembly : list) {
+         Set<AssemblyRef> refs = new HashSet<>();
+         assembly.getDependeds(refs);
+         assembly.getViewDependeds(refs, false);
+
+         if(assembly instanceof AbstractVSAssembly) {
+            ((AbstractVSAssembly) assembly).getScriptReferencedAssets(refs);
+         }
+
+         String name = assembly.getAbsoluteName();
+         Set<String> depends = new HashSet<>();
+
+         for(AssemblyRef ref : refs) {
+            String dependency = ref.getEntry().getAbsoluteName();
+
+            if(ref.getEntry().isVSAssembly() && names.contains(dependency) &&
+               !name.equals(dependency))
+            {
+               depends.add(dependency);
+            }
+         }
+
+         dependencies.put(name, depends);
+      }
+
+      return dependencies;
+   }
+
+   /**
+    * Order the assemblies so each one comes after the assemblies it depends on. Assemblies
+    * in a dependency cycle are not waited on.
+    */
+   private static List<VSAssembly> sortByDependencies(List<VSAssembly> list,
+                                                      Map<String, Set<String>> dependencies)
+   {
+      Map<String, VSAssembly> assemblies = new LinkedHashMap<>();
+      list.forEach(a -> assemblies.put(a.getAbsoluteName(), a));
+      List<VSAssembly> sorted = new ArrayList<>();
+      Set<String> visited = new HashSet<>();
+
+      for(String name : assemblies.keySet()) {
+         addAfterDependencies(name, assemblies, dependencies, visited, new HashSet<>(), sorted);
+      }
+
+      return sorted;
+   }
+
+   private static void addAfterDependencies(String name, Map<String, VSAssembly> assemblies,
+                                            Map<String, Set<String>> dependencies,
+                                            Set<String> visited, Set<String> path,
+                                            List<VSAssembly> sorted)
+   {
+      if(visited.contains(name)) {
+         return;
+      }
+
+      path.add(name);
+
+      for(Iterator<String> i = dependencies.get(name).iterator(); i.hasNext();) {
+         String dependency = i.next();
+
+         // break a cycle, the assembly is prepared without waiting for the dependency
+         if(path.contains(dependency)) {
+            i.remove();
+            continue;
+         }
+
+         addAfterDependencies(dependency, assemblies, dependencies, visited, path, sorted);
+      }
+
+      path.remove(name);
+      visited.add(name);
+      sorted.add(assemblies.get(name));
+   }
+
+   /**
+    * Check if the data of the assembly could be prepared before it's written.
+    */
+   private static boolean isDataAssembly(VSAssembly assembly) {
+      switch(assembly.getAssemblyType()) {
+      case AbstractSheet.TABLE_VIEW_ASSET:
+      case AbstractSheet.EMBEDDEDTABLE_VIEW_ASSET:
+      case AbstractSheet.CROSSTAB_ASSET:
+      case AbstractSheet.FORMULA_TABLE_ASSET:
+      case AbstractSheet.CHART_ASSET:
+         return true;
+      default:
+         return false;
+      }
+   }
+
+   /**
+    * Get the max number of assemblies to prepare concurrently.
+    */
+   private static int getParallelCount() {
+      String prop = SreeEnv.getProperty("export.assembly.parallel.count", "1");
+
+      try {
+         return Integer.parseInt(prop);
+      }
+      catch(NumberFormatException ex) {
+         LOG.warn("Invalid export.assembly.parallel.count value: {}", prop);
+         return 1;
+      }
+   }
+
+   /**
+    * Wait for the data of the assembly to be prepared. A failure is ignored here,
+    * the data is executed again when the assembly is written so the error is
+    * reported the same way as a sequential export.
+    */
+   private void awaitPreparedData(String name) {
+      Future<VGraphPair> future = prepared == null ? null : prepared.remove(name);
+
+      if(future == null) {
+         return;
+      }
+
+      try {
+         VGraphPair pair = future.get();
+
+         if(pair != null) {
+            preparedPairs.put(name, pair);
+         }
+      }
+      catch(InterruptedException ex) {
+         Thread.currentThread().interrupt();
+      }
+      catch(ExecutionException ex) {
+         LOG.debug("Failed to prepare data for export: {}", name, ex.getCause());
+      }
+   }
+
+   /**
+    * Get the graph pair of a chart to export.
+    */
+   private VGraphPair getExportGraphPair(String name) throws Exception {
+      VGraphPair pair = preparedPairs.remove(name);
+      return pair != null ? pair : box.getVGraphPair(name, true, null, true, 1);
+   }
+
+   /**
+    * Cancel the preparation of the assemblies that were not written.
+    */
+   private void cancelPreparedData() {
+      if(prepared != null) {
+         prepared.values().forEach(f -> f.cancel(true));
+         prepared = null;
+      }
+
+      preparedPairs.clear();
+   }
+
    /**
     * Write slice chart.
     */
@@ -4173,6 +4431,9 @@ public abstract class AbstractVSExporter implements VSExporter {
    protected int maxRows = 0;
    protected boolean onlyDataComponents;
    private static int fileType = -1;
+   // assembly name -> data (graph pair for chart) being prepared on the export pool
+   private Map<String, Future<VGraphPair>> prepared;
+   private final Map<String, VGraphPair> preparedPairs = new HashMap<>();
 
    private static final Logger LOG =
       LoggerFactory.getLogger(AbstractVSExporter.class);
@@ -0,0 +1,192 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2024  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.report.io.viewsheet.excel;
+
+import inetsoft.sree.SreeEnv;
+import inetsoft.util.ThreadPool;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * CSVRowWriter writes the lines of a csv file to an output stream on a separate thread. The
+ * lines are handed over in batches through a bounded queue, so the thread reading the table
+ * blocks when the output can't keep up, and only a few batches are held in memory no matter
+ * how many rows are exported. Each batch is flushed when it's written, so the download
+ * starts while the table is still being read.
+ *
+ * @version 14.0
+ * @author InetSoft Technology Corp
+ */
+final class CSVRowWriter implements AutoCloseable {
+   /**
+    * Create a writer and start the thread writing to the stream.
+    * @param out the output stream, which is flushed but not closed.
+    * @param encoding the character encoding, or null to use the default encoding.
+    */
+   CSVRowWriter(OutputStream out, String encoding) throws UnsupportedEncodingException {
+      this(out, encoding, getProperty("export.csv.batch.rows", 1000),
+           getProperty("export.csv.buffer.batches", 8));
+   }
+
+   CSVRowWriter(OutputStream out, String encoding, int batchSize, int bufferSize)
+      throws UnsupportedEncodingException
+   {
+      this.writer = new BufferedWriter(encoding != null ?
+         new OutputStreamWriter(out, encoding) : new OutputStreamWriter(out));
+      this.batchSize = Math.max(1, batchSize);
+      this.queue = new ArrayBlockingQueue<>(Math.max(1, bufferSize));
+      this.batch = new ArrayList<>(this.batchSize);
+
+      ThreadPool.addOnDemand(new ThreadPool.AbstractContextRunnable() {
+         @Override
+         public void run() {
+            drain();
+         }
+      });
+   }
+
+   /**
+    * Get the number of lines handed to the writing thread at a time.
+    */
+   int getBatchSize() {
+      return batchSize;
+   }
+
+   /**
+    * Add a line. It blocks if the buffered batches are not written yet.
+    */
+   void add(String line) throws IOException {
+      batch.add(line);
+
+      if(batch.size() >= batchSize) {
+         put(batch);
+         batch = new ArrayList<>(batchSize);
+      }
+   }
+
+   /**
+    * Write the remaining lines and wait for all lines to be written to the stream.
+    * @throws IOException if the lines couldn't be written.
+    */
+   void finish() throws IOException {
+      if(!batch.isEmpty()) {
+         put(batch);
+         batch = new ArrayList<>(0);
+      }
+
+      put(END);
+      finished = true;
+
+      try {
+         done.await();
+      }
+      catch(InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new InterruptedIOException("Interrupted while writing csv");
+      }
+
+      checkError();
+   }
+
+   /**
+    * Stop the writing thread if the lines were not finished, e.g. reading the table failed.
+    */
+   @Override
+   public void close() {
+      if(!finished) {
+         aborted = true;
+         queue.clear();
+         queue.offer(END);
+      }
+   }
+
+   private void put(List<String> lines) throws IOException {
+      try {
+         while(!queue.offer(lines, 100, TimeUnit.MILLISECONDS)) {
+            checkError();
+         }
+      }
+      catch(InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new InterruptedIOException("Interrupted while writing csv");
+      }
+
+      checkError();
+   }
+
+   private void checkError() throws IOException {
+      if(aborted) {
+         throw new IOException("The csv writer is closed");
+      }
+
+      if(error != null) {
+         throw error instanceof IOException ? (IOException) error : new IOException(error);
+      }
+   }
+
+   private void drain() {
+      try {
+         for(List<String> lines = queue.take(); lines != END && !aborted; lines = queue.take()) {
+            for(String line : lines) {
+               writer.write(line);
+               writer.write(LINE_SEPARATOR);
+            }
+
+            writer.flush();
+         }
+      }
+      catch(InterruptedException e) {
+         error = new InterruptedIOException("Interrupted while writing csv");
+      }
+      catch(Throwable e) {
+         error = e;
+      }
+      finally {
+         // unblock the reading thread if the stream failed
+         if(error != null) {
+            queue.clear();
+         }
+
+         done.countDown();
+      }
+   }
+
+   private static int getProperty(String name, int def) {
+      try {
+         return Integer.parseInt(SreeEnv.getProperty(name, Integer.toString(def)));
+      }
+      catch(NumberFormatException e) {
+         return def;
+      }
+   }
+
+   private final Writer writer;
+   private final int batchSize;
+   private final BlockingQueue<List<String>> queue;
+   private final CountDownLatch done = new CountDownLatch(1);
+   private List<String> batch;
+   private boolean finished;
+   private volatile boolean aborted;
+   private volatile Throwable error;
+
+   private static final List<String> END = new ArrayList<>(0);
+   private static final String LINE_SEPARATOR = System.lineSeparator();
+}
@@ -79,26 +79,30 @@ public class CSVUtil {
    }
 
    public static void writeTableDataAssembly(XTable table, OutputStream out, String delim)
-         throws UnsupportedEncodingException
+         throws IOException
    {
       writeTableDataAssembly(table, out, delim, "\"", true);
    }
 
    public static void writeTableDataAssembly(XTable table, OutputStream out, String delim,
                                              String quote, boolean keepHeader)
-         throws UnsupportedEncodingException
+         throws IOException
+   {
+      writeTableDataAssembly(table, out, delim, quote, keepHeader, false);
+   }
+
+   /**
+    * Write the rows of a table as csv. The rows are pulled from the table in batches and
+    * written to the stream as they are read, through a bounded buffer, so the output is
+    * never held in memory as a whole.
+    * @param raw <tt>true</tt> to write the cell values without applying the export formats.
+    */
+   public static void writeTableDataAssembly(XTable table, OutputStream out, String delim,
+                                             String quote, boolean keepHeader, boolean raw)
+         throws IOException
    {
-      PrintWriter writer = null;
       boolean isUTF8 = SreeEnv.getProperty("text.encoding.utf8").equalsIgnoreCase("true");
       String encode = SreeEnv.getProperty("text.encoding.export", isUTF8 ? "UTF8" : null);
-
-      if(encode != null) {
-         writer = new PrintWriter(new OutputStreamWriter(out, encode));
-      }
-      else {
-         writer = new PrintWriter(new OutputStreamWriter(out));
-      }
-
       boolean hasQuote = !StringUtils.isEmpty(quote);
 
       if(!hasQuote) {
@@ -109,69 +113,92 @@ public class CSVUtil {
       int[] widths = table instanceof VSTableLens ? ((VSTableLens) table).getColumnWidths() : null;
       TableDateComparisonFormat dcDatePartFormat = new TableDateComparisonFormat(null);
 
-      for(int r = keepHeader ? 0 : table.getHeaderRowCount(); table.moreRows(r); r++) {
-         for(int c = 0; c < cols; c++) {
-            Object obj;
-            boolean specialType = false;
+      try(CSVRowWriter rows = new CSVRowWriter(out, encode)) {
+         int batch = rows.getBatchSize();
+         int start = keepHeader ? 0 : table.getHeaderRowCount();
 
-            if(widths != null && c < widths.length && widths[c] == 0) {
-               continue;
+         for(int r = start; table.moreRows(r); r++) {
+            // wait for the next batch of rows once instead of for each row
+            if((r - start) % batch == 0) {
+               table.moreRows(r + batch - 1);
             }
 
-            if(r < table.getHeaderRowCount()) {
-               obj = table.getObject(r, c);
-            }
-            else {
-               String fmt = ExportUtil.getCellFormat(table, r, c, false);
-               obj = ExportUtil.getObject(table, r, c, fmt, false);
-            }
+            StringBuilder line = new StringBuilder();
 
-            if(c > 0) {
-               writer.print(delim);
-            }
+            for(int c = 0; c < cols; c++) {
+               if(widths != null && c < widths.length && widths[c] == 0) {
+                  continue;
+               }
 
-            if(obj instanceof DCMergeDatesCell) {
-               obj = ((DCMergeDatesCell) obj).getFormatedOriginalDate();
-               specialType = true;
-            }
-            else if(obj instanceof DCMergeDatePartFilter.MergePartCell) {
-               obj = dcDatePartFormat.format(obj);
-               specialType = true;
-            }
+               if(c > 0) {
+                  line.append(delim);
+               }
+
+               Object obj = getCellValue(table, r, c, raw, dcDatePartFormat);
 
-            if(obj instanceof PresenterPainter) {
-               PresenterPainter painter = (PresenterPainter) obj;
+               if(obj != null) {
+                  String str = CoreTool.toString(obj);
+                  str = cleanCsv(str);
 
-               if(painter.getPresenter() instanceof HeaderPresenter) {
-                  if(painter.getObject() == null) {
-                     obj = null;
+                  if(hasQuote || needsCsvQuoting(str, delim)) {
+                     line.append(quote).append(str.replace("\"", "\"\"")).append(quote);
+                  }
+                  else {
+                     line.append(str);
                   }
                }
-
-               specialType = true;
             }
 
-            if(!specialType) {
-               obj = table.getObject(r, c);
-            }
+            rows.add(line.toString());
+         }
 
-            if(obj != null) {
-               String str = CoreTool.toString(obj);
-               str = cleanCsv(str);
+         rows.finish();
+      }
+   }
 
-               if(hasQuote || needsCsvQuoting(str, delim)) {
-                  writer.print(quote + str.replaceAll("\"", "\"\"") + quote);
-               }
-               else {
-                  writer.print(str);
-               }
+   /**
+    * Get the value written to a csv cell.
+    */
+   private static Object getCellValue(XTable table, int r, int c, boolean raw,
+                                      TableDateComparisonFormat dcDatePartFormat)
+   {
+      Object obj;
+      boolean specialType = false;
+
+      if(r < table.getHeaderRowCount() || raw) {
+         obj = table.getObject(r, c);
+      }
+      else {
+         String fmt = ExportUtil.getCellFormat(table, r, c, false);
+         obj = ExportUtil.getObject(table, r, c, fmt, false);
+      }
+
+      if(obj instanceof DCMergeDatesCell) {
+         obj = ((DCMergeDatesCell) obj).getFormatedOriginalDate();
+         specialType = true;
+      }
+      else if(obj instanceof DCMergeDatePartFilter.MergePartCell) {
+         obj = dcDatePartFormat.format(obj);
+         specialType = true;
+      }
+
+      if(obj instanceof PresenterPainter) {
+         PresenterPainter painter = (PresenterPainter) obj;
+
+         if(painter.getPresenter() instanceof HeaderPresenter) {
+            if(painter.getObject() == null) {
+               obj = null;
             }
          }
 
-         writer.println();
+         specialType = true;
+      }
+
+      if(!specialType && !raw) {
+         obj = table.getObject(r, c);
       }
 
-      writer.flush();
+      return obj;
    }
 
    /**
@@ -33,6 +33,21 @@ import java.util.Map;
  * @author InetSoft Technology Corp
  */
 public class CSVWSExporter implements WSExporter {
+   /**
+    * Create an exporter that applies the export formats to the cell values.
+    */
+   public CSVWSExporter() {
+      this(false);
+   }
+
+   /**
+    * Create an exporter.
+    * @param raw <tt>true</tt> to write the cell values without applying the export formats.
+    */
+   public CSVWSExporter(boolean raw) {
+      this.raw = raw;
+   }
+
    /**
     * Write the in-mem document (workbook or show) to OutputStream.
     * @param out the specified OutputStream.
@@ -46,12 +61,7 @@ public class CSVWSExporter implements WSExporter {
          delim = prop;
       }
 
-      try {
-         CSVUtil.writeTableDataAssembly(table, output, delim);
-      }
-      catch(UnsupportedEncodingException ex) {
-         throw new IOException(ex);
-      }
+      CSVUtil.writeTableDataAssembly(table, output, delim, "\"", true, raw);
    }
 
    /**
@@ -76,5 +86,6 @@ public class CSVWSExporter implements WSExporter {
       this.table = lens;
    }
 
+   private final boolean raw;
    private TableLens table;
 }
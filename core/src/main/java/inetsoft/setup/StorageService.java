@@ -118,7 +118,7 @@ public class StorageService extends AbstractStorageService {
       String cleanPath = path.replace('\\', '/');
       Blob<DataSpace.Metadata> blob = keyValueEngine.get("dataSpace", cleanPath);
       Path file = Files.createTempFile("storage", ".dat");
-      blobEngine.read("dataSpace", blob.getDigest(), file);
+      blobEngine.read("dataSpace", blob, file);
       return new TempFileInputStream(file);
    }
 
@@ -138,7 +138,7 @@ public class StorageService extends AbstractStorageService {
       String storageId = getDatabaseId("indexedStorage");
       Blob<BlobIndexedStorage.Metadata> blob = keyValueEngine.get(storageId, assetId);
       Path file = Files.createTempFile("storage", ".dat");
-      blobEngine.read(storageId, blob.getDigest(), file);
+      blobEngine.read(storageId, blob, file);
       return new TempFileInputStream(file);
    }
 
@@ -724,7 +724,10 @@ public class DeployManagerService {
          sortFiles(files, order, names);
          EmbeddedTableStorage embeddedTables = embeddedTableStorage;
 
-         try {
+         // write the dependencies of the imported assets in one bulk update
+         try(DependencyStorageService.Batch ignored =
+                DependencyStorageService.getInstance().startBatch())
+         {
             List<XAsset> assets = DeployHelper.getAssets(files, names);
             List<XAsset> causeCycleObjects = topologicalSort(assets, helper.getGraph());
             Set<String> importedNewObjs = new HashSet<>();
@@ -27,11 +27,12 @@ import inetsoft.sree.internal.SUtil;
 import inetsoft.sree.security.IdentityID;
 import inetsoft.sree.security.OrganizationManager;
 import inetsoft.uql.VariableTable;
+import inetsoft.uql.XPrincipal;
 import inetsoft.uql.asset.*;
 import inetsoft.uql.asset.internal.AssetUtil;
 import inetsoft.uql.asset.internal.ColumnIndexMap;
 import inetsoft.uql.util.XUtil;
-import inetsoft.util.Tool;
+import inetsoft.util.*;
 import inetsoft.util.script.ScriptEnv;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,6 +42,8 @@ import org.w3c.dom.NodeList;
 import java.io.PrintWriter;
 import java.security.Principal;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class BatchAction extends AbstractAction {
    @Override
@@ -97,91 +100,105 @@ public class BatchAction extends AbstractAction {
       if(queryTable != null) {
          ColumnIndexMap columnIndexMap = new ColumnIndexMap(queryTable, true);
 
-         for(int r = queryTable.getHeaderRowCount(); queryTable.moreRows(r); r++) {
-            ScheduleTask clonedTask = ScheduleTask.copyScheduleTask(task);
+         try(BurstRunner runner = startBurst(principal)) {
+            for(int r = queryTable.getHeaderRowCount();
+                queryTable.moreRows(r) && !runner.isCancelled(); r++)
+            {
+               ScheduleTask clonedTask = ScheduleTask.copyScheduleTask(task);
 
-            for(int i = 0; i < clonedTask.getActionCount(); i++) {
-               ScheduleAction action = clonedTask.getAction(i);
+               for(int i = 0; i < clonedTask.getActionCount(); i++) {
+                  ScheduleAction action = clonedTask.getAction(i);
 
-               if(!(action instanceof ViewsheetAction)) {
-                  continue;
-               }
+                  if(!(action instanceof ViewsheetAction)) {
+                     continue;
+                  }
 
-               RepletRequest repletRequest = ((ViewsheetAction) action).getViewsheetRequest();;
+                  RepletRequest repletRequest = ((ViewsheetAction) action).getViewsheetRequest();;
 
-               if(repletRequest == null) {
-                  repletRequest = new RepletRequest();
-               }
+                  if(repletRequest == null) {
+                     repletRequest = new RepletRequest();
+                  }
 
-               VariableTable vars = new VariableTable();
+                  VariableTable vars = new VariableTable();
 
-               for(String paramName : queryParameters.keySet()) {
-                  int c = Util.findColumn(columnIndexMap, queryParameters.get(paramName));
+                  for(String paramName : queryParameters.keySet()) {
+                     int c = Util.findColumn(columnIndexMap, queryParameters.get(paramName));
 
-                  if(c >= 0) {
-                     Object paramValue = queryTable.getObject(r, c);
-                     repletRequest.setParameter(paramName, paramValue);
-                     vars.put(paramName, paramValue);
-                  }
-                  else {
-                     LOG.warn("Could not find the column '" + queryParameters.get(paramName) +
-                                 "' in table '" + tableAssembly.getName() + "'. Ignoring parameter '" +
-                                 paramName + "'");
+                     if(c >= 0) {
+                        Object paramValue = queryTable.getObject(r, c);
+                        repletRequest.setParameter(paramName, paramValue);
+                        vars.put(paramName, paramValue);
+                     }
+                     else {
+                        LOG.warn("Could not find the column '" + queryParameters.get(paramName) +
+                                    "' in table '" + tableAssembly.getName() + "'. Ignoring parameter '" +
+                                    paramName + "'");
+                     }
                   }
+
+                  ((ViewsheetAction) action).setViewsheetRequest(repletRequest);
+                  replaceVariablesInScheduleAction((AbstractAction) action, vars);
                }
 
-               ((ViewsheetAction) action).setViewsheetRequest(repletRequest);
-               replaceVariablesInScheduleAction((AbstractAction) action, vars);
+               runner.submit(clonedTask);
             }
 
-            clonedTask.run(principal);
+            runner.await();
          }
       }
    }
 
    private void runScheduleTaskWithEmbeddedParameters(ScheduleTask task, Principal principal) throws Throwable {
       if(embeddedParameters != null) {
-         for(Map<String, Object> map : embeddedParameters) {
-            ScheduleTask clonedTask = ScheduleTask.copyScheduleTask(task);
+         try(BurstRunner runner = startBurst(principal)) {
+            for(Map<String, Object> map : embeddedParameters) {
+               if(runner.isCancelled()) {
+                  break;
+               }
 
-            for(int i = 0; i < clonedTask.getActionCount(); i++) {
-               ScheduleAction action = clonedTask.getAction(i);
+               ScheduleTask clonedTask = ScheduleTask.copyScheduleTask(task);
 
-               if(!(action instanceof ViewsheetAction)) {
-                  continue;
-               }
+               for(int i = 0; i < clonedTask.getActionCount(); i++) {
+                  ScheduleAction action = clonedTask.getAction(i);
 
-               RepletRequest repletRequest = ((ViewsheetAction) action).getViewsheetRequest();
+                  if(!(action instanceof ViewsheetAction)) {
+                     continue;
+                  }
 
-               if(repletRequest == null) {
-                  repletRequest = new RepletRequest();
-               }
+                  RepletRequest repletRequest = ((ViewsheetAction) action).getViewsheetRequest();
+
+                  if(repletRequest == null) {
+                     repletRequest = new RepletRequest();
+                  }
 
-               VariableTable vars = new VariableTable();
-               ScheduleParameterScope scope = null;
+                  VariableTable vars = new VariableTable();
+                  ScheduleParameterScope scope = null;
 
-               for(String paramName : map.keySet()) {
-                  Object val = map.get(paramName);
+                  for(String paramName : map.keySet()) {
+                     Object val = map.get(paramName);
 
-                  if(val instanceof DynamicParameterValue) {
-                     if(scope == null) {
-                        scope = new ScheduleParameterScope();
-                        ScriptEnv senv = scope.getScriptEnv();
-                        senv.addTopLevelParentScope(scope);
+                     if(val instanceof DynamicParameterValue) {
+                        if(scope == null) {
+                           scope = new ScheduleParameterScope();
+                           ScriptEnv senv = scope.getScriptEnv();
+                           senv.addTopLevelParentScope(scope);
+                        }
+
+                        val = RepletRequest.executeParameter(((DynamicParameterValue) val), scope);
                      }
 
-                     val = RepletRequest.executeParameter(((DynamicParameterValue) val), scope);
+                     repletRequest.setParameter(paramName, val);
+                     vars.put(paramName, val);
                   }
 
-                  repletRequest.setParameter(paramName, val);
-                  vars.put(paramName, val);
+                  ((ViewsheetAction) action).setViewsheetRequest(repletRequest);
+                  replaceVariablesInScheduleAction((AbstractAction) action, vars);
                }
 
-               ((ViewsheetAction) action).setViewsheetRequest(repletRequest);
-               replaceVariablesInScheduleAction((AbstractAction) action, vars);
+               runner.submit(clonedTask);
             }
 
-            clonedTask.run(principal);
+            runner.await();
          }
       }
    }
@@ -219,6 +236,24 @@ public class BatchAction extends AbstractAction {
       this.queryParameters = queryParameters;
    }
 
+   /**
+    * Gets the maximum number of burst tasks that are run at the same time.
+    *
+    * @return the parallel count, <tt>1</tt> to run the burst tasks one at a time.
+    */
+   public int getParallelCount() {
+      return parallelCount;
+   }
+
+   /**
+    * Sets the maximum number of burst tasks that are run at the same time.
+    *
+    * @param parallelCount the parallel count, <tt>1</tt> to run the burst tasks one at a time.
+    */
+   public void setParallelCount(int parallelCount) {
+      this.parallelCount = Math.max(1, parallelCount);
+   }
+
    public List<Map<String, Object>> getEmbeddedParameters() {
       return embeddedParameters;
    }
@@ -233,6 +268,11 @@ public class BatchAction extends AbstractAction {
       writer.print(getClass().getName());
       writer.print("\" ");
       writer.print("taskId=\"" + byteEncode(taskId) + "\" ");
+
+      if(parallelCount > 1) {
+         writer.print("parallelCount=\"" + parallelCount + "\" ");
+      }
+
       writer.println(">");
 
       if(queryEntry != null) {
@@ -265,6 +305,8 @@ public class BatchAction extends AbstractAction {
    public void parseXML(Element tag, boolean isImportAsSiteAdmin) throws Exception {
       taskId = Tool.getAttribute(tag, "taskId");
       taskId = byteDecode(taskId);
+      String parallel = Tool.getAttribute(tag, "parallelCount");
+      parallelCount = parallel == null ? 1 : Math.max(1, Integer.parseInt(parallel));
 
       if(isImportAsSiteAdmin) {
          String taskUser = taskId.substring(0, taskId.indexOf(":"));
@@ -394,7 +436,8 @@ public class BatchAction extends AbstractAction {
       }
 
       BatchAction that = (BatchAction) o;
-      return Objects.equals(taskId, that.taskId) &&
+      return parallelCount == that.parallelCount &&
+         Objects.equals(taskId, that.taskId) &&
          Objects.equals(queryEntry, that.queryEntry) &&
          Objects.equals(queryParameters, that.queryParameters) &&
          Objects.equals(embeddedParameters, that.embeddedParameters);
@@ -405,7 +448,178 @@ public class BatchAction extends AbstractAction {
       return "BatchAction: " + SUtil.getTaskNameWithoutOrg(taskId);
    }
 
+   /**
+    * Cancels the burst that is currently running, if any.
+    */
+   @Override
+   public void cancel() {
+      super.cancel();
+      BurstRunner runner = this.runner;
+
+      if(runner != null) {
+         runner.cancel();
+      }
+   }
+
+   private BurstRunner startBurst(Principal principal) {
+      BurstRunner runner = new BurstRunner(principal);
+      this.runner = runner;
+      return runner;
+   }
+
+   /**
+    * Runs the cloned tasks of a burst. The tasks are run one at a time on the calling thread
+    * unless the parallel count is greater than one, in which case they are run on a bounded
+    * pool and {@link #await()} waits for all of them to finish. Closing the runner shuts the
+    * pool down and waits for the tasks that were already submitted.
+    */
+   private final class BurstRunner implements AutoCloseable {
+      BurstRunner(Principal principal) {
+         this.principal = principal;
+
+         if(parallelCount > 1) {
+            AtomicInteger counter = new AtomicInteger();
+            executor = new ThreadPoolExecutor(
+               parallelCount, parallelCount, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+               r -> {
+                  GroupedThread thread = new GroupedThread(
+                     r, "BatchAction-" + counter.incrementAndGet(), principal);
+                  thread.setDaemon(true);
+                  return thread;
+               });
+         }
+      }
+
+      boolean isCancelled() {
+         return cancelled;
+      }
+
+      void submit(ScheduleTask task) throws Throwable {
+         if(cancelled) {
+            return;
+         }
+
+         tasks.add(task);
+
+         if(executor == null) {
+            task.run(principal);
+            return;
+         }
+
+         // the task stores its name in the principal properties, so each copy needs its own
+         Principal user = copyPrincipal(principal);
+
+         futures.add(executor.submit(() -> {
+            ThreadContext.setContextPrincipal(user);
+
+            try {
+               task.run(user);
+            }
+            catch(Exception | Error ex) {
+               throw ex;
+            }
+            catch(Throwable ex) {
+               throw new ExecutionException(ex);
+            }
+            finally {
+               ThreadContext.setContextPrincipal(null);
+            }
+
+            return null;
+         }));
+      }
+
+      void await() throws Throwable {
+         awaited = true;
+         Throwable error = null;
+
+         // all the burst tasks are run, throw the last exception and log the others
+         for(Future<?> future : futures) {
+            try {
+               future.get();
+            }
+            catch(CancellationException ignore) {
+               // the burst was cancelled
+            }
+            catch(ExecutionException ex) {
+               if(error != null) {
+                  LOG.error("Failed to run batch task " + taskId, error);
+               }
+
+               error = ex.getCause();
+            }
+         }
+
+         if(error != null) {
+            throw error;
+         }
+      }
+
+      void cancel() {
+         cancelled = true;
+
+         for(ScheduleTask task : tasks) {
+            task.cancel();
+         }
+
+         for(Future<?> future : futures) {
+            future.cancel(true);
+         }
+
+         if(executor != null) {
+            executor.shutdownNow();
+         }
+      }
+
+      @Override
+      public void close() {
+         if(runner == this) {
+            runner = null;
+         }
+
+         if(executor == null) {
+            return;
+         }
+
+         executor.shutdown();
+
+         // the burst failed before await(), don't leave the submitted tasks behind
+         if(!awaited) {
+            for(Future<?> future : futures) {
+               try {
+                  future.get();
+               }
+               catch(CancellationException ignore) {
+                  // the burst was cancelled
+               }
+               catch(ExecutionException ex) {
+                  LOG.error("Failed to run batch task " + taskId, ex.getCause());
+               }
+               catch(InterruptedException ex) {
+                  cancel();
+                  Thread.currentThread().interrupt();
+                  break;
+               }
+            }
+         }
+      }
+
+      private Principal copyPrincipal(Principal principal) {
+         return principal instanceof XPrincipal ?
+            (Principal) ((XPrincipal) principal).clone() : principal;
+      }
+
+      private final Principal principal;
+      private final List<ScheduleTask> tasks = new CopyOnWriteArrayList<>();
+      private final List<Future<?>> futures = new CopyOnWriteArrayList<>();
+      private ExecutorService executor;
+      private volatile boolean cancelled;
+      private boolean awaited;
+   }
+
    private String taskId;
+   private int parallelCount = 1;
+   private transient volatile BurstRunner runner;
    private AssetEntry queryEntry;
    private Map<String, Object> queryParameters = new LinkedHashMap<>();
    private List<Map<String, Object>> embeddedParameters = new ArrayList<>();
@@ -216,6 +216,7 @@ public class MVAction implements AssetSupport, Cloneable, XMLSerializable, Cance
 
       if(existingMv != null) {
          mv.setCycle(existingMv.getCycle());
+         mv.setPartitionColumn(existingMv.getPartitionColumn());
       }
       else {
          // mv deleted while generating
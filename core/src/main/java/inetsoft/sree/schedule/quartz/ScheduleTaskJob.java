@@ -17,6 +17,7 @@
  */
 package inetsoft.sree.schedule.quartz;
 
+import inetsoft.report.composition.execution.ScheduleQueryWindow;
 import inetsoft.sree.internal.DataCycleManager;
 import inetsoft.sree.internal.SUtil;
 import inetsoft.sree.schedule.ScheduleManager;
@@ -79,6 +80,7 @@ public class ScheduleTaskJob implements InterruptableJob {
             }
 
             if(principal != null) {
+               ScheduleQueryWindow.join(principal);
                ThreadContext.setContextPrincipal(principal);
             }
 
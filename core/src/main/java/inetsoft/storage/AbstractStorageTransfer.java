@@ -196,6 +196,11 @@ public abstract class AbstractStorageTransfer implements StorageTransfer {
             String key = j.next();
             Blob<?> blob = mapper.convertValue(entries.get(key), Blob.class);
 
+            if(blob.getChunks() != null) {
+               // the exported data is whole and is imported whole
+               blob = blob.withChunks(null);
+            }
+
             String digest = blob.getDigest();
 
             if(digest != null) {
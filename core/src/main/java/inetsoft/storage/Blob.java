@@ -21,6 +21,7 @@ import com.fasterxml.jackson.annotation.*;
 
 import java.io.Serializable;
 import java.time.Instant;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -37,11 +38,25 @@ public final class Blob<T extends Serializable> implements Serializable {
     * @param length   the length of the blob in bytes.
     * @param metadata the extended metadata for the blob.
     */
+   public Blob(String path, String digest, long length, Instant lastModified, T metadata) {
+      this(path, digest, length, lastModified, metadata, null);
+   }
+
+   /**
+    * Creates a new instance of {@code Blob}.
+    *
+    * @param path     the path to the blob.
+    * @param digest   the MD5 digest of the blob as a hexadecimal string.
+    * @param length   the length of the blob in bytes.
+    * @param metadata the extended metadata for the blob.
+    * @param chunks   the chunks of the blob data or {@code null} if it is a single object.
+    */
    @JsonCreator
    public Blob(@JsonProperty("path") String path, @JsonProperty("digest") String digest,
                @JsonProperty("length") long length,
                @JsonProperty("lastModified") Instant lastModified,
-               @JsonProperty("metadata") T metadata)
+               @JsonProperty("metadata") T metadata,
+               @JsonProperty("chunks") List<BlobChunk> chunks)
    {
       Objects.requireNonNull(path, "The path must not be null");
       Objects.requireNonNull(lastModified, "The last modified time cannot be null");
@@ -50,6 +65,7 @@ public final class Blob<T extends Serializable> implements Serializable {
       this.length = length;
       this.lastModified = lastModified;
       this.metadata = metadata;
+      this.chunks = chunks == null ? null : List.copyOf(chunks);
    }
 
    /**
@@ -100,6 +116,28 @@ public final class Blob<T extends Serializable> implements Serializable {
       return metadata;
    }
 
+   /**
+    * Gets the chunks of the blob data, if it is stored as content-defined chunks instead of a
+    * single object.
+    *
+    * @return the chunks in order or {@code null} if the blob is stored as a single object.
+    */
+   @JsonInclude(JsonInclude.Include.NON_NULL)
+   public List<BlobChunk> getChunks() {
+      return chunks;
+   }
+
+   /**
+    * Creates a copy of this blob with different chunks.
+    *
+    * @param chunks the chunks or {@code null} if the blob is stored as a single object.
+    *
+    * @return the new blob.
+    */
+   public Blob<T> withChunks(List<BlobChunk> chunks) {
+      return new Blob<>(path, digest, length, lastModified, metadata, chunks);
+   }
+
    @Override
    public boolean equals(Object o) {
       if(this == o) {
@@ -115,12 +153,13 @@ public final class Blob<T extends Serializable> implements Serializable {
          Objects.equals(path, blob.path) &&
          Objects.equals(digest, blob.digest) &&
          Objects.equals(lastModified, blob.lastModified) &&
-         Objects.equals(metadata, blob.metadata);
+         Objects.equals(metadata, blob.metadata) &&
+         Objects.equals(chunks, blob.chunks);
    }
 
    @Override
    public int hashCode() {
-      return Objects.hash(path, digest, length, lastModified, metadata);
+      return Objects.hash(path, digest, length, lastModified, metadata, chunks);
    }
 
    @Override
@@ -131,6 +170,7 @@ public final class Blob<T extends Serializable> implements Serializable {
          ", length=" + length +
          ", lastModified=" + lastModified +
          ", metadata=" + metadata +
+         ", chunks=" + (chunks == null ? null : chunks.size()) +
          '}';
    }
 
@@ -139,4 +179,8 @@ public final class Blob<T extends Serializable> implements Serializable {
    private final long length;
    private final Instant lastModified;
    private final T metadata;
+   private final List<BlobChunk> chunks;
+
+   // the chunks were added later, keep the blobs serialized by earlier versions readable
+   private static final long serialVersionUID = 705489680430202003L;
 }
@@ -18,17 +18,68 @@
 
 package inetsoft.storage;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.Serializable;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
-import java.util.concurrent.TimeUnit;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * {@code BlobCache} is a local file cache of the blobs stored in a {@link BlobEngine}.
+ *
+ * <p>When range reads are enabled and supported by the engine, a channel opened on a blob that
+ * is not cached only fetches the pages of the blob that are read, and prefetches the following
+ * pages when the blob is read sequentially. A blob is downloaded into the cache in the background
+ * once it has been opened {@code inetsoft.storage.blob.admitAfter} times (2 by default), or when
+ * all its pages have been read. The page size and the number of prefetched pages are set by the
+ * {@code inetsoft.storage.blob.pageSize} (1MB) and {@code inetsoft.storage.blob.prefetch} (4)
+ * system properties.</p>
+ */
 public class BlobCache {
    public BlobCache(Path baseDir, BlobEngine engine) {
+      this(baseDir, engine, false);
+   }
+
+   public BlobCache(Path baseDir, BlobEngine engine, boolean chunked) {
+      this(baseDir, engine, chunked, false);
+   }
+
+   public BlobCache(Path baseDir, BlobEngine engine, boolean chunked, boolean rangeReads) {
       this.baseDir = baseDir;
       this.engine = engine;
+      this.chunked = chunked;
+      this.rangeReads = rangeReads;
+      this.pageSize = Integer.getInteger("inetsoft.storage.blob.pageSize", 1024 * 1024);
+      this.prefetchPages = Integer.getInteger("inetsoft.storage.blob.prefetch", 4);
+      this.admitAfter = Integer.getInteger("inetsoft.storage.blob.admitAfter", 2);
+   }
+
+   /**
+    * Splits the data of a blob into chunks if chunked storage is enabled and the blob is large
+    * enough.
+    *
+    * @param blob     the blob metadata.
+    * @param tempFile the temporary file containing the blob data.
+    *
+    * @return the blob metadata, including the chunks if the blob will be stored as chunks.
+    *
+    * @throws IOException if an I/O error occurs.
+    */
+   public <T extends Serializable> Blob<T> split(Blob<T> blob, Path tempFile) throws IOException {
+      if(!chunked || blob.getDigest() == null) {
+         return blob;
+      }
+
+      List<BlobChunk> chunks = BlobChunker.split(tempFile);
+      return chunks == null ? blob : blob.withChunks(chunks);
    }
 
    public Path get(String storeId, Blob<?> blob) throws IOException {
@@ -38,10 +89,87 @@ public class BlobCache {
          throw new IOException("Cannot read directory blob from cache: " + blob.getPath());
       }
 
-      return copyToCache(storeId, digest);
+      Path path = getIfCached(storeId, blob);
+
+      if(path != null) {
+         statistics.hits.increment();
+         return path;
+      }
+
+      statistics.misses.increment();
+      return load(storeId, blob);
+   }
+
+   /**
+    * Opens a read-only channel on a blob. If the blob is not cached and range reads are enabled,
+    * the channel only fetches the parts of the blob that are read.
+    *
+    * @param storeId the unique identifier of the blob store.
+    * @param blob    the blob to read.
+    *
+    * @return the channel.
+    *
+    * @throws IOException if an I/O error occurs.
+    */
+   public BlobChannel getReadChannel(String storeId, Blob<?> blob) throws IOException {
+      if(blob.getDigest() == null) {
+         throw new IOException("Cannot read directory blob from cache: " + blob.getPath());
+      }
+
+      Path path = getIfCached(storeId, blob);
+
+      if(path != null) {
+         statistics.hits.increment();
+         return new BlobReadChannel(FileChannel.open(path, StandardOpenOption.READ));
+      }
+
+      statistics.misses.increment();
+
+      if(!rangeReads || !engine.isRangeReadSupported() || blob.getChunks() != null) {
+         path = load(storeId, blob);
+         return new BlobReadChannel(FileChannel.open(path, StandardOpenOption.READ));
+      }
+
+      admit(storeId, blob);
+      return new RangeBlobChannel(this, acquire(storeId, blob), prefetchPages, PREFETCH_EXECUTOR);
+   }
+
+   /**
+    * Gets the statistics of this cache.
+    *
+    * @return the statistics.
+    */
+   public Statistics getStatistics() {
+      return statistics;
    }
 
-   protected Path copyToCache(String storeId, String digest) throws IOException {
+   /**
+    * Gets the cached file of a blob.
+    *
+    * @param storeId the unique identifier of the blob store.
+    * @param blob    the blob.
+    *
+    * @return the cached file or {@code null} if the blob is not cached.
+    */
+   protected Path getIfCached(String storeId, Blob<?> blob) throws IOException {
+      Path path = getPath(storeId, blob, baseDir);
+      return path.toFile().exists() ? path : null;
+   }
+
+   /**
+    * Downloads a blob into the cache.
+    *
+    * @param storeId the unique identifier of the blob store.
+    * @param blob    the blob.
+    *
+    * @return the cached file.
+    */
+   protected Path load(String storeId, Blob<?> blob) throws IOException {
+      return copyToCache(storeId, blob);
+   }
+
+   protected Path copyToCache(String storeId, Blob<?> blob) throws IOException {
+      String digest = blob.getDigest();
       Path path = getPath(storeId, digest, baseDir);
       if(!path.toFile().exists()) {
          Path lockDir = getLockDir(storeId);
@@ -50,9 +178,9 @@ public class BlobCache {
             if(lock.tryLock(5L, TimeUnit.MINUTES)) {
                try {
                   if(!path.toFile().exists()) {
-                     if(engine.exists(storeId, digest)) {
+                     if(blob.getChunks() != null || engine.exists(storeId, digest)) {
                         Path tempFile = createTempFile(storeId, "blob", ".dat");
-                        engine.read(storeId, digest, tempFile);
+                        engine.read(storeId, blob, tempFile);
                         Files.createDirectories(path.getParent());
                         Files.move(tempFile, path, StandardCopyOption.ATOMIC_MOVE);
                      }
@@ -83,7 +211,7 @@ public class BlobCache {
       }
 
       Path path = getPath(storeId, blob, baseDir);
-      engine.write(storeId, blob.getDigest(), tempFile);
+      engine.write(storeId, blob, tempFile);
       if(path.toFile().exists()) {
          remove(storeId, blob.getDigest(), path);
       }
@@ -129,6 +257,74 @@ public class BlobCache {
       }
    }
 
+   /**
+    * Releases a page file when a channel on it is closed. When the last channel is closed, the
+    * file is kept as the cached blob if all its pages were read, otherwise it is deleted.
+    */
+   void release(BlobPageFile pageFile) throws IOException {
+      synchronized(pageFiles) {
+         if(pageFile.release() > 0) {
+            return;
+         }
+
+         pageFiles.remove(pageFile.getStoreId() + "/" + pageFile.getDigest());
+      }
+
+      pageFile.close();
+      Path path = getPath(pageFile.getStoreId(), pageFile.getDigest(), baseDir);
+
+      if(pageFile.isComplete() && !path.toFile().exists()) {
+         put(pageFile.getStoreId(), pageFile.getDigest(), path, pageFile.getFile());
+         statistics.admissions.increment();
+      }
+      else {
+         Files.deleteIfExists(pageFile.getFile());
+      }
+   }
+
+   private BlobPageFile acquire(String storeId, Blob<?> blob) throws IOException {
+      String key = storeId + "/" + blob.getDigest();
+
+      synchronized(pageFiles) {
+         BlobPageFile pageFile = pageFiles.get(key);
+
+         if(pageFile == null) {
+            Path file = createTempFile(storeId, "range", ".dat");
+            pageFile = new BlobPageFile(engine, storeId, blob, file, pageSize, statistics);
+            pageFiles.put(key, pageFile);
+         }
+
+         pageFile.acquire();
+         return pageFile;
+      }
+   }
+
+   private void admit(String storeId, Blob<?> blob) {
+      String key = storeId + "/" + blob.getDigest();
+      int count = accessCounts.get(key, k -> new AtomicInteger()).incrementAndGet();
+
+      // blobs that are opened once are only read by range, frequently used blobs are cached
+      if(count == admitAfter) {
+         PREFETCH_EXECUTOR.execute(() -> {
+            try {
+               load(storeId, blob);
+               statistics.admissions.increment();
+            }
+            catch(Exception e) {
+               LOG.warn("Failed to copy blob {} to the local cache", blob.getDigest(), e);
+            }
+         });
+      }
+   }
+
+   private static ExecutorService createPrefetchExecutor() {
+      return Executors.newFixedThreadPool(4, r -> {
+         Thread thread = new Thread(r, "BlobCachePrefetch");
+         thread.setDaemon(true);
+         return thread;
+      });
+   }
+
    public Path createTempFile(String storeId, String prefix, String suffix) throws IOException {
       Path tempDir = getLockDir(storeId).getParent();
       return Files.createTempFile(tempDir, prefix, suffix);
@@ -157,6 +353,92 @@ public class BlobCache {
 
    private final Path baseDir;
    private final BlobEngine engine;
+   private final boolean chunked;
+   private final boolean rangeReads;
+   private final int pageSize;
+   private final int prefetchPages;
+   private final int admitAfter;
+   private final Statistics statistics = new Statistics();
+   private final Map<String, BlobPageFile> pageFiles = new HashMap<>();
+   private final Cache<String, AtomicInteger> accessCounts = Caffeine.newBuilder()
+      .maximumSize(10000L)
+      .expireAfterAccess(1L, TimeUnit.HOURS)
+      .build();
+   private static final ExecutorService PREFETCH_EXECUTOR = createPrefetchExecutor();
    private static final Logger LOG = LoggerFactory.getLogger(BlobCache.class);
 
+   /**
+    * {@code Statistics} contains the counters of a blob cache.
+    */
+   public static final class Statistics {
+      /**
+       * Gets the number of blob reads that found the blob in the cache.
+       */
+      public long getHits() {
+         return hits.sum();
+      }
+
+      /**
+       * Gets the number of blob reads that did not find the blob in the cache.
+       */
+      public long getMisses() {
+         return misses.sum();
+      }
+
+      /**
+       * Gets the number of pages fetched from the blob engine with range reads.
+       */
+      public long getRangeReads() {
+         return rangeReads.sum();
+      }
+
+      /**
+       * Gets the number of bytes fetched from the blob engine with range reads.
+       */
+      public long getRangeBytes() {
+         return rangeBytes.sum();
+      }
+
+      /**
+       * Gets the number of pages fetched before they were read.
+       */
+      public long getPrefetches() {
+         return prefetches.sum();
+      }
+
+      /**
+       * Gets the number of blobs added to the cache after being read by range.
+       */
+      public long getAdmissions() {
+         return admissions.sum();
+      }
+
+      /**
+       * Gets the number of blobs evicted from the cache.
+       */
+      public long getEvictions() {
+         return evictions.sum();
+      }
+
+      @Override
+      public String toString() {
+         return "Statistics{" +
+            "hits=" + hits +
+            ", misses=" + misses +
+            ", rangeReads=" + rangeReads +
+            ", rangeBytes=" + rangeBytes +
+            ", prefetches=" + prefetches +
+            ", admissions=" + admissions +
+            ", evictions=" + evictions +
+            '}';
+      }
+
+      final LongAdder hits = new LongAdder();
+      final LongAdder misses = new LongAdder();
+      final LongAdder rangeReads = new LongAdder();
+      final LongAdder rangeBytes = new LongAdder();
+      final LongAdder prefetches = new LongAdder();
+      final LongAdder admissions = new LongAdder();
+      final LongAdder evictions = new LongAdder();
+   }
 }
@@ -0,0 +1,102 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2024  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.storage;
+
+import com.fasterxml.jackson.annotation.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * {@code BlobChunk} is a content-defined chunk of the data of a blob. Chunks are stored in the
+ * {@link BlobEngine} by their digest, so a chunk shared by several blobs, or by several versions of
+ * a blob, is only stored once.
+ */
+public final class BlobChunk implements Serializable {
+   /**
+    * Creates a new instance of {@code BlobChunk}.
+    *
+    * @param digest the MD5 digest of the chunk as a hexadecimal string.
+    * @param length the length of the chunk in bytes.
+    */
+   @JsonCreator
+   public BlobChunk(@JsonProperty("digest") String digest, @JsonProperty("length") long length) {
+      Objects.requireNonNull(digest, "The digest must not be null");
+      this.digest = digest;
+      this.length = length;
+   }
+
+   /**
+    * Gets the digest of the chunk.
+    *
+    * @return the MD5 digest as a hexadecimal string.
+    */
+   public String getDigest() {
+      return digest;
+   }
+
+   /**
+    * Gets the length of the chunk.
+    *
+    * @return the length in bytes.
+    */
+   public long getLength() {
+      return length;
+   }
+
+   /**
+    * Gets the key used to store the chunk in the blob engine. It is distinct from the digests of
+    * the blobs stored as single objects.
+    *
+    * @return the key.
+    */
+   @JsonIgnore
+   public String getKey() {
+      return digest + ".chunk";
+   }
+
+   @Override
+   public boolean equals(Object o) {
+      if(this == o) {
+         return true;
+      }
+
+      if(o == null || getClass() != o.getClass()) {
+         return false;
+      }
+
+      BlobChunk chunk = (BlobChunk) o;
+      return length == chunk.length && Objects.equals(digest, chunk.digest);
+   }
+
+   @Override
+   public int hashCode() {
+      return Objects.hash(digest, length);
+   }
+
+   @Override
+   public String toString() {
+      return "BlobChunk{" +
+         "digest='" + digest + '\'' +
+         ", length=" + length +
+         '}';
+   }
+
+   private final String digest;
+   private final long length;
+}
@@ -0,0 +1,226 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2024  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.storage;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * {@code BlobChunker} splits the data of large blobs into content-defined chunks and assembles
+ * them again. The chunk boundaries are found with a rolling gear hash, so an insertion or deletion
+ * in a blob only changes the chunks around the edit and the other chunks are shared with the
+ * previous version of the blob.
+ */
+final class BlobChunker {
+   private BlobChunker() {
+   }
+
+   /**
+    * Splits a file into chunks.
+    *
+    * @param file the file to split.
+    *
+    * @return the chunks or {@code null} if the file is too small to be stored as chunks.
+    *
+    * @throws IOException if an I/O error occurs.
+    */
+   static List<BlobChunk> split(Path file) throws IOException {
+      if(Files.size(file) < MIN_BLOB_SIZE) {
+         return null;
+      }
+
+      List<BlobChunk> chunks = new ArrayList<>();
+      MessageDigest md = createDigest();
+      byte[] buffer = new byte[65536];
+      long hash = 0L;
+      long length = 0L;
+
+      try(InputStream input = Files.newInputStream(file)) {
+         int len;
+
+         while((len = input.read(buffer)) >= 0) {
+            int start = 0;
+
+            for(int i = 0; i < len; i++) {
+               hash = (hash << 1) + GEAR[buffer[i] & 0xff];
+
+               if(++length < MIN_CHUNK_SIZE) {
+                  continue;
+               }
+
+               long mask = length < AVG_CHUNK_SIZE ? MASK_SMALL : MASK_LARGE;
+
+               if((hash & mask) == 0L || length >= MAX_CHUNK_SIZE) {
+                  md.update(buffer, start, i + 1 - start);
+                  chunks.add(new BlobChunk(toHex(md.digest()), length));
+                  start = i + 1;
+                  length = 0L;
+               }
+            }
+
+            md.update(buffer, start, len - start);
+         }
+      }
+
+      if(length > 0L) {
+         chunks.add(new BlobChunk(toHex(md.digest()), length));
+      }
+
+      return chunks.size() < 2 ? null : chunks;
+   }
+
+   /**
+    * Writes the chunks of a file that are not already in storage.
+    *
+    * @param engine the blob engine.
+    * @param id     the unique identifier of the storage.
+    * @param chunks the chunks of the file.
+    * @param source the file.
+    *
+    * @throws IOException if an I/O error occurs.
+    */
+   static void write(BlobEngine engine, String id, List<BlobChunk> chunks, Path source)
+      throws IOException
+   {
+      Set<String> written = new HashSet<>();
+      long offset = 0L;
+
+      try(FileChannel input = FileChannel.open(source, StandardOpenOption.READ)) {
+         for(BlobChunk chunk : chunks) {
+            if(written.add(chunk.getKey()) && !engine.exists(id, chunk.getKey())) {
+               Path temp = Files.createTempFile(source.getParent(), "chunk", ".dat");
+
+               try {
+                  try(FileChannel output = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                     transfer(input, offset, chunk.getLength(), output);
+                  }
+
+                  engine.write(id, chunk.getKey(), temp);
+               }
+               finally {
+                  Files.deleteIfExists(temp);
+               }
+            }
+
+            offset += chunk.getLength();
+         }
+      }
+   }
+
+   /**
+    * Reads the chunks of a blob and assembles them into a file.
+    *
+    * @param engine the blob engine.
+    * @param id     the unique identifier of the storage.
+    * @param blob   the blob.
+    * @param target the file into which the blob is written.
+    *
+    * @throws IOException if an I/O error occurs or if the assembled data does not match the blob.
+    */
+   static void read(BlobEngine engine, String id, Blob<?> blob, Path target) throws IOException {
+      MessageDigest md = createDigest();
+      Path dir = target.toAbsolutePath().getParent();
+      Path temp = Files.createTempFile(dir, "chunk", ".dat");
+      // the target is only replaced once the assembled data is verified
+      Path assembled = Files.createTempFile(dir, "blob", ".dat");
+      byte[] buffer = new byte[65536];
+      long length = 0L;
+
+      try {
+         try(OutputStream output = Files.newOutputStream(assembled)) {
+            for(BlobChunk chunk : blob.getChunks()) {
+               engine.read(id, chunk.getKey(), temp);
+
+               try(InputStream input = Files.newInputStream(temp)) {
+                  int len;
+
+                  while((len = input.read(buffer)) >= 0) {
+                     md.update(buffer, 0, len);
+                     output.write(buffer, 0, len);
+                     length += len;
+                  }
+               }
+            }
+         }
+
+         if(length != blob.getLength() || !toHex(md.digest()).equals(blob.getDigest())) {
+            throw new IOException("The chunks of blob " + blob.getDigest() + " are corrupted");
+         }
+
+         Files.move(assembled, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+      finally {
+         Files.deleteIfExists(temp);
+         Files.deleteIfExists(assembled);
+      }
+   }
+
+   private static void transfer(FileChannel input, long offset, long length, FileChannel output)
+      throws IOException
+   {
+      long count = 0L;
+
+      while(count < length) {
+         long n = input.transferTo(offset + count, length - count, output);
+
+         if(n <= 0L) {
+            throw new EOFException("Unexpected end of file while writing chunk");
+         }
+
+         count += n;
+      }
+   }
+
+   private static MessageDigest createDigest() throws IOException {
+      try {
+         return MessageDigest.getInstance("MD5");
+      }
+      catch(NoSuchAlgorithmException e) {
+         throw new IOException("MD5 digest is not available", e);
+      }
+   }
+
+   private static String toHex(byte[] digest) {
+      return HexFormat.of().formatHex(digest);
+   }
+
+   private static long[] createGear() {
+      // the table must never change, the chunk boundaries of the stored blobs depend on it
+      Random random = new Random(0x5f3759dfL);
+      long[] gear = new long[256];
+
+      for(int i = 0; i < gear.length; i++) {
+         gear[i] = random.nextLong();
+      }
+
+      return gear;
+   }
+
+   static final long MIN_BLOB_SIZE = 1024L * 1024L;
+   static final long MIN_CHUNK_SIZE = 64L * 1024L;
+   static final long AVG_CHUNK_SIZE = 256L * 1024L;
+   static final long MAX_CHUNK_SIZE = 1024L * 1024L;
+   // normalized chunking, harder to cut before the average size and easier after it
+   private static final long MASK_SMALL = -1L << (64 - 20);
+   private static final long MASK_LARGE = -1L << (64 - 16);
+   private static final long[] GEAR = createGear();
+}
@@ -22,6 +22,7 @@ import org.springframework.context.ApplicationContext;
 
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.Set;
 
@@ -62,6 +63,84 @@ public interface BlobEngine extends AutoCloseable {
     */
    void write(String id, String digest, Path source) throws IOException;
 
+   /**
+    * Determines if this engine can read a range of a blob without transferring the rest of it.
+    * Engines backed by a remote service should return {@code true} and implement
+    * {@link #read(String, String, long, ByteBuffer)} with a ranged request.
+    *
+    * @return {@code true} if range reads are supported.
+    */
+   default boolean isRangeReadSupported() {
+      return false;
+   }
+
+   /**
+    * Reads a range of a blob from storage.
+    *
+    * @param id       the unique identifier of the storage.
+    * @param digest   the MD5 digest of the blob as a hexadecimal string.
+    * @param position the offset in the blob of the first byte to read.
+    * @param target   the buffer into which the bytes are read, up to its remaining capacity.
+    *
+    * @return the number of bytes read or {@code -1} if the position is at the end of the blob.
+    *
+    * @throws IOException if an I/O error occurs.
+    */
+   default int read(String id, String digest, long position, ByteBuffer target)
+      throws IOException
+   {
+      throw new UnsupportedOperationException(
+         "Range reads are not supported by " + getClass().getName());
+   }
+
+   /**
+    * Reads a blob from storage, assembling it from its chunks if it is stored as chunks.
+    *
+    * @param id     the unique identifier of the storage.
+    * @param blob   the blob metadata.
+    * @param target the path to the local file where the blob will be written.
+    *
+    * @throws IOException if an I/O error occurs.
+    */
+   default void read(String id, Blob<?> blob, Path target) throws IOException {
+      if(blob.getChunks() == null) {
+         read(id, blob.getDigest(), target);
+         return;
+      }
+
+      try {
+         BlobChunker.read(this, id, blob, target);
+      }
+      catch(IOException e) {
+         // the same content may have been stored whole before chunking was enabled
+         if(exists(id, blob.getDigest())) {
+            read(id, blob.getDigest(), target);
+         }
+         else {
+            throw e;
+         }
+      }
+   }
+
+   /**
+    * Writes a blob into storage, only writing the chunks that are not already stored if the blob
+    * is stored as chunks.
+    *
+    * @param id     the unique identifier of the storage.
+    * @param blob   the blob metadata.
+    * @param source the path to the local file from where the blob will be read.
+    *
+    * @throws IOException if an I/O error occurs.
+    */
+   default void write(String id, Blob<?> blob, Path source) throws IOException {
+      if(blob.getChunks() == null) {
+         write(id, blob.getDigest(), source);
+      }
+      else {
+         BlobChunker.write(this, id, blob.getChunks(), source);
+      }
+   }
+
    /**
     * Deletes a blob from storage.
     *
@@ -0,0 +1,277 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2024  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.BitSet;
+import java.util.concurrent.*;
+
+/**
+ * {@code BlobPageFile} is a sparse local copy of a blob that is not in the local cache. The pages
+ * of the blob are fetched from the blob engine with range reads when they are first read, so
+ * opening a large blob does not wait for the whole blob to be downloaded. A page file is shared by
+ * all the channels open on the same blob.
+ */
+final class BlobPageFile {
+   /**
+    * Creates a new instance of {@code BlobPageFile}.
+    *
+    * @param engine     the blob engine.
+    * @param storeId    the unique identifier of the blob store.
+    * @param blob       the blob.
+    * @param file       the local file into which the pages are written.
+    * @param pageSize   the size of the pages in bytes.
+    * @param statistics the statistics of the blob cache.
+    */
+   BlobPageFile(BlobEngine engine, String storeId, Blob<?> blob, Path file, int pageSize,
+                BlobCache.Statistics statistics) throws IOException
+   {
+      this.engine = engine;
+      this.storeId = storeId;
+      this.digest = blob.getDigest();
+      this.length = blob.getLength();
+      this.file = file;
+      this.pageSize = pageSize;
+      this.pageCount = (int) ((length + pageSize - 1) / pageSize);
+      this.statistics = statistics;
+      this.channel = FileChannel.open(
+         file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.SPARSE);
+   }
+
+   /**
+    * Reads bytes from the blob, fetching the pages that have not been loaded yet.
+    *
+    * @param position the position in the blob of the first byte to read.
+    * @param target   the buffer into which the bytes are read.
+    *
+    * @return the number of bytes read or {@code -1} if the position is at the end of the blob.
+    *
+    * @throws IOException if an I/O error occurs.
+    */
+   int read(long position, ByteBuffer target) throws IOException {
+      if(position >= length) {
+         return -1;
+      }
+
+      int count = (int) Math.min(target.remaining(), length - position);
+      load(position, count);
+      ByteBuffer slice = target.slice(target.position(), count);
+
+      while(slice.hasRemaining()) {
+         if(channel.read(slice, position + slice.position()) < 0) {
+            throw new EOFException("Unexpected end of page file for blob " + digest);
+         }
+      }
+
+      target.position(target.position() + count);
+      return count;
+   }
+
+   /**
+    * Maps a region of the blob into memory, fetching the pages that have not been loaded yet.
+    *
+    * @param position the position in the blob of the region.
+    * @param size     the size of the region.
+    *
+    * @return the mapped buffer.
+    *
+    * @throws IOException if an I/O error occurs.
+    */
+   MappedByteBuffer map(long position, long size) throws IOException {
+      load(position, size);
+      return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+   }
+
+   /**
+    * Fetches the pages after a page in the background.
+    *
+    * @param page     the index of the last page that was read.
+    * @param count    the number of pages to fetch.
+    * @param executor the executor that fetches the pages.
+    */
+   void prefetch(int page, int count, Executor executor) {
+      for(int i = page + 1; i <= page + count && i < pageCount; i++) {
+         if(!isLoaded(i) && !loading.containsKey(i)) {
+            int next = i;
+            executor.execute(() -> {
+               try {
+                  if(loadPage(next)) {
+                     statistics.prefetches.increment();
+                  }
+               }
+               catch(ClosedChannelException ignore) {
+                  // the last channel on the blob was closed before the page was fetched
+               }
+               catch(Exception e) {
+                  LOG.debug("Failed to prefetch page {} of blob {}", next, digest, e);
+               }
+            });
+         }
+      }
+   }
+
+   /**
+    * Determines if all the pages of the blob have been fetched.
+    *
+    * @return {@code true} if complete.
+    */
+   boolean isComplete() {
+      synchronized(loaded) {
+         return loaded.cardinality() == pageCount;
+      }
+   }
+
+   int getPageSize() {
+      return pageSize;
+   }
+
+   long getLength() {
+      return length;
+   }
+
+   String getDigest() {
+      return digest;
+   }
+
+   String getStoreId() {
+      return storeId;
+   }
+
+   Path getFile() {
+      return file;
+   }
+
+   void acquire() {
+      references++;
+   }
+
+   int release() {
+      return --references;
+   }
+
+   void close() throws IOException {
+      channel.close();
+   }
+
+   private void load(long position, long size) throws IOException {
+      if(size <= 0L) {
+         return;
+      }
+
+      int first = (int) (position / pageSize);
+      int last = (int) ((position + size - 1) / pageSize);
+
+      for(int i = first; i <= last; i++) {
+         loadPage(i);
+      }
+   }
+
+   private boolean loadPage(int page) throws IOException {
+      if(isLoaded(page)) {
+         return false;
+      }
+
+      CompletableFuture<Void> future = new CompletableFuture<>();
+      CompletableFuture<Void> existing = loading.putIfAbsent(page, future);
+
+      if(existing != null) {
+         try {
+            existing.get();
+         }
+         catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for page of blob " + digest, e);
+         }
+         catch(ExecutionException e) {
+            throw new IOException("Failed to fetch page of blob " + digest, e.getCause());
+         }
+
+         return false;
+      }
+
+      try {
+         if(!isLoaded(page)) {
+            fetch(page);
+         }
+
+         future.complete(null);
+         return true;
+      }
+      catch(IOException | RuntimeException e) {
+         future.completeExceptionally(e);
+         throw e;
+      }
+      finally {
+         loading.remove(page);
+      }
+   }
+
+   private void fetch(int page) throws IOException {
+      long start = (long) page * pageSize;
+      ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(pageSize, length - start));
+
+      while(buffer.hasRemaining()) {
+         if(engine.read(storeId, digest, start + buffer.position(), buffer) < 0) {
+            throw new EOFException("Unexpected end of blob " + digest);
+         }
+      }
+
+      buffer.flip();
+
+      while(buffer.hasRemaining()) {
+         channel.write(buffer, start + buffer.position());
+      }
+
+      synchronized(loaded) {
+         loaded.set(page);
+      }
+
+      statistics.rangeReads.increment();
+      statistics.rangeBytes.add(buffer.limit());
+   }
+
+   private boolean isLoaded(int page) {
+      synchronized(loaded) {
+         return loaded.get(page);
+      }
+   }
+
+   private final BlobEngine engine;
+   private final String storeId;
+   private final String digest;
+   private final long length;
+   private final Path file;
+   private final int pageSize;
+   private final int pageCount;
+   private final BlobCache.Statistics statistics;
+   private final FileChannel channel;
+   private final BitSet loaded = new BitSet();
+   private final ConcurrentMap<Integer, CompletableFuture<Void>> loading =
+      new ConcurrentHashMap<>();
+   private int references; // guarded by the page file map of the blob cache
+   private static final Logger LOG = LoggerFactory.getLogger(BlobPageFile.class);
+}
@@ -134,6 +134,19 @@ public abstract class BlobStorage<T extends Serializable> implements AutoCloseab
       return getBlob(path).getMetadata();
    }
 
+   /**
+    * Gets the digest of the contents of a blob.
+    *
+    * @param path the path to the blob.
+    *
+    * @return the MD5 digest as a hexadecimal string or {@code null} if the blob is a directory.
+    *
+    * @throws FileNotFoundException if no blob exists at the specified path.
+    */
+   public final String getDigest(String path) throws FileNotFoundException {
+      return getBlob(path).getDigest();
+   }
+
    /**
     * Opens an input stream to the blob at the specified path.
     *
@@ -311,6 +324,21 @@ public abstract class BlobStorage<T extends Serializable> implements AutoCloseab
     */
    protected abstract void commit(Blob<T> blob, Path tempFile) throws IOException;
 
+   /**
+    * Splits the data of a blob into content-defined chunks before it is committed, if this
+    * storage supports storing blobs as chunks.
+    *
+    * @param blob     the blob metadata.
+    * @param tempFile the temporary file containing the blob data.
+    *
+    * @return the blob metadata to commit.
+    *
+    * @throws IOException if an I/O error occurs.
+    */
+   protected Blob<T> split(Blob<T> blob, Path tempFile) throws IOException {
+      return blob;
+   }
+
    /**
     * Deletes the blob at the specified path.
     *
@@ -798,6 +826,12 @@ public abstract class BlobStorage<T extends Serializable> implements AutoCloseab
          super(id);
       }
 
+      @Override
+      protected boolean isLazyLoad() {
+         // the blob references and timestamps are computed from all the blobs
+         return false;
+      }
+
       @Override
       protected void validate(Map<String, Blob<T>> map) throws Exception {
          String orgID = SUtil.getOrganizationId(this.getId());
@@ -103,6 +103,15 @@ public class BlobStorageManager implements AutoCloseable {
       }
    }
 
+   /**
+    * Gets the statistics of the local blob cache.
+    *
+    * @return the statistics or {@code null} if the blobs are stored on the local filesystem.
+    */
+   public BlobCache.Statistics getCacheStatistics() {
+      return blobCache == null ? null : blobCache.getStatistics();
+   }
+
    @Override
    @PreDestroy
    public void close() {
@@ -21,8 +21,7 @@ import inetsoft.sree.internal.cluster.Cluster;
 import inetsoft.sree.internal.cluster.DistributedLong;
 
 import java.io.Serializable;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 
 /**
  * {@code BlobTask} is a specialization of {@link KeyValueTask} that performs operations on the
@@ -50,6 +49,223 @@ public abstract class BlobTask<T extends Serializable> extends KeyValueTask<Blob
       return cluster.getReplicatedMap("inetsoft.storage.kv." + getId() + "Refs");
    }
 
+   /**
+    * Gets the map that contains the chunks of the file digests that are stored as chunks.
+    *
+    * @return the chunk map.
+    */
+   protected Map<String, ArrayList<BlobChunk>> getChunkMap() {
+      Cluster cluster = Cluster.getInstance();
+      return cluster.getReplicatedMap("inetsoft.storage.kv." + getId() + "Chunks");
+   }
+
+   /**
+    * Gets the map that contains the number of file digests that reference each chunk.
+    *
+    * @return the chunk reference map.
+    */
+   protected Map<String, Integer> getChunkReferenceMap() {
+      Cluster cluster = Cluster.getInstance();
+      return cluster.getReplicatedMap("inetsoft.storage.kv." + getId() + "ChunkRefs");
+   }
+
+   /**
+    * Gets the map that contains the paths of the blobs that are stored as chunks for each file
+    * digest. The other paths in the reference map use the whole object, so the references to the
+    * two forms of a digest are counted separately.
+    *
+    * @return the chunked reference map.
+    */
+   protected Map<String, Set<String>> getChunkedReferenceMap() {
+      Cluster cluster = Cluster.getInstance();
+      return cluster.getReplicatedMap("inetsoft.storage.kv." + getId() + "ChunkedRefs");
+   }
+
+   /**
+    * Adds the reference from the path of a blob to its file digest. If the path already
+    * referenced the digest in the other form, i.e. a whole object replaced by chunks or the
+    * reverse, the reference to that form is removed.
+    *
+    * @param blob the blob.
+    *
+    * @return the keys of the objects that should be deleted from the blob engine because the
+    *         path no longer references them.
+    */
+   protected Set<String> addReference(Blob<T> blob) {
+      String digest = blob.getDigest();
+      String path = blob.getPath();
+      Map<String, Set<String>> refMap = getReferenceMap();
+      Set<String> refs = refMap.get(digest);
+
+      if(refs == null) {
+         refs = new HashSet<>();
+      }
+
+      boolean existed = !refs.add(path);
+      refMap.put(digest, refs);
+
+      Map<String, Set<String>> chunkedRefMap = getChunkedReferenceMap();
+      Set<String> chunkedRefs = chunkedRefMap.get(digest);
+      boolean wasChunked = chunkedRefs != null && chunkedRefs.contains(path);
+
+      if(blob.getChunks() != null) {
+         if(chunkedRefs == null) {
+            chunkedRefs = new HashSet<>();
+            addChunkReferences(blob);
+         }
+
+         chunkedRefs.add(path);
+         chunkedRefMap.put(digest, chunkedRefs);
+         return existed && !wasChunked ?
+            getUnreferencedKeys(digest, false, refs, chunkedRefs) : Collections.emptySet();
+      }
+      else if(wasChunked) {
+         return getUnreferencedKeys(digest, true, refs, removeChunkedReference(digest, path));
+      }
+
+      return Collections.emptySet();
+   }
+
+   /**
+    * Removes the reference from a path to the file digest of the blob that was stored at it.
+    *
+    * @param path the path.
+    * @param blob the blob that was stored at the path.
+    *
+    * @return the keys of the objects that should be deleted from the blob engine. This is the
+    *         digest if no other blob uses the whole object and the chunks that are no longer
+    *         referenced if no other blob uses the chunks.
+    */
+   protected Set<String> removeReference(String path, Blob<T> blob) {
+      String digest = blob.getDigest();
+      Map<String, Set<String>> refMap = getReferenceMap();
+      Set<String> refs = refMap.get(digest);
+
+      if(refs == null || !refs.remove(path)) {
+         return Collections.emptySet();
+      }
+
+      if(refs.isEmpty()) {
+         refMap.remove(digest);
+      }
+      else {
+         refMap.put(digest, refs);
+      }
+
+      Set<String> chunkedRefs = getChunkedReferenceMap().get(digest);
+      boolean chunked = chunkedRefs != null && chunkedRefs.contains(path);
+
+      if(chunked) {
+         chunkedRefs = removeChunkedReference(digest, path);
+      }
+
+      return getUnreferencedKeys(
+         digest, chunked, refs, chunkedRefs == null ? Collections.emptySet() : chunkedRefs);
+   }
+
+   private Set<String> removeChunkedReference(String digest, String path) {
+      Map<String, Set<String>> chunkedRefMap = getChunkedReferenceMap();
+      Set<String> chunkedRefs = chunkedRefMap.get(digest);
+      chunkedRefs.remove(path);
+
+      if(chunkedRefs.isEmpty()) {
+         chunkedRefMap.remove(digest);
+      }
+      else {
+         chunkedRefMap.put(digest, chunkedRefs);
+      }
+
+      return chunkedRefs;
+   }
+
+   /**
+    * Gets the keys of the objects of a file digest that lost a reference and are no longer
+    * referenced.
+    *
+    * @param digest      the file digest.
+    * @param chunked     {@code true} if the chunks lost the reference, {@code false} if the
+    *                    whole object lost it.
+    * @param refs        the remaining paths that reference the digest.
+    * @param chunkedRefs the remaining paths that reference the chunks of the digest.
+    */
+   private Set<String> getUnreferencedKeys(String digest, boolean chunked, Set<String> refs,
+                                           Set<String> chunkedRefs)
+   {
+      if(chunked) {
+         return chunkedRefs.isEmpty() ? removeChunkReferences(digest) : Collections.emptySet();
+      }
+
+      // the paths that don't reference the chunks reference the whole object
+      return refs.size() == chunkedRefs.size() ?
+         Collections.singleton(digest) : Collections.emptySet();
+   }
+
+   /**
+    * Adds the references to the chunks of a blob whose chunks were not previously referenced.
+    *
+    * @param blob the blob.
+    */
+   protected void addChunkReferences(Blob<T> blob) {
+      if(blob.getDigest() == null || blob.getChunks() == null) {
+         return;
+      }
+
+      Map<String, Integer> chunkRefMap = getChunkReferenceMap();
+
+      for(String key : getChunkKeys(blob.getChunks())) {
+         Integer count = chunkRefMap.get(key);
+         chunkRefMap.put(key, count == null ? 1 : count + 1);
+      }
+
+      getChunkMap().put(blob.getDigest(), new ArrayList<>(blob.getChunks()));
+   }
+
+   /**
+    * Removes the references to the chunks of a file digest whose chunks are no longer referenced
+    * by any blob.
+    *
+    * @param digest the file digest.
+    *
+    * @return the keys of the chunks that should be deleted from the blob engine.
+    */
+   protected Set<String> removeChunkReferences(String digest) {
+      List<BlobChunk> chunks = getChunkMap().remove(digest);
+
+      if(chunks == null) {
+         return Collections.emptySet();
+      }
+
+      Map<String, Integer> chunkRefMap = getChunkReferenceMap();
+      Set<String> keys = new TreeSet<>();
+
+      for(String key : getChunkKeys(chunks)) {
+         Integer count = chunkRefMap.get(key);
+
+         // leave a chunk that isn't counted, leaking it is safer than deleting referenced data
+         if(count != null) {
+            if(count <= 1) {
+               chunkRefMap.remove(key);
+               keys.add(key);
+            }
+            else {
+               chunkRefMap.put(key, count - 1);
+            }
+         }
+      }
+
+      return keys;
+   }
+
+   private static Set<String> getChunkKeys(List<BlobChunk> chunks) {
+      Set<String> keys = new TreeSet<>();
+
+      for(BlobChunk chunk : chunks) {
+         keys.add(chunk.getKey());
+      }
+
+      return keys;
+   }
+
    /**
     * Gets the distributed long that contains the cached last modified time of the blob store.
     *
@@ -199,6 +199,7 @@ public class BlobTransaction<T extends Serializable> implements Closeable {
          context.path, digestString.toString(), context.tempFile.toFile().length(),
          instant, context.metadata);
 
+      blob = storage.split(blob, context.tempFile);
       storage.commit(blob, context.tempFile);
       BlobReference<T> oldBlob;
 
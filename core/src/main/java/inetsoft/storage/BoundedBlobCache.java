@@ -30,19 +30,32 @@ import java.util.Objects;
 
 public class BoundedBlobCache extends BlobCache {
    BoundedBlobCache(Path baseDir, BlobEngine engine, long maxSize) {
-      super(baseDir, engine);
+      this(baseDir, engine, maxSize, false);
+   }
+
+   BoundedBlobCache(Path baseDir, BlobEngine engine, long maxSize, boolean chunked) {
+      this(baseDir, engine, maxSize, chunked, false);
+   }
+
+   BoundedBlobCache(Path baseDir, BlobEngine engine, long maxSize, boolean chunked,
+                    boolean rangeReads)
+   {
+      super(baseDir, engine, chunked, rangeReads);
+      // the size-weighted window TinyLFU policy evicts the least frequently used blobs first
       //noinspection DataFlowIssue
       cache = Caffeine.newBuilder()
          .maximumWeight(maxSize * 1024 * 1024)
          .weigher(BoundedBlobCache::getWeight)
-         .evictionListener(BoundedBlobCache::onEvicted)
+         .evictionListener(this::onEvicted)
          .build();
       loadEntries(baseDir, cache);
    }
    private static int getWeight(CacheKey key, Path path) {
       return (int) (path.toFile().isFile() ? path.toFile().length() : 0L);
    }
-   private static void onEvicted(CacheKey key, Path path, RemovalCause cause) {
+   private void onEvicted(CacheKey key, Path path, RemovalCause cause) {
+      getStatistics().evictions.increment();
+
       if(path.toFile().isFile()) {
          try {
             Files.delete(path);
@@ -82,13 +95,19 @@ public class BoundedBlobCache extends BlobCache {
    }
 
    @Override
-   public Path get(String storeId, Blob<?> blob) throws IOException {
-      return cache.get(new CacheKey(storeId, blob.getDigest()), this::copyToCache);
+   protected Path getIfCached(String storeId, Blob<?> blob) {
+      Path path = cache.getIfPresent(new CacheKey(storeId, blob.getDigest()));
+      return path != null && path.toFile().exists() ? path : null;
+   }
+
+   @Override
+   protected Path load(String storeId, Blob<?> blob) {
+      return cache.get(new CacheKey(storeId, blob.getDigest()), k -> copyToCache(k, blob));
    }
 
-   private Path copyToCache(CacheKey key) {
+   private Path copyToCache(CacheKey key, Blob<?> blob) {
       try {
-         return copyToCache(key.storeId, key.digest);
+         return copyToCache(key.storeId, blob);
       }
       catch(IOException e) {
          throw new RuntimeException("Failed to copy blob to local cache", e);
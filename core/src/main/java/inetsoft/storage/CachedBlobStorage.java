@@ -23,7 +23,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
-import java.nio.channels.FileChannel;
+import java.nio.channels.Channels;
 import java.nio.file.*;
 import java.util.List;
 import java.util.Objects;
@@ -66,14 +66,12 @@ public final class CachedBlobStorage<T extends Serializable>
 
    @Override
    protected InputStream getInputStream(Blob<T> blob) throws IOException {
-      Path path = cache.get(id, blob);
-      return Files.newInputStream(path);
+      return Channels.newInputStream(cache.getReadChannel(id, blob));
    }
 
    @Override
    protected BlobChannel getReadChannel(Blob<T> blob) throws IOException {
-      Path path = cache.get(id, blob);
-      return new BlobReadChannel(FileChannel.open(path, StandardOpenOption.READ));
+      return cache.getReadChannel(id, blob);
    }
 
    @Override
@@ -81,6 +79,11 @@ public final class CachedBlobStorage<T extends Serializable>
       cache.put(id, blob, tempFile);
    }
 
+   @Override
+   protected Blob<T> split(Blob<T> blob, Path tempFile) throws IOException {
+      return cache.split(blob, tempFile);
+   }
+
    @Override
    protected void delete(Blob<T> blob) throws IOException {
       cache.remove(id, blob);
@@ -22,7 +22,6 @@ import inetsoft.sree.internal.cluster.SingletonCallableTask;
 import java.io.FileNotFoundException;
 import java.io.Serializable;
 import java.time.Instant;
-import java.util.*;
 
 /**
  * {@code CopyBlobTask} copies a blob to another path.
@@ -53,7 +52,7 @@ public class CopyBlobTask<T extends Serializable>
          throw new FileNotFoundException(oldPath);
       }
 
-      Blob<T> newBlob = new Blob<>(newPath, oldBlob.getDigest(), oldBlob.getLength(), Instant.now(), oldBlob.getMetadata());
+      Blob<T> newBlob = new Blob<>(newPath, oldBlob.getDigest(), oldBlob.getLength(), Instant.now(), oldBlob.getMetadata(), oldBlob.getChunks());
       getEngine().put(getId(), newPath, newBlob);
       getMap().put(newPath, newBlob);
       getLastModified().set(newBlob.getLastModified().toEpochMilli());
@@ -61,16 +60,8 @@ public class CopyBlobTask<T extends Serializable>
       int refCount = 0;
 
       if(newBlob.getDigest() != null) {
-         Map<String, Set<String>> refMap = getReferenceMap();
-         Set<String> refs = refMap.get(newBlob.getDigest());
-
-         if(refs == null) {
-            refs = new HashSet<>();
-         }
-
-         refs.add(newPath);
-         refMap.put(newBlob.getDigest(), refs);
-         refCount = refs.size();
+         addReference(newBlob);
+         refCount = getReferenceMap().get(newBlob.getDigest()).size();
       }
 
       return new BlobReference<>(newBlob, refCount);
@@ -65,6 +65,8 @@ public class DeleteAllBlobTask<T extends Serializable> extends BlobTask<T>
       map.removeAll(sortedKeys);
 
       // Process reference counting for each removed blob
+      TreeSet<String> engineKeys = new TreeSet<>();
+
       for(Map.Entry<String, Blob<T>> entry : blobsToRemove.entrySet()) {
          String key = entry.getKey();
          Blob<T> blob = entry.getValue();
@@ -73,29 +75,26 @@ public class DeleteAllBlobTask<T extends Serializable> extends BlobTask<T>
             String digest = blob.getDigest();
 
             if(refMap.containsKey(digest)) {
-               Set<String> refs = refMap.get(digest);
-               boolean exists = refs.remove(key);
-
-               if(refs.isEmpty()) {
-                  refMap.remove(digest);
+               engineKeys.addAll(removeReference(key, blob));
 
-                  if(exists) {
-                     digestsToDelete.add(digest);
-                  }
-               }
-               else {
-                  refMap.put(digest, refs);
+               if(!refMap.containsKey(digest)) {
+                  digestsToDelete.add(digest);
                }
             }
             else {
                digestsToDelete.add(digest);
+               engineKeys.add(digest);
+
+               if(!getChunkedReferenceMap().containsKey(digest)) {
+                  engineKeys.addAll(removeChunkReferences(digest));
+               }
             }
          }
       }
 
-      // Bulk delete from blob engine
-      if(!digestsToDelete.isEmpty()) {
-         BlobEngine.getInstance().deleteAll(getId(), digestsToDelete);
+      // Bulk delete the whole objects and chunks that are no longer referenced from blob engine
+      if(!engineKeys.isEmpty()) {
+         BlobEngine.getInstance().deleteAll(getId(), engineKeys);
       }
 
       getLastModified().set(System.currentTimeMillis());
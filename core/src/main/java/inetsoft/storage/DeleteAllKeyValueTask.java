@@ -45,7 +45,7 @@ public class DeleteAllKeyValueTask<T extends Serializable>
    @Override
    public void run() {
       getEngine().removeAll(getId(), keys);
-      getMap().removeAll(keys);
+      removeMapValues(keys);
    }
 
    private final Set<String> keys;
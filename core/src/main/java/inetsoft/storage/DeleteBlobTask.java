@@ -55,24 +55,21 @@ public class DeleteBlobTask<T extends Serializable> extends BlobTask<T>
          Map<String, Set<String>> refMap = getReferenceMap();
 
          if(blob.getDigest() != null && refMap.containsKey(blob.getDigest())) {
-            Set<String> refs = refMap.get(blob.getDigest());
-            boolean exists = refs.remove(key);
+            Set<String> keys = removeReference(key, blob);
 
-            if(refs.isEmpty()) {
-               refMap.remove(blob.getDigest());
+            if(!keys.isEmpty()) {
+               BlobEngine.getInstance().deleteAll(getId(), keys);
+            }
 
-               if(exists) {
-                  BlobEngine.getInstance().delete(getId(), blob.getDigest());
-                  Cluster.getInstance()
-                     .sendMessage(new ClearBlobCacheMessage(getId(), blob.getDigest()));
-               }
+            Set<String> refs = refMap.get(blob.getDigest());
 
+            if(refs == null) {
+               Cluster.getInstance()
+                  .sendMessage(new ClearBlobCacheMessage(getId(), blob.getDigest()));
                return new BlobReference<>(blob, 0);
             }
-            else {
-               refMap.put(blob.getDigest(), refs);
-               return new BlobReference<>(blob, refs.size());
-            }
+
+            return new BlobReference<>(blob, refs.size());
          }
 
          return new BlobReference<>(blob, 0);
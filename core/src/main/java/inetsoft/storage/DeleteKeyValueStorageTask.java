@@ -58,6 +58,11 @@ public class DeleteKeyValueStorageTask<T extends Serializable>
          Cluster cluster = Cluster.getInstance();
          cluster.destroyReplicatedMap("inetsoft.storage.kv." + getId());
 
+         if(isLazy()) {
+            cluster.destroyReplicatedMap(getKeyMapName(getId()));
+            getLazyStores(cluster).remove(getId());
+         }
+
          getEngine().deleteStorage(getId());
       }
       catch(Exception e) {
@@ -69,5 +74,8 @@ public class DeleteKeyValueStorageTask<T extends Serializable>
    private void removeBlobReferences() {
       Cluster cluster = Cluster.getInstance();
       cluster.destroyReplicatedMap("inetsoft.storage.kv." + getId() + "Refs");
+      cluster.destroyReplicatedMap("inetsoft.storage.kv." + getId() + "ChunkedRefs");
+      cluster.destroyReplicatedMap("inetsoft.storage.kv." + getId() + "Chunks");
+      cluster.destroyReplicatedMap("inetsoft.storage.kv." + getId() + "ChunkRefs");
    }
 }
@@ -44,7 +44,7 @@ public class DeleteKeyValueTask<T extends Serializable>
    @Override
    public T call() throws Exception {
       T oldValue = getEngine().remove(getId(), key);
-      getMap().remove(key);
+      removeMapValue(key);
       return oldValue;
    }
 
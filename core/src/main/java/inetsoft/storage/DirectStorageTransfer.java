@@ -143,7 +143,7 @@ public class DirectStorageTransfer extends AbstractStorageTransfer {
             Files.createDirectories(file.getParent());
 
             try {
-               blobEngine.read(id, digest, file);
+               blobEngine.read(id, blob, file);
             }
             catch(IOException e) {
                Files.deleteIfExists(file);
@@ -199,8 +199,7 @@ public class DirectStorageTransfer extends AbstractStorageTransfer {
 
                // Rewrite the new registry file to the temp file and get the new digest
                Path temp = Files.createTempFile("import-storage", ".dat");
-               String oldDigest = oldBlob.getDigest();
-               blobEngine.read(id, oldDigest, temp);
+               blobEngine.read(id, oldBlob, temp);
                String digest;
 
                Hashtable<String, Hashtable<String, FolderContext>> folders = new Hashtable<>();
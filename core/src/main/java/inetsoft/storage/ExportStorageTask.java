@@ -107,7 +107,7 @@ public class ExportStorageTask implements SingletonCallableTask<String> {
                   Path temp = Files.createTempFile("storage-export", ".dat");
 
                   try {
-                     BlobEngine.getInstance().read(id, digest, temp);
+                     BlobEngine.getInstance().read(id, blob, temp);
                   }
                   catch(IOException e) {
                      Files.deleteIfExists(temp);
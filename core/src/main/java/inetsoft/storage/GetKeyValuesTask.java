@@ -0,0 +1,51 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2024  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.storage;
+
+import inetsoft.sree.internal.cluster.SingletonCallableTask;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * {@code GetKeyValuesTask} is a cluster singleton task that gets the values associated with a set
+ * of keys from a lazily loaded key-value store.
+ *
+ * @param <T> the value type.
+ */
+public class GetKeyValuesTask<T extends Serializable>
+   extends KeyValueTask<T> implements SingletonCallableTask<HashMap<String, T>>
+{
+   /**
+    * Creates a new instance of {@code GetKeyValuesTask}.
+    *
+    * @param id   the unique identifier of the key-value store.
+    * @param keys the keys of the values to get.
+    */
+   public GetKeyValuesTask(String id, Set<String> keys) {
+      super(id);
+      this.keys = new HashSet<>(keys);
+   }
+
+   @Override
+   public HashMap<String, T> call() throws Exception {
+      return new HashMap<>(getEngine().<T>getAll(getId(), keys));
+   }
+
+   private final HashSet<String> keys;
+}
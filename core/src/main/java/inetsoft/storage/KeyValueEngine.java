@@ -25,6 +25,7 @@ import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import inetsoft.util.ConfigurationContext;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
@@ -106,6 +107,17 @@ public interface KeyValueEngine extends AutoCloseable {
     */
    <T> Stream<KeyValuePair<T>> stream(String id);
 
+   /**
+    * Gets a stream of the keys in a key-value store.
+    *
+    * @param id the unique identifier of the key-value store.
+    *
+    * @return the key stream.
+    */
+   default Stream<String> keys(String id) {
+      return stream(id).map(KeyValuePair::getKey);
+   }
+
    /**
     * Gets a stream of the unique identifiers for all the key-value stores.
     *
@@ -120,7 +132,33 @@ public interface KeyValueEngine extends AutoCloseable {
    }
 
    /**
-    * Puts a list of key values into a key-value store.
+    * Gets the values associated with a set of keys. Implementations should read all the values
+    * in a single operation.
+    *
+    * @param id   the unique identifier of the key-value store.
+    * @param keys the keys.
+    *
+    * @param <T> the value type.
+    *
+    * @return the values, keys without a value are not included.
+    */
+   default <T> Map<String, T> getAll(String id, Set<String> keys) {
+      Map<String, T> values = new HashMap<>();
+
+      for(String key : keys) {
+         T value = get(id, key);
+
+         if(value != null) {
+            values.put(key, value);
+         }
+      }
+
+      return values;
+   }
+
+   /**
+    * Puts a list of key values into a key-value store. Implementations should write all the
+    * values in a single transaction.
     *
     * @param <T>         the value type.
     * @param id          the unique identifier of the key-value store.
@@ -133,7 +171,8 @@ public interface KeyValueEngine extends AutoCloseable {
    }
 
    /**
-    * Removes a set of keys from a key-value store.
+    * Removes a set of keys from a key-value store. Implementations should remove all the keys in
+    * a single transaction.
     *
     * @param id   the unique identifier of the key-value store.
     * @param keys the keys
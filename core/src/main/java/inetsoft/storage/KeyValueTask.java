@@ -20,7 +20,8 @@ package inetsoft.storage;
 import inetsoft.sree.internal.cluster.*;
 
 import java.io.*;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * {@code KeyValueTask} is the base class for implementations of {@link SingletonCallableTask} that
@@ -66,6 +67,111 @@ public abstract class KeyValueTask<T extends Serializable> implements Serializab
       return cluster.getReplicatedMap("inetsoft.storage.kv." + id);
    }
 
+   /**
+    * Determines if the values of the store are loaded on demand. The distributed map of a lazy
+    * store only holds the keys, see {@link #getKeyMap()}.
+    *
+    * @return {@code true} if lazy or {@code false} if the values are in the distributed map.
+    */
+   protected final boolean isLazy() {
+      return getLazyStores(Cluster.getInstance()).containsKey(id);
+   }
+
+   /**
+    * Gets the distributed map holding the keys of a lazy store. The value is a stamp that is
+    * changed each time the value associated with the key is updated.
+    *
+    * @return the key map.
+    */
+   protected final DistributedMap<String, Long> getKeyMap() {
+      return Cluster.getInstance().getReplicatedMap(getKeyMapName(id));
+   }
+
+   /**
+    * Gets a value from the distributed map, or from the engine if the store is lazy.
+    *
+    * @param key the key.
+    *
+    * @return the value or {@code null} if none.
+    */
+   protected final T getMapValue(String key) {
+      return isLazy() ? getEngine().get(id, key) : getMap().get(key);
+   }
+
+   /**
+    * Updates the distributed map after a value has been put in the engine.
+    *
+    * @param key   the key.
+    * @param value the value.
+    */
+   protected final void putMapValue(String key, T value) {
+      if(isLazy()) {
+         getKeyMap().put(key, createStamp());
+      }
+      else {
+         getMap().put(key, value);
+      }
+   }
+
+   /**
+    * Updates the distributed map after values have been put in the engine.
+    *
+    * @param values the values.
+    */
+   protected final void putMapValues(Map<String, T> values) {
+      if(isLazy()) {
+         Map<String, Long> keys = new HashMap<>();
+         values.keySet().forEach(k -> keys.put(k, createStamp()));
+         getKeyMap().putAll(keys);
+      }
+      else {
+         getMap().putAll(values);
+      }
+   }
+
+   /**
+    * Updates the distributed map after a value has been removed from the engine.
+    *
+    * @param key the key.
+    */
+   protected final void removeMapValue(String key) {
+      if(isLazy()) {
+         getKeyMap().remove(key);
+      }
+      else {
+         getMap().remove(key);
+      }
+   }
+
+   /**
+    * Updates the distributed map after values have been removed from the engine.
+    *
+    * @param keys the keys.
+    */
+   protected final void removeMapValues(Set<String> keys) {
+      if(isLazy()) {
+         getKeyMap().removeAll(keys);
+      }
+      else {
+         getMap().removeAll(keys);
+      }
+   }
+
+   static Long createStamp() {
+      return ThreadLocalRandom.current().nextLong();
+   }
+
+   /**
+    * Gets the replicated map holding the identifiers of the stores loaded lazily.
+    */
+   static DistributedMap<String, Boolean> getLazyStores(Cluster cluster) {
+      return cluster.getReplicatedMap("inetsoft.storage.kv.lazyStores");
+   }
+
+   static String getKeyMapName(String id) {
+      return "inetsoft.storage.kv." + id + ".keys";
+   }
+
    /**
     * Serializes a value.
     *
@@ -74,6 +180,10 @@ public abstract class KeyValueTask<T extends Serializable> implements Serializab
     * @return the serialized data.
     */
    protected final byte[] serializeValue(Serializable value) {
+      return serialize(value);
+   }
+
+   static byte[] serialize(Serializable value) {
       ByteArrayOutputStream buffer = new ByteArrayOutputStream();
 
       try(ObjectOutputStream output = new ObjectOutputStream(buffer)) {
@@ -97,6 +207,11 @@ public abstract class KeyValueTask<T extends Serializable> implements Serializab
     */
    @SuppressWarnings("unchecked")
    protected final <V extends Serializable> V deserializeValue(byte[] data) {
+      return deserialize(data);
+   }
+
+   @SuppressWarnings("unchecked")
+   static <V extends Serializable> V deserialize(byte[] data) {
       try(ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(data))) {
          return (V) input.readObject();
       }
@@ -17,18 +17,22 @@
  */
 package inetsoft.storage;
 
-import inetsoft.sree.internal.cluster.Cluster;
-import inetsoft.sree.internal.cluster.SingletonRunnableTask;
+import inetsoft.sree.internal.cluster.*;
 import inetsoft.util.ShutdownException;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * {@code LoadKeyValueTask} is a cluster singleton task that loads the content of a key-value store
  * into a distributed map.
  *
+ * <p>The stores listed in the {@code inetsoft.storage.kv.lazy} system property (comma separated,
+ * or {@code *} for all) are loaded lazily: only their keys are put into the distributed map and
+ * the values are loaded from the engine when first accessed.</p>
+ *
  * @param <T> the value type.
  */
 public class LoadKeyValueTask<T extends Serializable>
@@ -57,6 +61,18 @@ public class LoadKeyValueTask<T extends Serializable>
    @Override
    public void run() {
       try {
+         DistributedMap<String, Boolean> lazyStores = getLazyStores(Cluster.getInstance());
+
+         if(isLazyLoad()) {
+            lazyStores.put(getId(), true);
+            loadKeys();
+            return;
+         }
+
+         if(lazyStores.remove(getId()) != null) {
+            getKeyMap().clear();
+         }
+
          Map<String, T> map = getMap();
 
          if(map.isEmpty() || external || map.size() != getEngine().size(getId())) {
@@ -97,6 +113,55 @@ public class LoadKeyValueTask<T extends Serializable>
       }
    }
 
+   /**
+    * Determines if the values of the store should be loaded on demand instead of being put into
+    * the distributed map.
+    *
+    * @return {@code true} to load the values lazily.
+    */
+   protected boolean isLazyLoad() {
+      String stores = System.getProperty("inetsoft.storage.kv.lazy");
+
+      return stores != null && Arrays.stream(stores.split(","))
+         .map(String::trim)
+         .anyMatch(s -> s.equals("*") || s.equals(getId()));
+   }
+
+   private void loadKeys() throws Exception {
+      DistributedMap<String, Long> keyMap = getKeyMap();
+      long size = getEngine().size(getId());
+
+      if(keyMap.isEmpty() || external || keyMap.size() != size) {
+         Set<String> keys;
+
+         if(size == 0) {
+            TreeMap<String, T> temp = new TreeMap<>();
+            Class<T> valueClass = initialize(temp);
+
+            if(valueClass != null) {
+               getEngine().putAll(getId(), temp);
+            }
+
+            validate(temp);
+            keys = temp.keySet();
+         }
+         else {
+            keys = getEngine().keys(getId()).collect(Collectors.toSet());
+         }
+
+         // keep the stamps of the existing keys so the nodes don't reload their values, an
+         // external change may have replaced any value so all keys get new stamps then
+         Map<String, Long> temp = new HashMap<>();
+         keys.stream()
+            .filter(k -> external || !keyMap.containsKey(k))
+            .forEach(k -> temp.put(k, createStamp()));
+         Set<String> removed = new HashSet<>(keyMap.keySet());
+         removed.removeAll(keys);
+         keyMap.removeAll(removed);
+         keyMap.putAll(temp);
+      }
+   }
+
    /**
     * Perform custom initialization when the key-value storage is empty.
     *
@@ -107,7 +172,8 @@ public class LoadKeyValueTask<T extends Serializable>
    }
 
    /**
-    * Validate the initial contents prior to putting them into the distributed map.
+    * Validate the initial contents prior to putting them into the distributed map. When the store
+    * is loaded lazily, this is only called for the contents created by {@link #initialize}.
     *
     * @param map the contents to validate.
     *
@@ -119,13 +185,28 @@ public class LoadKeyValueTask<T extends Serializable>
 
    private void loadBlobReferences(Map<String, ?> map) {
       Map<String, Set<String>> temp = new TreeMap<>();
+      Map<String, Set<String>> chunkedTemp = new TreeMap<>();
+      Map<String, ArrayList<BlobChunk>> chunks = new TreeMap<>();
+      Map<String, Integer> chunkRefs = new TreeMap<>();
 
       for(Map.Entry<String, ?> e : map.entrySet()) {
-         if(e.getValue() instanceof Blob) {
-            String digest = ((Blob<?>) e.getValue()).getDigest();
+         if(e.getValue() instanceof Blob<?> blob) {
+            String digest = blob.getDigest();
 
             if(digest != null) {
                temp.computeIfAbsent(digest, k -> new HashSet<>()).add(e.getKey());
+
+               if(blob.getChunks() != null) {
+                  chunkedTemp.computeIfAbsent(digest, k -> new HashSet<>()).add(e.getKey());
+
+                  if(!chunks.containsKey(digest)) {
+                     chunks.put(digest, new ArrayList<>(blob.getChunks()));
+                     blob.getChunks().stream()
+                        .map(BlobChunk::getKey)
+                        .distinct()
+                        .forEach(k -> chunkRefs.merge(k, 1, Integer::sum));
+                  }
+               }
             }
          }
       }
@@ -135,6 +216,21 @@ public class LoadKeyValueTask<T extends Serializable>
          cluster.getReplicatedMap("inetsoft.storage.kv." + getId() + "Refs");
       refMap.clear();
       refMap.putAll(temp);
+
+      Map<String, Set<String>> chunkedRefMap =
+         cluster.getReplicatedMap("inetsoft.storage.kv." + getId() + "ChunkedRefs");
+      chunkedRefMap.clear();
+      chunkedRefMap.putAll(chunkedTemp);
+
+      Map<String, ArrayList<BlobChunk>> chunkMap =
+         cluster.getReplicatedMap("inetsoft.storage.kv." + getId() + "Chunks");
+      chunkMap.clear();
+      chunkMap.putAll(chunks);
+
+      Map<String, Integer> chunkRefMap =
+         cluster.getReplicatedMap("inetsoft.storage.kv." + getId() + "ChunkRefs");
+      chunkRefMap.clear();
+      chunkRefMap.putAll(chunkRefs);
    }
 
    private final boolean external;
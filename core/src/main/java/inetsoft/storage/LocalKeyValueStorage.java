@@ -17,6 +17,8 @@
  */
 package inetsoft.storage;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import inetsoft.sree.internal.cluster.*;
 import inetsoft.util.ThreadPool;
 import org.slf4j.Logger;
@@ -30,6 +32,12 @@ import java.util.stream.Stream;
 /**
  * {@code LocalKeyValueStorage} is the client for a shared key-value store.
  *
+ * <p>If the store is loaded lazily (see {@link LoadKeyValueTask}), only the keys are replicated
+ * to each node and the values are loaded from the store on first access into a bounded LRU
+ * cache. The size of the cache is set by the {@code inetsoft.storage.kv.lazy.cacheSize} system
+ * property. The values are cached serialized, so each read returns a copy like the replicated
+ * map does.</p>
+ *
  * @param <T> the value type.
  */
 class LocalKeyValueStorage<T extends Serializable> implements KeyValueStorage<T> {
@@ -39,7 +47,13 @@ class LocalKeyValueStorage<T extends Serializable> implements KeyValueStorage<T>
       this.cluster = cluster;
       this.mapName = "inetsoft.storage.kv." + id;
       this.map = cluster.getReplicatedMap(mapName);
+      this.keyMapName = KeyValueTask.getKeyMapName(id);
+      this.keyMap = cluster.getReplicatedMap(keyMapName);
+      // set up before the listeners are added, an event may arrive during the initial load
+      this.lazy = load.isLazyLoad();
+      this.values = lazy ? Caffeine.newBuilder().maximumSize(getCacheSize()).build() : null;
       cluster.addReplicatedMapListener(mapName, listenerDelegate);
+      cluster.addReplicatedMapListener(keyMapName, keyListenerDelegate);
 
       try {
          // wait for the initial load to avoid race conditions
@@ -55,46 +69,116 @@ class LocalKeyValueStorage<T extends Serializable> implements KeyValueStorage<T>
       catch(Exception e) {
          LoggerFactory.getLogger(getClass()).warn("Failed to load key-value storage {}", id, e);
       }
+
+      if(lazy != KeyValueTask.getLazyStores(cluster).containsKey(id)) {
+         LOG.warn("The lazy loading of key-value storage {} differs from the cluster, " +
+                  "check the inetsoft.storage.kv.lazy property on all nodes", id);
+      }
+   }
+
+   private static long getCacheSize() {
+      String property = System.getProperty("inetsoft.storage.kv.lazy.cacheSize", "1000");
+
+      try {
+         return Long.parseLong(property);
+      }
+      catch(NumberFormatException e) {
+         LOG.warn("Invalid lazy key-value cache size: {}", property);
+         return 1000L;
+      }
    }
 
    public boolean contains(String key) {
-      return map.containsKey(key);
+      return lazy ? keyMap.containsKey(key) : map.containsKey(key);
    }
 
    @Override
    public T get(String key) {
-      return map.get(key);
+      return lazy ? copy(values.get(key, this::loadValue)) : map.get(key);
+   }
+
+   private byte[] loadValue(String key) {
+      return keyMap.containsKey(key) ? loadValues(Collections.singleton(key)).get(key) : null;
+   }
+
+   private Map<String, byte[]> loadValues(Set<? extends String> keys) {
+      Map<String, T> loaded;
+
+      try {
+         loaded = cluster.submit(id, new GetKeyValuesTask<T>(id, new HashSet<>(keys)))
+            .get(1L, TimeUnit.MINUTES);
+      }
+      catch(InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new RuntimeException("Interrupted while loading values from " + id, e);
+      }
+      catch(ExecutionException | TimeoutException e) {
+         throw new RuntimeException("Failed to load values from " + id, e);
+      }
+
+      Map<String, byte[]> data = new HashMap<>();
+      loaded.forEach((k, v) -> data.put(k, KeyValueTask.serialize(v)));
+      return data;
+   }
+
+   /**
+    * Creates the copy of a cached value returned to the caller.
+    */
+   private T copy(byte[] data) {
+      return data == null ? null : KeyValueTask.deserialize(data);
    }
 
    @Override
    public Future<T> put(String key, T value) {
-      return submitWithRetry(key, new PutKeyValueTask<>(id, key, value));
+      return afterWrite(submitWithRetry(key, new PutKeyValueTask<>(id, key, value)),
+                        () -> values.invalidate(key));
    }
 
    @Override
    public Future<?> putAll(SortedMap<String, T> values) {
-      return submitWithRetry("putAll", new PutAllKeyValueTask<>(id, values));
+      Set<String> keys = new HashSet<>(values.keySet());
+      return afterWrite(submitWithRetry("putAll", new PutAllKeyValueTask<>(id, values)),
+                        () -> this.values.invalidateAll(keys));
    }
 
    @Override
    public Future<T> remove(String key) {
-      return submitWithRetry(key, new DeleteKeyValueTask<>(id, key));
+      return afterWrite(submitWithRetry(key, new DeleteKeyValueTask<>(id, key)),
+                        () -> values.invalidate(key));
    }
 
    @Override
    public Future<?> removeAll(Set<String> keys) {
-      return submitWithRetry("removeAll", new DeleteAllKeyValueTask<>(id, keys));
+      Set<String> removed = new HashSet<>(keys);
+      return afterWrite(submitWithRetry("removeAll", new DeleteAllKeyValueTask<>(id, keys)),
+                        () -> values.invalidateAll(removed));
    }
 
    @Override
    public Future<T> rename(String oldKey, String newKey, T value) {
       // rename is not idempotent: no retry
-      return cluster.submit(id, new RenameKeyValueTask<>(id, oldKey, newKey, value));
+      return afterWrite(cluster.submit(id, new RenameKeyValueTask<>(id, oldKey, newKey, value)),
+                        () -> values.invalidateAll(List.of(oldKey, newKey)));
    }
 
    @Override
    public Future<?> replaceAll(SortedMap<String, T> values) {
-      return submitWithRetry("replaceAll", new ReplaceAllKeyValueTask<>(id, values));
+      return afterWrite(submitWithRetry("replaceAll", new ReplaceAllKeyValueTask<>(id, values)),
+                        () -> this.values.invalidateAll());
+   }
+
+   /**
+    * Drops the cached values of a lazy store touched by a write once the write is done, so
+    * a read after the returned future completes doesn't wait for the key map event. This
+    * runs off the cluster task thread because invalidating blocks while a value of the same
+    * key is being loaded, and that load is queued behind the write.
+    */
+   private <R> Future<R> afterWrite(Future<R> future, Runnable invalidate) {
+      if(!lazy) {
+         return future;
+      }
+
+      return ((CompletableFuture<R>) future).whenCompleteAsync((result, ex) -> invalidate.run());
    }
 
    /**
@@ -138,6 +222,18 @@ class LocalKeyValueStorage<T extends Serializable> implements KeyValueStorage<T>
          return Stream.empty();
       }
 
+      if(lazy) {
+         List<String> keys = new ArrayList<>(keyMap.keySet());
+         int batches = (keys.size() + LOAD_BATCH_SIZE - 1) / LOAD_BATCH_SIZE;
+
+         // load the values in batches so only one batch at a time is held outside the cache
+         return Stream.iterate(0, i -> i < batches, i -> i + 1)
+            .map(i -> keys.subList(i * LOAD_BATCH_SIZE,
+                                   Math.min(keys.size(), (i + 1) * LOAD_BATCH_SIZE)))
+            .flatMap(batch -> values.getAll(batch, this::loadValues).entrySet().stream())
+            .map(e -> new KeyValuePair<>(e.getKey(), copy(e.getValue())));
+      }
+
       return map.entrySet().stream()
          .map(e -> new KeyValuePair<>(e.getKey(), e.getValue()));
    }
@@ -148,12 +244,12 @@ class LocalKeyValueStorage<T extends Serializable> implements KeyValueStorage<T>
          return Stream.empty();
       }
 
-      return map.keySet().stream();
+      return lazy ? keyMap.keySet().stream() : map.keySet().stream();
    }
 
    @Override
    public int size() {
-      return map.size();
+      return lazy ? keyMap.size() : map.size();
    }
 
    @Override
@@ -169,6 +265,7 @@ class LocalKeyValueStorage<T extends Serializable> implements KeyValueStorage<T>
    @Override
    public void close() throws Exception {
       cluster.removeReplicatedMapListener(mapName, listenerDelegate);
+      cluster.removeReplicatedMapListener(keyMapName, keyListenerDelegate);
       isClosed = true;
    }
 
@@ -181,11 +278,17 @@ class LocalKeyValueStorage<T extends Serializable> implements KeyValueStorage<T>
    private final Cluster cluster;
    private final String mapName;
    private final Map<String, T> map;
+   private final String keyMapName;
+   private final Map<String, Long> keyMap;
+   private final boolean lazy;
+   private final Cache<String, byte[]> values;
    private final Set<Listener<T>> listeners =
       new ConcurrentSkipListSet<>(Comparator.comparing(Listener::hashCode));
    private final ListenerDelegate listenerDelegate = new ListenerDelegate();
+   private final KeyListenerDelegate keyListenerDelegate = new KeyListenerDelegate();
    private volatile boolean isClosed = false;
 
+   private static final int LOAD_BATCH_SIZE = 500;
    private static final Logger LOG = LoggerFactory.getLogger(LocalKeyValueStorage.class);
 
    private final class ListenerDelegate implements MapChangeListener<String, T> {
@@ -230,4 +333,70 @@ class LocalKeyValueStorage<T extends Serializable> implements KeyValueStorage<T>
          return new Event<>(this, key, mapName, oldValue, newValue);
       }
    }
+
+   /**
+    * Translates the changes of the keys of a lazy store into events. The cached value is
+    * invalidated and the new value is only loaded for the event if there are listeners.
+    */
+   private final class KeyListenerDelegate implements MapChangeListener<String, Long> {
+      @Override
+      public void entryAdded(EntryEvent<String, Long> event) {
+         String key = event.getKey();
+         invalidate(key);
+
+         if(listeners.isEmpty()) {
+            return;
+         }
+
+         ThreadPool.addOnDemand(() -> {
+            Event<T> e = new Event<>(this, key, mapName, null, get(key));
+
+            for(Listener<T> listener : listeners) {
+               listener.entryAdded(e);
+            }
+         });
+      }
+
+      @Override
+      public void entryRemoved(EntryEvent<String, Long> event) {
+         String key = event.getKey();
+         T oldValue = invalidate(key);
+
+         ThreadPool.addOnDemand(() -> {
+            Event<T> e = new Event<>(this, key, mapName, oldValue, null);
+
+            for(Listener<T> listener : listeners) {
+               listener.entryRemoved(e);
+            }
+         });
+      }
+
+      @Override
+      public void entryUpdated(EntryEvent<String, Long> event) {
+         String key = event.getKey();
+         T oldValue = invalidate(key);
+
+         if(listeners.isEmpty()) {
+            return;
+         }
+
+         ThreadPool.addOnDemand(() -> {
+            Event<T> e = new Event<>(this, key, mapName, oldValue, get(key));
+
+            for(Listener<T> listener : listeners) {
+               listener.entryUpdated(e);
+            }
+         });
+      }
+
+      private T invalidate(String key) {
+         if(values == null) {
+            return null;
+         }
+
+         byte[] oldValue = values.getIfPresent(key);
+         values.invalidate(key);
+         return listeners.isEmpty() ? null : copy(oldValue);
+      }
+   }
 }
@@ -46,7 +46,7 @@ public class PutAllKeyValueTask<T extends Serializable>
    public void run() {
       SortedMap<String, T> values = deserializeValue(data);
       getEngine().putAll(getId(), values);
-      getMap().putAll(values);
+      putMapValues(values);
    }
 
    private final byte[] data;
@@ -49,44 +49,34 @@ public class PutBlobTask<T extends Serializable>
       getMap().put(blob.getPath(), blob);
       getLastModified().set(blob.getLastModified().toEpochMilli());
 
-      Map<String, Set<String>> refMap = getReferenceMap();
-      Set<String> refs = refMap.get(blob.getDigest());
-
-      if(refs == null) {
-         refs = new HashSet<>();
-      }
-
-      refs.add(blob.getPath());
-      refMap.put(blob.getDigest(), refs);
+      // a path stored again in the other form releases the form it used before
+      Set<String> keys = new TreeSet<>(addReference(blob));
       int count = 0;
+      boolean released = false;
 
       if(oldBlob != null) {
-         refs = refMap.get(oldBlob.getDigest());
+         Map<String, Set<String>> refMap = getReferenceMap();
 
-         if(refs != null) {
-            if(oldBlob.getDigest().equals(blob.getDigest())) {
-               count = 1;
-            }
-            else {
-               boolean exists = refs.remove(oldBlob.getPath());
-
-               if(refs.isEmpty()) {
-                  if(exists) {
-                     BlobEngine.getInstance().delete(getId(), oldBlob.getDigest());
-                     Cluster.getInstance()
-                        .sendMessage(new ClearBlobCacheMessage(getId(), oldBlob.getDigest()));
-                  }
+         if(oldBlob.getDigest().equals(blob.getDigest())) {
+            count = 1;
+         }
+         else if(refMap.containsKey(oldBlob.getDigest())) {
+            keys.addAll(removeReference(oldBlob.getPath(), oldBlob));
+            Set<String> refs = refMap.get(oldBlob.getDigest());
 
-                  refMap.remove(oldBlob.getDigest());
-               }
-               else {
-                  refMap.put(oldBlob.getDigest(), refs);
-                  count = refs.size();
-               }
-            }
+            released = refs == null;
+            count = released ? 0 : refs.size();
          }
       }
 
+      if(!keys.isEmpty()) {
+         BlobEngine.getInstance().deleteAll(getId(), keys);
+      }
+
+      if(released) {
+         Cluster.getInstance().sendMessage(new ClearBlobCacheMessage(getId(), oldBlob.getDigest()));
+      }
+
       return new BlobReference<>(oldBlob, count);
    }
 
@@ -47,7 +47,7 @@ public class PutKeyValueTask<T extends Serializable>
    public T call() throws Exception {
       T value = deserializeValue(data);
       T oldValue = getEngine().put(getId(), key, value);
-      getMap().put(key, value);
+      putMapValue(key, value);
       return oldValue;
    }
 
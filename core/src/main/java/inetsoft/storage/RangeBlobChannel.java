@@ -0,0 +1,151 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2024  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.storage;
+
+import inetsoft.mv.MVTool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.concurrent.Executor;
+
+/**
+ * {@code RangeBlobChannel} is a read-only {@link BlobChannel} on a blob that is not in the local
+ * cache. Only the pages of the blob that are read are fetched from the blob engine, and the pages
+ * that follow are prefetched once the channel is being read sequentially.
+ */
+class RangeBlobChannel implements BlobChannel {
+   /**
+    * Creates a new instance of {@code RangeBlobChannel}.
+    *
+    * @param cache    the blob cache that owns the page file.
+    * @param pageFile the page file of the blob.
+    * @param prefetch the number of pages to prefetch during sequential reads.
+    * @param executor the executor that prefetches the pages.
+    */
+   RangeBlobChannel(BlobCache cache, BlobPageFile pageFile, int prefetch, Executor executor) {
+      this.cache = cache;
+      this.pageFile = pageFile;
+      this.prefetch = prefetch;
+      this.executor = executor;
+   }
+
+   @Override
+   public int read(ByteBuffer dst) throws IOException {
+      checkOpen();
+      int count = pageFile.read(position, dst);
+
+      if(count > 0) {
+         accessed(position, count);
+         position += count;
+      }
+
+      return count;
+   }
+
+   @Override
+   public int write(ByteBuffer src) {
+      throw new UnsupportedOperationException();
+   }
+
+   @Override
+   public long position() throws IOException {
+      checkOpen();
+      return position;
+   }
+
+   @Override
+   public SeekableByteChannel position(long newPosition) throws IOException {
+      checkOpen();
+
+      if(newPosition < 0L) {
+         throw new IllegalArgumentException("Negative position: " + newPosition);
+      }
+
+      position = newPosition;
+      return this;
+   }
+
+   @Override
+   public long size() throws IOException {
+      checkOpen();
+      return pageFile.getLength();
+   }
+
+   @Override
+   public SeekableByteChannel truncate(long size) {
+      throw new UnsupportedOperationException();
+   }
+
+   @Override
+   public boolean isOpen() {
+      return open;
+   }
+
+   @Override
+   public void close() throws IOException {
+      if(open) {
+         open = false;
+         cache.release(pageFile);
+      }
+   }
+
+   @Override
+   public ByteBuffer map(long pos, long size) throws IOException {
+      checkOpen();
+      ByteBuffer buffer = pageFile.map(pos, size);
+      accessed(pos, size);
+      position = pos + size;
+      return buffer;
+   }
+
+   @Override
+   public void unmap(ByteBuffer buf) throws IOException {
+      MVTool.unmap((MappedByteBuffer) buf);
+   }
+
+   private void accessed(long pos, long size) {
+      int pageSize = pageFile.getPageSize();
+      int first = (int) (pos / pageSize);
+      int last = (int) ((pos + Math.max(size, 1L) - 1) / pageSize);
+
+      // reading the same page again or the page after the previous read is sequential access
+      boolean sequential = first == lastPage || first == lastPage + 1;
+      lastPage = last;
+
+      if(sequential && prefetch > 0) {
+         pageFile.prefetch(last, prefetch, executor);
+      }
+   }
+
+   private void checkOpen() throws IOException {
+      if(!open) {
+         throw new ClosedChannelException();
+      }
+   }
+
+   private final BlobCache cache;
+   private final BlobPageFile pageFile;
+   private final int prefetch;
+   private final Executor executor;
+   private long position;
+   private int lastPage = -2;
+   private volatile boolean open = true;
+}
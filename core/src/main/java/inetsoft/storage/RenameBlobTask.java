@@ -22,7 +22,6 @@ import inetsoft.sree.internal.cluster.SingletonCallableTask;
 import java.io.FileNotFoundException;
 import java.io.Serializable;
 import java.time.Instant;
-import java.util.*;
 
 /**
  * {@code RenameBlobTask} renames a blob.
@@ -55,26 +54,18 @@ public class RenameBlobTask<T extends Serializable>
       }
 
       Blob<T> newBlob = new Blob<>(
-         newPath, oldBlob.getDigest(), oldBlob.getLength(), Instant.now(), oldBlob.getMetadata());
+         newPath, oldBlob.getDigest(), oldBlob.getLength(), Instant.now(), oldBlob.getMetadata(),
+         oldBlob.getChunks());
       getEngine().put(getId(), newPath, newBlob);
       getMap().put(newPath, newBlob);
       getLastModified().set(newBlob.getLastModified().toEpochMilli());
       int refCount = 0;
 
       if(newBlob.getDigest() != null) {
-         Map<String, Set<String>> refMap = getReferenceMap();
-         Set<String> refs = refMap.get(newBlob.getDigest());
-
-         if(refs == null) {
-            refs = new HashSet<>();
-         }
-         else {
-            refs.remove(oldPath);
-         }
-
-         refs.add(newPath);
-         refMap.put(newBlob.getDigest(), refs);
-         refCount = refs.size();
+         // the new path references the same objects, so removing the old path deletes nothing
+         addReference(newBlob);
+         removeReference(oldPath, oldBlob);
+         refCount = getReferenceMap().get(newBlob.getDigest()).size();
       }
 
       return new BlobReference<>(newBlob, refCount);
@@ -20,7 +20,6 @@ package inetsoft.storage;
 import inetsoft.sree.internal.cluster.SingletonCallableTask;
 
 import java.io.Serializable;
-import java.util.Map;
 
 /**
  * {@code RenameKeyValueTask} is a cluster singleton task that renames a key in a key-value store.
@@ -64,9 +63,8 @@ public class RenameKeyValueTask<T extends Serializable>
       }
 
       T oldValue = getEngine().put(getId(), newKey, value);
-      Map<String, T> map = getMap();
-      map.remove(oldKey);
-      map.put(newKey, value);
+      removeMapValue(oldKey);
+      putMapValue(newKey, value);
       return oldValue;
    }
 
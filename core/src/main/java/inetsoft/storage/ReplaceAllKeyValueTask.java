@@ -61,15 +61,14 @@ public class ReplaceAllKeyValueTask<T extends Serializable>
          // remove old keys not present in new keys
          getEngine().removeAll(getId(), keysToRemove);
 
-         DistributedMap<String, T> map = getMap();
          Cluster cluster = Cluster.getInstance();
 
          try(DistributedTransaction tx = cluster.startTx()) {
             if(!keysToRemove.isEmpty()) {
-               map.removeAll(keysToRemove);
+               removeMapValues(keysToRemove);
             }
 
-            map.putAll(values);
+            putMapValues(values);
             tx.commit();
          }
       }
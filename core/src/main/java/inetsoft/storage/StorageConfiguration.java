@@ -80,12 +80,14 @@ public class StorageConfiguration {
          String cacheDir = config.getBlob().getCacheDirectory();
          Path baseDir = Paths.get(cacheDir);
          Long maxSize = config.getBlob().getCacheMaxSize();
+         boolean chunked = Boolean.TRUE.equals(config.getBlob().getChunked());
+         boolean rangeReads = Boolean.TRUE.equals(config.getBlob().getRangeReads());
 
          if(maxSize != null && maxSize > 0) {
-            blobCache = new BoundedBlobCache(baseDir, blobEngine, maxSize);
+            blobCache = new BoundedBlobCache(baseDir, blobEngine, maxSize, chunked, rangeReads);
          }
          else {
-            blobCache = new BlobCache(baseDir, blobEngine);
+            blobCache = new BlobCache(baseDir, blobEngine, chunked, rangeReads);
          }
       }
 
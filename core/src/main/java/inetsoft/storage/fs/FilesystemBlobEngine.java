@@ -23,6 +23,8 @@ import org.apache.commons.io.FileUtils;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
 import java.util.stream.Stream;
 import java.util.Set;
@@ -60,6 +62,20 @@ public class FilesystemBlobEngine implements BlobEngine {
       Files.copy(path, target, StandardCopyOption.REPLACE_EXISTING);
    }
 
+   @Override
+   public boolean isRangeReadSupported() {
+      return true;
+   }
+
+   @Override
+   public int read(String id, String digest, long position, ByteBuffer target)
+      throws IOException
+   {
+      try(FileChannel channel = FileChannel.open(getPath(id, digest), StandardOpenOption.READ)) {
+         return channel.read(target, position);
+      }
+   }
+
    @Override
    public void write(String id, String digest, Path source) throws IOException {
       if(exists(id, digest)) {
@@ -54,22 +54,60 @@ public final class DependencyStorageService {
     *    if key is exist, will replace it.
     */
    public void put(String key, RenameTransformObject obj) throws Exception {
+      Batch batch = batches.get();
+
+      if(batch != null) {
+         batch.put(getStoreID(null), key, obj);
+         return;
+      }
+
       getDependencyStorage().put(key, obj).get(10L, TimeUnit.SECONDS);
    }
 
    public RenameTransformObject get(String key) throws Exception {
-      return getDependencyStorage().get(key);
+      return getWithOrg(key, null);
    }
 
    public RenameTransformObject getWithOrg(String key, String orgid) throws Exception {
-      return getDependencyStorage(orgid).get(key);
+      Batch batch = batches.get();
+      RenameTransformObject value = batch == null ? null : batch.get(getStoreID(orgid), key);
+      return value != null ? value : getDependencyStorage(orgid).get(key);
+   }
+
+   /**
+    * Start a batch of dependency updates on the current thread. The values put until the batch
+    * is closed are written with a single bulk update for each organization, and are visible to
+    * the reads on the current thread in the meantime. Any other change to the storage writes
+    * the pending values first. If a batch is already started on the thread, the returned batch
+    * joins it and is written when the outer batch is closed.
+    *
+    * @return the batch, which must be closed to write the values.
+    */
+   public Batch startBatch() {
+      if(batches.get() != null) {
+         return new Batch(true);
+      }
+
+      Batch batch = new Batch(false);
+      batches.set(batch);
+      return batch;
+   }
+
+   private void flushBatch() {
+      Batch batch = batches.get();
+
+      if(batch != null) {
+         batch.flush();
+      }
    }
 
    public RenameTransformQueue getQueue() throws Exception {
-      return (RenameTransformQueue) getDependencyStorage().get(QUEUE_KEY);
+      return (RenameTransformQueue) get(QUEUE_KEY);
    }
 
    public boolean rename(String oldKey, String newKey, String organizationId) {
+      flushBatch();
+
       KeyValueStorage<RenameTransformObject> storage = getDependencyStorage(organizationId);
 
       oldKey = AssetEntry.createAssetEntry(oldKey)
@@ -97,6 +135,8 @@ public final class DependencyStorageService {
    }
 
    public boolean remove(String key) {
+      flushBatch();
+
       try {
          getDependencyStorage().remove(key).get(10L, TimeUnit.SECONDS);
       }
@@ -109,6 +149,8 @@ public final class DependencyStorageService {
    }
 
    public void clear() {
+      flushBatch();
+
       Set<String> keys = getKeys(null);
 
       try {
@@ -120,11 +162,15 @@ public final class DependencyStorageService {
    }
 
    public void removeDependencyStorage(String orgID) throws Exception {
+      flushBatch();
+
       getDependencyStorage(orgID).deleteStore().get(1L, TimeUnit.MINUTES);
       getDependencyStorage(orgID).close();
    }
 
    public void migrateStorageData(Organization oOrg, Organization nOrg, boolean removeOld) throws Exception {
+      flushBatch();
+
       KeyValueStorage<RenameTransformObject> oStorage = getDependencyStorage(oOrg.getId());
       KeyValueStorage<RenameTransformObject> nStorage = getDependencyStorage(nOrg.getId());
       SortedMap<String, RenameTransformObject> data = new TreeMap<>();
@@ -144,6 +190,8 @@ public final class DependencyStorageService {
    }
 
    public void migrateStorageData(IdentityID oldUser, IdentityID newUser) throws Exception {
+      flushBatch();
+
       KeyValueStorage<RenameTransformObject> oStorage = getDependencyStorage(oldUser.getOrgID());
       KeyValueStorage<RenameTransformObject> nStorage = getDependencyStorage(newUser.getOrgID());
       SortedMap<String, RenameTransformObject> data = new TreeMap<>();
@@ -227,6 +275,8 @@ public final class DependencyStorageService {
    }
 
    public Set<String> getKeys(IndexedStorage.Filter filter) {
+      flushBatch();
+
       return getDependencyStorage().stream()
          .map(KeyValuePair::getKey)
          .filter(k -> filter == null || filter.accept(k))
@@ -243,15 +293,90 @@ public final class DependencyStorageService {
    }
 
    private KeyValueStorage<RenameTransformObject> getDependencyStorage(String orgID) {
+      return getStorage(getStoreID(orgID));
+   }
+
+   private KeyValueStorage<RenameTransformObject> getStorage(String storeID) {
+      return keyValueStorageManager.getStorage(storeID, new LoadDependencyStorageTask(storeID));
+   }
+
+   private static String getStoreID(String orgID) {
       if(orgID == null) {
          orgID = OrganizationManager.getInstance().getCurrentOrgID();
       }
 
-      String storeID = orgID.toLowerCase() + "__" + "dependencyStorage";
-      return keyValueStorageManager.getStorage(storeID, new LoadDependencyStorageTask(storeID));
+      return orgID.toLowerCase() + "__" + "dependencyStorage";
+   }
+
+   /**
+    * A batch of dependency updates, see {@link #startBatch()}.
+    */
+   public final class Batch implements AutoCloseable {
+      private Batch(boolean nested) {
+         this.nested = nested;
+      }
+
+      private void put(String storeID, String key, RenameTransformObject value) {
+         values.computeIfAbsent(storeID, k -> new TreeMap<>()).put(key, value);
+      }
+
+      private RenameTransformObject get(String storeID, String key) {
+         Map<String, RenameTransformObject> store = values.get(storeID);
+         return store == null ? null : store.get(key);
+      }
+
+      /**
+       * Write the pending values. All the organizations are written even if one of them fails.
+       * The failures are then thrown, as a failed put would be outside of a batch.
+       */
+      private void flush() {
+         RuntimeException error = null;
+
+         for(Map.Entry<String, SortedMap<String, RenameTransformObject>> e : values.entrySet()) {
+            try {
+               getStorage(e.getKey()).putAll(e.getValue()).get(5L, TimeUnit.MINUTES);
+            }
+            catch(Exception ex) {
+               if(ex instanceof InterruptedException) {
+                  Thread.currentThread().interrupt();
+               }
+
+               if(error == null) {
+                  error = new RuntimeException(
+                     "Failed to update " + e.getValue().size() + " dependencies in " + e.getKey(),
+                     ex);
+               }
+               else {
+                  error.addSuppressed(ex);
+               }
+            }
+         }
+
+         values.clear();
+
+         if(error != null) {
+            throw error;
+         }
+      }
+
+      @Override
+      public void close() {
+         if(!nested) {
+            try {
+               flush();
+            }
+            finally {
+               batches.remove();
+            }
+         }
+      }
+
+      private final boolean nested;
+      private final Map<String, SortedMap<String, RenameTransformObject>> values = new HashMap<>();
    }
 
    private final KeyValueStorageManager keyValueStorageManager;
+   private final ThreadLocal<Batch> batches = new ThreadLocal<>();
 
    static final String QUEUE_KEY = "1^0^__NULL__^rename_queue";
    private static final Logger LOG = LoggerFactory.getLogger(DependencyStorageService.class);
@@ -30,7 +30,7 @@ public class LoadDependencyStorageTask extends LoadKeyValueTask<RenameTransformO
       super.run();
 
       RenameTransformQueue queue =
-         (RenameTransformQueue) getMap().get(DependencyStorageService.QUEUE_KEY);
+         (RenameTransformQueue) getMapValue(DependencyStorageService.QUEUE_KEY);
 
       if(queue != null) {
          for(RenameDependencyInfo info : queue) {
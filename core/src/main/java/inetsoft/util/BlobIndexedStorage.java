@@ -17,6 +17,7 @@
  */
 package inetsoft.util;
 
+import inetsoft.sree.SreeEnv;
 import inetsoft.sree.schedule.*;
 import inetsoft.sree.security.*;
 import inetsoft.storage.*;
@@ -43,6 +44,7 @@ import javax.xml.transform.stream.StreamResult;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.security.Principal;
 import java.time.Instant;
 import java.util.*;
@@ -94,6 +96,23 @@ public class BlobIndexedStorage extends AbstractIndexedStorage {
             return (AssetFolder) metadata.getFolder().clone();
          }
 
+         // the asset contents are fixed transforms, so the result only depends on the xml
+         String content = trans == null ? "ALL" :
+            trans instanceof AssetContent ? ((AssetContent) trans).name() : null;
+         SheetBinaryCache cache = content == null ? null : getSheetCache(metadata.getClassName());
+         String digest = cache == null ? null : storage.getDigest(key);
+         String cacheOrgID = orgID == null ?
+            OrganizationManager.getInstance().getCurrentOrgID() : orgID;
+
+         if(digest != null) {
+            XMLSerializable value =
+               cache.get(digest, cacheOrgID, content, metadata.getClassName());
+
+            if(value != null) {
+               return value;
+            }
+         }
+
          XMLSerializable value =
             (XMLSerializable) Class.forName(metadata.getClassName()).getConstructor().newInstance();
 
@@ -112,6 +131,10 @@ public class BlobIndexedStorage extends AbstractIndexedStorage {
             value.parseXML(document.getDocumentElement());
          }
 
+         if(digest != null) {
+            cache.put(digest, cacheOrgID, content, value);
+         }
+
          return value;
       }
       catch(FileNotFoundException | NoSuchFileException ignore) {
@@ -119,6 +142,39 @@ public class BlobIndexedStorage extends AbstractIndexedStorage {
       }
    }
 
+   /**
+    * Get the binary cache of the parsed sheets, if enabled by sheet.binary.cache and
+    * the class is a sheet.
+    */
+   private SheetBinaryCache getSheetCache(String className) {
+      if(!Viewsheet.class.getName().equals(className) &&
+         !Worksheet.class.getName().equals(className) ||
+         !"true".equals(SreeEnv.getProperty("sheet.binary.cache")))
+      {
+         return null;
+      }
+
+      if(sheetCache == null) {
+         synchronized(this) {
+            if(sheetCache == null) {
+               try {
+                  Path directory = FileSystemService.getInstance().getCacheFolder().toPath()
+                     .resolve("sheets");
+                  long maxSize = Long.parseLong(
+                     SreeEnv.getProperty("sheet.binary.cache.size", "512")) * 1024L * 1024L;
+                  sheetCache = new SheetBinaryCache(directory, maxSize);
+               }
+               catch(Exception ex) {
+                  LOG.warn("Failed to create the sheet cache", ex);
+                  return null;
+               }
+            }
+         }
+      }
+
+      return sheetCache;
+   }
+
    /**
     * Get the proper last modified timestamp for the target resource.
     */
@@ -691,6 +747,7 @@ public class BlobIndexedStorage extends AbstractIndexedStorage {
 
    private final BlobStorageManager blobStorageManager;
    private Set<String> cachedOrgIDs = new HashSet<>();
+   private volatile SheetBinaryCache sheetCache;
    private static final Logger LOG = LoggerFactory.getLogger(BlobIndexedStorage.class);
 
    public static final class Metadata implements Serializable {
@@ -0,0 +1,638 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2024  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.util;
+
+import com.esotericsoftware.kryo.kryo5.*;
+import com.esotericsoftware.kryo.kryo5.io.Input;
+import com.esotericsoftware.kryo.kryo5.io.Output;
+import com.esotericsoftware.kryo.kryo5.serializers.*;
+import com.esotericsoftware.kryo.kryo5.objenesis.strategy.StdInstantiatorStrategy;
+import com.esotericsoftware.kryo.kryo5.util.DefaultInstantiatorStrategy;
+import com.esotericsoftware.kryo.kryo5.util.Pool;
+import inetsoft.uql.asset.*;
+import inetsoft.uql.viewsheet.VSAssembly;
+import inetsoft.uql.viewsheet.Viewsheet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * SheetBinaryCache keeps a binary copy of the parsed sheets in the local cache
+ * directory, so a sheet can be loaded without parsing its XML into a DOM. The
+ * copies are keyed by the digest of the stored XML, which remains the source
+ * of truth: a changed sheet has a new digest and is parsed from the XML again.
+ * <p>
+ * A parsed sheet is only cached if its binary copy writes the same XML as the
+ * sheet itself. Only the classes in an allow-list (the product classes, the jdk
+ * value and collection classes and the fastutil collections) are written, a
+ * sheet referencing any other class is parsed from the XML. The copies written
+ * by a different build are ignored, and the least recently used copies are
+ * removed when the cache grows over its size.
+ *
+ * @version 14.0
+ * @author InetSoft Technology Corp
+ */
+final class SheetBinaryCache {
+   /**
+    * Create a cache.
+    * @param directory the directory of the cached files.
+    * @param maxSize the maximum total size of the cached files in bytes.
+    */
+   SheetBinaryCache(Path directory, long maxSize) {
+      this.directory = directory;
+      this.maxSize = maxSize;
+   }
+
+   /**
+    * Load a cached sheet.
+    * @param digest the digest of the sheet XML.
+    * @param orgID the organization of the sheet.
+    * @param content the content the sheet was loaded with, e.g. the name of the asset
+    *                content passed as the transform listener.
+    * @param className the class of the sheet.
+    * @return the sheet or <tt>null</tt> if it is not cached.
+    */
+   XMLSerializable get(String digest, String orgID, String content, String className) {
+      Path file = getFile(digest, orgID, content);
+
+      if(!Files.isRegularFile(file)) {
+         return null;
+      }
+
+      Kryo kryo = kryoPool.obtain();
+
+      try(Input input = new Input(Files.newInputStream(file))) {
+         kryo.setClassLoader(Thread.currentThread().getContextClassLoader());
+
+         if(!getStamp().equals(input.readString()) || !className.equals(input.readString())) {
+            delete(file);
+            return null;
+         }
+
+         XMLSerializable value = relink((XMLSerializable) kryo.readClassAndObject(input));
+         Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+         return value;
+      }
+      catch(Exception ex) {
+         LOG.debug("Failed to read cached sheet {}", file, ex);
+         delete(file);
+         return null;
+      }
+      finally {
+         kryoPool.free(kryo);
+      }
+   }
+
+   /**
+    * Add a parsed sheet to the cache. This must be called before the sheet is
+    * modified.
+    * @param digest the digest of the sheet XML.
+    * @param orgID the organization of the sheet.
+    * @param content the content the sheet was loaded with.
+    * @param value the sheet parsed from the XML.
+    */
+   void put(String digest, String orgID, String content, XMLSerializable value) {
+      Path file = getFile(digest, orgID, content);
+      String name = file.getFileName().toString();
+
+      if(rejected.contains(name) || Files.exists(file)) {
+         return;
+      }
+
+      Kryo kryo = kryoPool.obtain();
+
+      try {
+         kryo.setClassLoader(Thread.currentThread().getContextClassLoader());
+         ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+         try(Output output = new Output(buffer)) {
+            output.writeString(getStamp());
+            output.writeString(value.getClass().getName());
+            kryo.writeClassAndObject(output, value);
+         }
+
+         byte[] data = buffer.toByteArray();
+         Object copy;
+
+         try(Input input = new Input(data)) {
+            input.readString();
+            input.readString();
+            copy = relink((XMLSerializable) kryo.readClassAndObject(input));
+         }
+
+         if(!toXML(value).equals(toXML((XMLSerializable) copy))) {
+            LOG.debug("Sheet {} is not cached, its binary copy is not the same", name);
+            reject(name);
+            return;
+         }
+
+         Files.createDirectories(directory);
+         Path temp = Files.createTempFile(directory, "sheet", ".tmp");
+
+         try {
+            Files.write(temp, data);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+         }
+         finally {
+            Files.deleteIfExists(temp);
+         }
+
+         if(getSize().addAndGet(data.length) > maxSize) {
+            prune();
+         }
+      }
+      catch(Exception ex) {
+         LOG.debug("Failed to cache sheet {}", name, ex);
+         reject(name);
+      }
+      finally {
+         kryoPool.free(kryo);
+      }
+   }
+
+   private Path getFile(String digest, String orgID, String content) {
+      return directory.resolve(Tool.toFileName(orgID + "_" + content + "_" + digest) + ".bin");
+   }
+
+   /**
+    * Set the sheet of the assemblies as a cloned sheet does.
+    */
+   private static XMLSerializable relink(XMLSerializable value) {
+      if(value instanceof Viewsheet vs) {
+         for(Assembly assembly : vs.getAssemblies()) {
+            ((VSAssembly) assembly).setViewsheet(vs);
+         }
+      }
+      else if(value instanceof Worksheet ws) {
+         for(Assembly assembly : ws.getAssemblies()) {
+            ((WSAssembly) assembly).setWorksheet(ws);
+         }
+      }
+
+      return value;
+   }
+
+   /**
+    * Check if a class may be written to or read from the cache.
+    */
+   static boolean isAllowed(Class<?> type) {
+      while(type.isArray()) {
+         type = type.getComponentType();
+      }
+
+      String name = type.getName();
+      return type.isPrimitive() || ALLOWED_CLASSES.contains(name) ||
+         ALLOWED_PACKAGES.stream().anyMatch(name::startsWith);
+   }
+
+   private void reject(String name) {
+      // only remembered to avoid trying the same sheet on every load
+      if(rejected.size() > 10000) {
+         rejected.clear();
+      }
+
+      rejected.add(name);
+   }
+
+   private static String toXML(XMLSerializable value) {
+      StringWriter buffer = new StringWriter();
+
+      try(PrintWriter writer = new PrintWriter(buffer)) {
+         value.writeXML(writer);
+      }
+
+      return buffer.toString();
+   }
+
+   private AtomicLong getSize() throws IOException {
+      if(size == null) {
+         synchronized(this) {
+            if(size == null) {
+               long total = 0;
+
+               if(Files.isDirectory(directory)) {
+                  try(Stream<Path> files = Files.list(directory)) {
+                     total = files.mapToLong(this::getLength).sum();
+                  }
+               }
+
+               size = new AtomicLong(total);
+            }
+         }
+      }
+
+      return size;
+   }
+
+   /**
+    * Remove the least recently used files until the cache is at 80% of its size.
+    */
+   private synchronized void prune() throws IOException {
+      List<Path> files;
+
+      try(Stream<Path> stream = Files.list(directory)) {
+         files = stream
+            .sorted(Comparator.comparingLong(this::getLastModified))
+            .toList();
+      }
+
+      long total = files.stream().mapToLong(this::getLength).sum();
+
+      for(Path file : files) {
+         if(total <= maxSize * 0.8) {
+            break;
+         }
+
+         total -= getLength(file);
+         delete(file);
+      }
+
+      size.set(total);
+   }
+
+   private long getLength(Path file) {
+      try {
+         return Files.size(file);
+      }
+      catch(IOException ex) {
+         return 0L;
+      }
+   }
+
+   private long getLastModified(Path file) {
+      try {
+         return Files.getLastModifiedTime(file).toMillis();
+      }
+      catch(IOException ex) {
+         return 0L;
+      }
+   }
+
+   private static void delete(Path file) {
+      try {
+         Files.deleteIfExists(file);
+      }
+      catch(IOException ex) {
+         LOG.debug("Failed to delete cached sheet {}", file, ex);
+      }
+   }
+
+   /**
+    * Get the stamp of the current build. The classes of a development build
+    * change without a new build number, so the time of the code is included.
+    */
+   private static String getStamp() {
+      if(stamp == null) {
+         long time = 0;
+
+         try {
+            URL location = SheetBinaryCache.class.getProtectionDomain()
+               .getCodeSource().getLocation();
+            time = new File(location.toURI()).lastModified();
+         }
+         catch(Exception ex) {
+            LOG.debug("Failed to get the time of the code", ex);
+         }
+
+         stamp = Tool.getBuildNumber() + "@" + time;
+      }
+
+      return stamp;
+   }
+
+   private static Kryo createKryo() {
+      Kryo kryo = new Kryo() {
+         @Override
+         public Registration getRegistration(Class type) {
+            // called for every class written or read, including the implicit registrations
+            if(!isAllowed(type)) {
+               throw new KryoException("Class not allowed in the sheet cache: " + type.getName());
+            }
+
+            return super.getRegistration(type);
+         }
+      };
+      kryo.setRegistrationRequired(false);
+      kryo.setReferences(true);
+      // a graph too deep to write fails instead of overflowing the stack
+      kryo.setMaxDepth(MAX_DEPTH);
+      kryo.setInstantiatorStrategy(new DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+      kryo.setDefaultSerializer(FieldSerializer.class);
+      kryo.addDefaultSerializer(Collection.class, new SerializerFactory.BaseSerializerFactory<>() {
+         @Override
+         public Serializer newSerializer(Kryo kryo, Class type) {
+            return isHashed(type) ? new HashCollectionSerializer() :
+               hasDefaultConstructor(type) ? new CollectionSerializer<>() : new WrapperSerializer();
+         }
+      });
+      kryo.addDefaultSerializer(ReentrantLock.class, new LockSerializer());
+      kryo.addDefaultSerializer(ReentrantReadWriteLock.class, new LockSerializer());
+      kryo.addDefaultSerializer(Map.class, new SerializerFactory.BaseSerializerFactory<>() {
+         @Override
+         public Serializer newSerializer(Kryo kryo, Class type) {
+            return isHashed(type) ? new HashMapSerializer() :
+               hasDefaultConstructor(type) ? new MapSerializer<>() : new WrapperSerializer();
+         }
+      });
+      return kryo;
+   }
+
+   /**
+    * Check if the order of the elements of a collection depends on the
+    * capacity of its hash table.
+    */
+   private static boolean isHashed(Class<?> type) {
+      return type == HashMap.class || type == HashSet.class ||
+         type.getName().startsWith("it.unimi.dsi.fastutil.") && getField(type, "n") != null;
+   }
+
+   /**
+    * Get the value passed to the constructor of a hash based collection to
+    * create it with the same capacity, or 0 if the table is not allocated.
+    */
+   private static int getCapacity(Object value) {
+      try {
+         if(value instanceof HashSet) {
+            value = getField(HashSet.class, "map").get(value);
+         }
+
+         if(value instanceof HashMap) {
+            // the table of a map created with a power of two capacity has that size
+            Object[] table = (Object[]) getField(HashMap.class, "table").get(value);
+            return table == null ? 0 : table.length;
+         }
+
+         // fastutil sizes the table n for the expected number of elements
+         int n = getField(value.getClass(), "n").getInt(value);
+         float f = getField(value.getClass(), "f").getFloat(value);
+         return Math.max(1, (int) (n * f));
+      }
+      catch(Exception ex) {
+         throw new KryoException("Failed to get the capacity of " + value.getClass(), ex);
+      }
+   }
+
+   private static Object createHashed(Kryo kryo, Class<?> type, int capacity) {
+      if(capacity == 0) {
+         return kryo.newInstance(type);
+      }
+
+      try {
+         return type.getConstructor(int.class).newInstance(capacity);
+      }
+      catch(ReflectiveOperationException ex) {
+         throw new KryoException("Failed to create " + type, ex);
+      }
+   }
+
+   private static java.lang.reflect.Field getField(Class<?> type, String name) {
+      return fields.computeIfAbsent(type.getName() + "." + name, k -> {
+         for(Class<?> cls = type; cls != null; cls = cls.getSuperclass()) {
+            try {
+               java.lang.reflect.Field field = cls.getDeclaredField(name);
+               field.setAccessible(true);
+               return field;
+            }
+            catch(NoSuchFieldException ignore) {
+               // declared by a super class
+            }
+         }
+
+         return null;
+      });
+   }
+
+   private static boolean hasDefaultConstructor(Class<?> type) {
+      try {
+         type.getDeclaredConstructor();
+         return true;
+      }
+      catch(NoSuchMethodException ex) {
+         return false;
+      }
+   }
+
+   /**
+    * Serializer of the hash based collections. The collection is created with
+    * the same capacity, so its elements are in the same order as in the
+    * original collection.
+    */
+   @SuppressWarnings("rawtypes")
+   private static final class HashCollectionSerializer extends CollectionSerializer<Collection> {
+      @Override
+      protected void writeHeader(Kryo kryo, Output output, Collection collection) {
+         output.writeVarInt(getCapacity(collection), true);
+      }
+
+      @Override
+      protected Collection create(Kryo kryo, Input input, Class<? extends Collection> type,
+                                  int size)
+      {
+         return (Collection) createHashed(kryo, type, input.readVarInt(true));
+      }
+   }
+
+   /**
+    * Serializer of the hash based maps, see {@link HashCollectionSerializer}.
+    */
+   @SuppressWarnings("rawtypes")
+   private static final class HashMapSerializer extends MapSerializer<Map> {
+      @Override
+      protected void writeHeader(Kryo kryo, Output output, Map map) {
+         output.writeVarInt(getCapacity(map), true);
+      }
+
+      @Override
+      protected Map create(Kryo kryo, Input input, Class<? extends Map> type, int size) {
+         return (Map) createHashed(kryo, type, input.readVarInt(true));
+      }
+   }
+
+   /**
+    * Serializer of the collections created by the factory methods of the jdk,
+    * which can't be created by kryo. The synchronized and unmodifiable
+    * wrappers are created around their backing collection, so a wrapper still
+    * shares the collection with the object that owns it.
+    */
+   private static final class WrapperSerializer extends Serializer<Object> {
+      @Override
+      public void write(Kryo kryo, Output output, Object value) {
+         Class<?> type = value.getClass();
+         Object backing = getBackingField(type) != null ?
+            getBacking(value, getBackingField(type)) : copy(value);
+         kryo.writeClassAndObject(output, backing);
+      }
+
+      @Override
+      @SuppressWarnings({ "unchecked", "rawtypes" })
+      public Object read(Kryo kryo, Input input, Class<?> type) {
+         Object backing = kryo.readClassAndObject(input);
+         String name = type.getName();
+
+         if(name.startsWith("java.util.Collections$Synchronized")) {
+            return backing instanceof SortedMap map ? Collections.synchronizedSortedMap(map) :
+               backing instanceof Map map ? Collections.synchronizedMap(map) :
+               backing instanceof SortedSet set ? Collections.synchronizedSortedSet(set) :
+               backing instanceof Set set ? Collections.synchronizedSet(set) :
+               backing instanceof List list ? Collections.synchronizedList(list) :
+               Collections.synchronizedCollection((Collection) backing);
+         }
+         else if(name.startsWith("java.util.Collections$Unmodifiable")) {
+            return backing instanceof SortedMap map ? Collections.unmodifiableSortedMap(map) :
+               backing instanceof Map map ? Collections.unmodifiableMap(map) :
+               backing instanceof SortedSet set ? Collections.unmodifiableSortedSet(set) :
+               backing instanceof Set set ? Collections.unmodifiableSet(set) :
+               backing instanceof List list ? Collections.unmodifiableList(list) :
+               Collections.unmodifiableCollection((Collection) backing);
+         }
+         else if(name.equals("java.util.Arrays$ArrayList")) {
+            return Arrays.asList((Object[]) backing);
+         }
+         else if(name.startsWith("java.util.ImmutableCollections$")) {
+            return backing instanceof Map map ? Map.copyOf(map) :
+               backing instanceof Set set ? Set.copyOf(set) : List.copyOf((Collection) backing);
+         }
+         else if(name.startsWith("java.util.Collections$Singleton")) {
+            return backing instanceof Map map ? Map.copyOf(map) :
+               backing instanceof Set set ? Collections.singleton(set.iterator().next()) :
+               Collections.singletonList(((List) backing).get(0));
+         }
+
+         throw new KryoException("Unsupported collection: " + name);
+      }
+
+      private static java.lang.reflect.Field getBackingField(Class<?> type) {
+         String name = type.getName();
+         String field;
+
+         if(name.startsWith("java.util.Collections$Synchronized") ||
+            name.startsWith("java.util.Collections$Unmodifiable"))
+         {
+            field = Map.class.isAssignableFrom(type) ? "m" : "c";
+         }
+         else if(name.equals("java.util.Arrays$ArrayList")) {
+            field = "a";
+         }
+         else {
+            return null;
+         }
+
+         for(Class<?> cls = type; cls != null; cls = cls.getSuperclass()) {
+            try {
+               java.lang.reflect.Field backing = cls.getDeclaredField(field);
+               backing.setAccessible(true);
+               return backing;
+            }
+            catch(NoSuchFieldException ignore) {
+               // declared by a super class
+            }
+         }
+
+         throw new KryoException("Unsupported collection: " + name);
+      }
+
+      private static Object getBacking(Object value, java.lang.reflect.Field field) {
+         try {
+            return field.get(value);
+         }
+         catch(IllegalAccessException ex) {
+            throw new KryoException(ex);
+         }
+      }
+
+      private static Object copy(Object value) {
+         if(value instanceof Map<?, ?> map) {
+            return new LinkedHashMap<>(map);
+         }
+         else if(value instanceof Set<?> set) {
+            return new LinkedHashSet<>(set);
+         }
+
+         return new ArrayList<>((Collection<?>) value);
+      }
+   }
+
+   /**
+    * Serializer of the locks guarding the state of an object. The state of a
+    * lock belongs to the threads using it, so a new unlocked lock is created.
+    */
+   private static final class LockSerializer extends Serializer<Object> {
+      @Override
+      public void write(Kryo kryo, Output output, Object value) {
+         output.writeBoolean(value instanceof ReentrantLock lock ? lock.isFair() :
+                                ((ReentrantReadWriteLock) value).isFair());
+      }
+
+      @Override
+      public Object read(Kryo kryo, Input input, Class<?> type) {
+         boolean fair = input.readBoolean();
+         return type == ReentrantLock.class ?
+            new ReentrantLock(fair) : new ReentrantReadWriteLock(fair);
+      }
+   }
+
+   private static final int MAX_DEPTH = 2000;
+   private static final Set<String> ALLOWED_PACKAGES = Set.of(
+      "inetsoft.", "it.unimi.dsi.fastutil.", "java.util.Collections$",
+      "java.util.ImmutableCollections$");
+   private static final Set<String> ALLOWED_CLASSES = Set.of(
+      "java.lang.Object", "java.lang.String", "java.lang.Boolean", "java.lang.Byte",
+      "java.lang.Character", "java.lang.Short", "java.lang.Integer", "java.lang.Long",
+      "java.lang.Float", "java.lang.Double", "java.lang.Void", "java.lang.Class",
+      "java.lang.String$CaseInsensitiveComparator", "java.math.BigDecimal",
+      "java.math.BigInteger", "java.util.Date", "java.sql.Date", "java.sql.Time",
+      "java.sql.Timestamp", "java.util.Locale", "java.util.UUID", "java.util.BitSet",
+      "java.util.ArrayList", "java.util.LinkedList", "java.util.Vector", "java.util.Stack",
+      "java.util.Arrays$ArrayList", "java.util.HashMap", "java.util.LinkedHashMap",
+      "java.util.TreeMap", "java.util.Hashtable", "java.util.Properties",
+      "java.util.HashSet", "java.util.LinkedHashSet", "java.util.TreeSet",
+      "java.util.concurrent.ConcurrentHashMap", "java.util.concurrent.CopyOnWriteArrayList",
+      "java.util.concurrent.locks.ReentrantLock",
+      "java.util.concurrent.locks.ReentrantReadWriteLock",
+      "java.awt.Color", "java.awt.Font", "java.awt.Dimension", "java.awt.Point",
+      "java.awt.Insets", "java.awt.Rectangle", "java.awt.geom.Point2D$Double",
+      "java.awt.geom.Rectangle2D$Double");
+   private final Path directory;
+   private final long maxSize;
+   private final Set<String> rejected = ConcurrentHashMap.newKeySet();
+   private volatile AtomicLong size;
+   private static volatile String stamp;
+   private static final Map<String, java.lang.reflect.Field> fields = new ConcurrentHashMap<>();
+   private static final Pool<Kryo> kryoPool = new Pool<>(true, false, 16) {
+      @Override
+      protected Kryo create() {
+         return createKryo();
+      }
+
+      @Override
+      protected void reset(Kryo kryo) {
+         kryo.reset();
+      }
+   };
+   private static final Logger LOG = LoggerFactory.getLogger(SheetBinaryCache.class);
+}
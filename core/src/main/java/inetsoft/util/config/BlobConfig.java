@@ -62,6 +62,32 @@ public class BlobConfig implements Serializable {
       this.cacheMaxSize = cacheMaxSize;
    }
 
+   /**
+    * A flag indicating if large blobs are stored as content-defined chunks, so that the unchanged
+    * parts of a blob are shared between its versions. This is not used with local filesystem
+    * storage.
+    */
+   public Boolean getChunked() {
+      return chunked;
+   }
+
+   public void setChunked(Boolean chunked) {
+      this.chunked = chunked;
+   }
+
+   /**
+    * A flag indicating if blobs that are not in the local cache are read by range, so that only
+    * the parts of a blob that are read are downloaded. This is not used with local filesystem
+    * storage.
+    */
+   public Boolean getRangeReads() {
+      return rangeReads;
+   }
+
+   public void setRangeReads(Boolean rangeReads) {
+      this.rangeReads = rangeReads;
+   }
+
    /**
     * The Azure configuration.
     */
@@ -111,6 +137,10 @@ public class BlobConfig implements Serializable {
    private String cacheDirectory;
    @CRDProperty(description = "The maximum size of the local blob cache in MB")
    private Long cacheMaxSize;
+   @CRDProperty(description = "Store large blobs as deduplicated content-defined chunks")
+   private Boolean chunked;
+   @CRDProperty(description = "Read only the needed parts of blobs that are not in the local cache")
+   private Boolean rangeReads;
    @CRDProperty(description = "The Azure Blob storage configuration")
    private AzureBlobConfig azure;
    @CRDProperty(description = "The shared filesystem storage configuration")
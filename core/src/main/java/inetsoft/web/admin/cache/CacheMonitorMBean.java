@@ -17,6 +17,8 @@
  */
 package inetsoft.web.admin.cache;
 
+import inetsoft.storage.BlobCache;
+import inetsoft.storage.BlobStorageManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.jmx.export.annotation.ManagedResource;
@@ -29,8 +31,9 @@ import java.util.Date;
 @ManagedResource
 public class CacheMonitorMBean {
    @Autowired
-   public CacheMonitorMBean(CacheService cacheService) {
+   public CacheMonitorMBean(CacheService cacheService, BlobStorageManager blobStorageManager) {
       this.cacheService = cacheService;
+      this.blobStorageManager = blobStorageManager;
    }
 
    @ManagedAttribute
@@ -138,5 +141,36 @@ public class CacheMonitorMBean {
       return data;
    }
 
+   @ManagedAttribute
+   public long getBlobCacheHits() {
+      BlobCache.Statistics statistics = blobStorageManager.getCacheStatistics();
+      return statistics == null ? 0L : statistics.getHits();
+   }
+
+   @ManagedAttribute
+   public long getBlobCacheMisses() {
+      BlobCache.Statistics statistics = blobStorageManager.getCacheStatistics();
+      return statistics == null ? 0L : statistics.getMisses();
+   }
+
+   @ManagedAttribute
+   public long getBlobCacheRangeBytesRead() {
+      BlobCache.Statistics statistics = blobStorageManager.getCacheStatistics();
+      return statistics == null ? 0L : statistics.getRangeBytes();
+   }
+
+   @ManagedAttribute
+   public long getBlobCachePrefetches() {
+      BlobCache.Statistics statistics = blobStorageManager.getCacheStatistics();
+      return statistics == null ? 0L : statistics.getPrefetches();
+   }
+
+   @ManagedAttribute
+   public long getBlobCacheEvictions() {
+      BlobCache.Statistics statistics = blobStorageManager.getCacheStatistics();
+      return statistics == null ? 0L : statistics.getEvictions();
+   }
+
    private final CacheService cacheService;
+   private final BlobStorageManager blobStorageManager;
 }
@@ -1120,6 +1120,7 @@ public class ScheduleService {
             .embeddedParameters(embeddedParameterModels)
             .queryEnabled(batchAction.getQueryEntry() != null)
             .embeddedEnabled(embeddedParameters.size() > 0)
+            .parallelCount(batchAction.getParallelCount())
             .actionType("BatchAction")
             .actionClass("BatchActionModel")
             .build();
@@ -1485,6 +1486,7 @@ public class ScheduleService {
          BatchActionModel batchActionModel = (BatchActionModel) model;
          BatchAction batchAction = new BatchAction();
          batchAction.setTaskId(batchActionModel.taskName());
+         batchAction.setParallelCount(batchActionModel.parallelCount());
 
          if(batchActionModel.queryEnabled()) {
             batchAction.setQueryEntry(batchActionModel.queryEntry());
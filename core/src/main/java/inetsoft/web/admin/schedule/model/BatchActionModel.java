@@ -49,6 +49,11 @@ public abstract class BatchActionModel extends ScheduleActionModel {
       return false;
    }
 
+   @Value.Default
+   public int parallelCount() {
+      return 1;
+   }
+
    public static BatchActionModel.Builder builder() {
       return new BatchActionModel.Builder();
    }
@@ -43,7 +43,6 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 
 import java.awt.*;
-import java.io.OutputStream;
 import java.security.Principal;
 import java.util.*;
 
@@ -231,6 +230,7 @@ public class ExportController {
 
    @GetMapping("/export/vs-table/**")
    public void exportViewsheetTable(@RemainingPath String path,
+                                    @RequestParam(value = "raw", required = false, defaultValue = "false") boolean raw,
                                     HttpServletRequest request,
                                     HttpServletResponse response, Principal principal)
       throws Exception
@@ -250,7 +250,7 @@ public class ExportController {
          String assemblyName = path.substring(index + 1);
          String agent = request.getHeader("User-Agent");
 
-         AssemblyImageService.SheetExportResult result = serviceProxy.exportViewsheetTable(runtimeId, assemblyName, agent, principal);
+         AssemblyImageService.SheetExportResult result = serviceProxy.exportViewsheetTable(runtimeId, assemblyName, agent, raw, principal);
 
          if(result == null) {
             response.sendError(HttpServletResponse.SC_NOT_FOUND, "Export failed.");
@@ -264,8 +264,7 @@ public class ExportController {
             result.getFileName(),
             result.getMime());
 
-         OutputStream out = response.getOutputStream();
-         out.write(result.getData());
+         binaryTransferService.writeData(result.getData(), response.getOutputStream());
       }
       finally {
          request.getSession().removeAttribute("vs_table_export");
@@ -306,6 +305,7 @@ public class ExportController {
    public void exportWorksheet(@RemainingPath String path,
                                @RequestParam("fileName") Optional<String> fileNameParam,
                                @RequestParam("viewsheetId") Optional<String> viewsheetId,
+                               @RequestParam(value = "raw", required = false, defaultValue = "false") boolean raw,
                                HttpServletRequest request,
                                HttpServletResponse response, Principal principal)
       throws Exception
@@ -332,9 +332,10 @@ public class ExportController {
 
       AssemblyImageService.SheetExportResult exportResult = serviceProxy.exportWorksheet(runtimeId, vsId, path,
                                                                                                  assemblyName, tableAssemblyName,
-                                                                                                 fileNameParam.orElse(null), principal);
+                                                                                                 fileNameParam.orElse(null), raw, principal);
 
       if("true".equals(request.getSession().getAttribute("vs_table_export"))) {
+         binaryTransferService.clearCacheFile(exportResult.getData());
          response.getWriter().println("__exporting__");
          return;
       }
@@ -345,8 +346,7 @@ public class ExportController {
          VSExportService.setResponseHeader(new ExportResponse(response), exportResult.getSuffix(),
                                            "attachment", exportResult.getFileName(), exportResult.getMime());
 
-         OutputStream out = response.getOutputStream();
-         out.write(exportResult.getData());
+         binaryTransferService.writeData(exportResult.getData(), response.getOutputStream());
       }
       finally {
          request.getSession().removeAttribute("vs_table_export");
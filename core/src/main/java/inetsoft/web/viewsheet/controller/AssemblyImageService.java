@@ -59,10 +59,12 @@ import inetsoft.util.log.LogContext;
 import inetsoft.util.profile.ProfileUtils;
 import inetsoft.web.service.BinaryTransferService;
 import inetsoft.web.viewsheet.command.MessageCommand;
+import inetsoft.web.viewsheet.service.ChartTileCache;
 import inetsoft.web.viewsheet.service.VSExportService;
 import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.apache.commons.io.output.DeferredFileOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -87,10 +89,12 @@ import java.util.zip.GZIPOutputStream;
 public class AssemblyImageService {
 
    public AssemblyImageService(ViewsheetService viewsheetService,
-                               BinaryTransferService binaryTransferService)
+                               BinaryTransferService binaryTransferService,
+                               ChartTileCache chartTileCache)
    {
       this.viewsheetService = viewsheetService;
       this.binaryTransferService = binaryTransferService;
+      this.chartTileCache = chartTileCache;
    }
 
    /**
@@ -181,7 +185,9 @@ public class AssemblyImageService {
 
    @ClusterProxyMethod(WorksheetEngine.CACHE_NAME)
    public SheetExportResult exportViewsheetTable(@ClusterProxyKey String runtimeId, String assemblyName,
-                                                    String agent, Principal principal) throws Exception {
+                                                    String agent, boolean raw, Principal principal)
+      throws Exception
+   {
       RuntimeViewsheet rvs = viewsheetService.getViewsheet(runtimeId, principal);
       RuntimeWorksheet worksheet = rvs.getRuntimeWorksheet();
       Optional<ViewsheetSandbox> vbox = rvs.getViewsheetSandbox();
@@ -190,7 +196,9 @@ public class AssemblyImageService {
          return null;
       }
 
-      TableLens lens = vbox.get().getVSTableLens(assemblyName, false);
+      // raw data is exported without the formatting layers of the viewsheet table
+      TableLens lens = raw ? vbox.get().getTableData(assemblyName) :
+         vbox.get().getVSTableLens(assemblyName, false);
 
       if(lens == null) {
          lens = new DefaultTableLens();
@@ -227,12 +235,15 @@ public class AssemblyImageService {
          }
       }
 
-      return exportToMemory(fileName, VSUtil.getVSAssemblyBinding(assemblyName),lens, columns, worksheet);
+      return exportTable(fileName, VSUtil.getVSAssemblyBinding(assemblyName), lens, columns,
+                         worksheet, raw);
    }
 
    @ClusterProxyMethod(WorksheetEngine.CACHE_NAME)
    public SheetExportResult exportWorksheet(@ClusterProxyKey String wsId, String vsId, String path, String assemblyName,
-                                            String tableAssemblyName, String fileNameParam, Principal principal) throws Exception{
+                                            String tableAssemblyName, String fileNameParam,
+                                            boolean raw, Principal principal) throws Exception
+   {
       RuntimeWorksheet rws = viewsheetService.getWorksheet(wsId, principal);
       Worksheet worksheet = rws.getWorksheet();
       AssetQuerySandbox box = rws.getAssetQuerySandbox();
@@ -241,7 +252,7 @@ public class AssemblyImageService {
       List<ColumnInfo> columns =
          box.getColumnInfos(tableAssemblyName, AssetQuerySandbox.RUNTIME_MODE);
 
-      if(isPreviewWsTable) {
+      if(isPreviewWsTable && !raw) {
          RuntimeViewsheet rvs = viewsheetService.getViewsheet(vsId, principal);
          VSAssembly assembly = rvs.getViewsheet().getAssembly(assemblyName);
          Optional<ViewsheetSandbox> vsBox = rvs.getViewsheetSandbox();
@@ -271,7 +282,7 @@ public class AssemblyImageService {
       String fileName = fileNameParam != null ? fileNameParam : (Tool.normalizeFileName(
          getWorksheetFileName(rws.getEntry()) + "_" + tableAssemblyName));
 
-      return exportToMemory(fileName, tableAssemblyName, lens, columns, rws);
+      return exportTable(fileName, tableAssemblyName, lens, columns, rws, raw);
    }
 
    @ClusterProxyMethod(WorksheetEngine.CACHE_NAME)
@@ -316,11 +327,16 @@ public class AssemblyImageService {
       }
    }
 
-   private SheetExportResult exportToMemory(String fileName,
-                                            String assemblyName,
-                                            TableLens lens,
-                                            List<ColumnInfo> columns,
-                                            RuntimeWorksheet worksheet) throws Exception {
+   /**
+    * Export a table. The file is written to a binary transfer, which is kept on disk when it
+    * grows past the size threshold instead of being built in memory.
+    */
+   private SheetExportResult exportTable(String fileName,
+                                         String assemblyName,
+                                         TableLens lens,
+                                         List<ColumnInfo> columns,
+                                         RuntimeWorksheet worksheet,
+                                         boolean raw) throws Exception {
       String mime = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
       String suffix = "xlsx";
       String format = SreeEnv.getProperty("table.export.format");
@@ -341,7 +357,7 @@ public class AssemblyImageService {
       if((lens != null && lens.moreRows(5000) && format == null) ||
          (cellThreshold != -1 && lens.getColCount() * lens.getRowCount() > cellThreshold) ||
          "csv".equalsIgnoreCase(format)) {
-         exporter = new CSVWSExporter();
+         exporter = new CSVWSExporter(raw);
          mime = "text/csv";
          suffix = "csv";
       }
@@ -349,17 +365,25 @@ public class AssemblyImageService {
          exporter = OfficeExporterFactory.getInstance().createWorksheetExporter(row, col);
       }
 
-      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      String key = "/" + AssemblyImageService.class.getName() + "_" + fileName + "." + suffix;
+      BinaryTransfer data = binaryTransferService.createBinaryTransfer(key);
+      DeferredFileOutputStream out = binaryTransferService.createOutputStream(data);
 
-      if(lens != null) {
-         exporter.prepareSheet(assemblyName, worksheet, row, col);
-         Class[] colTypes = exporter.getColTypes(lens);
-         HashMap<Integer, Integer> map = getColumnMap(lens, columns);
-         exporter.writeTable(lens, columns, colTypes, map);
+      try {
+         if(lens != null) {
+            exporter.prepareSheet(assemblyName, worksheet, row, col);
+            Class[] colTypes = exporter.getColTypes(lens);
+            HashMap<Integer, Integer> map = getColumnMap(lens, columns);
+            exporter.writeTable(lens, columns, colTypes, map);
+         }
+
+         exporter.write(out);
+      }
+      finally {
+         binaryTransferService.closeOutputStream(data, out);
       }
 
-      exporter.write(baos);
-      return new SheetExportResult(baos.toByteArray(), fileName, mime, suffix);
+      return new SheetExportResult(data, fileName, mime, suffix);
    }
 
 
@@ -593,6 +617,9 @@ public class AssemblyImageService {
       boolean rawEncodePNG = false;
       byte[] buf = null;
       Graphics2D svgGraphics = null;
+      // shared chart image, see ChartTileCache
+      String tileKey = null;
+      Dimension tileSize = null;
 
       try {
          if(isRawImage(assembly) && canProcessRawImage(assembly)) {
@@ -658,7 +685,18 @@ public class AssemblyImageService {
                      }
                   }
                   else {
-                     image = getChartImage(aname, row, col, index, pair, box.get(), name, dpi * scale);
+                     if(chartTileCache.isEnabled()) {
+                        tileKey = chartTileCache.getKey(
+                           pair, info, aname + "_" + index + "_" + row + "_" + col + "_" + export,
+                           dpi * scale, principal);
+                        buf = tileKey == null ? null : chartTileCache.get(tileKey);
+                        tileSize = ChartTileCache.getPNGSize(buf);
+                     }
+
+                     if(tileSize == null) {
+                        buf = null;
+                        image = getChartImage(aname, row, col, index, pair, box.get(), name, dpi * scale);
+                     }
                   }
                }
                // web map limit exceeded, disable web map for 24 hours.
@@ -726,6 +764,10 @@ public class AssemblyImageService {
 
             if(image != null) {
                buf = VSUtil.getImageBytes(image, dpi);
+
+               if(tileKey != null) {
+                  chartTileCache.put(tileKey, buf);
+               }
             }
             else if(svgGraphics != null) {
                ByteArrayOutputStream out = new ByteArrayOutputStream();
@@ -739,7 +781,7 @@ public class AssemblyImageService {
          throw ex;
       }
 
-      boolean isPNG = image != null || rawEncodePNG;
+      boolean isPNG = image != null || tileSize != null || rawEncodePNG;
       int resultWidth = (int) width;
       int resultHeight = (int) height;
 
@@ -747,6 +789,10 @@ public class AssemblyImageService {
          resultWidth = image.getWidth();
          resultHeight = image.getHeight();
       }
+      else if(tileSize != null) {
+         resultWidth = tileSize.width;
+         resultHeight = tileSize.height;
+      }
 
       String key = "/" + AssemblyImageService.class.getName() + "_" + vid + "_" + aid +
          "_" + index + "_" + row + "_" + col;
@@ -1234,6 +1280,7 @@ public class AssemblyImageService {
    private final String EMPTY_IMAGE = "/inetsoft/report/images/emptyimage.gif";
    private final ViewsheetService viewsheetService;
    private final BinaryTransferService binaryTransferService;
+   private final ChartTileCache chartTileCache;
    private static final Logger LOG = LoggerFactory.getLogger(AssemblyImageService.class);
 
    public static final class ImageRenderResult implements Serializable {
@@ -1283,19 +1330,19 @@ public class AssemblyImageService {
    }
 
    public static final class SheetExportResult implements Serializable {
-      private final byte[] data;
+      private final BinaryTransfer data;
       private final String fileName;
       private final String mime;
       private final String suffix;
 
-      public SheetExportResult(byte[] data, String fileName, String mime, String suffix) {
+      public SheetExportResult(BinaryTransfer data, String fileName, String mime, String suffix) {
          this.data = data;
          this.fileName = fileName;
          this.mime = mime;
          this.suffix = suffix;
       }
 
-      public byte[] getData() {
+      public BinaryTransfer getData() {
          return data;
       }
 
@@ -0,0 +1,184 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2024  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.web.viewsheet.service;
+
+import inetsoft.report.composition.graph.VGraphPair;
+import inetsoft.sree.SreeEnv;
+import inetsoft.sree.portal.CustomThemesManager;
+import inetsoft.sree.security.OrganizationManager;
+import inetsoft.uql.viewsheet.internal.ChartVSAssemblyInfo;
+import inetsoft.util.FileSystemService;
+import inetsoft.util.ThreadContext;
+import inetsoft.util.cachefs.CacheFS;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.awt.Dimension;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.Principal;
+import java.util.HexFormat;
+
+/**
+ * {@code ChartTileCache} shares the encoded chart images between the sessions that view the same
+ * chart with the same data. The images are kept in the cluster temp storage, keyed by a hash of
+ * the chart data, the chart assembly info and the rendered size, and are removed after
+ * {@code chart.tile.cache.timeout} milliseconds. The cache is enabled by setting
+ * {@code chart.tile.cache} to {@code true}.
+ */
+@Service
+public class ChartTileCache {
+   @Autowired
+   public ChartTileCache(FileSystemService fileSystemService) {
+      this.fileSystemService = fileSystemService;
+   }
+
+   /**
+    * Check if the cache is enabled.
+    */
+   public boolean isEnabled() {
+      return "true".equals(SreeEnv.getProperty("chart.tile.cache"));
+   }
+
+   /**
+    * Get the key of a chart image.
+    *
+    * @param pair      the graph pair of the chart.
+    * @param info      the chart assembly info.
+    * @param tile      the identifier of the image in the chart, e.g. the area, row and column.
+    * @param dpi       the resolution of the image.
+    * @param principal the user that views the chart.
+    *
+    * @return the key, or null if the image of the chart can't be shared.
+    */
+   public String getKey(VGraphPair pair, ChartVSAssemblyInfo info, String tile, int dpi,
+                        Principal principal)
+   {
+      // a script may render differently for each user
+      if(info.isScriptEnabled() && info.getScript() != null && !info.getScript().isBlank()) {
+         return null;
+      }
+
+      String contentHash = pair.getContentHash();
+
+      if(contentHash == null) {
+         return null;
+      }
+
+      try {
+         MessageDigest digest = MessageDigest.getInstance("SHA-256");
+         String context = contentHash + "|" + tile + "|" + dpi + "|" +
+            ThreadContext.getLocale() + "|" +
+            OrganizationManager.getInstance().getCurrentOrgID(principal) + "|" +
+            CustomThemesManager.getManager().getSelectedTheme(principal) + "|";
+         digest.update(context.getBytes(StandardCharsets.UTF_8));
+
+         try(PrintWriter writer = new PrintWriter(new OutputStreamWriter(
+            new DigestOutputStream(OutputStream.nullOutputStream(), digest),
+            StandardCharsets.UTF_8)))
+         {
+            info.writeXML(writer);
+         }
+
+         return HexFormat.of().formatHex(digest.digest());
+      }
+      catch(Exception e) {
+         LOG.debug("Failed to create chart image key", e);
+         return null;
+      }
+   }
+
+   /**
+    * Get a cached image.
+    *
+    * @param key the image key.
+    *
+    * @return the encoded image, or null if not cached.
+    */
+   public byte[] get(String key) {
+      Path path = getPath(key);
+
+      try {
+         if(Files.exists(path)) {
+            return Files.readAllBytes(path);
+         }
+      }
+      catch(NoSuchFileException ignore) {
+         // removed after the check
+      }
+      catch(IOException e) {
+         LOG.debug("Failed to read cached chart image {}", key, e);
+      }
+
+      return null;
+   }
+
+   /**
+    * Add an image to the cache.
+    *
+    * @param key  the image key.
+    * @param data the encoded image.
+    */
+   public void put(String key, byte[] data) {
+      Path path = getPath(key);
+
+      try {
+         Files.write(path, data);
+         int timeout = Integer.parseInt(SreeEnv.getProperty("chart.tile.cache.timeout", "600000"));
+         fileSystemService.remove(path, timeout);
+      }
+      catch(Exception e) {
+         LOG.debug("Failed to cache chart image {}", key, e);
+      }
+   }
+
+   /**
+    * Get the size of a PNG image from its header.
+    *
+    * @param png the encoded image.
+    *
+    * @return the image size, or null if the data is not a PNG image.
+    */
+   public static Dimension getPNGSize(byte[] png) {
+      // 8 byte signature, 4 byte length and "IHDR", followed by the width and height
+      if(png == null || png.length < 24 || png[12] != 'I' || png[13] != 'H' ||
+         png[14] != 'D' || png[15] != 'R')
+      {
+         return null;
+      }
+
+      return new Dimension(readInt(png, 16), readInt(png, 20));
+   }
+
+   private static int readInt(byte[] data, int offset) {
+      return ((data[offset] & 0xff) << 24) | ((data[offset + 1] & 0xff) << 16) |
+         ((data[offset + 2] & 0xff) << 8) | (data[offset + 3] & 0xff);
+   }
+
+   private static Path getPath(String key) {
+      return CacheFS.getPath("tempStorage", "chartTile_" + key);
+   }
+
+   private final FileSystemService fileSystemService;
+   private static final Logger LOG = LoggerFactory.getLogger(ChartTileCache.class);
+}
@@ -0,0 +1,185 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2025  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.graph.coord;
+
+import inetsoft.graph.*;
+import inetsoft.graph.data.DefaultDataSet;
+import inetsoft.graph.element.IntervalElement;
+import inetsoft.graph.guide.axis.DefaultAxis;
+import inetsoft.graph.internal.FacetExecutor;
+import inetsoft.graph.scale.*;
+import inetsoft.sree.SreeEnv;
+import inetsoft.sree.security.*;
+import inetsoft.test.*;
+import inetsoft.util.ThreadContext;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.security.Principal;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that the sub-graphs of a facet chart are laid out the same when they are fitted in
+ * parallel.
+ */
+@Tag("core")
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { BaseTestConfiguration.class }, initializers = ConfigurationContextInitializer.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@SreeHome
+class FacetCoordParallelFitTest {
+   @AfterEach
+   void tearDown() {
+      SreeEnv.remove("graph.facet.parallel");
+   }
+
+   @Test
+   void parallelLayoutMatchesSequentialLayout() {
+      SreeEnv.setProperty("graph.facet.parallel", "false");
+      List<String> sequential = layout(ROWS, COLS, 1600, 1200);
+      SreeEnv.setProperty("graph.facet.parallel", "true");
+      List<String> parallel = layout(ROWS, COLS, 1600, 1200);
+
+      assertEquals(ROWS * COLS, sequential.size());
+      assertEquals(sequential, parallel);
+   }
+
+   @Test
+   void largeTrellisParallelLayoutMatchesSequentialLayout() {
+      SreeEnv.setProperty("graph.facet.parallel", "false");
+      List<String> sequential = layout(40, 25, 8000, 12000);
+      SreeEnv.setProperty("graph.facet.parallel", "true");
+      List<String> parallel = layout(40, 25, 8000, 12000);
+
+      assertEquals(1000, sequential.size());
+      assertEquals(sequential, parallel);
+   }
+
+   @Test
+   void contextIsSetOnPoolThreads() {
+      SreeEnv.setProperty("graph.facet.parallel", "true");
+      Principal principal =
+         new SRPrincipal(new IdentityID("facet", Organization.getDefaultOrganizationID()));
+      Principal oprincipal = ThreadContext.getContextPrincipal();
+      Locale olocale = ThreadContext.getLocale();
+      Principal[] principals = new Principal[100];
+      Locale[] locales = new Locale[100];
+      ThreadContext.setContextPrincipal(principal);
+      ThreadContext.setLocale(Locale.GERMANY);
+
+      try {
+         FacetExecutor.run(100, i -> {
+            principals[i] = ThreadContext.getContextPrincipal();
+            locales[i] = ThreadContext.getLocale();
+         });
+      }
+      finally {
+         ThreadContext.setContextPrincipal(oprincipal);
+         ThreadContext.setLocale(olocale);
+      }
+
+      for(int i = 0; i < 100; i++) {
+         assertSame(principal, principals[i]);
+         assertEquals(Locale.GERMANY, locales[i]);
+      }
+   }
+
+   @Test
+   void parallelLayoutIsOffByDefault() {
+      assertFalse(FacetExecutor.isParallel(100));
+      SreeEnv.setProperty("graph.facet.parallel", "true");
+      assertTrue(FacetExecutor.isParallel(100));
+   }
+
+   @Test
+   void maxIsMergedInOrder() {
+      SreeEnv.setProperty("graph.facet.parallel", "true");
+      double[] values = new double[100];
+
+      for(int i = 0; i < values.length; i++) {
+         values[i] = (i * 37) % 101;
+      }
+
+      assertEquals(100, FacetExecutor.max(values.length, i -> values[i]));
+      assertEquals(0, FacetExecutor.max(0, i -> 1));
+   }
+
+   @Test
+   void exceptionIsRethrown() {
+      SreeEnv.setProperty("graph.facet.parallel", "true");
+      assertThrows(IllegalStateException.class, () -> FacetExecutor.run(100, i -> {
+         if(i == 50) {
+            throw new IllegalStateException();
+         }
+      }));
+   }
+
+   private static List<String> layout(int rcount, int ccount, int width, int height) {
+      Object[][] rows = new Object[rcount * ccount * 5 + 1][];
+      rows[0] = new Object[] { "R", "C", "X", "Y" };
+
+      for(int i = 1; i < rows.length; i++) {
+         int n = i - 1;
+         rows[i] = new Object[] { "r" + (n / (ccount * 5)), "c" + (n / 5) % ccount, "x" + n % 5,
+                                  (n * 7919) % 1000 };
+      }
+
+      DefaultDataSet data = new DefaultDataSet(rows);
+      CategoricalScale rscale = new CategoricalScale("R");
+      CategoricalScale cscale = new CategoricalScale("C");
+      CategoricalScale xscale = new CategoricalScale("X");
+      LinearScale yscale = new LinearScale("Y");
+      rscale.init(data);
+      cscale.init(data);
+      xscale.init(data);
+      yscale.init(data);
+
+      EGraph egraph = new EGraph();
+      egraph.addElement(new IntervalElement("X", "Y"));
+      FacetCoord facet = new FacetCoord(new RectCoord(cscale, rscale),
+                                        new RectCoord(xscale, yscale));
+      egraph.setCoordinate(facet);
+
+      VGraph vgraph = Plotter.getPlotter(egraph).plotAndLayout(data, 0, 0, width, height);
+      FacetCoord coord = (FacetCoord) vgraph.getCoordinate();
+      List<String> bounds = new ArrayList<>();
+
+      for(Coordinate[] row : coord.getExpandedInnerCoords()) {
+         for(Coordinate inner : row) {
+            RectCoord rect = (RectCoord) inner;
+            bounds.add(rect.getCoordBounds() + " " + inner.getVGraph().getPlotBounds() + " " +
+                          getAxisBounds(rect.getAxisAt(Coordinate.BOTTOM_AXIS)) + " " +
+                          getAxisBounds(rect.getAxisAt(Coordinate.LEFT_AXIS)));
+         }
+      }
+
+      return bounds;
+   }
+
+   private static String getAxisBounds(DefaultAxis axis) {
+      return axis == null ? "" : axis.getBounds() + "/" + axis.getAxisSize();
+   }
+
+   private static final int ROWS = 6;
+   private static final int COLS = 5;
+}
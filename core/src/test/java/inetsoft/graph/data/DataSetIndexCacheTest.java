@@ -0,0 +1,128 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2025  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.graph.data;
+
+import inetsoft.sree.SreeEnv;
+import inetsoft.test.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that the data sets reading from the same source share the value indexes in
+ * {@link DataSetIndex}.
+ */
+@Tag("core")
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { BaseTestConfiguration.class }, initializers = ConfigurationContextInitializer.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@SreeHome
+class DataSetIndexCacheTest {
+   @AfterEach
+   void tearDown() {
+      SreeEnv.remove("graph.index.shared");
+   }
+
+   @Test
+   void sameSourceSharesIndex() {
+      Object source = new Object();
+      SourceDataSet data1 = new SourceDataSet(source);
+      SourceDataSet data2 = new SourceDataSet(source);
+
+      DataSet sub1 = new DataSetIndex(data1, List.of("cat"), false)
+         .createSubDataSet(Map.of("cat", "B"), true);
+      DataSet sub2 = new DataSetIndex(data2, List.of("cat"), false)
+         .createSubDataSet(Map.of("cat", "B"), true);
+
+      assertEquals(300, data1.reads.get());
+      assertEquals(0, data2.reads.get());
+      assertEquals(100, sub1.getRowCount());
+      assertEquals(100, sub2.getRowCount());
+      assertEquals("B", sub2.getData(0, 99));
+      assertEquals(199, sub2.getData(1, 99));
+   }
+
+   @Test
+   void differentSourcesBuildOwnIndex() {
+      SourceDataSet data1 = new SourceDataSet(new Object());
+      SourceDataSet data2 = new SourceDataSet(new Object());
+
+      new DataSetIndex(data1, false).addIndex("cat");
+      new DataSetIndex(data2, false).addIndex("cat");
+
+      assertEquals(300, data1.reads.get());
+      assertEquals(300, data2.reads.get());
+   }
+
+   @Test
+   void sharingDisabledByProperty() {
+      SreeEnv.setProperty("graph.index.shared", "false");
+      Object source = new Object();
+      SourceDataSet data1 = new SourceDataSet(source);
+      SourceDataSet data2 = new SourceDataSet(source);
+
+      new DataSetIndex(data1, false).addIndex("cat");
+      new DataSetIndex(data2, false).addIndex("cat");
+
+      assertEquals(300, data2.reads.get());
+   }
+
+   private static Object[][] createRows() {
+      Object[][] rows = new Object[301][];
+      rows[0] = new Object[] { "cat", "val" };
+
+      for(int i = 0; i < 300; i++) {
+         rows[i + 1] = new Object[] { i < 100 ? "A" : i < 200 ? "B" : "C", i };
+      }
+
+      return rows;
+   }
+
+   private static class SourceDataSet extends DefaultDataSet {
+      SourceDataSet(Object source) {
+         super(createRows());
+         this.source = source;
+      }
+
+      @Override
+      public Object getIndexSource() {
+         return source;
+      }
+
+      @Override
+      protected Object getData0(int col, int row) {
+         if(col == 0) {
+            reads.incrementAndGet();
+         }
+
+         return super.getData0(col, row);
+      }
+
+      private final Object source;
+      // shared by the clones in the index
+      private final AtomicInteger reads = new AtomicInteger();
+   }
+}
@@ -0,0 +1,156 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2025  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.graph.element;
+
+import inetsoft.graph.EGraph;
+import inetsoft.graph.GGraph;
+import inetsoft.graph.Plotter;
+import inetsoft.graph.coord.RectCoord;
+import inetsoft.graph.data.DefaultDataSet;
+import inetsoft.graph.geometry.LineGeometry;
+import inetsoft.graph.scale.LinearScale;
+import inetsoft.test.*;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.awt.*;
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that {@link DataReducer} only plots the points of large line and point charts that
+ * show at the level of detail.
+ */
+@Tag("core")
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { BaseTestConfiguration.class }, initializers = ConfigurationContextInitializer.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@SreeHome
+class DataReducerTest {
+   @Test
+   void lttbKeepsEndsAndPeaks() {
+      int count = 10000;
+      int[] rows = new int[count];
+      double[] xs = new double[count];
+      double[] ys = new double[count];
+
+      for(int i = 0; i < count; i++) {
+         rows[i] = i;
+         xs[i] = i;
+         ys[i] = Math.sin(i / 100.0);
+      }
+
+      ys[5000] = 100;
+      BitSet keep = new BitSet();
+      DataReducer.lttb(rows, xs, ys, count, 200, keep);
+
+      assertEquals(200, keep.cardinality());
+      assertTrue(keep.get(0));
+      assertTrue(keep.get(count - 1));
+      assertTrue(keep.get(5000));
+   }
+
+   @Test
+   void lttbKeepsShortLines() {
+      BitSet keep = new BitSet();
+      DataReducer.lttb(new int[] { 3, 4, 5 }, new double[3], new double[3], 3, 200, keep);
+
+      assertEquals(3, keep.cardinality());
+   }
+
+   @Test
+   void lineOnlyPlotsReducedRows() {
+      GGraph ggraph = createGraph(new LineElement("X", "Y"), 20000, new Dimension(400, 300));
+      LineElement elem = (LineElement) ggraph.getEGraph().getElement(0);
+      LineGeometry line = (LineGeometry) ggraph.getGeometry(0);
+
+      assertEquals(1, ggraph.getGeometryCount());
+      // two points per pixel
+      assertEquals(800, line.getTupleCount());
+      assertEquals(800, line.getRowIndexes().length);
+      assertTrue(elem.isDataReduced());
+   }
+
+   @Test
+   void allRowsArePlottedWithoutLevelOfDetail() {
+      GGraph ggraph = createGraph(new LineElement("X", "Y"), 20000, null);
+      LineGeometry line = (LineGeometry) ggraph.getGeometry(0);
+
+      assertEquals(20000, line.getTupleCount());
+      assertFalse(ggraph.getEGraph().getElement(0).isDataReduced());
+   }
+
+   @Test
+   void overlappingPointsAreBinned() {
+      // the 20000 points fall on a 10 x 10 grid
+      GGraph ggraph = createGraph(new PointElement("X", "Y"), 20000, new Dimension(200, 100));
+
+      assertEquals(100, ggraph.getGeometryCount());
+      assertTrue(ggraph.getEGraph().getElement(0).isDataReduced());
+   }
+
+   @Test
+   void reducedIsClearedWhenPlottedAgain() {
+      LineElement elem = new LineElement("X", "Y");
+      DefaultDataSet data = createData(true, 20000);
+      EGraph egraph = createGraph(elem, data, new Dimension(400, 300)).getEGraph();
+      Plotter plotter = Plotter.getPlotter(egraph);
+
+      plotter.plot(data);
+      assertTrue(elem.isDataReduced());
+
+      elem.setLevelOfDetail(null);
+      plotter.plot(data);
+      assertFalse(elem.isDataReduced());
+   }
+
+   private static GGraph createGraph(GraphElement elem, int count, Dimension lod) {
+      return createGraph(elem, createData(elem instanceof LineElement, count), lod);
+   }
+
+   private static DefaultDataSet createData(boolean line, int count) {
+      Object[][] rows = new Object[count + 1][];
+      rows[0] = new Object[] { "X", "Y" };
+
+      for(int i = 0; i < count; i++) {
+         rows[i + 1] = line ? new Object[] { i, Math.sin(i / 50.0) } :
+            new Object[] { i % 10, (i / 10) % 10 };
+      }
+
+      return new DefaultDataSet(rows);
+   }
+
+   private static GGraph createGraph(GraphElement elem, DefaultDataSet data, Dimension lod) {
+      LinearScale xscale = new LinearScale("X");
+      LinearScale yscale = new LinearScale("Y");
+      xscale.init(data);
+      yscale.init(data);
+      elem.setLevelOfDetail(lod);
+
+      EGraph egraph = new EGraph();
+      egraph.addElement(elem);
+      RectCoord coord = new RectCoord(xscale, yscale);
+      egraph.setCoordinate(coord);
+      return egraph.createGGraph(coord, data);
+   }
+}
@@ -0,0 +1,140 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2025  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.graph.geo;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.geom.*;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that {@link GeoShapeStore} reads back the shapes of a map, simplifies them at
+ * the lower levels of detail and finds the shapes in an area.
+ */
+@Tag("core")
+class GeoShapeStoreTest {
+   @BeforeEach
+   void setUp() throws Exception {
+      File file = tempDir.resolve("us-states.bin").toFile();
+      GeoMap map = new GeoMap();
+
+      try(BufferedReader reader = new BufferedReader(new InputStreamReader(
+             GeoMap.class.getResourceAsStream("data/us-states.csv"), StandardCharsets.UTF_8));
+          GeoShapeStore.Writer writer = GeoShapeStore.createWriter(file))
+      {
+         String line;
+
+         while((line = reader.readLine()) != null) {
+            String name = line.substring(0, line.indexOf('|'));
+            GeoShape shape = map.readShape(line, shapes, null);
+            writer.add(name, shape);
+         }
+      }
+
+      store = GeoShapeStore.open(file, "data/us-states.csv");
+   }
+
+   @Test
+   void shapesAreReadInFullDetail() {
+      assertEquals(new ArrayList<>(shapes.keySet()), new ArrayList<>(store.getNames()));
+
+      for(Map.Entry<String, GeoShape> e : shapes.entrySet()) {
+         GeoShape expected = e.getValue();
+         GeoShape shape = store.getShape(e.getKey());
+
+         assertEquals(expected.getBounds(), shape.getBounds());
+         assertEquals(expected.getPrimaryAnchor(), shape.getPrimaryAnchor());
+         assertEquals(expected.isAntiAlias(), shape.isAntiAlias());
+         assertEquals(getPoints(expected.getShape()), getPoints(shape.getShape()), e.getKey());
+      }
+   }
+
+   @Test
+   void lowerLevelsHaveFewerPoints() {
+      assertEquals(0, store.getLevel(0));
+      assertEquals(4, store.getLevel(1));
+
+      GeoShape shape = store.getShape("CA");
+      int full = getPoints(shape.getShape()).size();
+      int previous = full;
+
+      assertEquals(full, getPoints(shape.getDetailShape(null)).size());
+
+      for(int level = 1; level < 5; level++) {
+         int count = getPoints(store.getPath("CA", level)).size();
+         assertTrue(count > 0 && count <= previous, "Level " + level + ": " + count);
+         previous = count;
+      }
+
+      assertTrue(previous < full / 4, "Not simplified: " + previous + " of " + full);
+   }
+
+   @Test
+   void simplifiedLineIsWithinTolerance() {
+      float[] line = new float[200];
+
+      for(int i = 0; i < 100; i++) {
+         line[i * 2] = i;
+         line[i * 2 + 1] = (float) Math.sin(i / 10.0);
+      }
+
+      float[] simplified = GeoShapeStore.simplify(line, 0.1);
+      int n = simplified.length / 2;
+
+      assertTrue(n < 50, "Too many points: " + n);
+      assertEquals(line[0], simplified[0]);
+      assertEquals(line[198], simplified[n * 2 - 2]);
+
+      for(int i = 0; i < 100; i++) {
+         double dist = Double.MAX_VALUE;
+
+         for(int j = 1; j < n; j++) {
+            dist = Math.min(dist, Line2D.ptSegDist(
+               simplified[j * 2 - 2], simplified[j * 2 - 1], simplified[j * 2],
+               simplified[j * 2 + 1], line[i * 2], line[i * 2 + 1]));
+         }
+
+         assertTrue(dist <= 0.1 + 1e-6, "Point " + i + " is " + dist + " away");
+      }
+   }
+
+   private List<Double> getPoints(java.awt.Shape shape) {
+      List<Double> points = new ArrayList<>();
+      double[] coords = new double[6];
+
+      for(PathIterator iter = shape.getPathIterator(null); !iter.isDone(); iter.next()) {
+         if(iter.currentSegment(coords) != PathIterator.SEG_CLOSE) {
+            points.add(coords[0]);
+            points.add(coords[1]);
+         }
+      }
+
+      return points;
+   }
+
+   @TempDir
+   Path tempDir;
+   private final Map<String, GeoShape> shapes = new LinkedHashMap<>();
+   private GeoShapeStore store;
+}
@@ -0,0 +1,171 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2025  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.graph.geo.solver;
+
+import inetsoft.graph.data.DefaultDataSet;
+import org.apache.commons.codec.StringEncoder;
+import org.apache.commons.codec.language.*;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that the indexed name matching finds the same map features as comparing the
+ * source values with every name in the table.
+ */
+@Tag("core")
+class NameMatchingTest {
+   @Test
+   void idIsFoundByLabel() {
+      assertEquals("CA", NameTable.STATES.getId("California"));
+      assertEquals("NY", NameTable.STATES.getId("US-NY"));
+      assertEquals("BC", NameTable.STATES.getId("British Columbia"));
+      assertNull(NameTable.STATES.getId("Atlantis"));
+      assertNull(NameTable.STATES.getId(""));
+   }
+
+   @Test
+   void bestMatchIsSameAsScan() {
+      DefaultDataSet source = createDataSet(
+         "Pensylvania", "new yrok", "Texs", "californa", "Springfeld", "", null, "Ontaro",
+         "Pensylvania");
+      AbstractDistanceAlgorithm[] algorithms = {
+         new DistanceAlgorithm(), new SoundexAlgorithm(), new MetaphoneAlgorithm(),
+         new DoubleMetaphoneAlgorithm()
+      };
+      StringEncoder[] encoders = {
+         null, new Soundex(), new Metaphone(), new DoubleMetaphone()
+      };
+
+      for(NameTable names : List.of(NameTable.STATES, NameTable.CITIES)) {
+         for(int a = 0; a < algorithms.length; a++) {
+            for(int row = 0; row < source.getRowCount(); row++) {
+               Object value = source.getData(0, row);
+               List<Match> expected = scan(names, encoders[a], value, 0);
+               Match match = algorithms[a].findBestMatch(
+                  source, new int[] { 0 }, names, new int[] { 0 }, row);
+               String message = names.getName() + " " + encoders[a] + " " + value;
+
+               assertEquals(expected.get(0).getID(), match.getID(), message);
+               assertEquals(expected.get(0).getDistance(), match.getDistance(), message);
+            }
+         }
+      }
+   }
+
+   @Test
+   void matchesAreInScanOrder() {
+      DefaultDataSet source = createDataSet("Ilinois");
+      SoundexAlgorithm algorithm = new SoundexAlgorithm();
+      List<Match> expected = scan(NameTable.STATES, new Soundex(), "Ilinois", 0);
+      List<String> ids = algorithm.findMatchIDs(
+         source, new int[] { 0 }, NameTable.STATES, new int[] { 0 }, 0);
+
+      assertEquals(expected.stream().map(Match::getID).toList(), ids);
+   }
+
+   @Test
+   void exactMatchUsesAllColumns() {
+      DefaultDataSet source = new DefaultDataSet(new Object[][] {
+         { "City", "State" },
+         { "Springfield", "Illinois" },
+         { "Springfield", "Atlantis" }
+      });
+      ExactAlgorithm algorithm = new ExactAlgorithm();
+      int[] sourceColumns = { 0, 1 };
+      int[] nameColumns = { 0, 1 };
+
+      List<String> ids = algorithm.findMatchIDs(
+         source, sourceColumns, NameTable.CITIES, nameColumns, 0);
+
+      assertEquals(1, ids.size());
+      assertEquals("Springfield", NameTable.CITIES.getName(ids.get(0)));
+      assertTrue(NameTable.CITIES.getLabel(ids.get(0)).contains("Illinois"));
+      assertTrue(algorithm.findMatchIDs(
+         source, sourceColumns, NameTable.CITIES, nameColumns, 1).isEmpty());
+   }
+
+   @Test
+   void bestMatchIsNotSharedBetweenValuesWithSameText() {
+      // both rows read "[Springfield, Illinois, US]" when the values are joined
+      DefaultDataSet source = new DefaultDataSet(new Object[][] {
+         { "City", "State" },
+         { "Springfield", "Illinois, US" },
+         { "Springfield, Illinois", "US" }
+      });
+      int[] columns = { 0, 1 };
+      DistanceAlgorithm algorithm = new DistanceAlgorithm();
+
+      for(int row = 0; row < source.getRowCount(); row++) {
+         Match expected = new DistanceAlgorithm().findBestMatch(
+            source, columns, NameTable.CITIES, columns, row);
+         Match match = algorithm.findBestMatch(source, columns, NameTable.CITIES, columns, row);
+
+         assertEquals(expected.getID(), match.getID());
+         assertEquals(expected.getDistance(), match.getDistance());
+      }
+   }
+
+   private static DefaultDataSet createDataSet(String... values) {
+      Object[][] data = new Object[values.length + 1][];
+      data[0] = new Object[] { "Name" };
+
+      for(int i = 0; i < values.length; i++) {
+         data[i + 1] = new Object[] { values[i] };
+      }
+
+      return new DefaultDataSet(data);
+   }
+
+   // the matches found by comparing the value with every name in table order
+   private static List<Match> scan(NameTable names, StringEncoder encoder, Object value,
+                                   int column)
+   {
+      List<Match> matches = new ArrayList<>();
+      String code = encode(encoder, value == null ? null : value.toString());
+
+      names.accept(new NameTable.NameVisitor() {
+         @Override
+         public void visit(String id, String[] columns) {
+            String name = column < columns.length ? encode(encoder, columns[column]) : null;
+            matches.add(new Match(id, NameIndex.distance(code, name)));
+         }
+
+         @Override
+         public void addMatch(String id) {
+            matches.add(new Match(id, 0));
+         }
+      });
+
+      Collections.sort(matches);
+      return matches;
+   }
+
+   private static String encode(StringEncoder encoder, String value) {
+      try {
+         value = value == null || encoder == null ? value : encoder.encode(value);
+      }
+      catch(Exception ignore) {
+      }
+
+      return value == null ? null : value.toLowerCase();
+   }
+}
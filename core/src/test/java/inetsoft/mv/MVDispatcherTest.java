@@ -17,10 +17,18 @@
  */
 package inetsoft.mv;
 
+import inetsoft.mv.fs.FSConfig;
+import inetsoft.mv.fs.FSService;
 import inetsoft.sree.SreeEnv;
+import inetsoft.uql.*;
+import inetsoft.uql.asset.ColumnRef;
+import inetsoft.uql.asset.TableAssembly;
+import inetsoft.uql.erm.AttributeRef;
+import inetsoft.uql.schema.XSchema;
 import inetsoft.util.ThreadContext;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.MockedConstruction;
 import org.mockito.MockedStatic;
 
@@ -36,7 +44,8 @@ import static org.mockito.Mockito.*;
  * Verifies that {@link MVDispatcher}'s multi-threaded dispatch path passes the calling thread's
  * current {@link ThreadContext} principal into each {@link MVCompositeDispatcher} it constructs,
  * rather than defaulting to {@code null} -- otherwise MV blocks built on the parallel path would
- * run with no tenant/user identity attached.
+ * run with no tenant/user identity attached. Also verifies that a partition column declared on the
+ * {@link MVDef} is used to split the source query even when the table has no update condition.
  */
 @Tag("core")
 class MVDispatcherTest {
@@ -80,4 +89,63 @@ class MVDispatcherTest {
       // constructor signature is (MVDef def, VariableTable vars, Principal principal)
       assertSame(currentPrincipal, constructedWith.get(0).get(2));
    }
+
+   @Test
+   void splitsOnTheDeclaredPartitionColumnWithoutAnUpdateCondition() {
+      MVDef def = mock(MVDef.class);
+      when(def.getName()).thenReturn("mv1");
+      when(def.getPartitionColumn()).thenReturn("id");
+
+      TableAssembly table = createTable();
+      TableAssembly result = invokeSplit(new MVDispatcher(def), table);
+
+      assertSame(table, result);
+      ArgumentCaptor<ConditionList> captor = ArgumentCaptor.forClass(ConditionList.class);
+      verify(table).setPreConditionList(captor.capture());
+
+      ConditionList conds = captor.getValue();
+      assertTrue(conds.getConditionSize() > 0);
+
+      for(int i = 0; i < conds.getConditionSize(); i += 2) {
+         assertEquals("id", conds.getConditionItem(i).getAttribute().getName());
+      }
+   }
+
+   @Test
+   void doesNotSplitWithoutPartitionColumnOrUpdateCondition() {
+      MVDef def = mock(MVDef.class);
+      when(def.getName()).thenReturn("mv1");
+
+      TableAssembly table = createTable();
+
+      assertSame(table, invokeSplit(new MVDispatcher(def), table));
+      verify(table, never()).setPreConditionList(any());
+   }
+
+   private static TableAssembly createTable() {
+      AttributeRef attr = new AttributeRef(null, "id");
+      attr.setDataType(XSchema.INTEGER);
+      ColumnSelection columns = new ColumnSelection();
+      columns.addAttribute(new ColumnRef(attr));
+
+      TableAssembly table = mock(TableAssembly.class);
+      when(table.getName()).thenReturn("T1");
+      when(table.getColumnSelection(false)).thenReturn(columns);
+      when(table.clone()).thenReturn(table);
+      return table;
+   }
+
+   private static TableAssembly invokeSplit(MVDispatcher dispatcher, TableAssembly table) {
+      FSConfig config = mock(FSConfig.class);
+      when(config.isDesktop()).thenReturn(false);
+
+      try(MockedStatic<SreeEnv> sreeEnvStatic = mockStatic(SreeEnv.class);
+          MockedStatic<FSService> fsServiceStatic = mockStatic(FSService.class))
+      {
+         sreeEnvStatic.when(() -> SreeEnv.getProperty("mv.dispatcher.count")).thenReturn("4");
+         fsServiceStatic.when(FSService::getConfig).thenReturn(config);
+
+         return dispatcher.split(table);
+      }
+   }
 }
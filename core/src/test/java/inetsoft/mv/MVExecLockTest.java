@@ -0,0 +1,280 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2025  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.mv;
+
+import inetsoft.sree.SreeEnv;
+import inetsoft.sree.internal.cluster.Cluster;
+import inetsoft.sree.internal.cluster.DistributedMap;
+import inetsoft.test.*;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.MockedStatic;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Verifies that {@link MVExecLock} keeps mv queries off the cluster lock unless the mv is
+ * being replaced, that a writer waits for the queries pinned on the node, and that the
+ * mark is seen by joining nodes and only cleared by the lock that set it.
+ */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { BaseTestConfiguration.class }, initializers = ConfigurationContextInitializer.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@SreeHome
+@Tag("core")
+class MVExecLockTest {
+   @Test
+   void queryDoesNotUseTheClusterLockWhenNotWriting() {
+      Cluster cluster = mockCluster();
+
+      try(MockedStatic<Cluster> clusterStatic = mockStatic(Cluster.class)) {
+         clusterStatic.when(Cluster::getInstance).thenReturn(cluster);
+
+         try(MVExecLock.Pin ignored = MVExecLock.lockRead("mv.read")) {
+            assertFalse(MVExecLock.isWriting("mv.read"));
+         }
+
+         verify(cluster, never()).lockRead(anyString());
+         verify(cluster, never()).unlockRead(anyString());
+      }
+   }
+
+   @Test
+   void queryWaitsOnTheClusterLockWhileWriting() {
+      Cluster cluster = mockCluster();
+
+      try(MockedStatic<Cluster> clusterStatic = mockStatic(Cluster.class)) {
+         clusterStatic.when(Cluster::getInstance).thenReturn(cluster);
+
+         MVExecLock.lockWrite("mv.write");
+         assertTrue(MVExecLock.isWriting("mv.write"));
+
+         try(MVExecLock.Pin ignored = MVExecLock.lockRead("mv.write")) {
+            verify(cluster).lockRead("mv.exec.mv.write");
+         }
+
+         verify(cluster).unlockRead("mv.exec.mv.write");
+         MVExecLock.unlockWrite("mv.write");
+
+         assertFalse(MVExecLock.isWriting("mv.write"));
+         verify(cluster).lockWrite("mv.exec.mv.write");
+         verify(cluster).unlockWrite("mv.exec.mv.write");
+      }
+   }
+
+   @Test
+   void writerWaitsForPinnedQueries() throws Exception {
+      Cluster cluster = mockCluster();
+      CountDownLatch pinned = new CountDownLatch(1);
+      AtomicBoolean released = new AtomicBoolean();
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+
+      try(MockedStatic<Cluster> clusterStatic = mockStatic(Cluster.class)) {
+         clusterStatic.when(Cluster::getInstance).thenReturn(cluster);
+
+         Future<?> query = executor.submit(() -> {
+            try(MVExecLock.Pin ignored = MVExecLock.lockRead("mv.pinned")) {
+               pinned.countDown();
+               Thread.sleep(200L);
+               released.set(true);
+            }
+
+            return null;
+         });
+
+         assertTrue(pinned.await(10L, TimeUnit.SECONDS));
+         MVExecLock.lockWrite("mv.pinned");
+
+         try {
+            assertTrue(released.get());
+         }
+         finally {
+            MVExecLock.unlockWrite("mv.pinned");
+         }
+
+         query.get(10L, TimeUnit.SECONDS);
+      }
+      finally {
+         executor.shutdownNow();
+      }
+   }
+
+   @Test
+   void writerFailsWhenPinnedQueriesDoNotFinish() throws Exception {
+      Cluster cluster = mockCluster();
+      CountDownLatch pinned = new CountDownLatch(1);
+      CountDownLatch done = new CountDownLatch(1);
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+
+      try(MockedStatic<Cluster> clusterStatic = mockStatic(Cluster.class);
+          MockedStatic<SreeEnv> env = mockStatic(SreeEnv.class))
+      {
+         clusterStatic.when(Cluster::getInstance).thenReturn(cluster);
+         env.when(() -> SreeEnv.getProperty(eq("mv.exec.lock.timeout"), anyString()))
+            .thenReturn("100");
+
+         Future<?> query = executor.submit(() -> {
+            try(MVExecLock.Pin ignored = MVExecLock.lockRead("mv.stuck")) {
+               pinned.countDown();
+               done.await();
+            }
+
+            return null;
+         });
+
+         assertTrue(pinned.await(10L, TimeUnit.SECONDS));
+         assertThrows(RuntimeException.class, () -> MVExecLock.lockWrite("mv.stuck"));
+         assertFalse(MVExecLock.isWriting("mv.stuck"));
+         verify(cluster).unlockWrite("mv.exec.mv.stuck");
+
+         done.countDown();
+         query.get(10L, TimeUnit.SECONDS);
+      }
+      finally {
+         executor.shutdownNow();
+      }
+   }
+
+   @Test
+   void nodeJoiningWhileWritingUsesTheClusterLock() {
+      Cluster cluster = mockCluster();
+      DistributedMap<String, Object> marks = cluster.getReplicatedMap("inetsoft.mv.exec.marks");
+
+      try(MockedStatic<Cluster> clusterStatic = mockStatic(Cluster.class)) {
+         clusterStatic.when(Cluster::getInstance).thenReturn(cluster);
+         MVExecLock.lockWrite("mv.joined");
+
+         // a node joining the cluster reads the marks from the replicated map
+         Cluster joined = mockCluster(marks, "node2");
+         clusterStatic.when(Cluster::getInstance).thenReturn(joined);
+
+         try(MVExecLock.Pin ignored = MVExecLock.lockRead("mv.joined")) {
+            verify(joined).lockRead("mv.exec.mv.joined");
+         }
+
+         clusterStatic.when(Cluster::getInstance).thenReturn(cluster);
+         MVExecLock.unlockWrite("mv.joined");
+         assertFalse(MVExecLock.isWriting("mv.joined"));
+      }
+   }
+
+   @Test
+   void markOfAWriterThatLeftIsIgnored() {
+      Cluster cluster = mockCluster();
+
+      try(MockedStatic<Cluster> clusterStatic = mockStatic(Cluster.class)) {
+         clusterStatic.when(Cluster::getInstance).thenReturn(cluster);
+         MVExecLock.lockWrite("mv.crashed");
+         assertTrue(MVExecLock.isWriting("mv.crashed"));
+
+         when(cluster.getClusterNodes()).thenReturn(Set.of("node2"));
+
+         try(MVExecLock.Pin ignored = MVExecLock.lockRead("mv.crashed")) {
+            assertFalse(MVExecLock.isWriting("mv.crashed"));
+         }
+
+         verify(cluster, never()).lockRead(anyString());
+         MVExecLock.unlockWrite("mv.crashed");
+      }
+   }
+
+   @Test
+   void unlockDoesNotClearTheMarkOfALaterWriter() {
+      Cluster cluster = mockCluster();
+      DistributedMap<String, Object> marks = cluster.getReplicatedMap("inetsoft.mv.exec.marks");
+
+      try(MockedStatic<Cluster> clusterStatic = mockStatic(Cluster.class)) {
+         clusterStatic.when(Cluster::getInstance).thenReturn(cluster);
+         MVExecLock.lockWrite("mv.replaced");
+         Object mark = marks.get("mv.replaced");
+
+         // another writer took over the mv after this lock's cluster lock was lost
+         Object later = new Object();
+         marks.put("mv.replaced", later);
+         MVExecLock.unlockWrite("mv.replaced");
+
+         assertNotNull(mark);
+         assertSame(later, marks.get("mv.replaced"));
+      }
+   }
+
+   @Test
+   void nodeLeftIsIgnored() {
+      Cluster cluster = mockCluster();
+      doReturn(CompletableFuture.failedFuture(new ClusterTopologyException()))
+         .when(cluster).submitAll(any());
+
+      try(MockedStatic<Cluster> clusterStatic = mockStatic(Cluster.class)) {
+         clusterStatic.when(Cluster::getInstance).thenReturn(cluster);
+
+         MVExecLock.lockWrite("mv.left");
+         MVExecLock.unlockWrite("mv.left");
+
+         verify(cluster).unlockWrite("mv.exec.mv.left");
+      }
+   }
+
+   @Test
+   void otherBroadcastFailureFailsTheLock() {
+      Cluster cluster = mockCluster();
+      doReturn(CompletableFuture.failedFuture(new IllegalStateException("failed")))
+         .when(cluster).submitAll(any());
+
+      try(MockedStatic<Cluster> clusterStatic = mockStatic(Cluster.class)) {
+         clusterStatic.when(Cluster::getInstance).thenReturn(cluster);
+
+         assertThrows(RuntimeException.class, () -> MVExecLock.lockWrite("mv.failed"));
+         assertFalse(MVExecLock.isWriting("mv.failed"));
+         verify(cluster).unlockWrite("mv.exec.mv.failed");
+      }
+   }
+
+   private static Cluster mockCluster() {
+      return mockCluster(mock(DistributedMap.class, delegatesTo(new ConcurrentHashMap<>())),
+                         "node1");
+   }
+
+   private static Cluster mockCluster(DistributedMap<?, ?> marks, String node) {
+      Cluster cluster = mock(Cluster.class);
+      when(cluster.submitAll(any())).thenAnswer(
+         inv -> CompletableFuture.completedFuture(
+            Collections.singletonList(((Callable<?>) inv.getArgument(0)).call())));
+      doReturn(marks).when(cluster).getReplicatedMap("inetsoft.mv.exec.marks");
+      when(cluster.getLocalMember()).thenReturn(node);
+      when(cluster.getClusterNodes()).thenReturn(Set.of("node1", "node2"));
+      return cluster;
+   }
+
+   // named like the ignite exception thrown when a node leaves the cluster
+   private static final class ClusterTopologyException extends RuntimeException {
+   }
+}
@@ -26,14 +26,24 @@ import inetsoft.mv.fs.XDataNode;
 import inetsoft.mv.fs.XFileSystem;
 import inetsoft.mv.fs.XServerNode;
 import inetsoft.sree.internal.cluster.Cluster;
+import inetsoft.sree.internal.cluster.DistributedMap;
 import inetsoft.uql.XTable;
+import inetsoft.test.*;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.MockedStatic;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.delegatesTo;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -43,6 +53,10 @@ import static org.mockito.Mockito.*;
  * updating the distributed file system, so a failed MV creation/update never leaves the lock
  * held for subsequent attempts.
  */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { BaseTestConfiguration.class }, initializers = ConfigurationContextInitializer.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@SreeHome
 @Tag("core")
 class MVSingleDispatcherTest {
    @Test
@@ -85,6 +99,11 @@ class MVSingleDispatcherTest {
 
          Cluster cluster = mock(Cluster.class);
          clusterStatic.when(Cluster::getInstance).thenReturn(cluster);
+         when(cluster.submitAll(any())).thenAnswer(
+            inv -> CompletableFuture.completedFuture(
+               Collections.singletonList(((Callable<?>) inv.getArgument(0)).call())));
+         doReturn(mock(DistributedMap.class, delegatesTo(new ConcurrentHashMap<>())))
+            .when(cluster).getReplicatedMap(anyString());
 
          storageStatic.when(MVStorage::getInstance).thenReturn(storage);
 
@@ -95,6 +114,8 @@ class MVSingleDispatcherTest {
          String lockName = "mv.exec.mv1";
          verify(cluster).lockWrite(lockName);
          verify(cluster).unlockWrite(lockName);
+         verify(cluster).submitAll(any());
+         assertFalse(MVExecLock.isWriting("mv1"));
          verify(cluster).lockKey("mv.fs.update");
          verify(cluster).unlockKey("mv.fs.update");
       }
@@ -22,17 +22,19 @@ import inetsoft.mv.mr.XJobPool;
 import inetsoft.mv.mr.XMapFailure;
 import inetsoft.mv.mr.XMapResult;
 import inetsoft.mv.mr.XMapTask;
+import inetsoft.sree.internal.cluster.AffinityCallable;
+import inetsoft.sree.internal.cluster.Cluster;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockedStatic;
 
 import java.lang.reflect.Constructor;
+import java.util.concurrent.CompletableFuture;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.mockStatic;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 /**
  * Verifies that {@code XMapTaskPool.Handler} attributes a task's result/failure to that task's
@@ -100,11 +102,43 @@ class XMapTaskPoolTest {
       }
    }
 
+   @Test
+   void runsTaskOnTheBlockAffinityNodeWhenEnabled() throws Exception {
+      XBlockSystem sys = mock(XBlockSystem.class);
+      XMapResult result = mock(XMapResult.class);
+      XMapTask task = mock(XMapTask.class);
+      when(task.getOrgID()).thenReturn("orgA");
+      when(task.getXBlock()).thenReturn("mv1-3");
+
+      Cluster cluster = mock(Cluster.class);
+      when(cluster.affinityCallAsync(eq(AffinityMapCall.BLOCK_CACHE), eq("mv1-3"), any()))
+         .thenReturn(CompletableFuture.completedFuture(result));
+
+      try(MockedStatic<XJobPool> jobPoolStatic = mockStatic(XJobPool.class);
+          MockedStatic<Cluster> clusterStatic = mockStatic(Cluster.class))
+      {
+         clusterStatic.when(Cluster::getInstance).thenReturn(cluster);
+
+         newHandler(task, sys, true).run();
+
+         verify(cluster).affinityCallAsync(
+            eq(AffinityMapCall.BLOCK_CACHE), eq("mv1-3"), any(AffinityCallable.class));
+         verify(task, never()).run(any());
+         jobPoolStatic.verify(() -> XJobPool.addResult(same(result), eq("orgA")));
+      }
+   }
+
    private static Runnable newHandler(XMapTask task, XBlockSystem sys) throws Exception {
+      return newHandler(task, sys, false);
+   }
+
+   private static Runnable newHandler(XMapTask task, XBlockSystem sys, boolean affinity)
+      throws Exception
+   {
       Class<?> handlerClass = Class.forName(XMapTaskPool.class.getName() + "$Handler");
       Constructor<?> constructor =
-         handlerClass.getDeclaredConstructor(XMapTask.class, XBlockSystem.class);
+         handlerClass.getDeclaredConstructor(XMapTask.class, XBlockSystem.class, boolean.class);
       constructor.setAccessible(true);
-      return (Runnable) constructor.newInstance(task, sys);
+      return (Runnable) constructor.newInstance(task, sys, affinity);
    }
 }
@@ -0,0 +1,137 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2025  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.report;
+
+import inetsoft.test.*;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that {@link PDFPrinter} embeds images with the same pixels once, and that the page
+ * contents and images compressed by {@link PDFStreamQueue} are written at the offsets in the
+ * cross-reference table.
+ */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { BaseTestConfiguration.class, SwapperTestConfiguration.class }, initializers = ConfigurationContextInitializer.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@SreeHome
+@Tag("core")
+class PDFPrinterImageTest {
+   @Test
+   void sameImageContentIsEmbeddedOnce() {
+      String pdf = render(3, true);
+
+      // one blue, one red and one green image instead of one image per drawImage() call
+      assertEquals(3, count(pdf, "/Subtype /Image"));
+      assertEquals(3, count(pdf, "/Type /Page\n"));
+   }
+
+   @Test
+   void crossReferenceTableMatchesObjectOffsets() {
+      String pdf = render(5, false);
+      int xref = Integer.parseInt(
+         pdf.substring(pdf.lastIndexOf("startxref") + 10, pdf.lastIndexOf("%%EOF")).trim());
+      Matcher matcher = Pattern.compile("(\\d{10}) 00000 n").matcher(pdf);
+      matcher.region(xref, pdf.length());
+      int objects = 0;
+
+      // the table starts with the free entry of object 0
+      for(int id = 1; matcher.find(); id++) {
+         int offset = Integer.parseInt(matcher.group(1));
+         assertTrue(pdf.startsWith(id + " 0 obj", offset), "Wrong offset of object " + id);
+         objects++;
+      }
+
+      assertTrue(objects > 20);
+   }
+
+   @Test
+   void cacheIsBoundedByMemory() {
+      PDFImageCache<String> cache = new PDFImageCache<>(1000);
+      cache.put("a", "1", 400);
+      cache.put("b", "2", 400);
+      cache.get("a");
+      cache.put("c", "3", 400);
+
+      assertEquals("1", cache.get("a"));
+      assertNull(cache.get("b"));
+      assertEquals("3", cache.get("c"));
+      assertEquals(800, cache.getSize());
+
+      cache.put("d", "4", 2000);
+      assertEquals("4", cache.get("d"));
+      assertEquals(2000, cache.getSize());
+
+      cache.putByHash(new byte[] { 1, 2, 3 }, "5");
+      assertEquals("5", cache.getByHash(new byte[] { 1, 2, 3 }));
+      assertNull(cache.getByHash(new byte[] { 1, 2, 4 }));
+   }
+
+   // each page draws a new copy of the same chart image and one image that differs on each page
+   private static String render(int pages, boolean compress) {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      PDFPrinter printer = new PDFPrinter(output);
+      printer.setCompressText(compress);
+      printer.setCompressImage(compress);
+
+      for(int i = 0; i < pages; i++) {
+         printer.drawImage(createImage(Color.BLUE), 10, 10, null);
+         printer.drawImage(createImage(i == 0 ? Color.RED : Color.GREEN), 10, 200, null);
+         printer.drawLine(0, i, 100, i);
+         printer.dispose();
+      }
+
+      printer.close();
+      return output.toString(StandardCharsets.ISO_8859_1);
+   }
+
+   private static BufferedImage createImage(Color color) {
+      BufferedImage image = new BufferedImage(120, 100, BufferedImage.TYPE_INT_RGB);
+      Graphics2D g = image.createGraphics();
+      g.setColor(Color.WHITE);
+      g.fillRect(0, 0, 120, 100);
+      g.setColor(color);
+      g.fillOval(10, 10, 100, 80);
+      g.dispose();
+      return image;
+   }
+
+   private static int count(String text, String sub) {
+      int count = 0;
+
+      for(int idx = text.indexOf(sub); idx >= 0; idx = text.indexOf(sub, idx + sub.length())) {
+         count++;
+      }
+
+      return count;
+   }
+}
@@ -0,0 +1,96 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2025  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.report.composition;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.luben.zstd.Zstd;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that {@link SheetStateCodec} reads states written in either encoding and that states
+ * compressed with a trained dictionary can be read by another node sharing the dictionaries.
+ */
+@Tag("core")
+class SheetStateCodecTest {
+   @Test
+   void binaryStateIsSmallerAndRestoresTheSameState() throws Exception {
+      SheetStateCodec json = new SheetStateCodec(mapper, false, new HashMap<>(), false);
+      SheetStateCodec cbor = new SheetStateCodec(mapper, true, new HashMap<>(), false);
+      RuntimeViewsheetState state = createState(1);
+
+      byte[] jsonData = json.getMapper().writeValueAsBytes(state);
+      byte[] cborData = cbor.getMapper().writeValueAsBytes(state);
+
+      assertTrue(cborData.length < jsonData.length);
+      assertEquals(state, cbor.getMapper(cborData).readValue(cborData, RuntimeViewsheetState.class));
+      // states written before the encoding was changed are still readable
+      assertEquals(state, cbor.getMapper(jsonData).readValue(jsonData, RuntimeViewsheetState.class));
+   }
+
+   @Test
+   void dictionaryIsSharedWithOtherNodes() throws Exception {
+      Map<String, byte[]> dictionaries = new ConcurrentHashMap<>();
+      SheetStateCodec node1 = new SheetStateCodec(mapper, true, dictionaries, true);
+      SheetStateCodec node2 = new SheetStateCodec(mapper, true, dictionaries, false);
+
+      for(int i = 0; i < 200; i++) {
+         node1.compress(node1.getMapper().writeValueAsBytes(createState(i)));
+      }
+
+      Awaitility.await().atMost(Duration.ofSeconds(30)).until(() -> !dictionaries.isEmpty());
+
+      byte[] data = node1.getMapper().writeValueAsBytes(createState(1000));
+      byte[] compressed = node1.compress(data);
+
+      assertNotEquals(0L, Zstd.getDictIdFromFrame(compressed));
+      assertTrue(compressed.length < Zstd.compress(data).length);
+      assertArrayEquals(data, node2.decompress(compressed));
+   }
+
+   @Test
+   void stateWithoutDictionaryIsReadable() {
+      SheetStateCodec codec = new SheetStateCodec(mapper, false, new HashMap<>(), true);
+      byte[] data = "{\"id\":\"vs1\"}".getBytes();
+
+      assertArrayEquals(data, codec.decompress(Zstd.compress(data)));
+   }
+
+   private static RuntimeViewsheetState createState(int index) {
+      RuntimeViewsheetState state = new RuntimeViewsheetState();
+      state.setId("vs" + index);
+      state.setEntry("1^128^__NULL__^Sales Dashboard " + index + "^host-org");
+      state.setUser("<user><name><![CDATA[user" + (index % 7) + "]]></name></user>");
+      state.setVars("<variableTable><variable name=\"region\" value=\"" + index + "\"/></variableTable>");
+      state.setVsDelta(new byte[] { (byte) index, 1, 2, 3 });
+      state.setMode(index % 3);
+      state.setViewer(true);
+      state.setTouchts(1_700_000_000_000L + index);
+      state.setDateCreated(1_700_000_000_000L);
+      return state;
+   }
+
+   private final ObjectMapper mapper = RuntimeSheetCache.createObjectMapper();
+}
@@ -0,0 +1,144 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2025  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.report.composition;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import inetsoft.test.*;
+import inetsoft.web.viewsheet.event.OpenViewsheetEvent;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compares the time and size of the sheet state encodings stored in the cluster cache: the
+ * JSON + Zstd encoding, CBOR + Zstd, and CBOR + Zstd with a trained dictionary. The states
+ * are saved from sample viewsheets and from each interaction step of the sheet, as saved
+ * on every change. It's not part of the core test group and is run from the IDE.
+ */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { BaseTestConfiguration.class, IntegrationTestConfiguration.class }, initializers = ConfigurationContextInitializer.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@SreeHome(importResources = { "EmbeddedVS1.zip", "ExpRefVS.zip" })
+@Tag("integration")
+@Tag("slow")
+class SheetStateEncodingBenchmark {
+   @Test
+   void compareEncodings() throws Exception {
+      ObjectMapper mapper = RuntimeSheetCache.createObjectMapper();
+      List<RuntimeViewsheetState> states = new ArrayList<>();
+
+      for(RuntimeViewsheetExtension resource : List.of(vs1Resource, vs2Resource)) {
+         RuntimeViewsheet rvs = resource.getRuntimeViewsheet();
+
+         for(int i = 0; i < 50; i++) {
+            rvs.getViewsheet().getAssembly("TableView1").getVSAssemblyInfo()
+               .setDescription("step " + i);
+            states.add(rvs.saveState(mapper));
+         }
+      }
+
+      Map<String, byte[]> dictionaries = new ConcurrentHashMap<>();
+      SheetStateCodec dictionary = new SheetStateCodec(mapper, true, dictionaries, true);
+
+      for(RuntimeViewsheetState state : states) {
+         dictionary.compress(dictionary.getMapper().writeValueAsBytes(state));
+      }
+
+      for(int i = 0; dictionaries.isEmpty() && i < 4; i++) {
+         // the dictionary is trained after enough samples are seen
+         for(RuntimeViewsheetState state : states) {
+            dictionary.compress(dictionary.getMapper().writeValueAsBytes(state));
+         }
+      }
+
+      Awaitility.await().atMost(Duration.ofMinutes(1)).until(() -> !dictionaries.isEmpty());
+
+      run("json + zstd", new SheetStateCodec(mapper, false, new HashMap<>(), false), states);
+      run("cbor + zstd", new SheetStateCodec(mapper, true, new HashMap<>(), false), states);
+      run("cbor + zstd dictionary", dictionary, states);
+   }
+
+   private static void run(String name, SheetStateCodec codec, List<RuntimeViewsheetState> states)
+      throws Exception
+   {
+      long size = 0;
+      long encodeTime = 0;
+      long decodeTime = 0;
+
+      for(int round = 0; round < WARMUP + ROUNDS; round++) {
+         size = 0;
+         long start = System.nanoTime();
+         List<byte[]> encoded = new ArrayList<>();
+
+         for(RuntimeViewsheetState state : states) {
+            byte[] data = codec.compress(codec.getMapper().writeValueAsBytes(state));
+            encoded.add(data);
+            size += data.length;
+         }
+
+         long mid = System.nanoTime();
+
+         for(byte[] data : encoded) {
+            byte[] decompressed = codec.decompress(data);
+            codec.getMapper(decompressed).readValue(decompressed, RuntimeViewsheetState.class);
+         }
+
+         long end = System.nanoTime();
+
+         if(round >= WARMUP) {
+            encodeTime += mid - start;
+            decodeTime += end - mid;
+         }
+      }
+
+      System.out.printf(
+         "%-24s states: %d, avg size: %d bytes, encode: %.3f ms/state, decode: %.3f ms/state%n",
+         name, states.size(), size / states.size(),
+         encodeTime / 1e6 / ROUNDS / states.size(), decodeTime / 1e6 / ROUNDS / states.size());
+   }
+
+   private static OpenViewsheetEvent createOpenViewsheetEvent(String assetId) {
+      OpenViewsheetEvent event = new OpenViewsheetEvent();
+      event.setEntryId(assetId);
+      event.setViewer(true);
+      return event;
+   }
+
+   @RegisterExtension
+   @Order(1)
+   RuntimeViewsheetExtension vs1Resource =
+      new RuntimeViewsheetExtension(createOpenViewsheetEvent(VS1_ASSET_ID));
+
+   @RegisterExtension
+   @Order(2)
+   RuntimeViewsheetExtension vs2Resource =
+      new RuntimeViewsheetExtension(createOpenViewsheetEvent(VS2_ASSET_ID));
+
+   private static final int WARMUP = 5;
+   private static final int ROUNDS = 20;
+   private static final String VS1_ASSET_ID = "1^128^__NULL__^EmbeddedVS1^host-org";
+   private static final String VS2_ASSET_ID = "1^128^__NULL__^ExpRefVS^host-org";
+}
@@ -0,0 +1,169 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2025  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.report.composition;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that {@link SheetStateTracker} only encodes the properties changed since the last
+ * checkpoint and that the checkpoint plus the latest delta restores the current state.
+ */
+@Tag("core")
+class SheetStateTrackerTest {
+   @Test
+   void firstSaveWritesTheFullState() throws Exception {
+      SheetStateTracker tracker = createTracker(20);
+      SheetStateTracker.Update update = encode(tracker, createState("<vs/>"));
+
+      assertFalse(update.delta());
+      assertEquals(createState("<vs/>"),
+                   tracker.restore(update.data(), null, RuntimeViewsheetState.class));
+   }
+
+   @Test
+   void deltaOnlyHoldsChangedProperties() throws Exception {
+      SheetStateTracker tracker = createTracker(20);
+      SheetStateTracker.Update checkpoint = encode(tracker, createState("<vs/>"));
+
+      RuntimeViewsheetState state = createState("<vs/>");
+      state.setVars("<vars changed='true'/>");
+      SheetStateTracker.Update delta = encode(tracker, state);
+
+      assertTrue(delta.delta());
+      assertEquals(checkpoint.version(), delta.version());
+
+      JsonNode node = mapper.readTree(delta.data());
+      assertEquals(List.of("vars"), iteratorToList(node.fieldNames()));
+      assertEquals(state, tracker.restore(checkpoint.data(), delta.data(),
+                                          RuntimeViewsheetState.class));
+   }
+
+   @Test
+   void deltaHoldsAllChangesSinceTheCheckpoint() throws Exception {
+      SheetStateTracker tracker = createTracker(20);
+      SheetStateTracker.Update checkpoint = encode(tracker, createState("<vs/>"));
+
+      RuntimeViewsheetState state = createState("<vs/>");
+      state.setVars("<vars/>");
+      encode(tracker, state);
+      state.setMode(2);
+      SheetStateTracker.Update delta = encode(tracker, state);
+
+      assertTrue(delta.delta());
+      assertEquals(state, tracker.restore(checkpoint.data(), delta.data(),
+                                          RuntimeViewsheetState.class));
+   }
+
+   @Test
+   void checkpointIsWrittenAfterTheInterval() throws Exception {
+      SheetStateTracker tracker = createTracker(2);
+      SheetStateTracker.Update checkpoint = encode(tracker, createState("<vs/>"));
+      RuntimeViewsheetState state = createState("<vs/>");
+
+      state.setMode(1);
+      assertTrue(encode(tracker, state).delta());
+      state.setMode(2);
+      assertTrue(encode(tracker, state).delta());
+      state.setMode(3);
+      SheetStateTracker.Update next = encode(tracker, state);
+
+      assertFalse(next.delta());
+      assertNotEquals(checkpoint.version(), next.version());
+   }
+
+   @Test
+   void largeChangeWritesTheFullState() throws Exception {
+      SheetStateTracker tracker = createTracker(20);
+      encode(tracker, createState("<vs/>"));
+      RuntimeViewsheetState state = createState("<vs/>");
+      state.setOriginalVs("<viewsheet>" + "<chart/>".repeat(1000) + "</viewsheet>");
+
+      assertFalse(encode(tracker, state).delta());
+   }
+
+   @Test
+   void checkpointOfAnotherNodeWritesTheFullState() throws Exception {
+      SheetStateTracker tracker = createTracker(20);
+      RuntimeViewsheetState state = createState("<vs/>");
+      encode(tracker, state);
+
+      // another node replaced the checkpoint in the cluster
+      storedVersion = 42L;
+      state.setMode(1);
+      SheetStateTracker.Update next = encode(tracker, state);
+
+      assertFalse(next.delta());
+      assertEquals(next.version(), storedVersion);
+   }
+
+   @Test
+   void resetWritesTheFullStateOnNextSave() throws Exception {
+      SheetStateTracker tracker = createTracker(20);
+      RuntimeViewsheetState state = createState("<vs/>");
+      encode(tracker, state);
+      tracker.reset("vs1");
+      state.setMode(1);
+
+      assertFalse(encode(tracker, state).delta());
+   }
+
+   private SheetStateTracker.Update encode(SheetStateTracker tracker,
+                                           RuntimeViewsheetState state) throws Exception
+   {
+      SheetStateTracker.Update update = tracker.encode("vs1", state, () -> storedVersion);
+
+      if(!update.delta()) {
+         storedVersion = update.version();
+      }
+
+      return update;
+   }
+
+   private SheetStateTracker createTracker(int checkpointInterval) {
+      return new SheetStateTracker(
+         new SheetStateCodec(mapper, false, new HashMap<>(), false), checkpointInterval);
+   }
+
+   private static RuntimeViewsheetState createState(String vs) {
+      RuntimeViewsheetState state = new RuntimeViewsheetState();
+      state.setId("vs1");
+      state.setUser("<user/>");
+      // the original viewsheet dominates the state size as it does for a real sheet
+      state.setOriginalVs("<viewsheet>" + "<assembly/>".repeat(1000) + "</viewsheet>");
+      state.setVs(vs);
+      state.setViewer(true);
+      return state;
+   }
+
+   private static List<String> iteratorToList(Iterator<String> iterator) {
+      List<String> list = new ArrayList<>();
+      iterator.forEachRemaining(list::add);
+      return list;
+   }
+
+   private final ObjectMapper mapper = RuntimeSheetCache.createObjectMapper();
+   // the version of the checkpoint in the cluster
+   private long storedVersion;
+}
@@ -0,0 +1,122 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2025  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.report.composition.execution;
+
+import inetsoft.report.composition.graph.VGraphPair;
+import inetsoft.sree.SreeEnv;
+import inetsoft.test.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@Tag("core")
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { BaseTestConfiguration.class }, initializers = ConfigurationContextInitializer.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@SreeHome
+class RetainedGraphsTest {
+   @BeforeEach
+   void setUp() {
+      SreeEnv.setProperty("chart.retained.graphs", "4");
+   }
+
+   @AfterEach
+   void tearDown() {
+      SreeEnv.remove("chart.retained.graphs");
+   }
+
+   @Test
+   void retainsCompletedStates() {
+      RetainedGraphs graphs = new RetainedGraphs();
+      VGraphPair pair = createPair("a");
+      graphs.retain("Chart1", pair);
+
+      assertSame(pair, graphs.get("Chart1", "a"));
+      assertNull(graphs.get("Chart1", "b"));
+      assertNull(graphs.get("Chart2", "a"));
+   }
+
+   @Test
+   void ignoresIncompleteStates() {
+      RetainedGraphs graphs = new RetainedGraphs();
+      VGraphPair pair = createPair("a");
+      when(pair.isPlotted()).thenReturn(false);
+      graphs.retain("Chart1", pair);
+      graphs.retain("Chart1", createPair(null));
+
+      assertNull(graphs.get("Chart1", "a"));
+   }
+
+   @Test
+   void removesLeastRecentlyUsedState() {
+      SreeEnv.setProperty("chart.retained.graphs", "2");
+      RetainedGraphs graphs = new RetainedGraphs();
+      graphs.retain("Chart1", createPair("a"));
+      graphs.retain("Chart1", createPair("b"));
+      assertNotNull(graphs.get("Chart1", "a"));
+      graphs.retain("Chart1", createPair("c"));
+
+      assertNotNull(graphs.get("Chart1", "a"));
+      assertNull(graphs.get("Chart1", "b"));
+      assertNotNull(graphs.get("Chart1", "c"));
+   }
+
+   @Test
+   void disabledByProperty() {
+      SreeEnv.setProperty("chart.retained.graphs", "0");
+      RetainedGraphs graphs = new RetainedGraphs();
+      graphs.retain("Chart1", createPair("a"));
+
+      assertFalse(graphs.isEnabled());
+      assertNull(graphs.get("Chart1", "a"));
+   }
+
+   @Test
+   void disabledByDefault() {
+      SreeEnv.remove("chart.retained.graphs");
+      RetainedGraphs graphs = new RetainedGraphs();
+      graphs.retain("Chart1", createPair("a"));
+
+      assertFalse(graphs.isEnabled());
+      assertNull(graphs.get("Chart1", "a"));
+   }
+
+   @Test
+   void removesChartStates() {
+      RetainedGraphs graphs = new RetainedGraphs();
+      graphs.retain("Chart1", createPair("a"));
+      graphs.retain("Chart2", createPair("a"));
+      graphs.remove("Chart1");
+
+      assertNull(graphs.get("Chart1", "a"));
+      assertNotNull(graphs.get("Chart2", "a"));
+   }
+
+   private static VGraphPair createPair(String key) {
+      VGraphPair pair = mock(VGraphPair.class);
+      when(pair.getStateKey()).thenReturn(key);
+      when(pair.isCompleted()).thenReturn(true);
+      when(pair.isPlotted()).thenReturn(true);
+      return pair;
+   }
+}
@@ -0,0 +1,93 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2025  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package inetsoft.report.composition.execution;
+
+import inetsoft.sree.SreeEnv;
+import inetsoft.sree.security.IdentityID;
+import inetsoft.test.*;
+import inetsoft.uql.XPrincipal;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.MockedStatic;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mockStatic;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { BaseTestConfiguration.class }, initializers = ConfigurationContextInitializer.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@SreeHome
+@Tag("core")
+class ScheduleQueryWindowTest {
+   @Test
+   void tasksStartedWithinTheWindowShareTheWindow() {
+      String first = ScheduleQueryWindow.getCurrentWindow(1000L, 50_000L);
+
+      assertEquals(first, ScheduleQueryWindow.getCurrentWindow(1000L, 50_500L));
+      assertEquals(first, ScheduleQueryWindow.getCurrentWindow(1000L, 50_999L));
+      assertNotEquals(first, ScheduleQueryWindow.getCurrentWindow(1000L, 51_000L));
+   }
+
+   @Test
+   void joinRecordsTheWindowOnThePrincipal() {
+      XPrincipal first = new XPrincipal(new IdentityID("admin", "host-org"));
+      XPrincipal second = new XPrincipal(new IdentityID("guest", "host-org"));
+
+      try(MockedStatic<SreeEnv> env = mockStatic(SreeEnv.class)) {
+         env.when(() -> SreeEnv.getProperty(eq("schedule.query.window"), anyString()))
+            .thenReturn("600000");
+
+         ScheduleQueryWindow.join(first);
+         ScheduleQueryWindow.join(second);
+      }
+
+      assertNotNull(ScheduleQueryWindow.getWindow(first));
+      assertEquals(ScheduleQueryWindow.getWindow(first), ScheduleQueryWindow.getWindow(second));
+   }
+
+   @Test
+   void joinIsIgnoredWhenSharingIsDisabled() {
+      XPrincipal user = new XPrincipal(new IdentityID("admin", "host-org"));
+
+      try(MockedStatic<SreeEnv> env = mockStatic(SreeEnv.class)) {
+         env.when(() -> SreeEnv.getProperty(eq("schedule.query.window"), anyString()))
+            .thenReturn("0");
+
+         ScheduleQueryWindow.join(user);
+      }
+
+      assertNull(ScheduleQueryWindow.getWindow(user));
+      assertNull(ScheduleQueryWindow.getWindow(null));
+   }
+
+   @Test
+   void sharingIsDisabledByDefault() {
+      XPrincipal user = new XPrincipal(new IdentityID("admin", "host-org"));
+
+      assertEquals(0L, ScheduleQueryWindow.getWindowLength());
+      ScheduleQueryWindow.join(user);
+      assertNull(ScheduleQueryWindow.getWindow(user));
+   }
+}
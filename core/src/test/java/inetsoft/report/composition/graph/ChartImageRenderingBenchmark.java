@@ -0,0 +1,177 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2025  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.report.composition.graph;
+
+import inetsoft.report.internal.png.PNGEncoder;
+import inetsoft.test.*;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.geom.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Compares the time to encode a 1920x1080 line and point chart with ImageIO and with the PNG
+ * encoder at different compression levels, with and without adaptive filtering and parallel
+ * compression. The chart is
+ * painted with the same primitives as the line and point visual objects, since the SVG support
+ * used by the graph painting is not in the core module. It's not part of the core test group and
+ * is run from the IDE.
+ */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { BaseTestConfiguration.class }, initializers = ConfigurationContextInitializer.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@SreeHome
+@Tag("slow")
+class ChartImageRenderingBenchmark {
+   @Test
+   void compareRendering() throws Exception {
+      BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+      Graphics2D g = image.createGraphics();
+      createChart().accept(g);
+      g.dispose();
+
+      encode("imageio", () -> {
+         ByteArrayOutputStream output = new ByteArrayOutputStream();
+         ImageIO.write(image, "png", output);
+         return output.toByteArray();
+      });
+
+      for(int level : new int[] { 1, 3, 6 }) {
+         for(boolean filtered : new boolean[] { false, true }) {
+            for(boolean parallel : new boolean[] { false, true }) {
+               encode(String.format("level %d%s%s", level, filtered ? " filtered" : "",
+                                    parallel ? " parallel" : ""), () -> {
+                  ByteArrayOutputStream output = new ByteArrayOutputStream();
+                  PNGEncoder encoder = new PNGEncoder(image, true);
+                  encoder.setCompressionLevel(level);
+                  encoder.setFiltered(filtered);
+                  encoder.setParallel(parallel);
+                  encoder.encode(output);
+                  return output.toByteArray();
+               });
+            }
+         }
+      }
+   }
+
+   private static void encode(String name, Encoder encoder) throws Exception {
+      long time = 0;
+      int size = 0;
+
+      for(int round = 0; round < WARMUP + ROUNDS; round++) {
+         long start = System.nanoTime();
+         size = encoder.encode().length;
+
+         if(round >= WARMUP) {
+            time += System.nanoTime() - start;
+         }
+      }
+
+      System.out.printf("%-28s size: %d bytes, %.3f ms/image%n", name, size, time / 1e6 / ROUNDS);
+   }
+
+   // a line and point chart of daily sales of 5 regions over a year, with grid lines and labels
+   private static Consumer<Graphics2D> createChart() {
+      Random random = new Random(1L);
+      double[][] sales = new double[5][365];
+
+      for(int i = 0; i < sales.length; i++) {
+         double value = 5000;
+
+         for(int j = 0; j < 365; j++) {
+            value = Math.max(0, Math.min(10000, value + random.nextGaussian() * 300));
+            sales[i][j] = value;
+         }
+      }
+
+      Color[] colors = { new Color(0x518db9), new Color(0xb1dbee), new Color(0xfbb06f),
+                         new Color(0xe7685c), new Color(0x83bf7e) };
+      Font font = new Font(Font.SANS_SERIF, Font.PLAIN, 11);
+      double left = 60, top = 20, width = WIDTH - 200, height = HEIGHT - 60;
+
+      return g -> {
+         g.setColor(Color.WHITE);
+         g.fillRect(0, 0, WIDTH, HEIGHT);
+         g.setFont(font);
+
+         for(int i = 0; i <= 10; i++) {
+            double y = top + height - height * i / 10;
+            g.setColor(new Color(0xeeeeee));
+            g.draw(new Line2D.Double(left, y, left + width, y));
+            g.setColor(Color.DARK_GRAY);
+            g.drawString(Integer.toString(i * 1000), 10, (float) y + 4);
+         }
+
+         for(int j = 0; j < 365; j += 30) {
+            g.drawString("Day " + j, (float) (left + width * j / 365), (float) (top + height + 16));
+         }
+
+         g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+         for(int i = 0; i < sales.length; i++) {
+            Path2D path = new Path2D.Double();
+            g.setColor(colors[i]);
+            g.setStroke(new BasicStroke(2f));
+
+            for(int j = 0; j < 365; j++) {
+               double x = left + width * j / 365;
+               double y = top + height - height * sales[i][j] / 10000;
+
+               if(j == 0) {
+                  path.moveTo(x, y);
+               }
+               else {
+                  path.lineTo(x, y);
+               }
+            }
+
+            g.draw(path);
+
+            for(int j = 0; j < 365; j++) {
+               g.fill(new Ellipse2D.Double(left + width * j / 365 - 2.5,
+                  top + height - height * sales[i][j] / 10000 - 2.5, 5, 5));
+            }
+
+            g.fill(new Rectangle2D.Double(WIDTH - 120, top + i * 20, 10, 10));
+            g.setColor(Color.DARK_GRAY);
+            g.drawString("Region " + i, WIDTH - 105, (float) (top + i * 20 + 10));
+         }
+
+         g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+      };
+   }
+
+   private interface Encoder {
+      byte[] encode() throws Exception;
+   }
+
+   private static final int WIDTH = 1920;
+   private static final int HEIGHT = 1080;
+   private static final int WARMUP = 5;
+   private static final int ROUNDS = 20;
+}
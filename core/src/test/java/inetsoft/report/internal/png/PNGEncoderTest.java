@@ -0,0 +1,179 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2025  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.report.internal.png;
+
+import inetsoft.test.*;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.geom.Ellipse2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.util.Random;
+import java.util.zip.Adler32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { BaseTestConfiguration.class }, initializers = ConfigurationContextInitializer.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@SreeHome
+@Tag("core")
+class PNGEncoderTest {
+   @Test
+   void filteredImageIsDecodedUnchanged() throws Exception {
+      BufferedImage image = createImage(300, 200);
+      assertPixelsEqual(image, decode(encode(image, true, false, -1)));
+   }
+
+   @Test
+   void parallelStripesAreDecodedUnchanged() throws Exception {
+      BufferedImage image = createImage(1920, 1080);
+      PNGWriter writer = new PNGWriter(
+         new PNGImage(image, 8, true), PNGConstants.PNG_ZBUF_SIZE, new PNGUtil(true, true), true);
+      assertTrue(writer.getStripeCount() > 1 || Runtime.getRuntime().availableProcessors() == 1);
+
+      for(int level : new int[] { 1, 6, 9 }) {
+         assertPixelsEqual(image, decode(encode(image, true, true, level)));
+      }
+   }
+
+   @Test
+   void parallelStripesCompressCloseToSequential() throws Exception {
+      BufferedImage image = createImage(1920, 1080);
+      int sequential = encode(image, true, false, -1).length;
+      int parallel = encodeStripes(image, 8).length;
+
+      assertTrue(parallel < sequential * 1.05, parallel + " vs " + sequential);
+   }
+
+   @Test
+   void adaptiveFilterIsDecodedUnchanged() throws Exception {
+      // a noisy gradient, where each of the filters is selected for some rows
+      BufferedImage image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_ARGB);
+      Random random = new Random(1L);
+
+      for(int y = 0; y < 600; y++) {
+         for(int x = 0; x < 800; x++) {
+            int value = (x + y) * 250 / 1400 + random.nextInt(5);
+            image.setRGB(x, y, new Color(value, 255 - value, value / 2).getRGB());
+         }
+      }
+
+      assertPixelsEqual(image, decode(encode(image, true, false, -1)));
+      assertPixelsEqual(image, decode(encodeStripes(image, 4)));
+   }
+
+   @Test
+   void combinedAdler32MatchesWholeChecksum() {
+      byte[] data = new byte[100000];
+      new Random(1L).nextBytes(data);
+
+      Adler32 whole = new Adler32();
+      whole.update(data);
+      Adler32 first = new Adler32();
+      first.update(data, 0, 40000);
+      Adler32 second = new Adler32();
+      second.update(data, 40000, 60000);
+
+      assertEquals(whole.getValue(),
+         PNGWriter.combineAdler32(first.getValue(), second.getValue(), 60000));
+      assertEquals(first.getValue(), PNGWriter.combineAdler32(1L, first.getValue(), 40000));
+   }
+
+   private static byte[] encode(BufferedImage image, boolean filtered, boolean parallel,
+                                int level) throws Exception
+   {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      PNGEncoder encoder = new PNGEncoder(image, true);
+      encoder.setFiltered(filtered);
+      encoder.setParallel(parallel);
+      encoder.setCompressionLevel(level);
+      encoder.encode(output);
+      return output.toByteArray();
+   }
+
+   private static byte[] encodeStripes(BufferedImage image, int stripes) throws Exception {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      DataOutputStream dout = new DataOutputStream(output);
+      PNGWriter writer = new PNGWriter(
+         new PNGImage(image, 8, true), PNGConstants.PNG_ZBUF_SIZE, new PNGUtil(true, true), true);
+      writer.writeSignature(dout);
+      writer.writeIHDR(dout);
+      writer.writeImageData(dout, stripes);
+      writer.writeIEND(dout);
+      dout.flush();
+
+      assertPixelsEqual(image, decode(output.toByteArray()));
+      return output.toByteArray();
+   }
+
+   private static BufferedImage decode(byte[] data) throws Exception {
+      return ImageIO.read(new ByteArrayInputStream(data));
+   }
+
+   private static void assertPixelsEqual(BufferedImage expected, BufferedImage actual) {
+      assertEquals(expected.getWidth(), actual.getWidth());
+      assertEquals(expected.getHeight(), actual.getHeight());
+
+      for(int y = 0; y < expected.getHeight(); y++) {
+         for(int x = 0; x < expected.getWidth(); x++) {
+            int pixel = expected.getRGB(x, y);
+
+            // fully transparent pixels are written as transparent white
+            if((pixel >>> 24) == 0) {
+               pixel = 0x00ffffff;
+            }
+
+            assertEquals(pixel, actual.getRGB(x, y), "Pixel at " + x + ", " + y);
+         }
+      }
+   }
+
+   // an anti-aliased scatter plot with grid lines, similar to a chart image
+   private static BufferedImage createImage(int width, int height) {
+      BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+      Graphics2D g = image.createGraphics();
+      Random random = new Random(1L);
+      g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+      g.setColor(Color.WHITE);
+      g.fillRect(0, 0, width, height / 2);
+      g.setColor(Color.LIGHT_GRAY);
+
+      for(int y = 0; y < height; y += 40) {
+         g.drawLine(0, y, width, y);
+      }
+
+      for(int i = 0; i < 2000; i++) {
+         g.setColor(new Color(random.nextInt(0x1000000)));
+         g.fill(new Ellipse2D.Double(
+            random.nextDouble() * width, random.nextDouble() * height, 6, 6));
+      }
+
+      g.dispose();
+      return image;
+   }
+}
@@ -0,0 +1,138 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2025  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.report.io.viewsheet;
+
+import inetsoft.analytic.composition.VSPortalHelper;
+import inetsoft.graph.VGraph;
+import inetsoft.graph.data.DataSet;
+import inetsoft.report.composition.ChangedAssemblyList;
+import inetsoft.report.composition.RuntimeViewsheet;
+import inetsoft.report.composition.execution.ViewsheetSandbox;
+import inetsoft.report.io.viewsheet.excel.CSVVSExporter;
+import inetsoft.sree.SreeEnv;
+import inetsoft.test.*;
+import inetsoft.uql.viewsheet.ChartVSAssembly;
+import inetsoft.uql.viewsheet.Viewsheet;
+import inetsoft.web.viewsheet.event.OpenViewsheetEvent;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.awt.*;
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(
+   classes = { BaseTestConfiguration.class, IntegrationTestConfiguration.class },
+   initializers = ConfigurationContextInitializer.class
+)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@SreeHome(importResources = "ParallelExportTest.zip")
+@Tag("core")
+@Tag("integration")
+class ParallelExportTest {
+   @AfterEach
+   void resetProperty() {
+      SreeEnv.remove("export.assembly.parallel.count");
+   }
+
+   @Test
+   void parallelExportMatchesSequentialExport() throws Exception {
+      RuntimeViewsheet rvs = viewsheetResource.getRuntimeViewsheet();
+      ViewsheetSandbox box = rvs.getViewsheetSandbox().orElseThrow();
+      Viewsheet vs = rvs.getViewsheet();
+      ChartVSAssembly chart = (ChartVSAssembly) vs.getAssembly("Chart1");
+
+      for(int i = 2; i <= CHART_COUNT; i++) {
+         ChartVSAssembly copy = (ChartVSAssembly) chart.clone();
+         copy.getVSAssemblyInfo().setName("Chart" + i);
+         Point offset = chart.getPixelOffset();
+         copy.setPixelOffset(new Point(offset.x, offset.y + chart.getPixelSize().height * i));
+         vs.addAssembly(copy, false);
+      }
+
+      box.resetAll(new ChangedAssemblyList());
+
+      SreeEnv.setProperty("export.assembly.parallel.count", "1");
+      Map<String, String> sequential = export(rvs, box);
+      SreeEnv.setProperty("export.assembly.parallel.count", "4");
+      Map<String, String> parallel = export(rvs, box);
+
+      assertEquals(CHART_COUNT, sequential.size());
+      assertEquals(sequential, parallel);
+   }
+
+   private static Map<String, String> export(RuntimeViewsheet rvs, ViewsheetSandbox box)
+      throws Exception
+   {
+      Map<String, String> charts = new TreeMap<>();
+      ChartRecorder exporter = new ChartRecorder(charts);
+      exporter.setRuntimeViewsheet(rvs);
+      exporter.export(box, "Current View", new VSPortalHelper());
+      return charts;
+   }
+
+   private static OpenViewsheetEvent createOpenViewsheetEvent() {
+      OpenViewsheetEvent event = new OpenViewsheetEvent();
+      event.setEntryId(ASSET_ID);
+      event.setViewer(true);
+      return event;
+   }
+
+   /**
+    * Records the data and layout of each exported chart.
+    */
+   private static final class ChartRecorder extends CSVVSExporter {
+      ChartRecorder(Map<String, String> charts) {
+         super(new ByteArrayOutputStream(), null);
+         this.charts = charts;
+      }
+
+      @Override
+      protected void writeChart(ChartVSAssembly chartAsm, VGraph vgraph, DataSet data,
+                                boolean imgOnly)
+      {
+         StringBuilder chart = new StringBuilder();
+         chart.append(vgraph.getBounds()).append(vgraph.getPlotBounds());
+
+         for(int r = 0; r < data.getRowCount(); r++) {
+            for(int c = 0; c < data.getColCount(); c++) {
+               chart.append(',').append(data.getData(c, r));
+            }
+         }
+
+         charts.put(chartAsm.getAbsoluteName(), chart.toString());
+      }
+
+      private final Map<String, String> charts;
+   }
+
+   @RegisterExtension
+   RuntimeViewsheetExtension viewsheetResource =
+      new RuntimeViewsheetExtension(createOpenViewsheetEvent());
+
+   private static final int CHART_COUNT = 6;
+   private static final String ASSET_ID = "1^128^__NULL__^TEST_GraphRender";
+}
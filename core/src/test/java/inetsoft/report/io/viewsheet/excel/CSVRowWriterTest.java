@@ -0,0 +1,144 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2025  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.report.io.viewsheet.excel;
+
+import org.junit.jupiter.api.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("core")
+class CSVRowWriterTest {
+   @Test
+   void linesAreWrittenInOrder() throws Exception {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+      try(CSVRowWriter writer = new CSVRowWriter(out, "UTF8", 3, 2)) {
+         for(int i = 0; i < 10; i++) {
+            writer.add("row" + i);
+         }
+
+         writer.finish();
+      }
+
+      String[] lines = out.toString(StandardCharsets.UTF_8).split(System.lineSeparator());
+      assertEquals(10, lines.length);
+
+      for(int i = 0; i < lines.length; i++) {
+         assertEquals("row" + i, lines[i]);
+      }
+   }
+
+   @Test
+   @Timeout(30)
+   void readingBlocksWhileTheOutputIsBehind() throws Exception {
+      CountDownLatch release = new CountDownLatch(1);
+      AtomicInteger flushes = new AtomicInteger();
+      OutputStream out = new OutputStream() {
+         @Override
+         public void write(int b) {
+         }
+
+         @Override
+         public void write(byte[] b, int off, int len) {
+         }
+
+         @Override
+         public void flush() throws IOException {
+            flushes.incrementAndGet();
+
+            try {
+               release.await();
+            }
+            catch(InterruptedException e) {
+               throw new InterruptedIOException();
+            }
+         }
+      };
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      AtomicInteger added = new AtomicInteger();
+
+      try(CSVRowWriter writer = new CSVRowWriter(out, null, 1, 2)) {
+         Future<?> reader = executor.submit(() -> {
+            for(int i = 0; i < 100; i++) {
+               writer.add("row" + i);
+               added.incrementAndGet();
+            }
+
+            writer.finish();
+            return null;
+         });
+
+         Thread.sleep(500);
+         // one batch is being written and two are waiting in the buffer
+         assertFalse(reader.isDone());
+         assertTrue(added.get() <= 4, "added " + added.get());
+
+         release.countDown();
+         reader.get(20, TimeUnit.SECONDS);
+         assertEquals(100, added.get());
+         assertEquals(100, flushes.get());
+      }
+      finally {
+         executor.shutdownNow();
+      }
+   }
+
+   @Test
+   @Timeout(30)
+   void outputErrorIsThrownToTheReader() throws Exception {
+      OutputStream out = new OutputStream() {
+         @Override
+         public void write(int b) throws IOException {
+            throw new IOException("closed");
+         }
+      };
+
+      try(CSVRowWriter writer = new CSVRowWriter(out, null, 1, 1)) {
+         IOException ex = assertThrows(IOException.class, () -> {
+            for(int i = 0; i < 1000; i++) {
+               writer.add("row" + i);
+            }
+
+            writer.finish();
+         });
+
+         assertEquals("closed", ex.getMessage());
+      }
+   }
+
+   @Test
+   @Timeout(30)
+   void closeStopsTheWriterWhenNotFinished() throws Exception {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      CSVRowWriter writer = new CSVRowWriter(out, null, 1, 1);
+      writer.add("row0");
+      writer.close();
+
+      // the writer thread exits instead of waiting for more lines
+      assertThrows(IOException.class, () -> {
+         for(int i = 0; i < 1000; i++) {
+            writer.add("row" + i);
+         }
+      });
+   }
+}
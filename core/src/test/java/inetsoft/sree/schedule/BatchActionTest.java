@@ -33,6 +33,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.MockedStatic;
 import org.springframework.test.annotation.DirtiesContext;
@@ -42,6 +43,7 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import java.lang.reflect.Method;
 import java.security.Principal;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -163,6 +165,124 @@ class BatchActionTest {
          }
       }
 
+      @Test
+      void embeddedParameters_parallelCount_runsEveryClonedTask() throws Throwable {
+         BatchAction batchAction = new BatchAction();
+         batchAction.setParallelCount(2);
+         batchAction.setEmbeddedParameters(
+            List.of(Map.of("col1", "north"), Map.of("col1", "south")));
+
+         ScheduleTask sourceTask = buildTaskWithViewsheetAction("embedded-parallel");
+         ScheduleTask northTask = spy(buildTaskWithViewsheetAction("embedded-parallel"));
+         ScheduleTask southTask = spy(buildTaskWithViewsheetAction("embedded-parallel"));
+
+         try(MockedStatic<ScheduleTask> copyMock = mockStatic(ScheduleTask.class)) {
+            copyMock.when(() -> ScheduleTask.copyScheduleTask(sourceTask))
+               .thenReturn(northTask, southTask);
+            doNothing().when(northTask).run(admin);
+            doNothing().when(southTask).run(admin);
+
+            invokeEmbedded(batchAction, sourceTask, admin);
+
+            verify(northTask).run(admin);
+            verify(southTask).run(admin);
+            assertEquals("north", ((ViewsheetAction) northTask.getAction(0))
+               .getViewsheetRequest().getParameter("col1"));
+            assertEquals("south", ((ViewsheetAction) southTask.getAction(0))
+               .getViewsheetRequest().getParameter("col1"));
+         }
+      }
+
+      @Test
+      void embeddedParameters_parallelFailure_runsRemainingTasksAndRethrows() throws Throwable {
+         BatchAction batchAction = new BatchAction();
+         batchAction.setParallelCount(2);
+         batchAction.setEmbeddedParameters(
+            List.of(Map.of("col1", "north"), Map.of("col1", "south")));
+
+         ScheduleTask sourceTask = buildTaskWithViewsheetAction("embedded-parallel-fail");
+         ScheduleTask northTask = spy(buildTaskWithViewsheetAction("embedded-parallel-fail"));
+         ScheduleTask southTask = spy(buildTaskWithViewsheetAction("embedded-parallel-fail"));
+
+         try(MockedStatic<ScheduleTask> copyMock = mockStatic(ScheduleTask.class)) {
+            copyMock.when(() -> ScheduleTask.copyScheduleTask(sourceTask))
+               .thenReturn(northTask, southTask);
+            doThrow(new IllegalStateException("north failed")).when(northTask).run(admin);
+            doNothing().when(southTask).run(admin);
+
+            IllegalStateException ex = assertThrows(
+               IllegalStateException.class, () -> invokeEmbedded(batchAction, sourceTask, admin));
+
+            assertEquals("north failed", ex.getMessage());
+            verify(southTask).run(admin);
+         }
+      }
+
+      @Test
+      void embeddedParameters_parallelCount_runsEachTaskWithOwnPrincipal() throws Throwable {
+         BatchAction batchAction = new BatchAction();
+         batchAction.setParallelCount(2);
+         batchAction.setEmbeddedParameters(
+            List.of(Map.of("col1", "north"), Map.of("col1", "south")));
+
+         ScheduleTask sourceTask = buildTaskWithViewsheetAction("embedded-principal");
+         ScheduleTask northTask = spy(buildTaskWithViewsheetAction("embedded-principal"));
+         ScheduleTask southTask = spy(buildTaskWithViewsheetAction("embedded-principal"));
+         List<Principal> principals = Collections.synchronizedList(new ArrayList<>());
+
+         try(MockedStatic<ScheduleTask> copyMock = mockStatic(ScheduleTask.class)) {
+            copyMock.when(() -> ScheduleTask.copyScheduleTask(sourceTask))
+               .thenReturn(northTask, southTask);
+            doAnswer(inv -> principals.add(inv.getArgument(0))).when(northTask).run(any());
+            doAnswer(inv -> principals.add(inv.getArgument(0))).when(southTask).run(any());
+
+            invokeEmbedded(batchAction, sourceTask, admin);
+
+            assertEquals(2, principals.size());
+            assertNotSame(admin, principals.get(0));
+            assertNotSame(admin, principals.get(1));
+            assertNotSame(principals.get(0), principals.get(1));
+            assertEquals(admin, principals.get(0));
+         }
+      }
+
+      @Test
+      @Timeout(30)
+      void embeddedParameters_cancel_stopsRunningBurst() throws Throwable {
+         BatchAction batchAction = new BatchAction();
+         batchAction.setParallelCount(2);
+         batchAction.setEmbeddedParameters(
+            List.of(Map.of("col1", "north"), Map.of("col1", "south"), Map.of("col1", "east")));
+
+         ScheduleTask sourceTask = buildTaskWithViewsheetAction("embedded-cancel");
+         ScheduleTask blockedTask = spy(buildTaskWithViewsheetAction("embedded-cancel"));
+         CountDownLatch started = new CountDownLatch(2);
+
+         try(MockedStatic<ScheduleTask> copyMock = mockStatic(ScheduleTask.class)) {
+            copyMock.when(() -> ScheduleTask.copyScheduleTask(sourceTask)).thenReturn(blockedTask);
+            doAnswer(inv -> {
+               started.countDown();
+               Thread.sleep(60000L);
+               return null;
+            }).when(blockedTask).run(any());
+            doNothing().when(blockedTask).cancel();
+
+            Thread canceller = new Thread(() -> {
+               try {
+                  started.await();
+                  batchAction.cancel();
+               }
+               catch(InterruptedException ignore) {
+               }
+            });
+            canceller.start();
+
+            invokeEmbedded(batchAction, sourceTask, admin);
+            canceller.join();
+            verify(blockedTask, atLeastOnce()).cancel();
+         }
+      }
+
       @Test
       void embeddedParameters_nullList_skipsCloneAndRun() throws Throwable {
          BatchAction batchAction = new BatchAction();
@@ -196,6 +196,18 @@ class ScheduleActionXmlRoundTripTest {
       assertEquals("Q2",    loadedEmbedded.get(1).get("quarter"));
    }
 
+   @Test
+   void batchAction_parallelCountRoundTrip() throws Exception {
+      BatchAction original = new BatchAction();
+      original.setTaskId("scheduler-test^host:parallel-task");
+      original.setParallelCount(4);
+
+      BatchAction loaded = roundTripAction(original, BatchAction.class);
+
+      assertEquals(4, loaded.getParallelCount());
+      assertEquals(original, loaded);
+   }
+
    // -----------------------------------------------------------------------
    // ScheduleTask container round-trip
    // -----------------------------------------------------------------------
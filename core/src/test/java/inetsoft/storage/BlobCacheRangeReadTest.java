@@ -0,0 +1,147 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2025  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.storage;
+
+import inetsoft.storage.fs.FilesystemBlobEngine;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that {@link BlobCache} reads the blobs that are not cached by range, and adds them to
+ * the cache when they are read completely or opened repeatedly.
+ */
+@Tag("core")
+class BlobCacheRangeReadTest {
+   @BeforeEach
+   void setUp() throws Exception {
+      System.setProperty("inetsoft.storage.blob.pageSize", Integer.toString(PAGE_SIZE));
+      System.setProperty("inetsoft.storage.blob.admitAfter", "100");
+      engine = new FilesystemBlobEngine(tempDir.resolve("engine"));
+      data = new byte[PAGE_SIZE * 8 + 100];
+      new Random(1L).nextBytes(data);
+      Path file = tempDir.resolve("blob.dat");
+      Files.write(file, data);
+      String digest = HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(data));
+      blob = new Blob<>("path/to/blob", digest, data.length, Instant.now(), null);
+      engine.write("store", digest, file);
+   }
+
+   @AfterEach
+   void tearDown() {
+      System.clearProperty("inetsoft.storage.blob.pageSize");
+      System.clearProperty("inetsoft.storage.blob.admitAfter");
+   }
+
+   @Test
+   void randomReadOnlyFetchesTheNeededPage() throws Exception {
+      BlobCache cache = new BlobCache(tempDir.resolve("cache"), engine, false, true);
+      ByteBuffer buffer = ByteBuffer.allocate(100);
+
+      try(BlobChannel channel = cache.getReadChannel("store", blob)) {
+         channel.position(PAGE_SIZE * 5L + 10L);
+         assertEquals(100, channel.read(buffer));
+      }
+
+      assertArrayEquals(
+         Arrays.copyOfRange(data, PAGE_SIZE * 5 + 10, PAGE_SIZE * 5 + 110), buffer.array());
+      assertEquals(1L, cache.getStatistics().getRangeReads());
+      assertEquals(1L, cache.getStatistics().getMisses());
+      assertNull(cache.getIfCached("store", blob));
+   }
+
+   @Test
+   void completelyReadBlobIsCached() throws Exception {
+      BlobCache cache = new BlobCache(tempDir.resolve("cache"), engine, false, true);
+
+      try(InputStream input = Channels.newInputStream(cache.getReadChannel("store", blob))) {
+         assertArrayEquals(data, input.readAllBytes());
+      }
+
+      assertEquals(9L, cache.getStatistics().getRangeReads());
+      assertEquals(data.length, cache.getStatistics().getRangeBytes());
+      assertArrayEquals(data, Files.readAllBytes(cache.get("store", blob)));
+      assertEquals(1L, cache.getStatistics().getHits());
+   }
+
+   @Test
+   void mappedRegionIsFetched() throws Exception {
+      BlobCache cache = new BlobCache(tempDir.resolve("cache"), engine, false, true);
+
+      try(BlobChannel channel = cache.getReadChannel("store", blob)) {
+         ByteBuffer buffer = channel.map(PAGE_SIZE - 10L, 20L);
+         byte[] bytes = new byte[20];
+         buffer.get(bytes);
+         channel.unmap(buffer);
+
+         assertArrayEquals(Arrays.copyOfRange(data, PAGE_SIZE - 10, PAGE_SIZE + 10), bytes);
+         assertEquals(PAGE_SIZE + 10L, channel.position());
+      }
+   }
+
+   @Test
+   void frequentlyOpenedBlobIsCached() throws Exception {
+      System.setProperty("inetsoft.storage.blob.admitAfter", "2");
+      BlobCache cache = new BlobCache(tempDir.resolve("cache"), engine, false, true);
+
+      for(int i = 0; i < 2; i++) {
+         try(BlobChannel channel = cache.getReadChannel("store", blob)) {
+            channel.read(ByteBuffer.allocate(10));
+         }
+      }
+
+      long timeout = System.currentTimeMillis() + 10000L;
+
+      while(cache.getIfCached("store", blob) == null && System.currentTimeMillis() < timeout) {
+         Thread.sleep(50L);
+      }
+
+      assertNotNull(cache.getIfCached("store", blob));
+      assertEquals(1L, cache.getStatistics().getAdmissions());
+   }
+
+   @Test
+   void cachedBlobIsNotReadByRange() throws Exception {
+      BlobCache cache = new BlobCache(tempDir.resolve("cache"), engine, false, true);
+      cache.get("store", blob);
+
+      try(BlobChannel channel = cache.getReadChannel("store", blob)) {
+         assertInstanceOf(BlobReadChannel.class, channel);
+      }
+
+      assertEquals(0L, cache.getStatistics().getRangeReads());
+   }
+
+   @TempDir
+   Path tempDir;
+   private FilesystemBlobEngine engine;
+   private byte[] data;
+   private Blob<Serializable> blob;
+   private static final int PAGE_SIZE = 64 * 1024;
+}
@@ -0,0 +1,141 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2025  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.storage;
+
+import inetsoft.storage.fs.FilesystemBlobEngine;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that {@link BlobChunker} splits large blobs on content-defined boundaries and that the
+ * chunked blobs are assembled again by the blob engine and cache.
+ */
+@Tag("core")
+class BlobChunkerTest {
+   @Test
+   void smallBlobIsNotChunked() throws Exception {
+      Path file = write("small.dat", createData(1024, 1L));
+      assertNull(BlobChunker.split(file));
+   }
+
+   @Test
+   void chunksAreWithinBoundsAndCoverTheFile() throws Exception {
+      byte[] data = createData(8 * 1024 * 1024, 1L);
+      List<BlobChunk> chunks = BlobChunker.split(write("large.dat", data));
+
+      assertNotNull(chunks);
+      assertEquals(data.length, chunks.stream().mapToLong(BlobChunk::getLength).sum());
+
+      for(int i = 0; i < chunks.size() - 1; i++) {
+         long length = chunks.get(i).getLength();
+         assertTrue(length >= BlobChunker.MIN_CHUNK_SIZE, "Chunk too small: " + length);
+         assertTrue(length <= BlobChunker.MAX_CHUNK_SIZE, "Chunk too large: " + length);
+      }
+   }
+
+   @Test
+   void insertionOnlyChangesNearbyChunks() throws Exception {
+      byte[] data = createData(8 * 1024 * 1024, 1L);
+      byte[] edited = new byte[data.length + 100];
+      int offset = data.length / 2;
+      System.arraycopy(data, 0, edited, 0, offset);
+      System.arraycopy(data, offset, edited, offset + 100, data.length - offset);
+
+      List<BlobChunk> chunks = BlobChunker.split(write("original.dat", data));
+      List<BlobChunk> editedChunks = BlobChunker.split(write("edited.dat", edited));
+      Set<BlobChunk> added = new HashSet<>(editedChunks);
+      chunks.forEach(added::remove);
+
+      assertTrue(added.size() <= 2, "Too many changed chunks: " + added.size());
+   }
+
+   @Test
+   void chunkedBlobIsAssembledFromStorage() throws Exception {
+      FilesystemBlobEngine engine = new FilesystemBlobEngine(tempDir.resolve("engine"));
+      BlobCache cache = new BlobCache(tempDir.resolve("cache"), engine, true);
+      byte[] data = createData(4 * 1024 * 1024, 2L);
+      Path tempFile = write("blob.dat", data);
+      Blob<Serializable> blob = cache.split(createBlob(data), tempFile);
+
+      assertNotNull(blob.getChunks());
+      cache.put("store", blob, tempFile);
+
+      assertFalse(engine.exists("store", blob.getDigest()));
+      assertTrue(engine.exists("store", blob.getChunks().get(0).getKey()));
+
+      cache.remove("store", blob);
+      assertArrayEquals(data, Files.readAllBytes(cache.get("store", blob)));
+
+      Path target = tempDir.resolve("exported.dat");
+      engine.read("store", blob, target);
+      assertArrayEquals(data, Files.readAllBytes(target));
+   }
+
+   @Test
+   void corruptedChunksDoNotReplaceTheTarget() throws Exception {
+      FilesystemBlobEngine engine = new FilesystemBlobEngine(tempDir.resolve("engine"));
+      byte[] data = createData(4 * 1024 * 1024, 2L);
+      Path tempFile = write("blob.dat", data);
+      Blob<Serializable> blob = createBlob(data);
+      blob = blob.withChunks(BlobChunker.split(tempFile));
+      engine.write("store", blob, tempFile);
+
+      Blob<Serializable> corrupted = new Blob<>(
+         blob.getPath(), "0".repeat(32), blob.getLength(), blob.getLastModified(), null,
+         blob.getChunks());
+      Path target = write("target.dat", new byte[] { 1, 2, 3 });
+
+      assertThrows(IOException.class, () -> BlobChunker.read(engine, "store", corrupted, target));
+      assertArrayEquals(new byte[] { 1, 2, 3 }, Files.readAllBytes(target));
+
+      BlobChunker.read(engine, "store", blob, target);
+      assertArrayEquals(data, Files.readAllBytes(target));
+      assertEquals(2, Files.list(tempDir).filter(f -> !Files.isDirectory(f)).count());
+   }
+
+   private Path write(String name, byte[] data) throws Exception {
+      Path file = tempDir.resolve(name);
+      Files.write(file, data);
+      return file;
+   }
+
+   private static byte[] createData(int length, long seed) {
+      byte[] data = new byte[length];
+      new Random(seed).nextBytes(data);
+      return data;
+   }
+
+   private static Blob<Serializable> createBlob(byte[] data) throws Exception {
+      String digest = HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(data));
+      return new Blob<>("path/to/blob", digest, data.length, Instant.now(), null);
+   }
+
+   @TempDir
+   Path tempDir;
+}
@@ -0,0 +1,158 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2025  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.storage;
+
+import inetsoft.test.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that the blob tasks count the references to the whole object and to the chunks of a
+ * digest separately, so neither form leaks when the same content is stored in both forms.
+ */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { BaseTestConfiguration.class }, initializers = ConfigurationContextInitializer.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@SreeHome
+@Tag("core")
+class BlobTaskTest {
+   @BeforeEach
+   void setUp(TestInfo info) throws Exception {
+      id = "blob-task-" + info.getTestMethod().orElseThrow().getName();
+      engine = BlobEngine.getInstance();
+      data = new byte[4 * 1024 * 1024];
+      new Random(3L).nextBytes(data);
+      file = tempDir.resolve("blob.dat");
+      Files.write(file, data);
+      digest = HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(data));
+      chunks = BlobChunker.split(file);
+      assertNotNull(chunks);
+   }
+
+   @Test
+   void wholeThenChunkedIsDeletedByForm() throws Exception {
+      put(createBlob("a", null));
+      put(createBlob("b", chunks));
+      assertTrue(engine.exists(id, digest));
+      assertTrue(chunksExist());
+
+      delete("a");
+      assertFalse(engine.exists(id, digest));
+      assertTrue(chunksExist());
+
+      delete("b");
+      assertTrue(chunksDeleted());
+   }
+
+   @Test
+   void chunkedThenWholeIsDeletedByForm() throws Exception {
+      put(createBlob("a", chunks));
+      put(createBlob("b", null));
+
+      delete("a");
+      assertTrue(engine.exists(id, digest));
+      assertTrue(chunksDeleted());
+
+      delete("b");
+      assertFalse(engine.exists(id, digest));
+   }
+
+   @Test
+   void pathStoredAgainInTheOtherFormReleasesTheOldForm() throws Exception {
+      put(createBlob("a", null));
+      put(createBlob("a", chunks));
+      assertFalse(engine.exists(id, digest));
+      assertTrue(chunksExist());
+
+      put(createBlob("a", null));
+      assertTrue(engine.exists(id, digest));
+      assertTrue(chunksDeleted());
+
+      delete("a");
+      assertFalse(engine.exists(id, digest));
+   }
+
+   @Test
+   void deleteAllReleasesBothForms() throws Exception {
+      put(createBlob("a", null));
+      put(createBlob("b", chunks));
+      put(createBlob("c", chunks));
+
+      new DeleteAllBlobTask<Serializable>(id, new HashSet<>(Set.of("a", "b"))).call();
+      assertFalse(engine.exists(id, digest));
+      assertTrue(chunksExist());
+
+      new DeleteAllBlobTask<Serializable>(id, new HashSet<>(Set.of("c"))).call();
+      assertTrue(chunksDeleted());
+   }
+
+   @Test
+   void renamedChunkedBlobKeepsItsChunks() throws Exception {
+      put(createBlob("a", chunks));
+      BlobReference<Serializable> ref = new RenameBlobTask<Serializable>(id, "a", "b").call();
+
+      assertEquals(chunks, ref.getBlob().getChunks());
+      assertTrue(chunksExist());
+
+      delete("b");
+      assertTrue(chunksDeleted());
+   }
+
+   private void put(Blob<Serializable> blob) throws Exception {
+      engine.write(id, blob, file);
+      new PutBlobTask<>(id, blob).call();
+   }
+
+   private void delete(String path) throws Exception {
+      new DeleteBlobTask<Serializable>(id, path).call();
+   }
+
+   private boolean chunksExist() {
+      return chunks.stream().allMatch(chunk -> engine.exists(id, chunk.getKey()));
+   }
+
+   private boolean chunksDeleted() {
+      return chunks.stream().noneMatch(chunk -> engine.exists(id, chunk.getKey()));
+   }
+
+   private Blob<Serializable> createBlob(String path, List<BlobChunk> chunks) {
+      return new Blob<>(path, digest, data.length, Instant.now(), null, chunks);
+   }
+
+   @TempDir
+   Path tempDir;
+   private String id;
+   private BlobEngine engine;
+   private byte[] data;
+   private Path file;
+   private String digest;
+   private List<BlobChunk> chunks;
+}
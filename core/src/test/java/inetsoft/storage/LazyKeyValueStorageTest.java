@@ -0,0 +1,152 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2025  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.storage;
+
+import inetsoft.sree.internal.cluster.Cluster;
+import inetsoft.test.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that a lazily loaded store only replicates its keys and loads the values from the
+ * engine on demand.
+ */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { BaseTestConfiguration.class }, initializers = ConfigurationContextInitializer.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@SreeHome
+@Tag("core")
+class LazyKeyValueStorageTest {
+   @BeforeEach
+   void setUp() {
+      cluster = Cluster.getInstance();
+      storage = KeyValueStorage.newInstance(STORE_ID, cluster, new LazyLoadTask<>(STORE_ID));
+   }
+
+   @AfterEach
+   void tearDown() throws Exception {
+      storage.deleteStore().get(10, TimeUnit.SECONDS);
+      storage.close();
+   }
+
+   @Test
+   void valuesAreNotReplicated() throws Exception {
+      storage.put("a", "value-a").get(10, TimeUnit.SECONDS);
+      storage.put("b", "value-b").get(10, TimeUnit.SECONDS);
+
+      assertTrue(cluster.getReplicatedMap("inetsoft.storage.kv." + STORE_ID).isEmpty());
+      assertEquals(Set.of("a", "b"), cluster.getReplicatedMap(KeyValueTask.getKeyMapName(STORE_ID)).keySet());
+      assertEquals(2, storage.size());
+      assertTrue(storage.contains("a"));
+      assertEquals(Set.of("a", "b"), storage.keys().collect(Collectors.toSet()));
+   }
+
+   @Test
+   void valuesAreLoadedOnDemand() throws Exception {
+      storage.put("a", "value-a").get(10, TimeUnit.SECONDS);
+      storage.put("b", "value-b").get(10, TimeUnit.SECONDS);
+
+      assertEquals("value-a", storage.get("a"));
+      assertNull(storage.get("missing"));
+      assertEquals(Map.of("a", "value-a", "b", "value-b"), storage.stream()
+         .collect(Collectors.toMap(KeyValuePair::getKey, KeyValuePair::getValue)));
+   }
+
+   @Test
+   void updatedValueReplacesTheCachedValue() throws Exception {
+      storage.put("a", "value-a").get(10, TimeUnit.SECONDS);
+      assertEquals("value-a", storage.get("a"));
+
+      storage.put("a", "changed").get(10, TimeUnit.SECONDS);
+      assertEquals("changed", storage.get("a"));
+
+      storage.remove("a").get(10, TimeUnit.SECONDS);
+      assertFalse(storage.contains("a"));
+      assertNull(storage.get("a"));
+   }
+
+   @Test
+   void renamedValueIsReadUnderTheNewKey() throws Exception {
+      storage.put("a", "value-a").get(10, TimeUnit.SECONDS);
+      assertEquals("value-a", storage.get("a"));
+      assertNull(storage.get("b"));
+
+      storage.rename("a", "b", "value-b").get(10, TimeUnit.SECONDS);
+      assertNull(storage.get("a"));
+      assertEquals("value-b", storage.get("b"));
+   }
+
+   @Test
+   void readReturnsACopyOfTheCachedValue() throws Exception {
+      KeyValueStorage<ArrayList<String>> lists = KeyValueStorage.newInstance(
+         LIST_STORE_ID, cluster, new LazyLoadTask<>(LIST_STORE_ID));
+
+      try {
+         lists.put("a", new ArrayList<>(List.of("value-a"))).get(10, TimeUnit.SECONDS);
+         lists.get("a").add("changed");
+
+         assertEquals(List.of("value-a"), lists.get("a"));
+         assertNotSame(lists.get("a"), lists.get("a"));
+      }
+      finally {
+         lists.deleteStore().get(10, TimeUnit.SECONDS);
+         lists.close();
+      }
+   }
+
+   @Test
+   void reloadKeepsTheStampsOfUnchangedKeys() throws Exception {
+      storage.put("a", "value-a").get(10, TimeUnit.SECONDS);
+      storage.put("b", "value-b").get(10, TimeUnit.SECONDS);
+      Map<String, Long> keyMap = cluster.getReplicatedMap(KeyValueTask.getKeyMapName(STORE_ID));
+      Long stamp = keyMap.get("b");
+
+      // the key map is out of sync with the engine, so the keys are loaded again
+      keyMap.remove("a");
+      cluster.submit(STORE_ID, new LazyLoadTask<String>(STORE_ID)).get(10, TimeUnit.SECONDS);
+
+      assertEquals(Set.of("a", "b"), keyMap.keySet());
+      assertEquals(stamp, keyMap.get("b"));
+   }
+
+   private static final class LazyLoadTask<T extends Serializable> extends LoadKeyValueTask<T> {
+      LazyLoadTask(String id) {
+         super(id);
+      }
+
+      @Override
+      protected boolean isLazyLoad() {
+         return true;
+      }
+   }
+
+   private Cluster cluster;
+   private KeyValueStorage<String> storage;
+   private static final String STORE_ID = "lazyKeyValueStorageTest";
+   private static final String LIST_STORE_ID = "lazyKeyValueStorageTest.lists";
+}
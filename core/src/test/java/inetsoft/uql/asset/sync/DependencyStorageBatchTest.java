@@ -0,0 +1,123 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2025  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.uql.asset.sync;
+
+import inetsoft.storage.KeyValueStorage;
+import inetsoft.storage.KeyValueStorageManager;
+import inetsoft.test.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Verifies that the dependency updates made in a batch are only written when the batch is
+ * closed, and are visible to the thread that made them in the meantime.
+ */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { BaseTestConfiguration.class }, initializers = ConfigurationContextInitializer.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@SreeHome
+@Tag("core")
+class DependencyStorageBatchTest {
+   @BeforeEach
+   void setUp() {
+      service = new DependencyStorageService(keyValueStorageManager);
+      // a second instance has no batch, so it reads what was written to the storage
+      storage = new DependencyStorageService(keyValueStorageManager);
+   }
+
+   @AfterEach
+   void tearDown() {
+      service.remove(KEY);
+   }
+
+   @Test
+   void batchIsWrittenWhenClosed() throws Exception {
+      DependenciesInfo info = new DependenciesInfo();
+
+      try(DependencyStorageService.Batch ignored = service.startBatch()) {
+         service.put(KEY, info);
+
+         assertSame(info, service.get(KEY));
+         assertNull(storage.get(KEY));
+      }
+
+      assertNotNull(storage.get(KEY));
+   }
+
+   @Test
+   void nestedBatchIsWrittenWithTheOuterBatch() throws Exception {
+      try(DependencyStorageService.Batch ignored = service.startBatch()) {
+         try(DependencyStorageService.Batch ignored2 = service.startBatch()) {
+            service.put(KEY, new DependenciesInfo());
+         }
+
+         assertNull(storage.get(KEY));
+      }
+
+      assertNotNull(storage.get(KEY));
+   }
+
+   @Test
+   void removeWritesThePendingValuesFirst() throws Exception {
+      try(DependencyStorageService.Batch ignored = service.startBatch()) {
+         service.put(KEY, new DependenciesInfo());
+         service.remove(KEY);
+
+         assertNull(service.get(KEY));
+      }
+
+      assertNull(storage.get(KEY));
+   }
+
+   @Test
+   @SuppressWarnings("unchecked")
+   void failedWriteIsThrownWhenClosed() {
+      KeyValueStorageManager manager = mock(KeyValueStorageManager.class);
+      KeyValueStorage<RenameTransformObject> failing = mock(KeyValueStorage.class);
+      when(manager.getStorage(anyString(), any(LoadDependencyStorageTask.class)))
+         .thenAnswer(inv -> failing);
+      when(failing.putAll(any()))
+         .thenAnswer(inv -> CompletableFuture.failedFuture(new IllegalStateException("failed")));
+      DependencyStorageService failingService = new DependencyStorageService(manager);
+
+      RuntimeException ex = assertThrows(RuntimeException.class, () -> {
+         try(DependencyStorageService.Batch ignored = failingService.startBatch()) {
+            failingService.put(KEY, new DependenciesInfo());
+         }
+      });
+
+      assertInstanceOf(IllegalStateException.class, ex.getCause().getCause());
+   }
+
+   @Autowired
+   private KeyValueStorageManager keyValueStorageManager;
+   private DependencyStorageService service;
+   private DependencyStorageService storage;
+   private static final String KEY = "1^4097^__NULL__^batch/Test^host-org";
+}
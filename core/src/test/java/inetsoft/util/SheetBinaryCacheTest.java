@@ -0,0 +1,143 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2025  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.util;
+
+import inetsoft.test.*;
+import inetsoft.uql.asset.Assembly;
+import inetsoft.uql.asset.BoundTableAssembly;
+import inetsoft.uql.asset.Worksheet;
+import inetsoft.uql.viewsheet.*;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that {@link SheetBinaryCache} returns a copy of the parsed sheet that writes the same
+ * XML as the sheet parsed from the XML, with its assemblies linked to the copy.
+ */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { BaseTestConfiguration.class }, initializers = ConfigurationContextInitializer.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@SreeHome
+@Tag("core")
+class SheetBinaryCacheTest {
+   @Test
+   void viewsheetIsLoadedFromTheCache() throws Exception {
+      Viewsheet vs = new Viewsheet();
+      vs.addAssembly(new TextVSAssembly(vs, "Text1"));
+      vs.addAssembly(new TableVSAssembly(vs, "Table1"));
+      vs.addAssembly(new ChartVSAssembly(vs, "Chart1"));
+      Viewsheet parsed = reparse(vs, new Viewsheet());
+
+      SheetBinaryCache cache = new SheetBinaryCache(directory, 1024L * 1024L);
+      cache.put("digest1", "host-org", "ALL", parsed);
+      XMLSerializable cached = cache.get("digest1", "host-org", "ALL", Viewsheet.class.getName());
+
+      assertInstanceOf(Viewsheet.class, cached);
+      assertNotSame(parsed, cached);
+      assertEquals(toXML(parsed), toXML(cached));
+      assertNotNull(((Viewsheet) cached).getAssembly("Chart1"));
+
+      for(Assembly assembly : ((Viewsheet) cached).getAssemblies()) {
+         assertSame(cached, ((VSAssembly) assembly).getViewsheet());
+      }
+   }
+
+   @Test
+   void worksheetIsLoadedFromTheCache() throws Exception {
+      Worksheet ws = new Worksheet();
+      ws.addAssembly(new BoundTableAssembly(ws, "Query1"));
+      Worksheet parsed = reparse(ws, new Worksheet());
+
+      SheetBinaryCache cache = new SheetBinaryCache(directory, 1024L * 1024L);
+      cache.put("digest1", "host-org", "ALL", parsed);
+      XMLSerializable cached = cache.get("digest1", "host-org", "ALL", Worksheet.class.getName());
+
+      assertInstanceOf(Worksheet.class, cached);
+      assertEquals(toXML(parsed), toXML(cached));
+   }
+
+   @Test
+   void otherDigestOrClassIsNotCached() throws Exception {
+      Worksheet ws = reparse(new Worksheet(), new Worksheet());
+      SheetBinaryCache cache = new SheetBinaryCache(directory, 1024L * 1024L);
+      cache.put("digest1", "host-org", "ALL", ws);
+
+      assertNull(cache.get("digest2", "host-org", "ALL", Worksheet.class.getName()));
+      assertNull(cache.get("digest1", "other-org", "ALL", Worksheet.class.getName()));
+      assertNull(cache.get("digest1", "host-org", "ALL", Viewsheet.class.getName()));
+      assertNull(cache.get("digest1", "host-org", "NO_DATA", Worksheet.class.getName()));
+   }
+
+   @Test
+   void onlyAllowedClassesAreCached() {
+      assertTrue(SheetBinaryCache.isAllowed(Viewsheet.class));
+      assertTrue(SheetBinaryCache.isAllowed(String[].class));
+      assertTrue(SheetBinaryCache.isAllowed(java.util.HashMap.class));
+      assertFalse(SheetBinaryCache.isAllowed(java.net.URL.class));
+      assertFalse(SheetBinaryCache.isAllowed(ProcessBuilder.class));
+      assertFalse(SheetBinaryCache.isAllowed(java.io.File[].class));
+   }
+
+   @Test
+   void leastRecentlyUsedSheetsAreRemoved() throws Exception {
+      Viewsheet vs = new Viewsheet();
+      vs.addAssembly(new ChartVSAssembly(vs, "Chart1"));
+      Viewsheet parsed = reparse(vs, new Viewsheet());
+
+      SheetBinaryCache cache = new SheetBinaryCache(directory, 1L);
+      cache.put("digest1", "host-org", "ALL", parsed);
+      cache.put("digest2", "host-org", "ALL", parsed);
+
+      try(Stream<Path> files = Files.list(directory)) {
+         assertTrue(files.count() <= 1);
+      }
+   }
+
+   private static <T extends XMLSerializable> T reparse(XMLSerializable sheet, T target)
+      throws Exception
+   {
+      byte[] xml = toXML(sheet).getBytes("UTF-8");
+      target.parseXML(Tool.parseXML(new ByteArrayInputStream(xml)).getDocumentElement());
+      return target;
+   }
+
+   private static String toXML(XMLSerializable value) {
+      StringWriter buffer = new StringWriter();
+
+      try(PrintWriter writer = new PrintWriter(buffer)) {
+         value.writeXML(writer);
+      }
+
+      return buffer.toString();
+   }
+
+   @TempDir
+   Path directory;
+}
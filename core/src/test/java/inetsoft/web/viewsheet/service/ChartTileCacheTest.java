@@ -0,0 +1,116 @@
+/*
+ * This file is part of StyleBI.
+ * Copyright (C) 2025  InetSoft Technology
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package inetsoft.web.viewsheet.service;
+
+import inetsoft.report.composition.graph.VGraphPair;
+import inetsoft.sree.portal.CustomThemesManager;
+import inetsoft.test.*;
+import inetsoft.uql.viewsheet.internal.ChartVSAssemblyInfo;
+import inetsoft.uql.viewsheet.internal.VSUtil;
+import inetsoft.util.FileSystemService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.MockedStatic;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { BaseTestConfiguration.class }, initializers = ConfigurationContextInitializer.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+@SreeHome
+@Tag("core")
+class ChartTileCacheTest {
+   @Test
+   void pngSizeIsReadFromHeader() throws Exception {
+      byte[] png = VSUtil.getImageBytes(new BufferedImage(120, 80, BufferedImage.TYPE_INT_ARGB), 72);
+      assertEquals(new Dimension(120, 80), ChartTileCache.getPNGSize(png));
+      assertNull(ChartTileCache.getPNGSize(new byte[] { 1, 2, 3 }));
+      assertNull(ChartTileCache.getPNGSize(null));
+   }
+
+   @Test
+   void cachedImageIsSharedAndScheduledForRemoval() {
+      FileSystemService fileSystemService = mock(FileSystemService.class);
+      ChartTileCache cache = new ChartTileCache(fileSystemService);
+      String key = UUID.randomUUID().toString();
+      byte[] data = { 1, 2, 3, 4 };
+
+      assertNull(cache.get(key));
+      cache.put(key, data);
+
+      assertArrayEquals(data, new ChartTileCache(fileSystemService).get(key));
+      verify(fileSystemService).remove(any(Path.class), anyInt());
+   }
+
+   @Test
+   void chartWithScriptIsNotShared() {
+      ChartTileCache cache = new ChartTileCache(mock(FileSystemService.class));
+      VGraphPair pair = mock(VGraphPair.class);
+      when(pair.getContentHash()).thenReturn("hash");
+      ChartVSAssemblyInfo info = new ChartVSAssemblyInfo();
+
+      try(MockedStatic<CustomThemesManager> themes = mockThemes()) {
+         assertNotNull(cache.getKey(pair, info, "plot_0_0_0", 72, null));
+
+         info.setScriptEnabled(true);
+         info.setScript("graph.setScale(1, 1);");
+         assertNull(cache.getKey(pair, info, "plot_0_0_0", 72, null));
+      }
+   }
+
+   @Test
+   void keyDependsOnContentAndTile() {
+      ChartTileCache cache = new ChartTileCache(mock(FileSystemService.class));
+      VGraphPair pair = mock(VGraphPair.class);
+      ChartVSAssemblyInfo info = new ChartVSAssemblyInfo();
+
+      try(MockedStatic<CustomThemesManager> themes = mockThemes()) {
+         assertNull(cache.getKey(pair, info, "plot_0_0_0", 72, null));
+
+         when(pair.getContentHash()).thenReturn("hash1");
+         String key = cache.getKey(pair, info, "plot_0_0_0", 72, null);
+         assertNotNull(key);
+         assertEquals(key, cache.getKey(pair, info, "plot_0_0_0", 72, null));
+         assertNotEquals(key, cache.getKey(pair, info, "plot_0_1_0", 72, null));
+         assertNotEquals(key, cache.getKey(pair, info, "plot_0_0_0", 144, null));
+
+         when(pair.getContentHash()).thenReturn("hash2");
+         assertNotEquals(key, cache.getKey(pair, info, "plot_0_0_0", 72, null));
+      }
+   }
+
+   private static MockedStatic<CustomThemesManager> mockThemes() {
+      CustomThemesManager manager = mock(CustomThemesManager.class);
+      when(manager.getSelectedTheme(any())).thenReturn("default");
+      MockedStatic<CustomThemesManager> themes = mockStatic(CustomThemesManager.class);
+      themes.when(CustomThemesManager::getManager).thenReturn(manager);
+      return themes;
+   }
+}
@@ -152,6 +152,11 @@ public class MapDBKeyValueEngine implements KeyValueEngine {
          .stream();
    }
 
+   @Override
+   public Stream<String> keys(String id) {
+      return read(id, map -> new ArrayList<>(map.keySet())).stream();
+   }
+
    @Override
    public Stream<String> idStream() {
       List<String> ids = new ArrayList<>();
@@ -168,6 +173,23 @@ public class MapDBKeyValueEngine implements KeyValueEngine {
       return ids.stream();
    }
 
+   @Override
+   public <T> Map<String, T> getAll(String id, Set<String> keys) {
+      return read(id, (ConcurrentMap<String, T> map) -> {
+         Map<String, T> values = new HashMap<>();
+
+         for(String key : keys) {
+            T value = map.get(key);
+
+            if(value != null) {
+               values.put(key, value);
+            }
+         }
+
+         return values;
+      });
+   }
+
    @Override
    public <T> void putAll(String id, Map<String, T> keyValueMap) {
       if(keyValueMap.isEmpty()) {
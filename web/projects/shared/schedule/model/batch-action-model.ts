@@ -26,4 +26,5 @@ export interface BatchActionModel extends ScheduleActionModel {
    embeddedParameters: AddParameterDialogModel[][];
    queryEnabled: boolean;
    embeddedEnabled: boolean;
+   parallelCount: number;
 }
\ No newline at end of file